@@ -1,6 +1,12 @@
 package com.auth0.flickr2.config;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 
 /**
  * Properties specific to Flickr 2.
@@ -9,4 +15,442 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  * See {@link tech.jhipster.config.JHipsterProperties} for a good example.
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
-public class ApplicationProperties {}
+public class ApplicationProperties {
+
+    private final Storage storage = new Storage();
+
+    private final Processing processing = new Processing();
+
+    private final Variants variants = new Variants();
+
+    private final Search search = new Search();
+
+    private final Cache cache = new Cache();
+
+    public Storage getStorage() {
+        return storage;
+    }
+
+    public Processing getProcessing() {
+        return processing;
+    }
+
+    public Variants getVariants() {
+        return variants;
+    }
+
+    public Search getSearch() {
+        return search;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public static class Storage {
+
+        /**
+         * Directory of the local blob store holding photo images.
+         */
+        private String root = "./data/blobs";
+
+        public String getRoot() {
+            return root;
+        }
+
+        public void setRoot(String root) {
+            this.root = root;
+        }
+    }
+
+    public static class Processing {
+
+        /**
+         * Maximum number of uploaded photos processed at the same time on the task executor.
+         */
+        private int concurrency = 2;
+
+        /**
+         * Maximum number of uploaded photos waiting to be processed: photos uploaded while the queue is full stay
+         * pending in the database until the queue has been emptied.
+         */
+        private int queueCapacity = 1000;
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public void setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    public static class Variants {
+
+        /**
+         * Directory of the cache of rendered image variants.
+         */
+        private String cacheRoot = "./data/variants";
+
+        /**
+         * Maximum total size of the cached image variants: least recently used variants are evicted beyond it.
+         */
+        private DataSize cacheMaxSize = DataSize.ofGigabytes(1);
+
+        /**
+         * Maximum width and height of a rendered image variant, in pixels.
+         */
+        private int maxDimension = 4096;
+
+        public String getCacheRoot() {
+            return cacheRoot;
+        }
+
+        public void setCacheRoot(String cacheRoot) {
+            this.cacheRoot = cacheRoot;
+        }
+
+        public DataSize getCacheMaxSize() {
+            return cacheMaxSize;
+        }
+
+        public void setCacheMaxSize(DataSize cacheMaxSize) {
+            this.cacheMaxSize = cacheMaxSize;
+        }
+
+        public int getMaxDimension() {
+            return maxDimension;
+        }
+
+        public void setMaxDimension(int maxDimension) {
+            this.maxDimension = maxDimension;
+        }
+    }
+
+    public static class Search {
+
+        /**
+         * Directory of the full-text search index, which is kept in memory when empty.
+         */
+        private String indexRoot = "./data/search";
+
+        public String getIndexRoot() {
+            return indexRoot;
+        }
+
+        public void setIndexRoot(String indexRoot) {
+            this.indexRoot = indexRoot;
+        }
+    }
+
+    public static class Cache {
+
+        /**
+         * Directory of the disk tier of the cache regions.
+         */
+        private String persistenceRoot = "./data/cache";
+
+        /**
+         * Resources of the cache regions, by region name: the other regions only have a heap tier, bounded by the
+         * {@code jhipster.cache.ehcache} number of entries and time to live.
+         */
+        private final Map<String, Region> regions = new LinkedHashMap<>();
+
+        private final WarmStart warmStart = new WarmStart();
+
+        private final Cluster cluster = new Cluster();
+
+        public String getPersistenceRoot() {
+            return persistenceRoot;
+        }
+
+        public void setPersistenceRoot(String persistenceRoot) {
+            this.persistenceRoot = persistenceRoot;
+        }
+
+        public Map<String, Region> getRegions() {
+            return regions;
+        }
+
+        public WarmStart getWarmStart() {
+            return warmStart;
+        }
+
+        public Cluster getCluster() {
+            return cluster;
+        }
+
+        public static class Region {
+
+            /**
+             * Size of the heap tier, holding the hottest entries: its entries are measured by walking their object
+             * graph, so it is best kept small, and the JVM must open {@code java.base/java.util} to the application
+             * for the walk to reach the collections of the entries.
+             */
+            private DataSize heap;
+
+            /**
+             * Number of entries of the heap tier, when its size is not set.
+             */
+            private Long heapEntries;
+
+            /**
+             * Size of the off-heap tier, holding serialized entries outside of the Java heap: it must be larger than
+             * the heap tier, and fit in the direct memory of the JVM.
+             */
+            private DataSize offHeap;
+
+            /**
+             * Size of the disk tier, holding serialized entries in the persistence root: it must be larger than the
+             * other tiers.
+             */
+            private DataSize disk;
+
+            /**
+             * Whether the entries of the disk tier are kept when the application restarts.
+             */
+            private boolean persistent;
+
+            /**
+             * Time to live of the entries, which defaults to the {@code jhipster.cache.ehcache} one.
+             */
+            private Duration timeToLive;
+
+            /**
+             * Time before the expiry of an entry of a Spring cache region from which it is loaded again in the
+             * background when it is read, so that the reads of a popular entry never wait for its load.
+             */
+            private Duration refreshAhead;
+
+            public DataSize getHeap() {
+                return heap;
+            }
+
+            public void setHeap(DataSize heap) {
+                this.heap = heap;
+            }
+
+            public Long getHeapEntries() {
+                return heapEntries;
+            }
+
+            public void setHeapEntries(Long heapEntries) {
+                this.heapEntries = heapEntries;
+            }
+
+            public DataSize getOffHeap() {
+                return offHeap;
+            }
+
+            public void setOffHeap(DataSize offHeap) {
+                this.offHeap = offHeap;
+            }
+
+            public DataSize getDisk() {
+                return disk;
+            }
+
+            public void setDisk(DataSize disk) {
+                this.disk = disk;
+            }
+
+            public boolean isPersistent() {
+                return persistent;
+            }
+
+            public void setPersistent(boolean persistent) {
+                this.persistent = persistent;
+            }
+
+            public Duration getTimeToLive() {
+                return timeToLive;
+            }
+
+            public void setTimeToLive(Duration timeToLive) {
+                this.timeToLive = timeToLive;
+            }
+
+            public Duration getRefreshAhead() {
+                return refreshAhead;
+            }
+
+            public void setRefreshAhead(Duration refreshAhead) {
+                this.refreshAhead = refreshAhead;
+            }
+        }
+
+        public static class WarmStart {
+
+            /**
+             * Whether the keys of the regions are saved when the application stops, and loaded again in the
+             * background when it starts.
+             */
+            private boolean enabled;
+
+            /**
+             * Directory of the saved keys of the regions.
+             */
+            private String snapshotRoot = "./data/cache-snapshots";
+
+            /**
+             * Regions whose keys are saved: entity and collection regions of the second-level cache, or
+             * {@code usersByLogin}.
+             */
+            private List<String> regions = new ArrayList<>();
+
+            /**
+             * Small entity regions entirely loaded from the database when the application starts.
+             */
+            private List<String> preload = new ArrayList<>();
+
+            /**
+             * Maximum number of keys saved, or entities preloaded, by region.
+             */
+            private int maxKeys = 10000;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public String getSnapshotRoot() {
+                return snapshotRoot;
+            }
+
+            public void setSnapshotRoot(String snapshotRoot) {
+                this.snapshotRoot = snapshotRoot;
+            }
+
+            public List<String> getRegions() {
+                return regions;
+            }
+
+            public void setRegions(List<String> regions) {
+                this.regions = regions;
+            }
+
+            public List<String> getPreload() {
+                return preload;
+            }
+
+            public void setPreload(List<String> preload) {
+                this.preload = preload;
+            }
+
+            public int getMaxKeys() {
+                return maxKeys;
+            }
+
+            public void setMaxKeys(int maxKeys) {
+                this.maxKeys = maxKeys;
+            }
+        }
+
+        public static class Cluster {
+
+            /**
+             * Address on which the invalidations of the other members are received: the loopback address by default,
+             * which must be replaced by an address of the private network of the members.
+             */
+            private String bindAddress = "127.0.0.1";
+
+            /**
+             * Secret shared by the members of the cluster, authenticating their invalidations: required.
+             */
+            private String secret;
+
+            /**
+             * Port on which the invalidations of the other members are received.
+             */
+            private int port = 5801;
+
+            /**
+             * Other members of the cluster, as {@code host:port}.
+             */
+            private List<String> members = new ArrayList<>();
+
+            /**
+             * Timeout of the connection to a member: writes are not delayed longer when a member is down.
+             */
+            private Duration connectTimeout = Duration.ofSeconds(1);
+
+            /**
+             * Timeout of the writes to a member: a member which stops reading its invalidations is disconnected.
+             */
+            private Duration writeTimeout = Duration.ofSeconds(5);
+
+            /**
+             * Delay before connecting again to a member which could not be reached, dropping its invalidations
+             * meanwhile: the member clears its regions when it is reached again.
+             */
+            private Duration retryDelay = Duration.ofSeconds(5);
+
+            public String getBindAddress() {
+                return bindAddress;
+            }
+
+            public void setBindAddress(String bindAddress) {
+                this.bindAddress = bindAddress;
+            }
+
+            public String getSecret() {
+                return secret;
+            }
+
+            public void setSecret(String secret) {
+                this.secret = secret;
+            }
+
+            public int getPort() {
+                return port;
+            }
+
+            public void setPort(int port) {
+                this.port = port;
+            }
+
+            public List<String> getMembers() {
+                return members;
+            }
+
+            public void setMembers(List<String> members) {
+                this.members = members;
+            }
+
+            public Duration getConnectTimeout() {
+                return connectTimeout;
+            }
+
+            public void setConnectTimeout(Duration connectTimeout) {
+                this.connectTimeout = connectTimeout;
+            }
+
+            public Duration getWriteTimeout() {
+                return writeTimeout;
+            }
+
+            public void setWriteTimeout(Duration writeTimeout) {
+                this.writeTimeout = writeTimeout;
+            }
+
+            public Duration getRetryDelay() {
+                return retryDelay;
+            }
+
+            public void setRetryDelay(Duration retryDelay) {
+                this.retryDelay = retryDelay;
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.auth0.flickr2.config;
+
+import com.auth0.flickr2.service.storage.BlobStore;
+import com.auth0.flickr2.service.storage.FileSystemBlobStore;
+import com.auth0.flickr2.service.storage.VariantCache;
+import java.nio.file.Paths;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class BlobStoreConfiguration {
+
+    private final Logger log = LoggerFactory.getLogger(BlobStoreConfiguration.class);
+
+    @Bean
+    @ConditionalOnMissingBean(BlobStore.class)
+    public BlobStore blobStore(ApplicationProperties applicationProperties) {
+        FileSystemBlobStore blobStore = new FileSystemBlobStore(Paths.get(applicationProperties.getStorage().getRoot()));
+        log.debug("Storing blobs in {}", blobStore.getRoot());
+        return blobStore;
+    }
+
+    @Bean
+    public VariantCache variantCache(ApplicationProperties applicationProperties) {
+        ApplicationProperties.Variants variants = applicationProperties.getVariants();
+        VariantCache variantCache = new VariantCache(Paths.get(variants.getCacheRoot()), variants.getCacheMaxSize().toBytes());
+        log.debug("Caching up to {} of image variants in {}", variants.getCacheMaxSize(), variants.getCacheRoot());
+        return variantCache;
+    }
+}
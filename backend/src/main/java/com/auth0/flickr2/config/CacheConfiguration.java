@@ -1,10 +1,34 @@
 package com.auth0.flickr2.config;
 
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+import javax.cache.Caching;
 import org.ehcache.config.builders.*;
+import org.ehcache.config.units.EntryUnit;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.impl.config.persistence.DefaultPersistenceConfiguration;
+import org.ehcache.impl.serialization.PlainJavaSerializer;
 import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
 import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
+import org.springframework.boot.actuate.cache.CachesEndpoint;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
 import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
 import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.boot.info.BuildProperties;
@@ -21,10 +45,13 @@ public class CacheConfiguration {
 
     private GitProperties gitProperties;
     private BuildProperties buildProperties;
+    private final JHipsterProperties.Cache.Ehcache ehcache;
+    private final ApplicationProperties.Cache cacheProperties;
     private final javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration;
 
-    public CacheConfiguration(JHipsterProperties jHipsterProperties) {
-        JHipsterProperties.Cache.Ehcache ehcache = jHipsterProperties.getCache().getEhcache();
+    public CacheConfiguration(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties) {
+        ehcache = jHipsterProperties.getCache().getEhcache();
+        cacheProperties = applicationProperties.getCache();
 
         jcacheConfiguration =
             Eh107Configuration.fromEhcacheCacheConfiguration(
@@ -35,6 +62,25 @@ public class CacheConfiguration {
             );
     }
 
+    /**
+     * Create the JCache cache manager, with the persistence service of the disk tier when a region has one, and
+     * create its regions with the {@link JCacheManagerCustomizer}s.
+     */
+    @Bean
+    public javax.cache.CacheManager jCacheCacheManager(ObjectProvider<JCacheManagerCustomizer> cacheManagerCustomizers) {
+        EhcacheCachingProvider cachingProvider = (EhcacheCachingProvider) Caching.getCachingProvider(
+            EhcacheCachingProvider.class.getName()
+        );
+        ClassLoader classLoader = cachingProvider.getDefaultClassLoader();
+        boolean persistence = cacheProperties.getRegions().values().stream().anyMatch(region -> region.getDisk() != null);
+        DefaultConfiguration configuration = persistence
+            ? new DefaultConfiguration(classLoader, new DefaultPersistenceConfiguration(new File(cacheProperties.getPersistenceRoot())))
+            : new DefaultConfiguration(classLoader);
+        javax.cache.CacheManager cacheManager = cachingProvider.getCacheManager(cachingProvider.getDefaultURI(), configuration);
+        cacheManagerCustomizers.orderedStream().forEach(customizer -> customizer.customize(cacheManager));
+        return cacheManager;
+    }
+
     @Bean
     public HibernatePropertiesCustomizer hibernatePropertiesCustomizer(javax.cache.CacheManager cacheManager) {
         return hibernateProperties -> hibernateProperties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
@@ -51,6 +97,8 @@ public class CacheConfiguration {
             createCache(cm, com.auth0.flickr2.domain.Album.class.getName());
             createCache(cm, com.auth0.flickr2.domain.Photo.class.getName());
             createCache(cm, com.auth0.flickr2.domain.Photo.class.getName() + ".tags");
+            createCache(cm, com.auth0.flickr2.domain.PhotoContent.class.getName());
+            createCache(cm, com.auth0.flickr2.domain.PhotoContent.class.getName() + ".thumbnails");
             createCache(cm, com.auth0.flickr2.domain.Tag.class.getName());
             createCache(cm, com.auth0.flickr2.domain.Tag.class.getName() + ".photos");
             // jhipster-needle-ehcache-add-entry
@@ -62,8 +110,137 @@ public class CacheConfiguration {
         if (cache != null) {
             cache.clear();
         } else {
-            cm.createCache(cacheName, jcacheConfiguration);
+            cm.createCache(cacheName, jcacheConfiguration(cacheName));
+        }
+        // the hits, misses, puts and evictions of the regions are read from their statistics by the cache metrics
+        cm.enableStatistics(cacheName, true);
+    }
+
+    /**
+     * Get the configuration of a region: regions without {@code application.cache.regions} resources share the
+     * default heap-only configuration, the others are sized in bytes, with their off-heap and disk tiers holding
+     * serialized entries.
+     */
+    private javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration(String cacheName) {
+        ApplicationProperties.Cache.Region region = cacheProperties.getRegions().get(cacheName);
+        if (region == null) {
+            return jcacheConfiguration;
+        }
+        ResourcePoolsBuilder resourcePools = region.getHeap() != null
+            ? ResourcePoolsBuilder.newResourcePoolsBuilder().heap(region.getHeap().toBytes(), MemoryUnit.B)
+            : ResourcePoolsBuilder
+                .newResourcePoolsBuilder()
+                .heap(region.getHeapEntries() != null ? region.getHeapEntries() : ehcache.getMaxEntries(), EntryUnit.ENTRIES);
+        if (region.getOffHeap() != null) {
+            resourcePools = resourcePools.offheap(region.getOffHeap().toBytes(), MemoryUnit.B);
         }
+        if (region.getDisk() != null) {
+            resourcePools = resourcePools.disk(region.getDisk().toBytes(), MemoryUnit.B, region.isPersistent());
+        }
+        Duration timeToLive = region.getTimeToLive() != null ? region.getTimeToLive() : Duration.ofSeconds(ehcache.getTimeToLiveSeconds());
+        CacheConfigurationBuilder<Object, Object> cacheConfiguration = CacheConfigurationBuilder
+            .newCacheConfigurationBuilder(Object.class, Object.class, resourcePools)
+            .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(timeToLive));
+        if (region.getOffHeap() != null || region.getDisk() != null) {
+            // the entries of the second-level cache and of the Spring caches are serializable
+            PlainJavaSerializer<Object> serializer = new PlainJavaSerializer<>(CacheConfiguration.class.getClassLoader());
+            cacheConfiguration = cacheConfiguration.withKeySerializer(serializer).withValueSerializer(serializer);
+        }
+        return Eh107Configuration.fromEhcacheCacheConfiguration(cacheConfiguration.build());
+    }
+
+    /**
+     * Create the invalidation bus keeping the regions of the members of a cluster coherent.
+     */
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @Profile(Constants.SPRING_PROFILE_CLUSTER)
+    public CacheInvalidationBus cacheInvalidationBus(javax.cache.CacheManager cacheManager) {
+        ApplicationProperties.Cache.Cluster cluster = cacheProperties.getCluster();
+        if (cluster.getSecret() == null || cluster.getSecret().isEmpty()) {
+            throw new IllegalStateException("application.cache.cluster.secret must be set in the cluster profile");
+        }
+        InetSocketAddress bindAddress = new InetSocketAddress(cluster.getBindAddress(), cluster.getPort());
+        List<InetSocketAddress> members = cluster
+            .getMembers()
+            .stream()
+            .map(member -> {
+                int separator = member.lastIndexOf(':');
+                return separator < 0
+                    ? InetSocketAddress.createUnresolved(member, cluster.getPort())
+                    : InetSocketAddress.createUnresolved(member.substring(0, separator), Integer.parseInt(member.substring(separator + 1)));
+            })
+            .collect(Collectors.toList());
+        return new CacheInvalidationBus(
+            cacheManager,
+            bindAddress,
+            members,
+            cluster.getSecret().getBytes(StandardCharsets.UTF_8),
+            cluster.getConnectTimeout(),
+            cluster.getWriteTimeout(),
+            cluster.getRetryDelay()
+        );
+    }
+
+    @Bean
+    @Profile(Constants.SPRING_PROFILE_CLUSTER)
+    public HibernatePropertiesCustomizer clusterHibernatePropertiesCustomizer(CacheInvalidationBus cacheInvalidationBus) {
+        IntegratorProvider integratorProvider = () -> List.of(new ClusterCacheInvalidationIntegrator(cacheInvalidationBus));
+        return hibernateProperties -> hibernateProperties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER, integratorProvider);
+    }
+
+    /**
+     * Create the Spring cache manager of the JCache regions in place of the one of Spring Boot: its regions load each
+     * missing entry once, load again the entries about to expire when they have a refresh-ahead time, and send their
+     * evictions to the other members in the {@code cluster} profile.
+     */
+    @Bean
+    public RefreshAheadCacheManager cacheManager(
+        javax.cache.CacheManager cacheManager,
+        ObjectProvider<CacheInvalidationBus> cacheInvalidationBus,
+        @Qualifier("taskExecutor") Executor taskExecutor
+    ) {
+        Map<String, Duration> refreshAfter = new HashMap<>();
+        cacheProperties
+            .getRegions()
+            .forEach((cacheName, region) -> {
+                if (region.getRefreshAhead() != null) {
+                    Duration timeToLive = region.getTimeToLive() != null
+                        ? region.getTimeToLive()
+                        : Duration.ofSeconds(ehcache.getTimeToLiveSeconds());
+                    Duration refreshTime = timeToLive.minus(region.getRefreshAhead());
+                    refreshAfter.put(cacheName, refreshTime.isNegative() ? Duration.ZERO : refreshTime);
+                }
+            });
+        CacheInvalidationBus bus = cacheInvalidationBus.getIfAvailable();
+        return bus != null
+            ? new ClusterCacheManager(cacheManager, refreshAfter, taskExecutor, bus)
+            : new RefreshAheadCacheManager(cacheManager, refreshAfter, taskExecutor);
+    }
+
+    /**
+     * Bind the metrics of the regions of the Spring cache manager, which Spring Boot only binds for undecorated
+     * regions.
+     */
+    @Bean
+    public CacheMeterBinderProvider<org.springframework.cache.Cache> decoratedCacheMeterBinderProvider() {
+        return (cache, tags) -> {
+            Object nativeCache = cache.getNativeCache();
+            return nativeCache instanceof javax.cache.Cache ? new JCacheMetrics((javax.cache.Cache<?, ?>) nativeCache, tags) : null;
+        };
+    }
+
+    @Bean
+    public CacheLatencyMetrics cacheLatencyMetrics(javax.cache.CacheManager cacheManager) {
+        return new CacheLatencyMetrics(cacheManager, Tags.of("cacheManager", "cacheManager"));
+    }
+
+    @Bean
+    @ConditionalOnAvailableEndpoint(endpoint = CachesEndpoint.class)
+    public CachesEndpointFootprintExtension cachesEndpointFootprintExtension(
+        CachesEndpoint cachesEndpoint,
+        Map<String, org.springframework.cache.CacheManager> cacheManagers
+    ) {
+        return new CachesEndpointFootprintExtension(cachesEndpoint, cacheManagers);
     }
 
     @Autowired(required = false)
@@ -0,0 +1,510 @@
+package com.auth0.flickr2.config;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Invalidation bus between the JCache regions of the members of a cluster, each keeping its own regions as a near
+ * cache of the database.
+ * <p>
+ * An entry written by a member is removed from the same region of the other members, which load it again from the
+ * database on their next miss: the entities and collections written to the second-level cache are sent by
+ * {@link ClusterCacheInvalidationIntegrator} once their transaction is committed, and the evictions of the Spring
+ * cache regions by {@link ClusterCacheManager}.
+ * <p>
+ * Each member is sent its invalidations over TCP by its own thread, from a bounded queue, so that a slow member never
+ * delays the transactions: a member which cannot be reached, or which does not read its invalidations within the
+ * write timeout, misses the invalidations sent meanwhile, and clears all its regions once it is reached again.
+ * Messages are a region name and a {@code Long}, {@code Integer} or {@code String} key, written with
+ * {@link DataOutputStream}, or no key to clear the whole region. They are authenticated with an HMAC-SHA256 of a secret
+ * shared by the members, bound to a random challenge of the receiving member and to the position of the message in
+ * the connection.
+ */
+public class CacheInvalidationBus implements AutoCloseable {
+
+    private static final byte INVALIDATE = 1;
+
+    private static final byte EVICT_ENTITY = 2;
+
+    private static final byte EVICT_COLLECTION = 3;
+
+    private static final byte NO_KEY = 0;
+
+    private static final byte LONG_KEY = 1;
+
+    private static final byte INTEGER_KEY = 2;
+
+    private static final byte STRING_KEY = 3;
+
+    /**
+     * Type, then region name and string key of at most 65535 bytes each, with their lengths.
+     */
+    private static final int MAX_MESSAGE_BYTES = 1 + 2 + 65535 + 1 + 2 + 65535;
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private static final int MAC_BYTES = 32;
+
+    private static final int CHALLENGE_BYTES = 16;
+
+    /**
+     * Invalidations waiting to be sent to a member, beyond which they are dropped and the member cleared.
+     */
+    private static final int QUEUE_CAPACITY = 10000;
+
+    /**
+     * Clears all the regions of a member which has missed invalidations.
+     */
+    private static final byte[] CLEAR_ALL = { INVALIDATE, 0, 0, NO_KEY };
+
+    private final Logger log = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final CacheManager cacheManager;
+
+    private final InetSocketAddress bindAddress;
+
+    private final List<Member> members = new ArrayList<>();
+
+    private final SecretKeySpec secret;
+
+    private final int connectTimeout;
+
+    private final long writeTimeout;
+
+    private final long retryDelay;
+
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "cache-invalidation");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ServerSocket serverSocket;
+
+    private volatile SessionFactoryImplementor sessionFactory;
+
+    /**
+     * @param cacheManager the JCache manager of the regions of this member.
+     * @param bindAddress the address on which the invalidations of the other members are received.
+     * @param members the addresses of the other members.
+     * @param secret the secret shared by the members, authenticating their messages.
+     * @param connectTimeout the timeout of the connection to a member.
+     * @param writeTimeout the timeout of the writes to a member.
+     * @param retryDelay the delay before connecting again to a member which could not be reached.
+     */
+    public CacheInvalidationBus(
+        CacheManager cacheManager,
+        InetSocketAddress bindAddress,
+        List<InetSocketAddress> members,
+        byte[] secret,
+        Duration connectTimeout,
+        Duration writeTimeout,
+        Duration retryDelay
+    ) {
+        this.cacheManager = cacheManager;
+        this.bindAddress = bindAddress;
+        members.forEach(address -> this.members.add(new Member(address)));
+        this.secret = new SecretKeySpec(secret, MAC_ALGORITHM);
+        this.connectTimeout = (int) connectTimeout.toMillis();
+        this.writeTimeout = writeTimeout.toMillis();
+        this.retryDelay = retryDelay.toMillis();
+    }
+
+    /**
+     * Start receiving the invalidations of the other members, and sending them the invalidations of this member.
+     *
+     * @throws IOException if the bind address cannot be listened on.
+     */
+    public synchronized void start() throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.bind(bindAddress);
+        executor.execute(this::accept);
+        members.forEach(member -> executor.execute(member::run));
+        executor.execute(this::checkWrites);
+        log.info("Cache invalidation bus listening on {} for {} members", serverSocket.getLocalSocketAddress(), members.size());
+    }
+
+    /**
+     * Get the port on which the invalidations of the other members are received.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Set the session factory whose second-level cache receives the evictions of the other members, which are
+     * ignored until then.
+     */
+    public void setSessionFactory(SessionFactoryImplementor sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    @Override
+    public synchronized void close() {
+        executor.shutdownNow();
+        members.forEach(member -> closeQuietly(member.socket));
+        closeQuietly(serverSocket);
+        connections.forEach(CacheInvalidationBus::closeQuietly);
+    }
+
+    /**
+     * Remove an entry from a region of the other members, or the whole region if its key is not a {@code Long},
+     * an {@code Integer} or a {@code String}.
+     *
+     * @param cacheName the name of the region.
+     * @param key the key of the entry.
+     */
+    public void invalidate(String cacheName, Object key) {
+        send(INVALIDATE, cacheName, key);
+    }
+
+    /**
+     * Remove an entity from the second-level cache of the other members.
+     *
+     * @param entityName the name of the entity.
+     * @param id the identifier of the entity.
+     */
+    public void evictEntity(String entityName, Serializable id) {
+        send(EVICT_ENTITY, entityName, id);
+    }
+
+    /**
+     * Remove a collection from the second-level cache of the other members.
+     *
+     * @param role the role of the collection.
+     * @param ownerId the identifier of the owner of the collection.
+     */
+    public void evictCollection(String role, Serializable ownerId) {
+        send(EVICT_COLLECTION, role, ownerId);
+    }
+
+    /**
+     * Remove all the entries from a region of the other members.
+     *
+     * @param cacheName the name of the region.
+     */
+    public void clear(String cacheName) {
+        send(INVALIDATE, cacheName, null);
+    }
+
+    private void send(byte type, String name, Object key) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            DataOutputStream output = new DataOutputStream(bytes);
+            output.writeByte(type);
+            output.writeUTF(name);
+            if (key instanceof Long) {
+                output.writeByte(LONG_KEY);
+                output.writeLong((Long) key);
+            } else if (key instanceof Integer) {
+                output.writeByte(INTEGER_KEY);
+                output.writeInt((Integer) key);
+            } else if (key instanceof String && ((String) key).length() <= 65535 / 3) {
+                output.writeByte(STRING_KEY);
+                output.writeUTF((String) key);
+            } else {
+                if (key != null) {
+                    log.debug("Clearing cache region {} in the cluster, its key {} cannot be sent", name, key);
+                }
+                output.writeByte(NO_KEY);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] message = bytes.toByteArray();
+        members.forEach(member -> member.offer(message));
+    }
+
+    private Mac mac() {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(secret);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Compute the HMAC of a message, from the challenge of the connection and the position of the message in it.
+     */
+    private static byte[] authenticate(Mac mac, byte[] challenge, long sequence, byte[] message) {
+        mac.update(challenge);
+        mac.update(ByteBuffer.allocate(Long.BYTES).putLong(sequence).array());
+        return mac.doFinal(message);
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.add(socket);
+                executor.execute(() -> receive(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    log.warn("Could not accept a cache invalidation connection: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void receive(Socket socket) {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            byte[] challenge = new byte[CHALLENGE_BYTES];
+            random.nextBytes(challenge);
+            socket.getOutputStream().write(challenge);
+            Mac mac = mac();
+            for (long sequence = 0; ; sequence++) {
+                int length = input.readInt();
+                if (length < 1 || length > MAX_MESSAGE_BYTES) {
+                    throw new IOException("Invalid cache invalidation message length " + length);
+                }
+                byte[] message = new byte[length];
+                input.readFully(message);
+                byte[] code = new byte[MAC_BYTES];
+                input.readFully(code);
+                if (!MessageDigest.isEqual(code, authenticate(mac, challenge, sequence, message))) {
+                    throw new IOException("Cache invalidation message not authenticated");
+                }
+                handle(new DataInputStream(new ByteArrayInputStream(message)), socket);
+            }
+        } catch (EOFException | SocketException e) {
+            log.debug("Cache invalidation connection from {} closed", socket.getRemoteSocketAddress());
+        } catch (IOException e) {
+            log.warn("Closing cache invalidation connection from {}: {}", socket.getRemoteSocketAddress(), e.getMessage());
+        } finally {
+            connections.remove(socket);
+            closeQuietly(socket);
+        }
+    }
+
+    private void handle(DataInput message, Socket socket) throws IOException {
+        byte type = message.readByte();
+        String name = message.readUTF();
+        Object key = readKey(message);
+        SessionFactoryImplementor factory = sessionFactory;
+        if (type == EVICT_ENTITY && factory != null) {
+            if (key != null) {
+                factory.getCache().evictEntityData(name, (Serializable) key);
+            } else {
+                factory.getCache().evictEntityData(name);
+            }
+        } else if (type == EVICT_COLLECTION && factory != null) {
+            if (key != null) {
+                factory.getCache().evictCollectionData(name, (Serializable) key);
+            } else {
+                factory.getCache().evictCollectionData(name);
+            }
+        } else if (type == INVALIDATE && name.isEmpty()) {
+            log.info("Clearing the cache regions, invalidations from {} may have been missed", socket.getRemoteSocketAddress());
+            cacheManager.getCacheNames().forEach(cacheName -> cacheManager.getCache(cacheName).clear());
+        } else if (type == INVALIDATE) {
+            Cache<Object, Object> cache = cacheManager.getCache(name);
+            if (cache != null && key != null) {
+                cache.remove(key);
+            } else if (cache != null) {
+                cache.clear();
+            }
+        } else if (type != EVICT_ENTITY && type != EVICT_COLLECTION) {
+            throw new IOException("Unknown cache invalidation message " + type);
+        }
+    }
+
+    private static Object readKey(DataInput message) throws IOException {
+        byte keyType = message.readByte();
+        switch (keyType) {
+            case NO_KEY:
+                return null;
+            case LONG_KEY:
+                return message.readLong();
+            case INTEGER_KEY:
+                return message.readInt();
+            case STRING_KEY:
+                return message.readUTF();
+            default:
+                throw new IOException("Unknown cache invalidation key type " + keyType);
+        }
+    }
+
+    /**
+     * Disconnect the members whose write has been blocked for longer than the write timeout, failing the write.
+     */
+    private void checkWrites() {
+        long period = Math.max(writeTimeout / 4, 10);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Thread.sleep(period);
+                long now = System.currentTimeMillis();
+                for (Member member : members) {
+                    long writeStartedAt = member.writeStartedAt;
+                    if (writeStartedAt != 0 && now - writeStartedAt > writeTimeout) {
+                        log.warn("Cache invalidation member {} does not read its invalidations, disconnecting it", member.address);
+                        closeQuietly(member.socket);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            // already closed
+        }
+    }
+
+    /**
+     * Other member of the cluster, with the queue of its invalidations and the connection sending them.
+     */
+    private final class Member {
+
+        private final InetSocketAddress address;
+
+        private final BlockingQueue<byte[]> messages = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+
+        private volatile Socket socket;
+
+        /**
+         * When the write in progress started, or 0 when no write is in progress.
+         */
+        private volatile long writeStartedAt;
+
+        private volatile boolean missed;
+
+        private DataOutputStream output;
+
+        private byte[] challenge;
+
+        private Mac mac;
+
+        private long sequence;
+
+        private long retryAt;
+
+        private Member(InetSocketAddress address) {
+            this.address = address;
+        }
+
+        void offer(byte[] message) {
+            if (!messages.offer(message)) {
+                missed = true;
+            }
+        }
+
+        /**
+         * Send the queued invalidations, until the bus is closed.
+         */
+        void run() {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    byte[] message = messages.take();
+                    if (output == null && System.currentTimeMillis() < retryAt) {
+                        missed = true;
+                        continue;
+                    }
+                    try {
+                        if (output == null) {
+                            connect();
+                        }
+                        writeStartedAt = System.currentTimeMillis();
+                        if (missed) {
+                            missed = false;
+                            write(CLEAR_ALL);
+                        }
+                        write(message);
+                        if (messages.isEmpty()) {
+                            output.flush();
+                        }
+                    } catch (IOException e) {
+                        log.warn("Cache invalidation member {} cannot be reached: {}", address, e.getMessage());
+                        disconnect();
+                        retryAt = System.currentTimeMillis() + retryDelay;
+                        missed = true;
+                    } finally {
+                        writeStartedAt = 0;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                disconnect();
+            }
+        }
+
+        private void connect() throws IOException {
+            Socket connection = new Socket();
+            try {
+                connection.setTcpNoDelay(true);
+                // resolved again, for members whose address changes when they restart
+                connection.connect(new InetSocketAddress(address.getHostString(), address.getPort()), connectTimeout);
+                connection.setSoTimeout(connectTimeout);
+                challenge = connection.getInputStream().readNBytes(CHALLENGE_BYTES);
+                if (challenge.length < CHALLENGE_BYTES) {
+                    throw new EOFException("No challenge received");
+                }
+                output = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+            } catch (IOException e) {
+                closeQuietly(connection);
+                throw e;
+            }
+            socket = connection;
+            mac = mac();
+            sequence = 0;
+        }
+
+        private void write(byte[] message) throws IOException {
+            output.writeInt(message.length);
+            output.write(message);
+            output.write(authenticate(mac, challenge, sequence++, message));
+        }
+
+        private void disconnect() {
+            closeQuietly(socket);
+            socket = null;
+            output = null;
+        }
+    }
+}
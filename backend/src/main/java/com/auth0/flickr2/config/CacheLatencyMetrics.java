@@ -0,0 +1,101 @@
+package com.auth0.flickr2.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+import java.util.function.ToDoubleFunction;
+import javax.cache.CacheManager;
+import javax.cache.management.CacheStatisticsMXBean;
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+/**
+ * Latency metrics of the JCache regions, which complement the hits, misses, puts and evictions bound by Spring Boot:
+ * the average time of the gets, puts and removals of each region, from the statistics of the region.
+ * <p>
+ * The statistics of a region are only kept once they have been enabled, and the gauges of a region without statistics
+ * have no value.
+ */
+public class CacheLatencyMetrics implements MeterBinder {
+
+    private static final double MICROSECONDS_PER_SECOND = 1_000_000;
+
+    private final CacheManager cacheManager;
+
+    private final Iterable<Tag> tags;
+
+    public CacheLatencyMetrics(CacheManager cacheManager, Iterable<Tag> tags) {
+        this.cacheManager = cacheManager;
+        this.tags = tags;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (String cacheName : cacheManager.getCacheNames()) {
+            bind(registry, cacheName, "cache.gets.latency", "The average time of the gets", CacheStatisticsMXBean::getAverageGetTime);
+            bind(registry, cacheName, "cache.puts.latency", "The average time of the puts", CacheStatisticsMXBean::getAveragePutTime);
+            bind(
+                registry,
+                cacheName,
+                "cache.removals.latency",
+                "The average time of the removals",
+                CacheStatisticsMXBean::getAverageRemoveTime
+            );
+        }
+    }
+
+    private void bind(
+        MeterRegistry registry,
+        String cacheName,
+        String name,
+        String description,
+        ToDoubleFunction<CacheStatisticsMXBean> averageTime
+    ) {
+        Gauge
+            .builder(
+                name,
+                this,
+                metrics -> {
+                    CacheStatisticsMXBean statistics = metrics.getStatistics(cacheName);
+                    return statistics != null ? averageTime.applyAsDouble(statistics) / MICROSECONDS_PER_SECOND : Double.NaN;
+                }
+            )
+            .tags(tags)
+            .tag("cache", cacheName)
+            .description(description)
+            .baseUnit("seconds")
+            .register(registry);
+    }
+
+    /**
+     * Get the statistics of a region, which the JCache provider registers as an MBean when they are enabled.
+     */
+    private CacheStatisticsMXBean getStatistics(String cacheName) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        Set<ObjectName> names;
+        try {
+            names = server.queryNames(new ObjectName("javax.cache:type=CacheStatistics,Cache=" + sanitize(cacheName) + ",*"), null);
+        } catch (MalformedObjectNameException e) {
+            return null;
+        }
+        String cacheManagerName = sanitize(cacheManager.getURI().toString());
+        return names
+            .stream()
+            .filter(name -> cacheManagerName.equals(name.getKeyProperty("CacheManager")))
+            .findFirst()
+            .map(name -> JMX.newMXBeanProxy(server, name, CacheStatisticsMXBean.class))
+            .orElse(null);
+    }
+
+    /**
+     * Replace the characters which are not allowed in the values of object names, as the JCache providers do.
+     */
+    private static String sanitize(String value) {
+        return value == null ? "" : value.replaceAll("[,:=\n]", ".");
+    }
+}
@@ -0,0 +1,185 @@
+package com.auth0.flickr2.config;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.springframework.boot.actuate.cache.CachesEndpoint;
+import org.springframework.boot.actuate.cache.CachesEndpoint.CacheDescriptor;
+import org.springframework.boot.actuate.cache.CachesEndpoint.CacheManagerDescriptor;
+import org.springframework.boot.actuate.cache.CachesEndpoint.CachesReport;
+import org.springframework.boot.actuate.cache.CachesEndpointWebExtension;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.web.annotation.EndpointWebExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+/**
+ * Extension of the {@code caches} management endpoint, describing the footprint of each JCache region: its number of
+ * entries, an estimate of their size, and its largest keys.
+ * <p>
+ * The size of the entries is the size of their Java serialization, which is what the off-heap and disk tiers hold,
+ * measured on a sample of the entries then extrapolated to the whole region. Entries held on heap usually take a few
+ * times more. Reading the entries of a region takes time, and counts as hits in its statistics: the endpoint is meant
+ * to tune the size of the regions, not to be polled.
+ */
+@EndpointWebExtension(endpoint = CachesEndpoint.class)
+public class CachesEndpointFootprintExtension extends CachesEndpointWebExtension {
+
+    /**
+     * Number of entries of a region whose size is measured.
+     */
+    static final int SAMPLE_SIZE = 1000;
+
+    /**
+     * Number of keys of a region returned, the largest first.
+     */
+    static final int TOP_KEYS = 10;
+
+    private final Map<String, CacheManager> cacheManagers;
+
+    public CachesEndpointFootprintExtension(CachesEndpoint delegate, Map<String, CacheManager> cacheManagers) {
+        super(delegate);
+        this.cacheManagers = cacheManagers;
+    }
+
+    @ReadOperation
+    public CachesReport caches() {
+        Map<String, CacheManagerDescriptor> cacheManagerDescriptors = new TreeMap<>();
+        cacheManagers.forEach((cacheManagerName, cacheManager) -> {
+            Map<String, CacheDescriptor> cacheDescriptors = new TreeMap<>();
+            for (String cacheName : cacheManager.getCacheNames()) {
+                Cache cache = cacheManager.getCache(cacheName);
+                if (cache != null) {
+                    cacheDescriptors.put(cacheName, describe(cache.getNativeCache()));
+                }
+            }
+            cacheManagerDescriptors.put(cacheManagerName, new CacheManagerDescriptor(cacheDescriptors));
+        });
+        return new CachesReport(cacheManagerDescriptors);
+    }
+
+    private static CacheDescriptor describe(Object nativeCache) {
+        if (!(nativeCache instanceof javax.cache.Cache)) {
+            return new CacheDescriptor(nativeCache.getClass().getName());
+        }
+        long entryCount = 0;
+        List<KeyFootprint> sample = new ArrayList<>();
+        for (javax.cache.Cache.Entry<?, ?> entry : (javax.cache.Cache<?, ?>) nativeCache) {
+            entryCount++;
+            if (sample.size() < SAMPLE_SIZE) {
+                long keyBytes = serializedSize(entry.getKey());
+                long valueBytes = serializedSize(entry.getValue());
+                if (keyBytes >= 0 && valueBytes >= 0) {
+                    sample.add(new KeyFootprint(String.valueOf(entry.getKey()), keyBytes + valueBytes));
+                }
+            }
+        }
+        long sampleBytes = sample.stream().mapToLong(KeyFootprint::getBytes).sum();
+        sample.sort(Comparator.comparingLong(KeyFootprint::getBytes).reversed());
+        return new CacheFootprint(
+            nativeCache.getClass().getName(),
+            entryCount,
+            sample.isEmpty() ? null : Math.round((double) sampleBytes / sample.size() * entryCount),
+            new ArrayList<>(sample.subList(0, Math.min(TOP_KEYS, sample.size())))
+        );
+    }
+
+    /**
+     * Get the size of the Java serialization of an object.
+     *
+     * @return the size in bytes, or {@code -1} if the object is not serializable.
+     */
+    private static long serializedSize(Object object) {
+        CountingOutputStream bytes = new CountingOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(object);
+        } catch (IOException e) {
+            return -1;
+        }
+        return bytes.count;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
+    /**
+     * Description of a region, with its footprint.
+     */
+    public static final class CacheFootprint extends CacheDescriptor {
+
+        private final long entries;
+
+        private final Long estimatedBytes;
+
+        private final List<KeyFootprint> topKeys;
+
+        public CacheFootprint(String target, long entries, Long estimatedBytes, List<KeyFootprint> topKeys) {
+            super(target);
+            this.entries = entries;
+            this.estimatedBytes = estimatedBytes;
+            this.topKeys = topKeys;
+        }
+
+        public long getEntries() {
+            return entries;
+        }
+
+        /**
+         * Get the estimated size of the entries of the region.
+         *
+         * @return the size in bytes, or {@code null} if the region has no serializable entry.
+         */
+        public Long getEstimatedBytes() {
+            return estimatedBytes;
+        }
+
+        /**
+         * Get the largest keys of the sampled entries of the region.
+         *
+         * @return the keys, with the size of their entry, the largest first.
+         */
+        public List<KeyFootprint> getTopKeys() {
+            return topKeys;
+        }
+    }
+
+    /**
+     * Key of an entry of a region, with the size of the entry.
+     */
+    public static final class KeyFootprint {
+
+        private final String key;
+
+        private final long bytes;
+
+        public KeyFootprint(String key, long bytes) {
+            this.key = key;
+            this.bytes = bytes;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+    }
+}
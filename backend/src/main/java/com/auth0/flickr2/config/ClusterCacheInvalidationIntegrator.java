@@ -0,0 +1,136 @@
+package com.auth0.flickr2.config;
+
+import java.io.Serializable;
+import org.hibernate.boot.Metadata;
+import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionRemoveEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+/**
+ * Hibernate integrator sending the writes of the second-level cache to the other members of the cluster.
+ * <p>
+ * The entities updated or deleted, and the collections updated, removed or recreated by a transaction are removed
+ * from the regions of the other members once the transaction is committed, whether they were cached by this member or
+ * not: an entity loaded by another member before the commit cannot stay there with its previous state.
+ */
+public class ClusterCacheInvalidationIntegrator implements Integrator {
+
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    public ClusterCacheInvalidationIntegrator(CacheInvalidationBus cacheInvalidationBus) {
+        this.cacheInvalidationBus = cacheInvalidationBus;
+    }
+
+    @Override
+    public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        cacheInvalidationBus.setSessionFactory(sessionFactory);
+        EventListenerRegistry eventListenerRegistry = serviceRegistry.getService(EventListenerRegistry.class);
+        InvalidationListener listener = new InvalidationListener();
+        eventListenerRegistry.appendListeners(EventType.POST_UPDATE, listener);
+        eventListenerRegistry.appendListeners(EventType.POST_DELETE, listener);
+        eventListenerRegistry.appendListeners(EventType.POST_COLLECTION_UPDATE, listener);
+        eventListenerRegistry.appendListeners(EventType.POST_COLLECTION_REMOVE, listener);
+        eventListenerRegistry.appendListeners(EventType.POST_COLLECTION_RECREATE, listener);
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        cacheInvalidationBus.setSessionFactory(null);
+    }
+
+    private void invalidateEntity(EntityPersister persister, Serializable id, EventSource session) {
+        if (persister.canWriteToCache()) {
+            String entityName = persister.getEntityName();
+            afterCommit(session, () -> cacheInvalidationBus.evictEntity(entityName, id));
+        }
+    }
+
+    private void invalidateCollection(AbstractCollectionEvent event) {
+        PersistentCollection collection = event.getCollection();
+        String role = collection.getRole();
+        Serializable ownerId = collection.getKey();
+        if (role == null || ownerId == null) {
+            return;
+        }
+        EventSource session = event.getSession();
+        if (session.getFactory().getMetamodel().collectionPersister(role).hasCache()) {
+            afterCommit(session, () -> cacheInvalidationBus.evictCollection(role, ownerId));
+        }
+    }
+
+    private static void afterCommit(EventSource session, Runnable invalidation) {
+        session
+            .getActionQueue()
+            .registerProcess(
+                (success, completedSession) -> {
+                    if (success) {
+                        invalidation.run();
+                    }
+                }
+            );
+    }
+
+    private final class InvalidationListener
+        implements
+            PostUpdateEventListener,
+            PostDeleteEventListener,
+            PostCollectionUpdateEventListener,
+            PostCollectionRemoveEventListener,
+            PostCollectionRecreateEventListener {
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            invalidateEntity(event.getPersister(), event.getId(), event.getSession());
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            invalidateEntity(event.getPersister(), event.getId(), event.getSession());
+        }
+
+        @Override
+        public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+            invalidateCollection(event);
+        }
+
+        @Override
+        public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+            invalidateCollection(event);
+        }
+
+        @Override
+        public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+            invalidateCollection(event);
+        }
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            return false;
+        }
+
+        /**
+         * Still abstract in Hibernate 5.4, where {@link #requiresPostCommitHandling(EntityPersister)} replaces it.
+         */
+        @Deprecated
+        @Override
+        public boolean requiresPostCommitHanding(EntityPersister persister) {
+            return requiresPostCommitHandling(persister);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.auth0.flickr2.config;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import org.springframework.cache.Cache;
+
+/**
+ * Spring cache manager of the JCache regions sending the evictions of its regions to the other members of the cluster.
+ * <p>
+ * An entry evicted from a region is removed from the same region of the other members, whether it was cached by this
+ * member or not. The entries put in a region are the values loaded by {@code @Cacheable} methods, which are not sent.
+ */
+public class ClusterCacheManager extends RefreshAheadCacheManager {
+
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    public ClusterCacheManager(
+        javax.cache.CacheManager cacheManager,
+        Map<String, Duration> refreshAfter,
+        Executor executor,
+        CacheInvalidationBus cacheInvalidationBus
+    ) {
+        super(cacheManager, refreshAfter, executor);
+        this.cacheInvalidationBus = cacheInvalidationBus;
+    }
+
+    @Override
+    protected Cache decorateCache(Cache cache) {
+        return new InvalidatingCache(super.decorateCache(cache), cacheInvalidationBus);
+    }
+
+    private static final class InvalidatingCache implements Cache {
+
+        private final Cache cache;
+
+        private final CacheInvalidationBus cacheInvalidationBus;
+
+        private InvalidatingCache(Cache cache, CacheInvalidationBus cacheInvalidationBus) {
+            this.cache = cache;
+            this.cacheInvalidationBus = cacheInvalidationBus;
+        }
+
+        @Override
+        public String getName() {
+            return cache.getName();
+        }
+
+        @Override
+        public Object getNativeCache() {
+            return cache.getNativeCache();
+        }
+
+        @Override
+        public ValueWrapper get(Object key) {
+            return cache.get(key);
+        }
+
+        @Override
+        public <T> T get(Object key, Class<T> type) {
+            return cache.get(key, type);
+        }
+
+        @Override
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            return cache.get(key, valueLoader);
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            cache.put(key, value);
+        }
+
+        @Override
+        public ValueWrapper putIfAbsent(Object key, Object value) {
+            return cache.putIfAbsent(key, value);
+        }
+
+        @Override
+        public void evict(Object key) {
+            cache.evict(key);
+            cacheInvalidationBus.invalidate(getName(), key);
+        }
+
+        @Override
+        public boolean evictIfPresent(Object key) {
+            boolean present = cache.evictIfPresent(key);
+            cacheInvalidationBus.invalidate(getName(), key);
+            return present;
+        }
+
+        @Override
+        public void clear() {
+            cache.clear();
+            cacheInvalidationBus.clear(getName());
+        }
+
+        @Override
+        public boolean invalidate() {
+            boolean present = cache.invalidate();
+            cacheInvalidationBus.clear(getName());
+            return present;
+        }
+    }
+}
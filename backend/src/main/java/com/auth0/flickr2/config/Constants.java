@@ -11,5 +11,8 @@ public final class Constants {
     public static final String SYSTEM = "system";
     public static final String DEFAULT_LANGUAGE = "en";
 
+    // Spring profile of the instances running as a cluster, sharing the invalidations of their cache regions
+    public static final String SPRING_PROFILE_CLUSTER = "cluster";
+
     private Constants() {}
 }
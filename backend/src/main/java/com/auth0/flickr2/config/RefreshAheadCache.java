@@ -0,0 +1,221 @@
+package com.auth0.flickr2.config;
+
+import java.io.Serializable;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+/**
+ * Spring cache region loading each missing entry once, and loading again the entries about to expire in the
+ * background.
+ * <p>
+ * The {@code @Cacheable(sync = true)} methods load their missing entries through {@link #get(Object, Callable)}: the
+ * concurrent reads of a missing entry wait for a single load, instead of all querying the database. An entry read
+ * after its refresh time, some time before its expiry, is returned as is while it is loaded again on the executor, so
+ * that the reads of a popular entry never wait for its load. An entry evicted while it is loaded is not put in the
+ * region, so that a load which started before a write does not put back the previous value.
+ * <p>
+ * The entries are stored with their load time in the underlying region.
+ */
+public class RefreshAheadCache implements Cache {
+
+    private final Logger log = LoggerFactory.getLogger(RefreshAheadCache.class);
+
+    private final Cache cache;
+
+    private final Duration refreshAfter;
+
+    private final Executor executor;
+
+    private final Clock clock;
+
+    private final ConcurrentMap<Object, CompletableFuture<Object>> loads = new ConcurrentHashMap<>();
+
+    /**
+     * @param cache the underlying region.
+     * @param refreshAfter the time after their load from which the entries are loaded again when they are read, or
+     *     {@code null} to only load the missing entries once.
+     * @param executor the executor of the background loads.
+     * @param clock the clock of the load times.
+     */
+    public RefreshAheadCache(Cache cache, Duration refreshAfter, Executor executor, Clock clock) {
+        this.cache = cache;
+        this.refreshAfter = refreshAfter;
+        this.executor = executor;
+        this.clock = clock;
+    }
+
+    @Override
+    public String getName() {
+        return cache.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return cache.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Entry entry = getEntry(key);
+        return entry != null ? new SimpleValueWrapper(entry.value) : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        Entry entry = getEntry(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.value != null && type != null && !type.isInstance(entry.value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + entry.value);
+        }
+        return (T) entry.value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Entry entry = getEntry(key);
+        if (entry != null) {
+            if (refreshAfter != null && clock.millis() - entry.loadedAt >= refreshAfter.toMillis()) {
+                refresh(key, valueLoader);
+            }
+            return (T) entry.value;
+        }
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> currentLoad = loads.putIfAbsent(key, load);
+        if (currentLoad != null) {
+            try {
+                return (T) currentLoad.join();
+            } catch (CompletionException e) {
+                throw new ValueRetrievalException(key, valueLoader, e.getCause());
+            }
+        }
+        // the entry may have been loaded since it was read
+        entry = getEntry(key);
+        if (entry != null) {
+            loads.remove(key, load);
+            load.complete(entry.value);
+            return (T) entry.value;
+        }
+        try {
+            Object value = valueLoader.call();
+            complete(key, load, value);
+            return (T) value;
+        } catch (Exception e) {
+            loads.remove(key, load);
+            load.completeExceptionally(e);
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        cache.put(key, new Entry(value, clock.millis()));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = cache.putIfAbsent(key, new Entry(value, clock.millis()));
+        return existing != null ? new SimpleValueWrapper(unwrap(existing.get()).value) : null;
+    }
+
+    @Override
+    public void evict(Object key) {
+        loads.remove(key);
+        cache.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        loads.remove(key);
+        return cache.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        loads.clear();
+        cache.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        loads.clear();
+        return cache.invalidate();
+    }
+
+    private void refresh(Object key, Callable<?> valueLoader) {
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        if (loads.putIfAbsent(key, load) != null) {
+            return;
+        }
+        Runnable refresh = () -> {
+            try {
+                complete(key, load, valueLoader.call());
+            } catch (Exception e) {
+                log.warn("Could not refresh the entry {} of cache region {}: {}", key, getName(), e.getMessage());
+                loads.remove(key, load);
+                load.completeExceptionally(e);
+            }
+        };
+        try {
+            executor.execute(refresh);
+        } catch (RejectedExecutionException e) {
+            // the executor is saturated
+            refresh.run();
+        }
+    }
+
+    /**
+     * Put a loaded entry in the region, unless it has been evicted while it was loaded.
+     */
+    private void complete(Object key, CompletableFuture<Object> load, Object value) {
+        put(key, value);
+        if (!loads.remove(key, load)) {
+            cache.evict(key);
+        }
+        load.complete(value);
+    }
+
+    private Entry getEntry(Object key) {
+        ValueWrapper wrapper = cache.get(key);
+        return wrapper != null ? unwrap(wrapper.get()) : null;
+    }
+
+    /**
+     * Get an entry of the underlying region, which has no load time when it was put by a previous version of the
+     * application.
+     */
+    private static Entry unwrap(Object value) {
+        return value instanceof Entry ? (Entry) value : new Entry(value, 0L);
+    }
+
+    /**
+     * Value of an entry, with its load time.
+     */
+    static final class Entry implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Object value;
+
+        private final long loadedAt;
+
+        Entry(Object value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
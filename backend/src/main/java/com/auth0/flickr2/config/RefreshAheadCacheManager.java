@@ -0,0 +1,38 @@
+package com.auth0.flickr2.config;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.jcache.JCacheCacheManager;
+
+/**
+ * Spring cache manager of the JCache regions, whose regions load each missing entry once, and load again in the
+ * background the entries about to expire.
+ *
+ * @see RefreshAheadCache
+ */
+public class RefreshAheadCacheManager extends JCacheCacheManager {
+
+    private final Map<String, Duration> refreshAfter;
+
+    private final Executor executor;
+
+    /**
+     * @param cacheManager the JCache cache manager.
+     * @param refreshAfter the time after their load from which the entries are loaded again, by region name: the
+     *     other regions only load their missing entries once.
+     * @param executor the executor of the background loads.
+     */
+    public RefreshAheadCacheManager(javax.cache.CacheManager cacheManager, Map<String, Duration> refreshAfter, Executor executor) {
+        super(cacheManager);
+        this.refreshAfter = refreshAfter;
+        this.executor = executor;
+    }
+
+    @Override
+    protected Cache decorateCache(Cache cache) {
+        return new RefreshAheadCache(super.decorateCache(cache), refreshAfter.get(cache.getName()), executor, Clock.systemUTC());
+    }
+}
@@ -0,0 +1,25 @@
+package com.auth0.flickr2.config;
+
+import com.auth0.flickr2.service.search.PhotoSearchIndex;
+import java.nio.file.Paths;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class SearchConfiguration {
+
+    private final Logger log = LoggerFactory.getLogger(SearchConfiguration.class);
+
+    @Bean(destroyMethod = "close")
+    public PhotoSearchIndex photoSearchIndex(ApplicationProperties applicationProperties) {
+        String indexRoot = applicationProperties.getSearch().getIndexRoot();
+        if (indexRoot == null || indexRoot.isEmpty()) {
+            log.debug("Keeping the photo search index in memory");
+            return new PhotoSearchIndex(null);
+        }
+        log.debug("Storing the photo search index in {}", indexRoot);
+        return new PhotoSearchIndex(Paths.get(indexRoot));
+    }
+}
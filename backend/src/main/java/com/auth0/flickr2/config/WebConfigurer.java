@@ -2,6 +2,8 @@ package com.auth0.flickr2.config;
 
 import static java.net.URLDecoder.decode;
 
+import com.auth0.flickr2.web.converter.FileChannelResourceHttpMessageConverter;
+import com.auth0.flickr2.web.converter.FileChannelResourceRegionHttpMessageConverter;
 import java.io.File;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
@@ -103,6 +105,21 @@ public class WebConfigurer implements ServletContextInitializer, WebServerFactor
         return new CorsFilter(source);
     }
 
+    /**
+     * Write file-backed resources, such as photo images from the blob store, through NIO file channels.
+     * These beans replace the default {@link org.springframework.http.converter.ResourceHttpMessageConverter}
+     * and {@link org.springframework.http.converter.ResourceRegionHttpMessageConverter}.
+     */
+    @Bean
+    public FileChannelResourceHttpMessageConverter fileChannelResourceHttpMessageConverter() {
+        return new FileChannelResourceHttpMessageConverter();
+    }
+
+    @Bean
+    public FileChannelResourceRegionHttpMessageConverter fileChannelResourceRegionHttpMessageConverter() {
+        return new FileChannelResourceRegionHttpMessageConverter();
+    }
+
     /**
      * Initializes H2 console.
      */
@@ -0,0 +1,116 @@
+package com.auth0.flickr2.config.liquibase;
+
+import com.auth0.flickr2.service.storage.BlobInfo;
+import com.auth0.flickr2.service.storage.BlobStore;
+import com.auth0.flickr2.service.storage.FileSystemBlobStore;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.SetupException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Liquibase task moving the content of the {@code photo.image} column to the local blob store.
+ * <p>
+ * Rows are processed in batches ordered by id, and each batch is committed on its own: if the migration is
+ * interrupted, running it again resumes with the photos that do not have an {@code image_key} yet.
+ */
+public class MovePhotoImagesToBlobStore implements CustomTaskChange {
+
+    private static final String SELECT_BATCH =
+        "select id, image from photo where image_key is null and image is not null and id > ? order by id";
+
+    private static final String UPDATE_PHOTO = "update photo set image_key = ?, image_size = ? where id = ?";
+
+    private final Logger log = LoggerFactory.getLogger(MovePhotoImagesToBlobStore.class);
+
+    private String blobStoreRoot;
+
+    private int batchSize = 50;
+
+    private int movedCount;
+
+    public void setBlobStoreRoot(String blobStoreRoot) {
+        this.blobStoreRoot = blobStoreRoot;
+    }
+
+    public void setBatchSize(String batchSize) {
+        this.batchSize = Integer.parseInt(batchSize);
+    }
+
+    @Override
+    public void execute(Database database) throws CustomChangeException {
+        BlobStore blobStore = new FileSystemBlobStore(Paths.get(blobStoreRoot));
+        Connection connection = ((JdbcConnection) database.getConnection()).getUnderlyingConnection();
+        try {
+            long lastId = Long.MIN_VALUE;
+            int moved;
+            do {
+                moved = 0;
+                try (
+                    PreparedStatement select = connection.prepareStatement(SELECT_BATCH);
+                    PreparedStatement update = connection.prepareStatement(UPDATE_PHOTO)
+                ) {
+                    select.setLong(1, lastId);
+                    select.setMaxRows(batchSize);
+                    try (ResultSet rs = select.executeQuery()) {
+                        while (rs.next()) {
+                            lastId = rs.getLong(1);
+                            BlobInfo blob;
+                            try (InputStream image = rs.getBinaryStream(2)) {
+                                blob = blobStore.put(image);
+                            }
+                            update.setString(1, blob.getKey());
+                            update.setLong(2, blob.getSize());
+                            update.setLong(3, lastId);
+                            update.addBatch();
+                            moved++;
+                        }
+                    }
+                    if (moved > 0) {
+                        update.executeBatch();
+                        connection.commit();
+                        movedCount += moved;
+                        log.debug("Moved {} photo images to the blob store", movedCount);
+                    }
+                }
+            } while (moved == batchSize);
+        } catch (SQLException | IOException e) {
+            throw new CustomChangeException("Could not move photo images to the blob store", e);
+        }
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return "Moved " + movedCount + " photo images to the blob store in " + blobStoreRoot;
+    }
+
+    @Override
+    public void setUp() throws SetupException {}
+
+    @Override
+    public void setFileOpener(ResourceAccessor resourceAccessor) {}
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        ValidationErrors errors = new ValidationErrors();
+        if (blobStoreRoot == null || blobStoreRoot.isBlank() || blobStoreRoot.startsWith("${")) {
+            errors.addError("blobStoreRoot must be set, see the spring.liquibase.parameters.blobStoreRoot property");
+        }
+        if (batchSize < 1) {
+            errors.addError("batchSize must be positive");
+        }
+        return errors;
+    }
+}
@@ -1,6 +1,9 @@
 package com.auth0.flickr2.domain;
 
+import com.auth0.flickr2.domain.enumeration.PhotoStatus;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import java.io.Serializable;
 import java.time.Instant;
 import java.util.HashSet;
@@ -36,9 +39,11 @@ public class Photo implements Serializable {
     @Column(name = "description")
     private String description;
 
-    @Lob
-    @Column(name = "image", nullable = false)
-    private byte[] image;
+    /**
+     * The image content, which is kept in the {@link com.auth0.flickr2.service.storage.BlobStore} and referenced by
+     * the {@link PhotoContent} of this photo: it is only set when the image is uploaded or explicitly loaded.
+     */
+    private transient byte[] image;
 
     @NotNull
     @Column(name = "image_content_type", nullable = false)
@@ -56,6 +61,47 @@ public class Photo implements Serializable {
     @Column(name = "uploaded")
     private Instant uploaded;
 
+    /**
+     * The latitude where the photo was taken, in degrees, from the GPS metadata of the image.
+     */
+    @DecimalMin(value = "-90")
+    @DecimalMax(value = "90")
+    @Column(name = "latitude")
+    private Double latitude;
+
+    /**
+     * The longitude where the photo was taken, in degrees, from the GPS metadata of the image.
+     */
+    @DecimalMin(value = "-180")
+    @DecimalMax(value = "180")
+    @Column(name = "longitude")
+    private Double longitude;
+
+    /**
+     * The blurhash of the image, a compact string from which clients draw a blurred placeholder of the image while
+     * it loads, computed when the image is processed.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Size(max = 32)
+    @Column(name = "blurhash", length = 32)
+    private String blurhash;
+
+    /**
+     * The dominant colour of the image, as {@code #rrggbb}, computed when the image is processed.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Pattern(regexp = "^#[0-9a-f]{6}$")
+    @Column(name = "dominant_color", length = 7)
+    private String dominantColor;
+
+    /**
+     * The processing status of the image, managed by the server.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private PhotoStatus status;
+
     @ManyToOne
     @JsonIgnoreProperties(value = { "user" }, allowSetters = true)
     private Album album;
@@ -107,6 +153,7 @@ public class Photo implements Serializable {
         this.description = description;
     }
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     public byte[] getImage() {
         return this.image;
     }
@@ -185,6 +232,71 @@ public class Photo implements Serializable {
         this.uploaded = uploaded;
     }
 
+    public Double getLatitude() {
+        return this.latitude;
+    }
+
+    public Photo latitude(Double latitude) {
+        this.setLatitude(latitude);
+        return this;
+    }
+
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+    }
+
+    public Double getLongitude() {
+        return this.longitude;
+    }
+
+    public Photo longitude(Double longitude) {
+        this.setLongitude(longitude);
+        return this;
+    }
+
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+    }
+
+    public String getBlurhash() {
+        return this.blurhash;
+    }
+
+    public Photo blurhash(String blurhash) {
+        this.setBlurhash(blurhash);
+        return this;
+    }
+
+    public void setBlurhash(String blurhash) {
+        this.blurhash = blurhash;
+    }
+
+    public String getDominantColor() {
+        return this.dominantColor;
+    }
+
+    public Photo dominantColor(String dominantColor) {
+        this.setDominantColor(dominantColor);
+        return this;
+    }
+
+    public void setDominantColor(String dominantColor) {
+        this.dominantColor = dominantColor;
+    }
+
+    public PhotoStatus getStatus() {
+        return this.status;
+    }
+
+    public Photo status(PhotoStatus status) {
+        this.setStatus(status);
+        return this;
+    }
+
+    public void setStatus(PhotoStatus status) {
+        this.status = status;
+    }
+
     public Album getAlbum() {
         return this.album;
     }
@@ -255,6 +367,11 @@ public class Photo implements Serializable {
             ", width=" + getWidth() +
             ", taken='" + getTaken() + "'" +
             ", uploaded='" + getUploaded() + "'" +
+            ", latitude=" + getLatitude() +
+            ", longitude=" + getLongitude() +
+            ", blurhash='" + getBlurhash() + "'" +
+            ", dominantColor='" + getDominantColor() + "'" +
+            ", status='" + getStatus() + "'" +
             "}";
     }
 }
@@ -0,0 +1,187 @@
+package com.auth0.flickr2.domain;
+
+import java.io.Serializable;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import javax.persistence.*;
+import javax.validation.constraints.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+/**
+ * The content of a {@link Photo}: the references to its image and to its thumbnails in the blob store, and the
+ * perceptual hash and the feature vector of its image.
+ * <p>
+ * It shares its id with its photo, and is only loaded when the image itself is needed, so that listing
+ * photos never touches it.
+ */
+@Entity
+@Table(name = "photo_content")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+public class PhotoContent implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(name = "photo_id")
+    private Long id;
+
+    @NotNull
+    @Size(max = 64)
+    @Column(name = "image_key", length = 64, nullable = false)
+    private String imageKey;
+
+    @NotNull
+    @Column(name = "image_size", nullable = false)
+    private Long imageSize;
+
+    @Column(name = "perceptual_hash")
+    private Long perceptualHash;
+
+    @Column(name = "feature_vector", length = 320)
+    private byte[] featureVector;
+
+    /**
+     * Whether the thumbnails and the descriptors of the image have been generated, or could not be.
+     */
+    @NotNull
+    @Column(name = "processed", nullable = false)
+    private Boolean processed = false;
+
+    @ElementCollection
+    @CollectionTable(name = "photo_thumbnail", joinColumns = @JoinColumn(name = "photo_id"))
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    private Set<PhotoThumbnail> thumbnails = new HashSet<>();
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public PhotoContent id(Long id) {
+        this.setId(id);
+        return this;
+    }
+
+    public String getImageKey() {
+        return this.imageKey;
+    }
+
+    public PhotoContent imageKey(String imageKey) {
+        this.setImageKey(imageKey);
+        return this;
+    }
+
+    public void setImageKey(String imageKey) {
+        this.imageKey = imageKey;
+    }
+
+    public Long getImageSize() {
+        return this.imageSize;
+    }
+
+    public PhotoContent imageSize(Long imageSize) {
+        this.setImageSize(imageSize);
+        return this;
+    }
+
+    public void setImageSize(Long imageSize) {
+        this.imageSize = imageSize;
+    }
+
+    public Long getPerceptualHash() {
+        return this.perceptualHash;
+    }
+
+    public PhotoContent perceptualHash(Long perceptualHash) {
+        this.setPerceptualHash(perceptualHash);
+        return this;
+    }
+
+    public void setPerceptualHash(Long perceptualHash) {
+        this.perceptualHash = perceptualHash;
+    }
+
+    public byte[] getFeatureVector() {
+        return this.featureVector;
+    }
+
+    public PhotoContent featureVector(byte[] featureVector) {
+        this.setFeatureVector(featureVector);
+        return this;
+    }
+
+    public void setFeatureVector(byte[] featureVector) {
+        this.featureVector = featureVector;
+    }
+
+    public Boolean getProcessed() {
+        return this.processed;
+    }
+
+    public PhotoContent processed(Boolean processed) {
+        this.setProcessed(processed);
+        return this;
+    }
+
+    public void setProcessed(Boolean processed) {
+        this.processed = processed;
+    }
+
+    public Set<PhotoThumbnail> getThumbnails() {
+        return this.thumbnails;
+    }
+
+    public PhotoContent thumbnails(Set<PhotoThumbnail> thumbnails) {
+        this.setThumbnails(thumbnails);
+        return this;
+    }
+
+    public void setThumbnails(Set<PhotoThumbnail> thumbnails) {
+        this.thumbnails = thumbnails;
+    }
+
+    /**
+     * Get the smallest thumbnail covering the given size.
+     *
+     * @param size the size of the largest side of the image to display, in pixels.
+     * @return the smallest thumbnail whose largest side is at least {@code size}, or empty if the original image should be used.
+     */
+    public Optional<PhotoThumbnail> getThumbnail(int size) {
+        return thumbnails.stream().filter(thumbnail -> thumbnail.getSize() >= size).min(Comparator.comparing(PhotoThumbnail::getSize));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PhotoContent)) {
+            return false;
+        }
+        return id != null && id.equals(((PhotoContent) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PhotoContent{" +
+            "id=" + getId() +
+            ", imageKey='" + getImageKey() + "'" +
+            ", imageSize=" + getImageSize() +
+            ", perceptualHash=" + getPerceptualHash() +
+            ", processed='" + getProcessed() + "'" +
+            "}";
+    }
+}
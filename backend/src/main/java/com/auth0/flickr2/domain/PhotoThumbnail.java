@@ -0,0 +1,98 @@
+package com.auth0.flickr2.domain;
+
+import java.io.Serializable;
+import java.util.Objects;
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import javax.validation.constraints.*;
+
+/**
+ * A JPEG thumbnail of a {@link Photo} image, kept in the blob store next to the original image.
+ */
+@Embeddable
+public class PhotoThumbnail implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The size of the largest side of the thumbnail, in pixels.
+     */
+    @NotNull
+    @Column(name = "thumbnail_size", nullable = false)
+    private Integer size;
+
+    @NotNull
+    @Size(max = 64)
+    @Column(name = "image_key", length = 64, nullable = false)
+    private String imageKey;
+
+    @NotNull
+    @Column(name = "image_size", nullable = false)
+    private Long imageSize;
+
+    public Integer getSize() {
+        return this.size;
+    }
+
+    public PhotoThumbnail size(Integer size) {
+        this.setSize(size);
+        return this;
+    }
+
+    public void setSize(Integer size) {
+        this.size = size;
+    }
+
+    public String getImageKey() {
+        return this.imageKey;
+    }
+
+    public PhotoThumbnail imageKey(String imageKey) {
+        this.setImageKey(imageKey);
+        return this;
+    }
+
+    public void setImageKey(String imageKey) {
+        this.imageKey = imageKey;
+    }
+
+    public Long getImageSize() {
+        return this.imageSize;
+    }
+
+    public PhotoThumbnail imageSize(Long imageSize) {
+        this.setImageSize(imageSize);
+        return this;
+    }
+
+    public void setImageSize(Long imageSize) {
+        this.imageSize = imageSize;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PhotoThumbnail)) {
+            return false;
+        }
+        PhotoThumbnail other = (PhotoThumbnail) o;
+        return Objects.equals(size, other.size) && Objects.equals(imageKey, other.imageKey);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(size, imageKey);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PhotoThumbnail{" +
+            "size=" + getSize() +
+            ", imageKey='" + getImageKey() + "'" +
+            ", imageSize=" + getImageSize() +
+            "}";
+    }
+}
@@ -0,0 +1,10 @@
+package com.auth0.flickr2.domain.enumeration;
+
+/**
+ * The PhotoStatus enumeration.
+ */
+public enum PhotoStatus {
+    PENDING,
+    READY,
+    FAILED,
+}
@@ -0,0 +1,23 @@
+package com.auth0.flickr2.repository;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+import com.auth0.flickr2.domain.PhotoContent;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data SQL repository for the PhotoContent entity.
+ */
+@Repository
+public interface PhotoContentRepository extends JpaRepository<PhotoContent, Long> {
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select content.id, content.perceptualHash from PhotoContent content where content.perceptualHash is not null")
+    Stream<Object[]> streamAllIdsWithPerceptualHash();
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select content.id, content.featureVector from PhotoContent content where content.featureVector is not null")
+    Stream<Object[]> streamAllIdsWithFeatureVector();
+}
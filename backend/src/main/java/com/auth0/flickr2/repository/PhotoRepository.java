@@ -1,10 +1,24 @@
 package com.auth0.flickr2.repository;
 
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
 import com.auth0.flickr2.domain.Photo;
+import com.auth0.flickr2.domain.enumeration.PhotoStatus;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -14,15 +28,113 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface PhotoRepository extends JpaRepository<Photo, Long> {
+    /**
+     * Get a page of photos with their relationships.
+     * <p>
+     * A collection fetch cannot be paginated in SQL, so the ids of the page are selected first, then the photos of
+     * the page are fetched with their relationships by a single query: the page costs two queries, plus the count
+     * query when it is not the last one, whatever its size.
+     *
+     * @param pageable the pagination information.
+     * @return the page of photos.
+     */
+    default Page<Photo> findAllWithEagerRelationships(Pageable pageable) {
+        Page<Long> ids = findAllIds(pageable);
+        return new PageImpl<>(findAllWithEagerRelationshipsInOrder(ids.getContent()), pageable, ids.getTotalElements());
+    }
+
+    /**
+     * Get photos with their relationships, in the order of their ids.
+     *
+     * @param ids the ids of the photos.
+     * @return the photos, ordered as {@code ids}.
+     */
+    default List<Photo> findAllWithEagerRelationshipsInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Photo> photos = findAllWithEagerRelationshipsByIdIn(ids)
+            .stream()
+            .collect(Collectors.toMap(Photo::getId, Function.identity()));
+        return ids.stream().map(photos::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    @Query(value = "select photo.id from Photo photo", countQuery = "select count(photo) from Photo photo")
+    Page<Long> findAllIds(Pageable pageable);
+
     @Query(
-        value = "select distinct photo from Photo photo left join fetch photo.tags",
-        countQuery = "select count(distinct photo) from Photo photo"
+        "select distinct photo from Photo photo left join fetch photo.album album left join fetch album.user " +
+        "left join fetch photo.tags where photo.id in :ids"
     )
-    Page<Photo> findAllWithEagerRelationships(Pageable pageable);
+    List<Photo> findAllWithEagerRelationshipsByIdIn(@Param("ids") Collection<Long> ids);
 
     @Query("select distinct photo from Photo photo left join fetch photo.tags")
     List<Photo> findAllWithEagerRelationships();
 
     @Query("select photo from Photo photo left join fetch photo.tags where photo.id =:id")
     Optional<Photo> findOneWithEagerRelationships(@Param("id") Long id);
+
+    @Query("select photo from Photo photo order by photo.taken desc nulls first, photo.id desc")
+    Slice<Photo> findFirstSliceByTaken(Pageable pageable);
+
+    @Query(
+        "select photo from Photo photo where photo.taken < :taken or (photo.taken = :taken and photo.id < :id) " +
+        "order by photo.taken desc nulls first, photo.id desc"
+    )
+    Slice<Photo> findSliceByTakenAfter(@Param("taken") Instant taken, @Param("id") Long id, Pageable pageable);
+
+    @Query(
+        "select photo from Photo photo where photo.taken is not null or photo.id < :id " +
+        "order by photo.taken desc nulls first, photo.id desc"
+    )
+    Slice<Photo> findSliceByTakenAfterNotTaken(@Param("id") Long id, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select photo.id from Photo photo")
+    Stream<Long> streamAllIds();
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select photo.id, tag.id from Photo photo join photo.tags tag")
+    Stream<Object[]> streamAllIdsWithTagIds();
+
+    @Query("select photo.id from Photo photo where photo.id > :id order by photo.id")
+    List<Long> findIdsAfter(@Param("id") Long id, Pageable pageable);
+
+    @Query("select photo.id from Photo photo where photo.album.id in :albumIds")
+    List<Long> findAllIdsByAlbumIdIn(@Param("albumIds") Collection<Long> albumIds);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select photo.id, photo.taken from Photo photo")
+    Stream<Object[]> streamAllIdsWithTaken();
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query(
+        "select photo.id, photo.latitude, photo.longitude from Photo photo " +
+        "where photo.latitude is not null and photo.longitude is not null"
+    )
+    Stream<Object[]> streamAllIdsWithLocation();
+
+    @Query(
+        "select photo from Photo photo where photo.status = :status " +
+        "and photo.id in (select content.id from PhotoContent content where content.imageKey = :imageKey) order by photo.id"
+    )
+    List<Photo> findAllByImageKeyAndStatus(
+        @Param("imageKey") String imageKey,
+        @Param("status") PhotoStatus status,
+        Pageable pageable
+    );
+
+    @Query("select photo.status from Photo photo where photo.id =:id")
+    Optional<PhotoStatus> findStatusById(@Param("id") Long id);
+
+    @Query(
+        "select photo.id from Photo photo left join PhotoContent content on content.id = photo.id where photo.id > :id " +
+        "and (photo.status = :pending or (photo.status = :ready and content.processed = false)) order by photo.id"
+    )
+    List<Long> findIdsToProcessAfter(
+        @Param("id") Long id,
+        @Param("pending") PhotoStatus pending,
+        @Param("ready") PhotoStatus ready,
+        Pageable pageable
+    );
 }
@@ -1,7 +1,13 @@
 package com.auth0.flickr2.repository;
 
 import com.auth0.flickr2.domain.Tag;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -9,4 +15,16 @@ import org.springframework.stereotype.Repository;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface TagRepository extends JpaRepository<Tag, Long> {}
+public interface TagRepository extends JpaRepository<Tag, Long> {
+    @Query("select tag from Tag tag where lower(tag.name) = lower(:name)")
+    Optional<Tag> findOneByNameIgnoreCase(@Param("name") String name);
+
+    @Query("select tag.id from Tag tag where lower(tag.name) in :names")
+    List<Long> findAllIdsByLowerNameIn(@Param("names") Collection<String> names);
+
+    @Query("select tag from Tag tag order by tag.name, tag.id")
+    Slice<Tag> findFirstSliceByName(Pageable pageable);
+
+    @Query("select tag from Tag tag where tag.name > :name or (tag.name = :name and tag.id > :id) order by tag.name, tag.id")
+    Slice<Tag> findSliceByNameAfter(@Param("name") String name, @Param("id") Long id, Pageable pageable);
+}
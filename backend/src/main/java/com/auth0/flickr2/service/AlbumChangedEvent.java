@@ -0,0 +1,22 @@
+package com.auth0.flickr2.service;
+
+/**
+ * Event published when a {@link com.auth0.flickr2.domain.Album} has been updated.
+ */
+public class AlbumChangedEvent {
+
+    private final Long albumId;
+
+    public AlbumChangedEvent(Long albumId) {
+        this.albumId = albumId;
+    }
+
+    public Long getAlbumId() {
+        return albumId;
+    }
+
+    @Override
+    public String toString() {
+        return "AlbumChangedEvent{albumId=" + albumId + "}";
+    }
+}
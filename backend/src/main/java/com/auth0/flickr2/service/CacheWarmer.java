@@ -0,0 +1,291 @@
+package com.auth0.flickr2.service;
+
+import com.auth0.flickr2.config.ApplicationProperties;
+import com.auth0.flickr2.repository.UserRepository;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaQuery;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.cache.internal.DefaultCacheKeysFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metamodel.spi.MetamodelImplementor;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service warming the cache regions up when the application starts, so that a deployment does not send every miss
+ * of the empty regions to the database at once.
+ * <p>
+ * When {@code application.cache.warm-start} is enabled, the keys of the configured regions are saved when the
+ * application stops gracefully, then loaded again in the background on the shared {@code taskExecutor} when the
+ * application is ready: an entity or a collection of the second-level cache is loaded again from the database, by
+ * batches, and a {@code usersByLogin} entry by its repository method. Small reference regions can also be entirely
+ * loaded from the database. Keys whose entity has been deleted meanwhile are skipped.
+ */
+@Service
+public class CacheWarmer {
+
+    private static final int BATCH_SIZE = 100;
+
+    private static final String SNAPSHOT_SUFFIX = ".keys";
+
+    /**
+     * Only the list of keys, its backing array, and the ids and logins it holds are read from the saved keys.
+     */
+    private static final ObjectInputFilter SNAPSHOT_FILTER = ObjectInputFilter.Config.createFilter(
+        "java.util.ArrayList;java.lang.Object;java.lang.Long;java.lang.Number;java.lang.String;maxdepth=3;!*"
+    );
+
+    private final Logger log = LoggerFactory.getLogger(CacheWarmer.class);
+
+    private final CacheManager cacheManager;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Executor taskExecutor;
+
+    private final ApplicationProperties.Cache.WarmStart warmStart;
+
+    /**
+     * Loaders of the entries of the Spring cache regions, which put the entry they load in their region.
+     */
+    private final Map<String, Consumer<Object>> loaders = new HashMap<>();
+
+    public CacheWarmer(
+        CacheManager cacheManager,
+        EntityManager entityManager,
+        PlatformTransactionManager transactionManager,
+        UserRepository userRepository,
+        @Qualifier("taskExecutor") Executor taskExecutor,
+        ApplicationProperties applicationProperties
+    ) {
+        this.cacheManager = cacheManager;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.taskExecutor = taskExecutor;
+        this.warmStart = applicationProperties.getCache().getWarmStart();
+        loaders.put(UserRepository.USERS_BY_LOGIN_CACHE, login -> userRepository.findOneWithAuthoritiesByLogin((String) login));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (warmStart.isEnabled()) {
+            taskExecutor.execute(this::warmUp);
+        }
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void onContextClosed() {
+        if (warmStart.isEnabled()) {
+            snapshot();
+        }
+    }
+
+    /**
+     * Preload the configured reference regions, then load the saved keys of the configured regions again.
+     */
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        int count = 0;
+        for (String region : warmStart.getPreload()) {
+            try {
+                count += preload(region);
+            } catch (RuntimeException e) {
+                log.warn("Could not preload cache region {}: {}", region, e.getMessage());
+            }
+        }
+        for (String region : warmStart.getRegions()) {
+            try {
+                count += restore(region);
+            } catch (RuntimeException e) {
+                log.warn("Could not restore cache region {}: {}", region, e.getMessage());
+            }
+        }
+        log.info("Warmed up the cache regions with {} entries in {} ms", count, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Save the keys of the configured regions, replacing the keys saved before.
+     */
+    public void snapshot() {
+        for (String region : warmStart.getRegions()) {
+            Cache<Object, Object> cache = cacheManager.getCache(region);
+            if (cache == null) {
+                log.warn("No cache region {} to save", region);
+                continue;
+            }
+            ArrayList<Object> keys = new ArrayList<>();
+            for (Cache.Entry<Object, Object> entry : cache) {
+                if (keys.size() >= warmStart.getMaxKeys()) {
+                    break;
+                }
+                Object key = toSnapshotKey(region, entry.getKey());
+                // the ids of the entities and the logins are the only key types read again
+                if (key instanceof Long || key instanceof String) {
+                    keys.add(key);
+                }
+            }
+            try {
+                Path snapshot = getSnapshot(region);
+                Files.createDirectories(snapshot.getParent());
+                Path temporary = Files.createTempFile(snapshot.getParent(), region, ".tmp");
+                try (OutputStream file = Files.newOutputStream(temporary); ObjectOutputStream output = new ObjectOutputStream(file)) {
+                    output.writeObject(keys);
+                }
+                Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                log.debug("Saved {} keys of cache region {}", keys.size(), region);
+            } catch (IOException e) {
+                log.warn("Could not save the keys of cache region {}: {}", region, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Load the saved keys of a region again.
+     *
+     * @param region the name of the region.
+     * @return the number of keys loaded, including the keys whose entity no longer exists.
+     */
+    public int restore(String region) {
+        List<Object> keys = readSnapshot(region);
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        Consumer<Object> loader = loaders.get(region);
+        MetamodelImplementor metamodel = getMetamodel();
+        EntityPersister entityPersister = metamodel.entityPersisters().get(region);
+        CollectionPersister collectionPersister = metamodel.collectionPersisters().get(region);
+        for (int from = 0; from < keys.size(); from += BATCH_SIZE) {
+            List<Object> batch = keys.subList(from, Math.min(keys.size(), from + BATCH_SIZE));
+            transactionTemplate.executeWithoutResult(status -> {
+                if (entityPersister != null) {
+                    loadEntities(entityPersister, batch);
+                } else if (collectionPersister != null) {
+                    loadCollections(collectionPersister, batch);
+                } else if (loader != null) {
+                    batch.forEach(loader);
+                } else {
+                    throw new IllegalArgumentException("No loader for cache region " + region);
+                }
+                entityManager.clear();
+            });
+        }
+        log.debug("Restored {} keys of cache region {}", keys.size(), region);
+        return keys.size();
+    }
+
+    /**
+     * Load all the entities of an entity region, up to the maximum number of keys.
+     *
+     * @param region the name of the region.
+     * @return the number of entities loaded.
+     */
+    public int preload(String region) {
+        EntityPersister entityPersister = getMetamodel().entityPersisters().get(region);
+        if (entityPersister == null) {
+            throw new IllegalArgumentException("No entity region " + region);
+        }
+        Class<?> entityClass = entityPersister.getMappedClass();
+        Integer count = transactionTemplate.execute(status -> {
+            CriteriaQuery<?> query = entityManager.getCriteriaBuilder().createQuery(entityClass);
+            query.from(entityClass);
+            int size = entityManager.createQuery(query).setMaxResults(warmStart.getMaxKeys()).getResultList().size();
+            entityManager.clear();
+            return size;
+        });
+        log.debug("Preloaded {} entities of cache region {}", count, region);
+        return count != null ? count : 0;
+    }
+
+    private void loadEntities(EntityPersister entityPersister, List<Object> ids) {
+        multiLoad(entityPersister, ids);
+    }
+
+    private void loadCollections(CollectionPersister collectionPersister, List<Object> ownerIds) {
+        EntityPersister ownerPersister = collectionPersister.getOwnerEntityPersister();
+        String property = collectionPersister.getRole().substring(ownerPersister.getEntityName().length() + 1);
+        List<?> owners = multiLoad(ownerPersister, ownerIds);
+        for (Object owner : owners) {
+            if (owner != null) {
+                Hibernate.initialize(ownerPersister.getPropertyValue(owner, property));
+            }
+        }
+    }
+
+    private List<?> multiLoad(EntityPersister entityPersister, List<Object> ids) {
+        Class<?> entityClass = entityPersister.getMappedClass();
+        List<Serializable> serializableIds = ids.stream().map(Serializable.class::cast).collect(Collectors.toList());
+        return entityManager.unwrap(Session.class).byMultipleIds(entityClass).withBatchSize(BATCH_SIZE).multiLoad(serializableIds);
+    }
+
+    /**
+     * Get the key to save for a key of a region: the id of the entity, or of the owner of the collection, for the
+     * regions of the second-level cache, and the key itself for the Spring cache regions.
+     */
+    private Object toSnapshotKey(String region, Object key) {
+        MetamodelImplementor metamodel = getMetamodel();
+        if (metamodel.entityPersisters().containsKey(region)) {
+            return DefaultCacheKeysFactory.staticGetEntityId(key);
+        }
+        if (metamodel.collectionPersisters().containsKey(region)) {
+            return DefaultCacheKeysFactory.staticGetCollectionId(key);
+        }
+        return key;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object> readSnapshot(String region) {
+        Path snapshot = getSnapshot(region);
+        if (!Files.exists(snapshot)) {
+            return List.of();
+        }
+        try (InputStream file = Files.newInputStream(snapshot); ObjectInputStream input = new ObjectInputStream(file)) {
+            input.setObjectInputFilter(SNAPSHOT_FILTER);
+            return (List<Object>) input.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            // keys saved by another version of the application
+            log.warn("Could not read the saved keys of cache region {}: {}", region, e.getMessage());
+            return List.of();
+        }
+    }
+
+    private Path getSnapshot(String region) {
+        return Paths.get(warmStart.getSnapshotRoot(), region + SNAPSHOT_SUFFIX);
+    }
+
+    private MetamodelImplementor getMetamodel() {
+        return entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class).getMetamodel();
+    }
+}
@@ -0,0 +1,137 @@
+package com.auth0.flickr2.service;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+
+/**
+ * Feature vectors of images, comparing how images look without any trained model: images with close vectors have
+ * similar colours laid out in a similar way.
+ * <p>
+ * A vector concatenates the histogram of the colours of the image, in 4 by 4 by 4 RGB bins, and the luminance of a
+ * 4 by 4 grid over the image, centered on its mean, so that a uniform exposure change does not move it. The
+ * histogram is square-rooted, so that a dominant colour does not hide the others, and both parts are normalized
+ * then weighted: vectors have a unit length, and their squared Euclidean distance ranges from 0 to 4.
+ */
+public final class ImageFeatures {
+
+    /**
+     * Number of dimensions of the feature vectors.
+     */
+    public static final int DIMENSIONS = 80;
+
+    /**
+     * Size of the largest side of the image to describe, which is enough to count its colours.
+     */
+    public static final int DECODE_SIZE = 64;
+
+    private static final int COLOUR_LEVELS = 4;
+
+    private static final int HISTOGRAM_BINS = COLOUR_LEVELS * COLOUR_LEVELS * COLOUR_LEVELS;
+
+    private static final int GRID_SIZE = 4;
+
+    /**
+     * Share of the colour histogram in the squared length of the vectors, the layout having the rest.
+     */
+    private static final double HISTOGRAM_WEIGHT = 0.7;
+
+    private ImageFeatures() {}
+
+    /**
+     * Compute the feature vector of an image.
+     *
+     * @param image the image, which should be decoded at about {@link #DECODE_SIZE} pixels.
+     * @return the vector, of {@link #DIMENSIONS} floats.
+     */
+    public static float[] of(BufferedImage image) {
+        double[] histogram = new double[HISTOGRAM_BINS];
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                int rgb = image.getRGB(x, y);
+                int r = ((rgb >> 16) & 0xFF) * COLOUR_LEVELS / 256;
+                int g = ((rgb >> 8) & 0xFF) * COLOUR_LEVELS / 256;
+                int b = (rgb & 0xFF) * COLOUR_LEVELS / 256;
+                histogram[(r * COLOUR_LEVELS + g) * COLOUR_LEVELS + b]++;
+            }
+        }
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = Math.sqrt(histogram[i]);
+        }
+
+        BufferedImage grid = ImageRenderer.scale(image, GRID_SIZE, GRID_SIZE);
+        double[] layout = new double[GRID_SIZE * GRID_SIZE];
+        double mean = 0;
+        for (int i = 0; i < layout.length; i++) {
+            int rgb = grid.getRGB(i % GRID_SIZE, i / GRID_SIZE);
+            layout[i] = (0.299 * ((rgb >> 16) & 0xFF) + 0.587 * ((rgb >> 8) & 0xFF) + 0.114 * (rgb & 0xFF)) / 255;
+            mean += layout[i] / layout.length;
+        }
+        for (int i = 0; i < layout.length; i++) {
+            layout[i] -= mean;
+        }
+
+        float[] vector = new float[DIMENSIONS];
+        put(vector, 0, histogram, Math.sqrt(HISTOGRAM_WEIGHT));
+        put(vector, HISTOGRAM_BINS, layout, Math.sqrt(1 - HISTOGRAM_WEIGHT));
+        return vector;
+    }
+
+    /**
+     * Get the distance between two vectors.
+     *
+     * @param vector a vector.
+     * @param other another vector, of the same dimensions.
+     * @return the squared Euclidean distance between the vectors.
+     */
+    public static float distance(float[] vector, float[] other) {
+        float distance = 0;
+        for (int i = 0; i < vector.length; i++) {
+            float difference = vector[i] - other[i];
+            distance += difference * difference;
+        }
+        return distance;
+    }
+
+    /**
+     * Encode a vector as the IEEE 754 representation of its floats, in big-endian order, to be stored in a binary
+     * column.
+     *
+     * @param vector the vector.
+     * @return the bytes of the vector.
+     */
+    public static byte[] toBytes(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES);
+        buffer.asFloatBuffer().put(vector);
+        return buffer.array();
+    }
+
+    /**
+     * Decode a vector encoded by {@link #toBytes(float[])}.
+     *
+     * @param bytes the bytes of the vector.
+     * @return the vector.
+     */
+    public static float[] fromBytes(byte[] bytes) {
+        float[] vector = new float[bytes.length / Float.BYTES];
+        ByteBuffer.wrap(bytes).asFloatBuffer().get(vector);
+        return vector;
+    }
+
+    /**
+     * Copy a part of a vector, scaled to the given length. A part without any variation, such as the layout of a
+     * uniform image, is left at zero.
+     */
+    private static void put(float[] vector, int offset, double[] part, double length) {
+        double norm = 0;
+        for (double value : part) {
+            norm += value * value;
+        }
+        norm = Math.sqrt(norm);
+        if (norm < 1e-9) {
+            return;
+        }
+        for (int i = 0; i < part.length; i++) {
+            vector[offset + i] = (float) (part[i] / norm * length);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.auth0.flickr2.service;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Placeholders of images, which clients show while an image loads: its <a href="https://blurha.sh">blurhash</a> and
+ * its dominant colour.
+ * <p>
+ * The blurhash keeps the first 4 by 3 components of the discrete cosine transform of the image, in linear RGB, encoded
+ * in 28 base 83 characters: clients decode it to a blurred picture of the image, without any request. The dominant
+ * colour is the mean colour of the most populated of the 8 by 8 by 8 RGB bins of the image.
+ */
+public final class ImagePlaceholder {
+
+    /**
+     * Size of the largest side of the image to describe, which is enough for a blurred picture of the image.
+     */
+    public static final int DECODE_SIZE = 64;
+
+    private static final int X_COMPONENTS = 4;
+
+    private static final int Y_COMPONENTS = 3;
+
+    private static final int COLOUR_LEVELS = 8;
+
+    private static final String BASE83 = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz#$%*+,-.:;=?@[]^_{|}~";
+
+    private ImagePlaceholder() {}
+
+    /**
+     * Compute the blurhash of an image.
+     *
+     * @param image the image, which should be decoded at about {@link #DECODE_SIZE} pixels.
+     * @return the blurhash, of 28 characters.
+     */
+    public static String blurhash(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double[][] linear = new double[width * height][3];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int rgb = image.getRGB(x, y);
+                double[] pixel = linear[y * width + x];
+                pixel[0] = toLinear((rgb >> 16) & 0xFF);
+                pixel[1] = toLinear((rgb >> 8) & 0xFF);
+                pixel[2] = toLinear(rgb & 0xFF);
+            }
+        }
+
+        double[][] factors = new double[X_COMPONENTS * Y_COMPONENTS][3];
+        for (int j = 0; j < Y_COMPONENTS; j++) {
+            for (int i = 0; i < X_COMPONENTS; i++) {
+                double normalisation = i == 0 && j == 0 ? 1 : 2;
+                double[] factor = factors[j * X_COMPONENTS + i];
+                for (int y = 0; y < height; y++) {
+                    double basisY = Math.cos(Math.PI * j * y / height);
+                    for (int x = 0; x < width; x++) {
+                        double basis = normalisation * Math.cos(Math.PI * i * x / width) * basisY;
+                        double[] pixel = linear[y * width + x];
+                        factor[0] += basis * pixel[0];
+                        factor[1] += basis * pixel[1];
+                        factor[2] += basis * pixel[2];
+                    }
+                }
+                for (int c = 0; c < 3; c++) {
+                    factor[c] /= width * height;
+                }
+            }
+        }
+
+        StringBuilder blurhash = new StringBuilder();
+        encode83(blurhash, (X_COMPONENTS - 1) + (Y_COMPONENTS - 1) * 9, 1);
+        double maximum = 0;
+        for (int k = 1; k < factors.length; k++) {
+            for (int c = 0; c < 3; c++) {
+                maximum = Math.max(maximum, Math.abs(factors[k][c]));
+            }
+        }
+        int quantisedMaximum = (int) Math.max(0, Math.min(82, Math.floor(maximum * 166 - 0.5)));
+        double maximumValue = (quantisedMaximum + 1) / 166.0;
+        encode83(blurhash, quantisedMaximum, 1);
+        double[] dc = factors[0];
+        encode83(blurhash, (toSrgb(dc[0]) << 16) + (toSrgb(dc[1]) << 8) + toSrgb(dc[2]), 4);
+        for (int k = 1; k < factors.length; k++) {
+            double[] ac = factors[k];
+            int value = (quantise(ac[0] / maximumValue) * 19 + quantise(ac[1] / maximumValue)) * 19 + quantise(ac[2] / maximumValue);
+            encode83(blurhash, value, 2);
+        }
+        return blurhash.toString();
+    }
+
+    /**
+     * Compute the dominant colour of an image.
+     *
+     * @param image the image, which should be decoded at about {@link #DECODE_SIZE} pixels.
+     * @return the colour, as {@code #rrggbb} in lower case hexadecimal.
+     */
+    public static String dominantColor(BufferedImage image) {
+        int bins = COLOUR_LEVELS * COLOUR_LEVELS * COLOUR_LEVELS;
+        int[] counts = new int[bins];
+        long[][] sums = new long[bins][3];
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                int rgb = image.getRGB(x, y);
+                int r = (rgb >> 16) & 0xFF;
+                int g = (rgb >> 8) & 0xFF;
+                int b = rgb & 0xFF;
+                int bin = ((r * COLOUR_LEVELS >> 8) * COLOUR_LEVELS + (g * COLOUR_LEVELS >> 8)) * COLOUR_LEVELS + (b * COLOUR_LEVELS >> 8);
+                counts[bin]++;
+                sums[bin][0] += r;
+                sums[bin][1] += g;
+                sums[bin][2] += b;
+            }
+        }
+        int dominant = 0;
+        for (int bin = 1; bin < bins; bin++) {
+            if (counts[bin] > counts[dominant]) {
+                dominant = bin;
+            }
+        }
+        int count = Math.max(1, counts[dominant]);
+        long[] sum = sums[dominant];
+        return String.format("#%02x%02x%02x", sum[0] / count, sum[1] / count, sum[2] / count);
+    }
+
+    private static double toLinear(int value) {
+        double v = value / 255.0;
+        return v <= 0.04045 ? v / 12.92 : Math.pow((v + 0.055) / 1.055, 2.4);
+    }
+
+    private static int toSrgb(double value) {
+        double v = Math.max(0, Math.min(1, value));
+        return v <= 0.0031308 ? (int) (v * 12.92 * 255 + 0.5) : (int) ((1.055 * Math.pow(v, 1 / 2.4) - 0.055) * 255 + 0.5);
+    }
+
+    /**
+     * Quantise an AC component, relative to the largest one, to 19 levels, with more levels for the small values.
+     */
+    private static int quantise(double value) {
+        double signedRoot = Math.copySign(Math.sqrt(Math.abs(value)), value);
+        return (int) Math.max(0, Math.min(18, Math.floor(signedRoot * 9 + 9.5)));
+    }
+
+    private static void encode83(StringBuilder builder, int value, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            int divisor = 1;
+            for (int k = 0; k < i; k++) {
+                divisor *= 83;
+            }
+            builder.append(BASE83.charAt((value / divisor) % 83));
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.auth0.flickr2.service;
+
+import com.auth0.flickr2.service.storage.BlobStore;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Optional;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service decoding, scaling and encoding the images kept in the {@link BlobStore}, with ImageIO.
+ * <p>
+ * Large images are decoded with subsampling, so that rendering a small image from a 40 megapixel photo does not
+ * allocate a 40 megapixel raster. Decoded images are then scaled down by halving steps, which keeps bilinear
+ * interpolation from skipping source pixels.
+ */
+@Service
+public class ImageRenderer {
+
+    public static final String JPEG_CONTENT_TYPE = "image/jpeg";
+
+    private final BlobStore blobStore;
+
+    public ImageRenderer(BlobStore blobStore) {
+        this.blobStore = blobStore;
+    }
+
+    /**
+     * Read the dimensions of an image, without decoding it.
+     *
+     * @param imageKey the key of the image in the blob store.
+     * @return the dimensions of the image, or empty if the image format cannot be decoded.
+     * @throws IOException if the image could not be read.
+     */
+    public Optional<Dimension> readSize(String imageKey) throws IOException {
+        return read(imageKey, reader -> new Dimension(reader.getWidth(0), reader.getHeight(0)));
+    }
+
+    /**
+     * Decode an image, keeping enough pixels to render it at the given scale.
+     * <p>
+     * The subsampling keeps at least twice the pixels needed at that scale, to limit its aliasing.
+     *
+     * @param imageKey the key of the image in the blob store.
+     * @param scale the ratio between the size of the image that will be rendered, and the size of the image.
+     * @return the decoded image, or empty if the image format cannot be decoded.
+     * @throws IOException if the image could not be read.
+     */
+    public Optional<BufferedImage> decode(String imageKey, double scale) throws IOException {
+        int subsampling = Math.max(1, (int) (1 / (2 * scale)));
+        return read(
+            imageKey,
+            reader -> {
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            }
+        );
+    }
+
+    private <T> Optional<T> read(String imageKey, ReaderFunction<T> function) throws IOException {
+        Optional<Path> path = blobStore.getPath(imageKey);
+        try (
+            InputStream in = path.isPresent() ? null : blobStore.get(imageKey);
+            ImageInputStream iis = ImageIO.createImageInputStream(path.isPresent() ? path.get().toFile() : in)
+        ) {
+            Iterator<ImageReader> readers = iis != null ? ImageIO.getImageReaders(iis) : null;
+            if (readers == null || !readers.hasNext()) {
+                return Optional.empty();
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                return Optional.of(function.apply(reader));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scale an image to the given dimensions, by successive halving steps.
+     *
+     * @param image the image to scale.
+     * @param width the width of the scaled image.
+     * @param height the height of the scaled image.
+     * @return the scaled image.
+     */
+    public static BufferedImage scale(BufferedImage image, int width, int height) {
+        BufferedImage current = image;
+        do {
+            int stepWidth = current.getWidth() > width ? Math.max(width, current.getWidth() / 2) : width;
+            int stepHeight = current.getHeight() > height ? Math.max(height, current.getHeight() / 2) : height;
+            BufferedImage next = new BufferedImage(stepWidth, stepHeight, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                // transparent areas are rendered on white, as JPEG has no alpha channel
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, stepWidth, stepHeight);
+                graphics.drawImage(current, 0, 0, stepWidth, stepHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (current.getWidth() != width || current.getHeight() != height);
+        return current;
+    }
+
+    /**
+     * Scale an image so that its largest side is {@code size} pixels, keeping its aspect ratio.
+     *
+     * @param image the image to scale.
+     * @param size the size of the largest side of the scaled image.
+     * @return the scaled image.
+     */
+    public static BufferedImage scaleToFit(BufferedImage image, int size) {
+        double ratio = (double) size / Math.max(image.getWidth(), image.getHeight());
+        return scale(image, Math.max(1, (int) Math.round(image.getWidth() * ratio)), Math.max(1, (int) Math.round(image.getHeight() * ratio)));
+    }
+
+    /**
+     * Encode an image as JPEG.
+     *
+     * @param image the image to encode.
+     * @param quality the JPEG compression quality, between 0 and 1.
+     * @param out the stream to write the image to, which is not closed by this method.
+     * @throws IOException if the image could not be written.
+     */
+    public static void writeJpeg(BufferedImage image, float quality, OutputStream out) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.setOutput(ios);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ReaderFunction<T> {
+        T apply(ImageReader reader) throws IOException;
+    }
+}
@@ -0,0 +1,153 @@
+package com.auth0.flickr2.service;
+
+import com.auth0.flickr2.config.ApplicationProperties;
+import com.auth0.flickr2.service.storage.VariantCache;
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service rendering image variants of arbitrary dimensions on demand, and keeping them in the {@link VariantCache}.
+ */
+@Service
+public class ImageVariantService {
+
+    /**
+     * How an image is fitted into the requested dimensions.
+     */
+    public enum Fit {
+        /**
+         * Scale the image to fit within the dimensions, keeping its aspect ratio.
+         */
+        CONTAIN,
+        /**
+         * Scale the image to cover the dimensions, keeping its aspect ratio, and crop it to its center.
+         */
+        COVER,
+        /**
+         * Stretch the image to the dimensions.
+         */
+        FILL,
+    }
+
+    public static final float DEFAULT_QUALITY = 0.85f;
+
+    public static final float SAVE_DATA_QUALITY = 0.6f;
+
+    private final Logger log = LoggerFactory.getLogger(ImageVariantService.class);
+
+    private final ImageRenderer imageRenderer;
+
+    private final VariantCache variantCache;
+
+    private final int maxDimension;
+
+    public ImageVariantService(ImageRenderer imageRenderer, VariantCache variantCache, ApplicationProperties applicationProperties) {
+        this.imageRenderer = imageRenderer;
+        this.variantCache = variantCache;
+        this.maxDimension = applicationProperties.getVariants().getMaxDimension();
+    }
+
+    /**
+     * Get a JPEG variant of an image, rendering it if it is not cached yet.
+     * <p>
+     * When only one of the width and the height is given, the other one follows the aspect ratio of the image.
+     * Variants are never larger than the image itself, nor than {@code application.variants.max-dimension}.
+     *
+     * @param imageKey the key of the image in the blob store.
+     * @param width the requested width, in pixels, or {@code null}.
+     * @param height the requested height, in pixels, or {@code null}.
+     * @param fit how the image is fitted into the requested dimensions, when both are given.
+     * @param quality the JPEG compression quality, between 0 and 1.
+     * @return the variant, or empty if the image format cannot be decoded.
+     * @throws IOException if the image could not be read, or the variant could not be rendered.
+     */
+    public Optional<Variant> getVariant(String imageKey, Integer width, Integer height, Fit fit, float quality) throws IOException {
+        Optional<Dimension> imageSize = imageRenderer.readSize(imageKey);
+        if (imageSize.isEmpty()) {
+            return Optional.empty();
+        }
+        int imageWidth = imageSize.get().width;
+        int imageHeight = imageSize.get().height;
+        int boxWidth = Math.min(Math.min(width != null ? width : Integer.MAX_VALUE, imageWidth), maxDimension);
+        int boxHeight = Math.min(Math.min(height != null ? height : Integer.MAX_VALUE, imageHeight), maxDimension);
+        if (width == null || height == null) {
+            fit = Fit.CONTAIN;
+        }
+
+        // dimensions of the scaled image, before cropping
+        int scaledWidth;
+        int scaledHeight;
+        if (fit == Fit.FILL) {
+            scaledWidth = boxWidth;
+            scaledHeight = boxHeight;
+        } else {
+            double containRatio = Math.min((double) boxWidth / imageWidth, (double) boxHeight / imageHeight);
+            double coverRatio = Math.max((double) boxWidth / imageWidth, (double) boxHeight / imageHeight);
+            double ratio = fit == Fit.COVER ? Math.min(1, coverRatio) : containRatio;
+            scaledWidth = Math.max(1, (int) Math.round(imageWidth * ratio));
+            scaledHeight = Math.max(1, (int) Math.round(imageHeight * ratio));
+        }
+        int variantWidth = Math.min(scaledWidth, boxWidth);
+        int variantHeight = Math.min(scaledHeight, boxHeight);
+
+        String name = String.format(
+            "%s-%dx%d-%s-q%d.jpg",
+            imageKey,
+            variantWidth,
+            variantHeight,
+            fit.name().toLowerCase(Locale.ROOT),
+            Math.round(quality * 100)
+        );
+        double scale = Math.max((double) scaledWidth / imageWidth, (double) scaledHeight / imageHeight);
+        Path file = variantCache.get(
+            name,
+            out -> {
+                log.debug("Rendering variant {}", name);
+                BufferedImage image = imageRenderer
+                    .decode(imageKey, scale)
+                    .orElseThrow(() -> new IOException("Could not decode image " + imageKey));
+                image = ImageRenderer.scale(image, scaledWidth, scaledHeight);
+                if (scaledWidth > variantWidth || scaledHeight > variantHeight) {
+                    image = image.getSubimage((scaledWidth - variantWidth) / 2, (scaledHeight - variantHeight) / 2, variantWidth, variantHeight);
+                }
+                ImageRenderer.writeJpeg(image, quality, out);
+            }
+        );
+        return Optional.of(new Variant(name, file));
+    }
+
+    /**
+     * A rendered image variant.
+     */
+    public static class Variant {
+
+        private final String name;
+
+        private final Path file;
+
+        public Variant(String name, Path file) {
+            this.name = name;
+            this.file = file;
+        }
+
+        /**
+         * Get the name of the variant, which identifies its content.
+         *
+         * @return the name of the variant.
+         */
+        public String getName() {
+            return name;
+        }
+
+        public Path getFile() {
+            return file;
+        }
+    }
+}
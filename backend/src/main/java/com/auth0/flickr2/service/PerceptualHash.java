@@ -0,0 +1,64 @@
+package com.auth0.flickr2.service;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Perceptual hash of images: a 64-bit difference hash (dHash), which barely changes when an image is resized,
+ * recompressed or slightly edited, unlike its digest.
+ * <p>
+ * The image is scaled down to 9 by 8 pixels, and each bit of the hash tells whether a pixel is brighter than its right
+ * neighbour. Images which look alike have hashes differing by a few bits only.
+ */
+public final class PerceptualHash {
+
+    /**
+     * Number of bits of a hash, which is the largest distance between two hashes.
+     */
+    public static final int BITS = Long.SIZE;
+
+    /**
+     * Size of the largest side of the image to hash, which is enough to average its pixels when scaling it down.
+     */
+    public static final int DECODE_SIZE = 64;
+
+    private static final int WIDTH = 9;
+
+    private static final int HEIGHT = 8;
+
+    private PerceptualHash() {}
+
+    /**
+     * Compute the perceptual hash of an image.
+     *
+     * @param image the image, which should be decoded at about {@link #DECODE_SIZE} pixels.
+     * @return the hash.
+     */
+    public static long of(BufferedImage image) {
+        BufferedImage scaled = ImageRenderer.scale(image, WIDTH, HEIGHT);
+        long hash = 0;
+        for (int y = 0; y < HEIGHT; y++) {
+            int left = luminance(scaled.getRGB(0, y));
+            for (int x = 1; x < WIDTH; x++) {
+                int right = luminance(scaled.getRGB(x, y));
+                hash = (hash << 1) | (left > right ? 1 : 0);
+                left = right;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Get the distance between two hashes.
+     *
+     * @param hash a hash.
+     * @param other another hash.
+     * @return the Hamming distance between the hashes: their number of differing bits.
+     */
+    public static int distance(long hash, long other) {
+        return Long.bitCount(hash ^ other);
+    }
+
+    private static int luminance(int rgb) {
+        return (299 * ((rgb >> 16) & 0xFF) + 587 * ((rgb >> 8) & 0xFF) + 114 * (rgb & 0xFF)) / 1000;
+    }
+}
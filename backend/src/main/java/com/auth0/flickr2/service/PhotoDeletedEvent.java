@@ -0,0 +1,22 @@
+package com.auth0.flickr2.service;
+
+/**
+ * Event published when a {@link com.auth0.flickr2.domain.Photo} has been deleted.
+ */
+public class PhotoDeletedEvent {
+
+    private final Long photoId;
+
+    public PhotoDeletedEvent(Long photoId) {
+        this.photoId = photoId;
+    }
+
+    public Long getPhotoId() {
+        return photoId;
+    }
+
+    @Override
+    public String toString() {
+        return "PhotoDeletedEvent{photoId=" + photoId + "}";
+    }
+}
@@ -0,0 +1,30 @@
+package com.auth0.flickr2.service;
+
+/**
+ * Event published when the feature vector of the image of a {@link com.auth0.flickr2.domain.Photo} has been computed,
+ * or dropped because its image has changed.
+ */
+public class PhotoFeaturesChangedEvent {
+
+    private final Long photoId;
+
+    private final float[] featureVector;
+
+    public PhotoFeaturesChangedEvent(Long photoId, float[] featureVector) {
+        this.photoId = photoId;
+        this.featureVector = featureVector;
+    }
+
+    public Long getPhotoId() {
+        return photoId;
+    }
+
+    public float[] getFeatureVector() {
+        return featureVector;
+    }
+
+    @Override
+    public String toString() {
+        return "PhotoFeaturesChangedEvent{photoId=" + photoId + ", featureVector=" + (featureVector != null ? "[...]" : null) + "}";
+    }
+}
@@ -0,0 +1,316 @@
+package com.auth0.flickr2.service;
+
+import com.auth0.flickr2.repository.PhotoRepository;
+import com.auth0.flickr2.service.dto.MapClusterDTO;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * In-memory quadtree of the photo locations, clustering the photos of a map view without reading their coordinates.
+ * <p>
+ * The world is divided in a grid of 2<sup>20</sup> by 2<sup>20</sup> cells of latitude and longitude, about 40 meters
+ * wide, and the ids of the photos of each cell are kept in a compressed bitmap, in a map sorted by the Z-order code of
+ * the cell. The cells of each level of the quadtree are then contiguous ranges of codes: the photos of a view are
+ * clustered by the cells of a level chosen from the zoom, each cluster being counted from the bitmaps of its range.
+ * <p>
+ * The index is built from the database when the application is ready, then kept up to date from the
+ * {@link PhotoLocationChangedEvent} and {@link PhotoDeletedEvent} published once their transaction has been
+ * committed. Updates received while the index is being rebuilt are applied again to the rebuilt index.
+ */
+@Service
+public class PhotoGeoIndex {
+
+    /**
+     * Number of levels of the quadtree, under the root.
+     */
+    static final int LEVELS = 20;
+
+    private static final int CELLS = 1 << LEVELS;
+
+    /**
+     * Levels of the quadtree under the map tiles of a zoom: a 256 pixels tile holds up to 8 by 8 clusters.
+     */
+    private static final int LEVELS_PER_TILE = 3;
+
+    /**
+     * Maximum number of cells scanned by a clustering, bounding its cost whatever the requested zoom.
+     */
+    private static final int MAX_CELLS = 4096;
+
+    private final Logger log = LoggerFactory.getLogger(PhotoGeoIndex.class);
+
+    private final PhotoRepository photoRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Ids of the photos of each cell of the last level, by Z-order code.
+     */
+    private NavigableMap<Long, RoaringBitmap> photosByCell = new TreeMap<>();
+
+    /**
+     * Z-order codes of the cells of the photos, to move a photo without scanning the cells.
+     */
+    private Map<Integer, Long> cellsByPhoto = new HashMap<>();
+
+    /**
+     * Updates received since the rebuild of the index started, or {@code null} when the index is not being rebuilt.
+     */
+    private List<Runnable> pendingUpdates;
+
+    public PhotoGeoIndex(PhotoRepository photoRepository) {
+        this.photoRepository = photoRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @TransactionalEventListener
+    public void onPhotoLocationChanged(PhotoLocationChangedEvent event) {
+        int photoId = toIndexId(event.getPhotoId());
+        Double latitude = event.getLatitude();
+        Double longitude = event.getLongitude();
+        update(() -> {
+            remove(photoId);
+            if (latitude != null && longitude != null) {
+                add(photosByCell, cellsByPhoto, photoId, latitude, longitude);
+            }
+        });
+    }
+
+    @TransactionalEventListener
+    public void onPhotoDeleted(PhotoDeletedEvent event) {
+        int photoId = toIndexId(event.getPhotoId());
+        update(() -> remove(photoId));
+    }
+
+    /**
+     * Rebuild the index from the database.
+     */
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            pendingUpdates = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        NavigableMap<Long, RoaringBitmap> newPhotosByCell = new TreeMap<>();
+        Map<Integer, Long> newCellsByPhoto = new HashMap<>();
+        boolean built = false;
+        try {
+            try (Stream<Object[]> photos = photoRepository.streamAllIdsWithLocation()) {
+                photos.forEach(photo ->
+                    add(newPhotosByCell, newCellsByPhoto, toIndexId((Long) photo[0]), (Double) photo[1], (Double) photo[2])
+                );
+            }
+            built = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (built) {
+                    photosByCell = newPhotosByCell;
+                    cellsByPhoto = newCellsByPhoto;
+                    pendingUpdates.forEach(Runnable::run);
+                }
+                pendingUpdates = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("Built photo geo index of {} photos in {} cells", newCellsByPhoto.size(), newPhotosByCell.size());
+    }
+
+    private void update(Runnable update) {
+        lock.writeLock().lock();
+        try {
+            update.run();
+            if (pendingUpdates != null) {
+                pendingUpdates.add(update);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void add(
+        NavigableMap<Long, RoaringBitmap> photosByCell,
+        Map<Integer, Long> cellsByPhoto,
+        int photoId,
+        double latitude,
+        double longitude
+    ) {
+        long cell = interleave(toCellX(longitude), toCellY(latitude));
+        photosByCell.computeIfAbsent(cell, code -> new RoaringBitmap()).add(photoId);
+        cellsByPhoto.put(photoId, cell);
+    }
+
+    private void remove(int photoId) {
+        Long cell = cellsByPhoto.remove(photoId);
+        if (cell != null) {
+            RoaringBitmap cellPhotos = photosByCell.get(cell);
+            cellPhotos.remove(photoId);
+            if (cellPhotos.isEmpty()) {
+                photosByCell.remove(cell);
+            }
+        }
+    }
+
+    /**
+     * Cluster the photos of a map view, the largest clusters first.
+     * <p>
+     * The photos are grouped by the cells of the quadtree intersecting the view, whose size halves at each zoom
+     * level. A view crossing the antimeridian has a west bound greater than its east bound.
+     *
+     * @param south the south bound of the view, in degrees of latitude.
+     * @param west the west bound of the view, in degrees of longitude.
+     * @param north the north bound of the view, in degrees of latitude.
+     * @param east the east bound of the view, in degrees of longitude.
+     * @param zoom the zoom level of the view, 0 showing the whole world on a single tile.
+     * @return the clusters, positioned at the center of their photos.
+     */
+    public List<MapClusterDTO> cluster(double south, double west, double north, double east, int zoom) {
+        List<MapClusterDTO> clusters = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (west <= east) {
+                cluster(clusters, toCellX(west), toCellY(south), toCellX(east), toCellY(north), zoom);
+            } else {
+                cluster(clusters, toCellX(west), toCellY(south), CELLS - 1, toCellY(north), zoom);
+                cluster(clusters, 0, toCellY(south), toCellX(east), toCellY(north), zoom);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        clusters.sort(Comparator.comparingLong(MapClusterDTO::getCount).reversed());
+        return clusters;
+    }
+
+    private void cluster(List<MapClusterDTO> clusters, int minX, int minY, int maxX, int maxY, int zoom) {
+        int shift = LEVELS - Math.max(0, Math.min(zoom + LEVELS_PER_TILE, LEVELS));
+        while (shift < LEVELS && (long) ((maxX >> shift) - (minX >> shift) + 1) * ((maxY >> shift) - (minY >> shift) + 1) > MAX_CELLS) {
+            shift++;
+        }
+        for (int y = minY >> shift; y <= maxY >> shift; y++) {
+            for (int x = minX >> shift; x <= maxX >> shift; x++) {
+                // the cells of the last level under a cell of the chosen level
+                long from = interleave(x, y) << (2 * shift);
+                long to = (interleave(x, y) + 1) << (2 * shift);
+                MapClusterDTO cluster = cluster(photosByCell.subMap(from, true, to, false));
+                if (cluster != null) {
+                    clusters.add(cluster);
+                }
+            }
+        }
+    }
+
+    private static MapClusterDTO cluster(NavigableMap<Long, RoaringBitmap> cells) {
+        if (cells.isEmpty()) {
+            return null;
+        }
+        long count = 0;
+        double latitudes = 0;
+        double longitudes = 0;
+        for (Map.Entry<Long, RoaringBitmap> cell : cells.entrySet()) {
+            long cellCount = cell.getValue().getLongCardinality();
+            count += cellCount;
+            latitudes += toLatitude(deinterleave(cell.getKey() >>> 1)) * cellCount;
+            longitudes += toLongitude(deinterleave(cell.getKey())) * cellCount;
+        }
+        long photoId = Integer.toUnsignedLong(cells.firstEntry().getValue().first());
+        return new MapClusterDTO(latitudes / count, longitudes / count, count, photoId);
+    }
+
+    /**
+     * Get the number of photos in the index.
+     *
+     * @return the number of photos with a location.
+     */
+    public int getPhotoCount() {
+        lock.readLock().lock();
+        try {
+            return cellsByPhoto.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static int toCellX(double longitude) {
+        return toCell((longitude + 180) / 360);
+    }
+
+    private static int toCellY(double latitude) {
+        return toCell((latitude + 90) / 180);
+    }
+
+    private static int toCell(double fraction) {
+        return (int) Math.max(0, Math.min(CELLS - 1, Math.floor(fraction * CELLS)));
+    }
+
+    private static double toLongitude(int cellX) {
+        return (cellX + 0.5) * 360 / CELLS - 180;
+    }
+
+    private static double toLatitude(int cellY) {
+        return (cellY + 0.5) * 180 / CELLS - 90;
+    }
+
+    /**
+     * Get the Z-order code of a cell, interleaving the bits of its coordinates.
+     */
+    private static long interleave(int x, int y) {
+        return spread(x) | (spread(y) << 1);
+    }
+
+    private static long spread(int value) {
+        long bits = value & 0xFFFFFFFFL;
+        bits = (bits | (bits << 16)) & 0x0000FFFF0000FFFFL;
+        bits = (bits | (bits << 8)) & 0x00FF00FF00FF00FFL;
+        bits = (bits | (bits << 4)) & 0x0F0F0F0F0F0F0F0FL;
+        bits = (bits | (bits << 2)) & 0x3333333333333333L;
+        bits = (bits | (bits << 1)) & 0x5555555555555555L;
+        return bits;
+    }
+
+    /**
+     * Get the coordinate of a cell held by the even bits of a Z-order code.
+     */
+    private static int deinterleave(long code) {
+        long bits = code & 0x5555555555555555L;
+        bits = (bits | (bits >>> 1)) & 0x3333333333333333L;
+        bits = (bits | (bits >>> 2)) & 0x0F0F0F0F0F0F0F0FL;
+        bits = (bits | (bits >>> 4)) & 0x00FF00FF00FF00FFL;
+        bits = (bits | (bits >>> 8)) & 0x0000FFFF0000FFFFL;
+        bits = (bits | (bits >>> 16)) & 0x00000000FFFFFFFFL;
+        return (int) bits;
+    }
+
+    /**
+     * Photo ids are kept as unsigned 32-bit integers, which fits 4 billion photos.
+     */
+    private static int toIndexId(Long photoId) {
+        if (photoId < 0 || photoId > 0xFFFFFFFFL) {
+            throw new IllegalArgumentException("Photo id out of the index range: " + photoId);
+        }
+        return (int) (long) photoId;
+    }
+}
@@ -0,0 +1,30 @@
+package com.auth0.flickr2.service;
+
+/**
+ * Event published when the perceptual hash of the image of a {@link com.auth0.flickr2.domain.Photo} has been computed,
+ * or dropped because its image has changed.
+ */
+public class PhotoHashChangedEvent {
+
+    private final Long photoId;
+
+    private final Long perceptualHash;
+
+    public PhotoHashChangedEvent(Long photoId, Long perceptualHash) {
+        this.photoId = photoId;
+        this.perceptualHash = perceptualHash;
+    }
+
+    public Long getPhotoId() {
+        return photoId;
+    }
+
+    public Long getPerceptualHash() {
+        return perceptualHash;
+    }
+
+    @Override
+    public String toString() {
+        return "PhotoHashChangedEvent{photoId=" + photoId + ", perceptualHash=" + perceptualHash + "}";
+    }
+}
@@ -0,0 +1,37 @@
+package com.auth0.flickr2.service;
+
+/**
+ * Event published when a {@link com.auth0.flickr2.domain.Photo} has been saved, with its location, which may have
+ * changed.
+ */
+public class PhotoLocationChangedEvent {
+
+    private final Long photoId;
+
+    private final Double latitude;
+
+    private final Double longitude;
+
+    public PhotoLocationChangedEvent(Long photoId, Double latitude, Double longitude) {
+        this.photoId = photoId;
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    public Long getPhotoId() {
+        return photoId;
+    }
+
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    @Override
+    public String toString() {
+        return "PhotoLocationChangedEvent{photoId=" + photoId + ", latitude=" + latitude + ", longitude=" + longitude + "}";
+    }
+}
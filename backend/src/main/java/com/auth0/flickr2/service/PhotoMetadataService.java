@@ -0,0 +1,132 @@
+package com.auth0.flickr2.service;
+
+import com.auth0.flickr2.domain.Photo;
+import com.drew.imaging.FileType;
+import com.drew.imaging.FileTypeDetector;
+import com.drew.imaging.ImageMetadataReader;
+import com.drew.imaging.ImageProcessingException;
+import com.drew.imaging.jpeg.JpegMetadataReader;
+import com.drew.imaging.jpeg.JpegSegmentMetadataReader;
+import com.drew.lang.GeoLocation;
+import com.drew.metadata.Metadata;
+import com.drew.metadata.MetadataException;
+import com.drew.metadata.exif.ExifReader;
+import com.drew.metadata.exif.ExifSubIFDDirectory;
+import com.drew.metadata.exif.GpsDirectory;
+import com.drew.metadata.jfif.JfifReader;
+import com.drew.metadata.jpeg.JpegDirectory;
+import com.drew.metadata.jpeg.JpegReader;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service extracting the metadata of {@link Photo} images.
+ * <p>
+ * JPEG images are parsed segment by segment, only keeping the JFIF, EXIF and frame header segments: parsing stops at
+ * the start of the compressed image data, so the cost of an extraction does not depend on the size of the image.
+ * Other formats are handed over to {@link ImageMetadataReader}.
+ * <p>
+ * Each extraction is timed in the {@value #TIMER_NAME} timer, tagged with the detected file type and the outcome.
+ */
+@Service
+public class PhotoMetadataService {
+
+    static final String TIMER_NAME = "photo.metadata.extraction";
+
+    private static final List<JpegSegmentMetadataReader> JPEG_READERS = List.of(new JpegReader(), new JfifReader(), new ExifReader());
+
+    private final Logger log = LoggerFactory.getLogger(PhotoMetadataService.class);
+
+    private final MeterRegistry meterRegistry;
+
+    public PhotoMetadataService(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Set the date taken, the upload date, the location and the dimensions of a photo from the metadata of its image.
+     * <p>
+     * When the image format is not recognized, the photo is left unchanged.
+     *
+     * @param photo the photo to update.
+     * @param image the image content, which is only read up to the end of its metadata, and is not closed by this method.
+     * @return {@code true} if the metadata has been read, {@code false} if the image format is not recognized.
+     * @throws IOException if the image could not be read.
+     */
+    public boolean setMetadata(Photo photo, InputStream image) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        FileType fileType = FileType.Unknown;
+        String outcome = "unsupported";
+        try {
+            BufferedInputStream in = new BufferedInputStream(image);
+            fileType = FileTypeDetector.detectFileType(in);
+            Metadata metadata = readMetadata(in, fileType);
+            applyMetadata(photo, metadata);
+            outcome = "success";
+            return true;
+        } catch (ImageProcessingException ipe) {
+            log.debug("Unsupported image format: {}", ipe.getMessage());
+            return false;
+        } catch (IOException | RuntimeException e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            sample.stop(meterRegistry.timer(TIMER_NAME, "type", fileType.getName().toLowerCase(Locale.ROOT), "outcome", outcome));
+        }
+    }
+
+    private Metadata readMetadata(BufferedInputStream in, FileType fileType) throws ImageProcessingException, IOException {
+        if (fileType == FileType.Jpeg) {
+            return JpegMetadataReader.readMetadata(in, JPEG_READERS);
+        }
+        return ImageMetadataReader.readMetadata(in);
+    }
+
+    private void applyMetadata(Photo photo, Metadata metadata) {
+        ExifSubIFDDirectory directory = metadata.getFirstDirectoryOfType(ExifSubIFDDirectory.class);
+
+        if (directory != null) {
+            Date date = directory.getDateDigitized();
+            if (date != null) {
+                photo.setTaken(date.toInstant());
+            }
+        }
+
+        if (photo.getTaken() == null) {
+            log.debug("Photo EXIF date digitized not available, setting taken on date to now...");
+            photo.setTaken(Instant.now());
+        }
+
+        photo.setUploaded(Instant.now());
+
+        GpsDirectory gpsDirectory = metadata.getFirstDirectoryOfType(GpsDirectory.class);
+        if (gpsDirectory != null) {
+            GeoLocation location = gpsDirectory.getGeoLocation();
+            // cameras without a GPS fix may write a location of 0, 0
+            if (location != null && !location.isZero()) {
+                photo.setLatitude(location.getLatitude());
+                photo.setLongitude(location.getLongitude());
+            }
+        }
+
+        JpegDirectory jpgDirectory = metadata.getFirstDirectoryOfType(JpegDirectory.class);
+        if (jpgDirectory != null) {
+            try {
+                photo.setHeight(jpgDirectory.getImageHeight());
+                photo.setWidth(jpgDirectory.getImageWidth());
+            } catch (MetadataException me) {
+                log.error(me.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.auth0.flickr2.service;
+
+import com.auth0.flickr2.repository.PhotoContentRepository;
+import com.auth0.flickr2.service.dto.NearDuplicateDTO;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * In-memory BK-tree of the perceptual hashes of the photo images, finding the photos which look like a photo without
+ * comparing its hash to the hash of every photo.
+ * <p>
+ * Each node of the tree holds a distinct hash, with the ids of its photos in a compressed bitmap, and its children by
+ * their distance to this hash. By the triangle inequality, the photos within a distance of a hash are only under the
+ * children whose distance to the node differs from the distance of the hash by at most this distance: a search with a
+ * small distance only visits a few branches of the tree.
+ * <p>
+ * The index is built from the database when the application is ready, then kept up to date from the
+ * {@link PhotoHashChangedEvent} and {@link PhotoDeletedEvent} published once their transaction has been committed.
+ * Updates received while the index is being rebuilt are applied again to the rebuilt index. Nodes left without photos
+ * still route the searches until the next rebuild.
+ */
+@Service
+public class PhotoNearDuplicateIndex {
+
+    private final Logger log = LoggerFactory.getLogger(PhotoNearDuplicateIndex.class);
+
+    private final PhotoContentRepository photoContentRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Node root;
+
+    /**
+     * Nodes of the tree by hash, to add or remove a photo without searching the tree.
+     */
+    private Map<Long, Node> nodesByHash = new HashMap<>();
+
+    /**
+     * Hashes of the photos, to move a photo without searching the tree.
+     */
+    private Map<Integer, Long> hashesByPhoto = new HashMap<>();
+
+    /**
+     * Updates received since the rebuild of the index started, or {@code null} when the index is not being rebuilt.
+     */
+    private List<Runnable> pendingUpdates;
+
+    public PhotoNearDuplicateIndex(PhotoContentRepository photoContentRepository) {
+        this.photoContentRepository = photoContentRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @TransactionalEventListener
+    public void onPhotoHashChanged(PhotoHashChangedEvent event) {
+        int photoId = toIndexId(event.getPhotoId());
+        Long hash = event.getPerceptualHash();
+        update(() -> {
+            remove(photoId);
+            if (hash != null) {
+                add(photoId, hash);
+            }
+        });
+    }
+
+    @TransactionalEventListener
+    public void onPhotoDeleted(PhotoDeletedEvent event) {
+        int photoId = toIndexId(event.getPhotoId());
+        update(() -> remove(photoId));
+    }
+
+    /**
+     * Rebuild the index from the database, dropping the nodes left without photos.
+     */
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            pendingUpdates = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Map<Integer, Long> newHashesByPhoto = new HashMap<>();
+        boolean built = false;
+        try {
+            try (Stream<Object[]> contents = photoContentRepository.streamAllIdsWithPerceptualHash()) {
+                contents.forEach(content -> newHashesByPhoto.put(toIndexId((Long) content[0]), (Long) content[1]));
+            }
+            built = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (built) {
+                    root = null;
+                    nodesByHash = new HashMap<>();
+                    hashesByPhoto = new HashMap<>();
+                    newHashesByPhoto.forEach(this::add);
+                    pendingUpdates.forEach(Runnable::run);
+                }
+                pendingUpdates = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("Built photo near-duplicate index of {} photos", newHashesByPhoto.size());
+    }
+
+    private void update(Runnable update) {
+        lock.writeLock().lock();
+        try {
+            update.run();
+            if (pendingUpdates != null) {
+                pendingUpdates.add(update);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(int photoId, long hash) {
+        Node node = nodesByHash.get(hash);
+        if (node == null) {
+            node = new Node(hash);
+            nodesByHash.put(hash, node);
+            if (root == null) {
+                root = node;
+            } else {
+                insert(node);
+            }
+        }
+        node.photoIds.add(photoId);
+        hashesByPhoto.put(photoId, hash);
+    }
+
+    private void insert(Node node) {
+        Node parent = root;
+        while (true) {
+            int distance = PerceptualHash.distance(parent.hash, node.hash);
+            if (parent.children == null) {
+                parent.children = new Node[PerceptualHash.BITS + 1];
+            }
+            if (parent.children[distance] == null) {
+                parent.children[distance] = node;
+                return;
+            }
+            parent = parent.children[distance];
+        }
+    }
+
+    private void remove(int photoId) {
+        Long hash = hashesByPhoto.remove(photoId);
+        if (hash != null) {
+            nodesByHash.get(hash).photoIds.remove(photoId);
+        }
+    }
+
+    /**
+     * Find the photos whose image looks like the image of a photo, the closest first.
+     *
+     * @param photoId the id of the photo.
+     * @param maxDistance the largest distance between the perceptual hashes of the images.
+     * @param limit the maximum number of photos to return.
+     * @return the other photos within the distance, or empty if the photo has no perceptual hash.
+     */
+    public Optional<List<NearDuplicateDTO>> findNearDuplicates(Long photoId, int maxDistance, int limit) {
+        int indexId = toIndexId(photoId);
+        List<NearDuplicateDTO> nearDuplicates = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Long hash = hashesByPhoto.get(indexId);
+            if (hash == null) {
+                return Optional.empty();
+            }
+            Deque<Node> nodes = new ArrayDeque<>();
+            nodes.push(root);
+            while (!nodes.isEmpty()) {
+                Node node = nodes.pop();
+                int distance = PerceptualHash.distance(hash, node.hash);
+                if (distance <= maxDistance) {
+                    int nodeDistance = distance;
+                    node.photoIds.forEach(
+                        (int id) -> {
+                            if (id != indexId) {
+                                nearDuplicates.add(new NearDuplicateDTO(Integer.toUnsignedLong(id), nodeDistance));
+                            }
+                        }
+                    );
+                }
+                if (node.children != null) {
+                    int from = Math.max(0, distance - maxDistance);
+                    int to = Math.min(PerceptualHash.BITS, distance + maxDistance);
+                    for (int childDistance = from; childDistance <= to; childDistance++) {
+                        if (node.children[childDistance] != null) {
+                            nodes.push(node.children[childDistance]);
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        nearDuplicates.sort(Comparator.comparingInt(NearDuplicateDTO::getDistance).thenComparing(NearDuplicateDTO::getPhotoId));
+        return Optional.of(nearDuplicates.size() > limit ? new ArrayList<>(nearDuplicates.subList(0, limit)) : nearDuplicates);
+    }
+
+    /**
+     * Get the number of photos in the index.
+     *
+     * @return the number of photos with a perceptual hash.
+     */
+    public int getPhotoCount() {
+        lock.readLock().lock();
+        try {
+            return hashesByPhoto.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Photo ids are kept as unsigned 32-bit integers, which fits 4 billion photos.
+     */
+    private static int toIndexId(Long photoId) {
+        if (photoId < 0 || photoId > 0xFFFFFFFFL) {
+            throw new IllegalArgumentException("Photo id out of the index range: " + photoId);
+        }
+        return (int) (long) photoId;
+    }
+
+    private static final class Node {
+
+        private final long hash;
+
+        private final RoaringBitmap photoIds = new RoaringBitmap();
+
+        /**
+         * Children by their distance to this node, allocated with the first child.
+         */
+        private Node[] children;
+
+        private Node(long hash) {
+            this.hash = hash;
+        }
+    }
+}
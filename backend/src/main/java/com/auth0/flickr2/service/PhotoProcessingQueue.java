@@ -0,0 +1,217 @@
+package com.auth0.flickr2.service;
+
+import com.auth0.flickr2.config.ApplicationProperties;
+import com.auth0.flickr2.domain.enumeration.PhotoStatus;
+import com.auth0.flickr2.repository.PhotoRepository;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Queue of uploaded photos waiting to be processed by the {@link PhotoProcessingService}.
+ * <p>
+ * Photos are queued once their upload has been committed, and processed by at most
+ * {@code application.processing.concurrency} workers running on the shared {@code taskExecutor}, so that a burst of
+ * uploads cannot take all its threads. A photo is only queued once, however often it is submitted.
+ * <p>
+ * The queue is bounded: the photos which are pending in the database, such as the photos which did not fit or which
+ * were still queued when the application stopped, and the ready photos whose image has not been processed yet, are
+ * backfilled from the database page by page, whenever the workers have emptied the queue.
+ */
+@Service
+public class PhotoProcessingQueue {
+
+    private static final int BACKFILL_PAGE_SIZE = 100;
+
+    private final Logger log = LoggerFactory.getLogger(PhotoProcessingQueue.class);
+
+    private final PhotoProcessingService photoProcessingService;
+
+    private final PhotoRepository photoRepository;
+
+    private final Executor taskExecutor;
+
+    private final int concurrency;
+
+    private final BlockingQueue<Long> pendingPhotoIds;
+
+    private final Set<Long> queuedPhotoIds = ConcurrentHashMap.newKeySet();
+
+    private final int backfillPageSize;
+
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+
+    private final AtomicBoolean backfilling = new AtomicBoolean();
+
+    /**
+     * Id after which the next page of photos to process is backfilled, or {@code null} when there is nothing to
+     * backfill.
+     */
+    private Long backfillAfterId;
+
+    public PhotoProcessingQueue(
+        PhotoProcessingService photoProcessingService,
+        PhotoRepository photoRepository,
+        @Qualifier("taskExecutor") Executor taskExecutor,
+        ApplicationProperties applicationProperties
+    ) {
+        this.photoProcessingService = photoProcessingService;
+        this.photoRepository = photoRepository;
+        this.taskExecutor = taskExecutor;
+        this.concurrency = applicationProperties.getProcessing().getConcurrency();
+        this.pendingPhotoIds = new LinkedBlockingQueue<>(applicationProperties.getProcessing().getQueueCapacity());
+        this.backfillPageSize = Math.min(BACKFILL_PAGE_SIZE, applicationProperties.getProcessing().getQueueCapacity());
+    }
+
+    @TransactionalEventListener
+    public void onPhotoUploaded(PhotoUploadedEvent event) {
+        submit(event.getPhotoId());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePendingPhotos() {
+        backfillFrom(0L);
+        backfill();
+        startWorkers();
+    }
+
+    /**
+     * Queue a photo for processing.
+     *
+     * @param photoId the id of the photo to process.
+     * @return {@code true} if the photo has been queued or was already queued, {@code false} if the queue is full: the
+     * photo is then backfilled once the queue has been emptied.
+     */
+    public boolean submit(Long photoId) {
+        if (!enqueue(photoId)) {
+            log.debug("Photo processing queue is full, Photo {} will be backfilled", photoId);
+            backfillFrom(photoId - 1);
+            return false;
+        }
+        startWorkers();
+        return true;
+    }
+
+    /**
+     * Get the number of photos waiting for a worker.
+     *
+     * @return the number of queued photos.
+     */
+    public int getQueuedCount() {
+        return pendingPhotoIds.size();
+    }
+
+    private void startWorkers() {
+        int active;
+        while (!pendingPhotoIds.isEmpty() && (active = activeWorkers.get()) < concurrency) {
+            if (activeWorkers.compareAndSet(active, active + 1)) {
+                try {
+                    taskExecutor.execute(this::work);
+                } catch (TaskRejectedException e) {
+                    activeWorkers.decrementAndGet();
+                    log.warn("Could not start a photo processing worker: {}", e.getMessage());
+                    return;
+                }
+            }
+        }
+    }
+
+    private boolean enqueue(Long photoId) {
+        if (!queuedPhotoIds.add(photoId)) {
+            return true;
+        }
+        if (!pendingPhotoIds.offer(photoId)) {
+            queuedPhotoIds.remove(photoId);
+            return false;
+        }
+        return true;
+    }
+
+    private Long poll() {
+        Long photoId = pendingPhotoIds.poll();
+        if (photoId == null) {
+            backfill();
+            photoId = pendingPhotoIds.poll();
+        }
+        if (photoId != null) {
+            queuedPhotoIds.remove(photoId);
+        }
+        return photoId;
+    }
+
+    private synchronized void backfillFrom(Long afterId) {
+        if (backfillAfterId == null || afterId < backfillAfterId) {
+            backfillAfterId = afterId;
+        }
+    }
+
+    /**
+     * Queue the next page of photos to process from the database, stopping at the first photo which does not fit.
+     */
+    private void backfill() {
+        if (!backfilling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Long afterId;
+            synchronized (this) {
+                afterId = backfillAfterId;
+            }
+            if (afterId == null || pendingPhotoIds.remainingCapacity() == 0) {
+                return;
+            }
+            List<Long> photoIds = photoRepository.findIdsToProcessAfter(
+                afterId,
+                PhotoStatus.PENDING,
+                PhotoStatus.READY,
+                PageRequest.of(0, backfillPageSize)
+            );
+            Long lastQueuedId = afterId;
+            for (Long photoId : photoIds) {
+                if (!enqueue(photoId)) {
+                    break;
+                }
+                lastQueuedId = photoId;
+            }
+            synchronized (this) {
+                // unless a photo which did not fit in the queue moved the backfill back in the meantime
+                if (afterId.equals(backfillAfterId)) {
+                    backfillAfterId = photoIds.isEmpty() ? null : lastQueuedId;
+                }
+            }
+        } finally {
+            backfilling.set(false);
+        }
+    }
+
+    private void work() {
+        try {
+            Long photoId;
+            while ((photoId = poll()) != null) {
+                try {
+                    photoProcessingService.process(photoId);
+                } catch (RuntimeException e) {
+                    log.error("Could not process Photo {}", photoId, e);
+                }
+            }
+        } finally {
+            activeWorkers.decrementAndGet();
+        }
+        // a photo may have been queued after the last poll, while this worker was still counted as active
+        startWorkers();
+    }
+}
@@ -0,0 +1,272 @@
+package com.auth0.flickr2.service;
+
+import com.auth0.flickr2.domain.Photo;
+import com.auth0.flickr2.domain.PhotoContent;
+import com.auth0.flickr2.domain.PhotoThumbnail;
+import com.auth0.flickr2.domain.enumeration.PhotoStatus;
+import com.auth0.flickr2.repository.PhotoContentRepository;
+import com.auth0.flickr2.repository.PhotoRepository;
+import com.auth0.flickr2.service.storage.BlobStore;
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+import java.util.Set;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service processing uploaded {@link Photo} images: it derives the metadata of {@link PhotoStatus#PENDING} photos
+ * from their stored image, then marks them as {@link PhotoStatus#READY}, generates the thumbnails of their image, and
+ * computes its descriptors: its {@link PerceptualHash}, its {@link ImageFeatures} and its {@link ImagePlaceholder}.
+ * The content of the photo is then marked as processed, whether or not its image could be decoded.
+ */
+@Service
+public class PhotoProcessingService {
+
+    /**
+     * Size of the largest side of the image decoded to compute its descriptors.
+     */
+    private static final int DESCRIPTOR_SIZE = Math.max(
+        Math.max(PerceptualHash.DECODE_SIZE, ImageFeatures.DECODE_SIZE),
+        ImagePlaceholder.DECODE_SIZE
+    );
+
+    private final Logger log = LoggerFactory.getLogger(PhotoProcessingService.class);
+
+    private final PhotoRepository photoRepository;
+
+    private final PhotoContentRepository photoContentRepository;
+
+    private final BlobStore blobStore;
+
+    private final PhotoMetadataService photoMetadataService;
+
+    private final ThumbnailService thumbnailService;
+
+    private final ImageRenderer imageRenderer;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    public PhotoProcessingService(
+        PhotoRepository photoRepository,
+        PhotoContentRepository photoContentRepository,
+        BlobStore blobStore,
+        PhotoMetadataService photoMetadataService,
+        ThumbnailService thumbnailService,
+        ImageRenderer imageRenderer,
+        ApplicationEventPublisher eventPublisher,
+        PlatformTransactionManager transactionManager
+    ) {
+        this.photoRepository = photoRepository;
+        this.photoContentRepository = photoContentRepository;
+        this.blobStore = blobStore;
+        this.photoMetadataService = photoMetadataService;
+        this.thumbnailService = thumbnailService;
+        this.imageRenderer = imageRenderer;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Process a photo: derive the metadata of a pending photo from its image, then generate the thumbnails and compute
+     * the descriptors of its image if they have not been done yet.
+     * <p>
+     * The photo is loaded in a first short transaction, its image is decoded outside of any transaction, so that the
+     * processing does not hold a database connection, and the results are saved in a second short transaction. Steps
+     * which have already been done are skipped, so a photo can safely be submitted more than once.
+     *
+     * @param photoId the id of the photo to process.
+     * @return the processed photo, or empty if there is no photo with this id.
+     */
+    public Optional<Photo> process(Long photoId) {
+        Optional<Photo> loaded = readOnlyTransactionTemplate.execute(status -> photoRepository.findById(photoId));
+        if (loaded.isEmpty()) {
+            return loaded;
+        }
+        log.debug("Processing Photo : {}", photoId);
+        Optional<PhotoContent> content = readOnlyTransactionTemplate.execute(status ->
+            photoContentRepository
+                .findById(photoId)
+                .map(photoContent -> {
+                    Hibernate.initialize(photoContent.getThumbnails());
+                    return photoContent;
+                })
+        );
+        Photo photo = loaded.get();
+        Results results = new Results();
+        if (content.isEmpty()) {
+            log.warn("Photo {} has no image to process", photoId);
+        } else {
+            if (photo.getStatus() == PhotoStatus.PENDING) {
+                results.metadata = extractMetadata(photo, content.get().getImageKey());
+            }
+            if (photo.getStatus() == PhotoStatus.READY || results.metadata != null) {
+                results.processedImageKey = content.get().getImageKey();
+                if (content.get().getThumbnails().isEmpty()) {
+                    results.thumbnails = generateThumbnails(content.get());
+                }
+                if (!isDescribed(photo, content.get())) {
+                    describeImage(photo, content.get(), results);
+                }
+            }
+        }
+        return transactionTemplate.execute(status -> photoRepository.findById(photoId).map(saved -> save(saved, results)));
+    }
+
+    /**
+     * Save the results of the processing of a photo, unless the photo has been processed in the meantime.
+     */
+    private Photo save(Photo photo, Results results) {
+        Long photoId = photo.getId();
+        if (photo.getStatus() == PhotoStatus.PENDING) {
+            if (results.metadata != null) {
+                photo.setTaken(results.metadata.getTaken());
+                photo.setUploaded(results.metadata.getUploaded());
+                photo.setLatitude(results.metadata.getLatitude());
+                photo.setLongitude(results.metadata.getLongitude());
+                photo.setWidth(results.metadata.getWidth());
+                photo.setHeight(results.metadata.getHeight());
+                photo.setStatus(PhotoStatus.READY);
+                eventPublisher.publishEvent(new PhotoTakenChangedEvent(photoId, photo.getTaken()));
+                eventPublisher.publishEvent(new PhotoLocationChangedEvent(photoId, photo.getLatitude(), photo.getLongitude()));
+            } else {
+                photo.setStatus(PhotoStatus.FAILED);
+            }
+        }
+        if (photo.getStatus() != PhotoStatus.READY) {
+            return photo;
+        }
+        Optional<PhotoContent> content = photoContentRepository.findById(photoId);
+        if (content.isEmpty()) {
+            return photo;
+        }
+        if (results.thumbnails != null && content.get().getThumbnails().isEmpty()) {
+            content.get().getThumbnails().addAll(results.thumbnails);
+        }
+        if (results.perceptualHash != null && content.get().getPerceptualHash() == null) {
+            content.get().setPerceptualHash(results.perceptualHash);
+            eventPublisher.publishEvent(new PhotoHashChangedEvent(photoId, results.perceptualHash));
+        }
+        if (results.featureVector != null && content.get().getFeatureVector() == null) {
+            content.get().setFeatureVector(ImageFeatures.toBytes(results.featureVector));
+            eventPublisher.publishEvent(new PhotoFeaturesChangedEvent(photoId, results.featureVector));
+        }
+        if (results.blurhash != null && photo.getBlurhash() == null) {
+            photo.setBlurhash(results.blurhash);
+            photo.setDominantColor(results.dominantColor);
+        }
+        if (content.get().getImageKey().equals(results.processedImageKey)) {
+            // even when the image could not be decoded, or is smaller than every thumbnail, so that it is not backfilled again
+            content.get().setProcessed(true);
+        }
+        return photo;
+    }
+
+    private static boolean isDescribed(Photo photo, PhotoContent content) {
+        return content.getPerceptualHash() != null && content.getFeatureVector() != null && photo.getBlurhash() != null;
+    }
+
+    /**
+     * Read the metadata of an image.
+     *
+     * @return a copy of the photo with the metadata of its image, or {@code null} if the image cannot be read or its
+     * format is not supported.
+     */
+    private Photo extractMetadata(Photo photo, String imageKey) {
+        Photo metadata = new Photo()
+            .taken(photo.getTaken())
+            .uploaded(photo.getUploaded())
+            .latitude(photo.getLatitude())
+            .longitude(photo.getLongitude())
+            .width(photo.getWidth())
+            .height(photo.getHeight());
+        try (InputStream image = blobStore.get(imageKey)) {
+            if (!photoMetadataService.setMetadata(metadata, image)) {
+                log.warn("Photo {} has an unsupported image format", photo.getId());
+                return null;
+            }
+            return metadata;
+        } catch (IOException e) {
+            log.warn("Could not read the metadata of Photo {}: {}", photo.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    private Set<PhotoThumbnail> generateThumbnails(PhotoContent content) {
+        try {
+            return thumbnailService.generate(content.getImageKey());
+        } catch (IOException | RuntimeException e) {
+            // the original image is still served for every size
+            log.warn("Could not generate the thumbnails of Photo {}: {}", content.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Compute the descriptors of an image which are missing, decoding the image once for all of them.
+     */
+    private void describeImage(Photo photo, PhotoContent content, Results results) {
+        try {
+            Optional<Dimension> imageSize = imageRenderer.readSize(content.getImageKey());
+            if (imageSize.isEmpty()) {
+                log.debug("No image reader for the descriptors of Photo {}", content.getId());
+                return;
+            }
+            int largestSide = Math.max(imageSize.get().width, imageSize.get().height);
+            double scale = Math.min(1, (double) DESCRIPTOR_SIZE / largestSide);
+            Optional<BufferedImage> image = imageRenderer.decode(content.getImageKey(), scale);
+            if (image.isEmpty()) {
+                return;
+            }
+            if (content.getPerceptualHash() == null) {
+                results.perceptualHash = PerceptualHash.of(image.get());
+            }
+            if (content.getFeatureVector() == null) {
+                results.featureVector = ImageFeatures.of(image.get());
+            }
+            if (photo.getBlurhash() == null) {
+                results.blurhash = ImagePlaceholder.blurhash(image.get());
+                results.dominantColor = ImagePlaceholder.dominantColor(image.get());
+            }
+        } catch (IOException | RuntimeException e) {
+            // the photo is only missing from the near-duplicates and the similar photos, and shown without placeholder
+            log.warn("Could not describe the image of Photo {}: {}", content.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Results of the processing of a photo, computed outside of any transaction: {@code null} when not computed.
+     */
+    private static final class Results {
+
+        private Photo metadata;
+
+        /**
+         * The key of the image whose thumbnails and descriptors have been attempted.
+         */
+        private String processedImageKey;
+
+        private Set<PhotoThumbnail> thumbnails;
+
+        private Long perceptualHash;
+
+        private float[] featureVector;
+
+        private String blurhash;
+
+        private String dominantColor;
+    }
+}
@@ -0,0 +1,237 @@
+package com.auth0.flickr2.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Queue of the photos and albums waiting to be written to the search index by the {@link PhotoSearchService}.
+ * <p>
+ * Photos are queued once the transaction changing them, their tags or their album has been committed, so that saving
+ * a photo does not wait for the index. Queued ids are kept in sets, so a photo changed many times before the index
+ * catches up is written once, and they are written by a single worker running on the shared {@code taskExecutor}.
+ * Ids whose writing failed are queued again, up to {@value #MAX_ATTEMPTS} attempts, after which the index is rebuilt.
+ * The index is rebuilt from the database in the background when the application starts with an empty index, or on
+ * demand.
+ */
+@Service
+public class PhotoSearchQueue {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final Logger log = LoggerFactory.getLogger(PhotoSearchQueue.class);
+
+    private final PhotoSearchService photoSearchService;
+
+    private final PhotoTagIndex photoTagIndex;
+
+    private final Executor taskExecutor;
+
+    private final Set<Long> pendingPhotoIds = ConcurrentHashMap.newKeySet();
+
+    private final Set<Long> pendingAlbumIds = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean working = new AtomicBoolean();
+
+    private final AtomicBoolean reindexing = new AtomicBoolean();
+
+    /**
+     * Held while writing to the index, so that queued changes are not overwritten by a concurrent rebuild.
+     */
+    private final Lock writeLock = new ReentrantLock();
+
+    /**
+     * The number of consecutive failed attempts to write the queued changes, guarded by the {@link #writeLock}.
+     */
+    private int failedAttempts;
+
+    public PhotoSearchQueue(
+        PhotoSearchService photoSearchService,
+        PhotoTagIndex photoTagIndex,
+        @Qualifier("taskExecutor") Executor taskExecutor
+    ) {
+        this.photoSearchService = photoSearchService;
+        this.photoTagIndex = photoTagIndex;
+        this.taskExecutor = taskExecutor;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (photoSearchService.getIndexedCount() == 0) {
+            reindexAsync();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onPhotoTagsChanged(PhotoTagsChangedEvent event) {
+        pendingPhotoIds.add(event.getPhotoId());
+        startWorker();
+    }
+
+    @TransactionalEventListener
+    public void onPhotoDeleted(PhotoDeletedEvent event) {
+        pendingPhotoIds.add(event.getPhotoId());
+        startWorker();
+    }
+
+    @TransactionalEventListener
+    public void onAlbumChanged(AlbumChangedEvent event) {
+        pendingAlbumIds.add(event.getAlbumId());
+        startWorker();
+    }
+
+    @TransactionalEventListener
+    public void onTagChanged(TagChangedEvent event) {
+        submitPhotosOfTag(event.getTagId());
+    }
+
+    @TransactionalEventListener
+    public void onTagDeleted(TagDeletedEvent event) {
+        submitPhotosOfTag(event.getTagId());
+    }
+
+    private void submitPhotosOfTag(Long tagId) {
+        photoTagIndex.find(List.of(tagId), List.of(), List.of()).forEach((int id) -> pendingPhotoIds.add(Integer.toUnsignedLong(id)));
+        startWorker();
+    }
+
+    /**
+     * Get the number of photos and albums waiting to be written to the index.
+     *
+     * @return the number of queued photos and albums.
+     */
+    public int getQueuedCount() {
+        return pendingPhotoIds.size() + pendingAlbumIds.size();
+    }
+
+    /**
+     * Rebuild the index from the database, in batches of photos.
+     */
+    public void reindex() {
+        writeLock.lock();
+        try {
+            photoSearchService.clear();
+            // each batch is read by its own transaction, which keeps the persistence context small
+            Optional<Long> lastPhotoId = Optional.of(0L);
+            while ((lastPhotoId = photoSearchService.indexAfter(lastPhotoId.get(), BATCH_SIZE)).isPresent()) {
+                log.trace("Indexed photos up to Photo {}", lastPhotoId.get());
+            }
+            photoSearchService.commit();
+            failedAttempts = 0;
+            log.info("Built photo search index of {} photos", photoSearchService.getIndexedCount());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Rebuild the index from the database in the background.
+     *
+     * @return {@code true} if the rebuild has started, {@code false} if the index is already being rebuilt.
+     */
+    public boolean reindexAsync() {
+        if (!reindexing.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            taskExecutor.execute(() -> {
+                try {
+                    reindex();
+                } catch (RuntimeException e) {
+                    log.error("Could not rebuild photo search index", e);
+                } finally {
+                    reindexing.set(false);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            reindexing.set(false);
+            throw e;
+        }
+        return true;
+    }
+
+    private void startWorker() {
+        if ((!pendingPhotoIds.isEmpty() || !pendingAlbumIds.isEmpty()) && working.compareAndSet(false, true)) {
+            try {
+                taskExecutor.execute(this::work);
+            } catch (TaskRejectedException e) {
+                working.set(false);
+                log.warn("Could not start a photo search worker: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void work() {
+        writeLock.lock();
+        // the ids drained since the last commit, which are lost if writing or committing them fails
+        List<Long> drainedAlbumIds = new ArrayList<>();
+        List<Long> drainedPhotoIds = new ArrayList<>();
+        try {
+            List<Long> albumIds;
+            while (!(albumIds = drain(pendingAlbumIds)).isEmpty()) {
+                drainedAlbumIds.addAll(albumIds);
+                photoSearchService.indexAlbums(albumIds);
+            }
+            List<Long> photoIds;
+            while (!(photoIds = drain(pendingPhotoIds)).isEmpty()) {
+                drainedPhotoIds.addAll(photoIds);
+                photoSearchService.index(photoIds);
+            }
+            photoSearchService.commit();
+            failedAttempts = 0;
+        } catch (RuntimeException e) {
+            failedAttempts++;
+            if (failedAttempts < MAX_ATTEMPTS) {
+                log.warn("Could not update photo search index, attempt {} of {}", failedAttempts, MAX_ATTEMPTS, e);
+                pendingAlbumIds.addAll(drainedAlbumIds);
+                pendingPhotoIds.addAll(drainedPhotoIds);
+            } else {
+                log.error("Could not update photo search index after {} attempts, rebuilding it", failedAttempts, e);
+                failedAttempts = 0;
+                rebuildAfterFailure();
+            }
+        } finally {
+            writeLock.unlock();
+            working.set(false);
+        }
+        // a photo may have been queued after the last drain, while the worker was still working
+        startWorker();
+    }
+
+    private void rebuildAfterFailure() {
+        try {
+            if (!reindexAsync()) {
+                log.debug("Photo search index is already being rebuilt");
+            }
+        } catch (TaskRejectedException e) {
+            log.error("Could not start rebuilding photo search index: {}", e.getMessage());
+        }
+    }
+
+    private static List<Long> drain(Set<Long> ids) {
+        List<Long> batch = new ArrayList<>(BATCH_SIZE);
+        Iterator<Long> iterator = ids.iterator();
+        while (iterator.hasNext() && batch.size() < BATCH_SIZE) {
+            batch.add(iterator.next());
+            iterator.remove();
+        }
+        return batch;
+    }
+}
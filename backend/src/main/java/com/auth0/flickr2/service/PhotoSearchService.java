@@ -0,0 +1,137 @@
+package com.auth0.flickr2.service;
+
+import com.auth0.flickr2.domain.Photo;
+import com.auth0.flickr2.repository.PhotoRepository;
+import com.auth0.flickr2.service.search.PhotoSearchIndex;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service searching the {@link Photo} titles, descriptions, tags and albums with the {@link PhotoSearchIndex}, and
+ * writing the photos of the database to the index.
+ * <p>
+ * Searches are served by the index alone, without a database connection. The index is kept up to date
+ * asynchronously, by the {@link PhotoSearchQueue}.
+ */
+@Service
+@Transactional(readOnly = true)
+public class PhotoSearchService {
+
+    private final PhotoRepository photoRepository;
+
+    private final PhotoSearchIndex photoSearchIndex;
+
+    public PhotoSearchService(PhotoRepository photoRepository, PhotoSearchIndex photoSearchIndex) {
+        this.photoRepository = photoRepository;
+        this.photoSearchIndex = photoSearchIndex;
+    }
+
+    /**
+     * Search photos by words of their title, description, tags or album, the best matches first.
+     * <p>
+     * Each word matches the words equal to it, starting with it, or differing from it by a typo.
+     *
+     * @param query the words to search, which must all match.
+     * @param pageable the pagination information, whose sort is ignored.
+     * @return the page of the ids of the matching photos.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Page<Long> search(String query, Pageable pageable) {
+        try {
+            return photoSearchIndex.search(query, pageable);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not search photos", e);
+        }
+    }
+
+    /**
+     * Write photos to the index, removing the photos which no longer exist.
+     *
+     * @param photoIds the ids of the photos.
+     */
+    public void index(Collection<Long> photoIds) {
+        if (photoIds.isEmpty()) {
+            return;
+        }
+        List<Photo> photos = photoRepository.findAllWithEagerRelationshipsByIdIn(photoIds);
+        Set<Long> foundIds = photos.stream().map(Photo::getId).collect(Collectors.toSet());
+        List<Long> deletedIds = photoIds.stream().filter(id -> !foundIds.contains(id)).collect(Collectors.toList());
+        try {
+            photoSearchIndex.update(photos);
+            if (!deletedIds.isEmpty()) {
+                photoSearchIndex.delete(deletedIds);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not index photos " + photoIds, e);
+        }
+    }
+
+    /**
+     * Write the photos of albums to the index.
+     *
+     * @param albumIds the ids of the albums.
+     */
+    public void indexAlbums(Collection<Long> albumIds) {
+        if (!albumIds.isEmpty()) {
+            index(photoRepository.findAllIdsByAlbumIdIn(albumIds));
+        }
+    }
+
+    /**
+     * Write the next photos, by id, to the index.
+     *
+     * @param lastPhotoId the id after which photos are written.
+     * @param count the maximum number of photos to write.
+     * @return the id of the last written photo, or empty if there was no photo after {@code lastPhotoId}.
+     */
+    public Optional<Long> indexAfter(Long lastPhotoId, int count) {
+        List<Long> photoIds = photoRepository.findIdsAfter(lastPhotoId, PageRequest.of(0, count));
+        index(photoIds);
+        return photoIds.isEmpty() ? Optional.empty() : Optional.of(photoIds.get(photoIds.size() - 1));
+    }
+
+    /**
+     * Remove all the photos from the index.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void clear() {
+        try {
+            photoSearchIndex.deleteAll();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not clear photo search index", e);
+        }
+    }
+
+    /**
+     * Commit the changes of the index, so that they survive a restart.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void commit() {
+        try {
+            photoSearchIndex.commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not commit photo search index", e);
+        }
+    }
+
+    /**
+     * Get the number of photos in the index.
+     *
+     * @return the number of indexed photos.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public int getIndexedCount() {
+        return photoSearchIndex.getCount();
+    }
+}
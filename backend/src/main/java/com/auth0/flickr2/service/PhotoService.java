@@ -0,0 +1,322 @@
+package com.auth0.flickr2.service;
+
+import com.auth0.flickr2.domain.Photo;
+import com.auth0.flickr2.domain.PhotoContent;
+import com.auth0.flickr2.domain.PhotoThumbnail;
+import com.auth0.flickr2.domain.Tag;
+import com.auth0.flickr2.domain.enumeration.PhotoStatus;
+import com.auth0.flickr2.repository.PhotoContentRepository;
+import com.auth0.flickr2.repository.PhotoRepository;
+import com.auth0.flickr2.service.storage.BlobInfo;
+import com.auth0.flickr2.service.storage.BlobResource;
+import com.auth0.flickr2.service.storage.BlobStore;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service class for managing {@link Photo} entities together with their image, which is kept in the {@link BlobStore}
+ * and referenced by the {@link PhotoContent} of the photo.
+ */
+@Service
+@Transactional
+public class PhotoService {
+
+    private final Logger log = LoggerFactory.getLogger(PhotoService.class);
+
+    private final PhotoRepository photoRepository;
+
+    private final PhotoContentRepository photoContentRepository;
+
+    private final BlobStore blobStore;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public PhotoService(
+        PhotoRepository photoRepository,
+        PhotoContentRepository photoContentRepository,
+        BlobStore blobStore,
+        ApplicationEventPublisher eventPublisher
+    ) {
+        this.photoRepository = photoRepository;
+        this.photoContentRepository = photoContentRepository;
+        this.blobStore = blobStore;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Save a photo, and store its image if it has been set.
+     * <p>
+     * When an existing photo is saved without image content, it keeps its current image. A photo saved with its
+     * image is ready, and an existing photo keeps its current processing status and placeholder. When the image has
+     * changed, its thumbnails and its placeholder are generated asynchronously, by the {@link PhotoProcessingQueue}.
+     *
+     * @param photo the photo to save.
+     * @return the persisted photo.
+     */
+    public Photo save(Photo photo) {
+        if (photo.getStatus() == null) {
+            photo.setStatus(
+                Optional.ofNullable(photo.getId()).flatMap(photoRepository::findStatusById).orElse(PhotoStatus.READY)
+            );
+        }
+        if (photo.getId() != null && photo.getBlurhash() == null) {
+            photoRepository
+                .findById(photo.getId())
+                .ifPresent(existing -> photo.blurhash(existing.getBlurhash()).dominantColor(existing.getDominantColor()));
+        }
+        byte[] image = photo.getImage();
+        Photo result = photoRepository.save(photo);
+        if (image != null) {
+            storeImage(result, image);
+            // merging a detached photo does not copy its transient image
+            result.setImage(image);
+        }
+        publishChanged(result);
+        return result;
+    }
+
+    /**
+     * Create a photo from an image stream, without ever holding the whole image in memory.
+     * <p>
+     * The image is streamed to the blob store, which computes its SHA-256 digest on the way, and stores the image
+     * only once whatever the number of photos having it. When a processed photo already has the same image, the photo
+     * is created {@link PhotoStatus#READY}, with the metadata and the thumbnails of this photo. Otherwise, it is
+     * persisted with its content in the {@link PhotoStatus#PENDING} status: its metadata is read and its thumbnails
+     * are generated later on, by the {@link PhotoProcessingQueue}, once the transaction has been committed.
+     *
+     * @param photo the photo to create.
+     * @param image the image content, which is not closed by this method.
+     * @return the persisted photo.
+     */
+    public Photo create(Photo photo, InputStream image) {
+        BlobInfo blob;
+        try {
+            blob = blobStore.put(image);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store photo image", e);
+        }
+        log.debug("Stored uploaded image as blob {}", blob);
+        Optional<Photo> processed = findProcessedPhoto(blob.getKey());
+        if (processed.isPresent()) {
+            return createCopy(photo, processed.get());
+        }
+        Photo result = photoRepository.save(photo.status(PhotoStatus.PENDING));
+        saveContent(result, blob);
+        eventPublisher.publishEvent(new PhotoUploadedEvent(result.getId()));
+        publishChanged(result);
+        return result;
+    }
+
+    /**
+     * Create a photo from an image which is already stored, without uploading it again.
+     * <p>
+     * The photo is created {@link PhotoStatus#READY}, with the image content type, the metadata and the thumbnails
+     * of a processed photo having the same image.
+     *
+     * @param photo the photo to create.
+     * @param imageKey the SHA-256 digest of the image, in lower case hexadecimal.
+     * @return the persisted photo, or empty if no processed photo has this image.
+     */
+    public Optional<Photo> createFromImage(Photo photo, String imageKey) {
+        return findProcessedPhoto(imageKey)
+            .filter(processed -> blobStore.exists(imageKey))
+            .map(processed -> createCopy(photo.imageContentType(processed.getImageContentType()), processed));
+    }
+
+    /**
+     * Check whether an image is already stored for a processed photo, so that it can be used to create a photo
+     * without uploading it.
+     *
+     * @param imageKey the SHA-256 digest of the image, in lower case hexadecimal.
+     * @return {@code true} if a processed photo has this image.
+     */
+    @Transactional(readOnly = true)
+    public boolean existsImage(String imageKey) {
+        return findProcessedPhoto(imageKey).isPresent() && blobStore.exists(imageKey);
+    }
+
+    private Optional<Photo> findProcessedPhoto(String imageKey) {
+        return photoRepository.findAllByImageKeyAndStatus(imageKey, PhotoStatus.READY, PageRequest.of(0, 1)).stream().findFirst();
+    }
+
+    /**
+     * Create a photo sharing the image of a processed photo, reusing its metadata, its placeholder and its thumbnails
+     * instead of reading the image again.
+     */
+    private Photo createCopy(Photo photo, Photo processed) {
+        log.debug("Reusing the processed image of Photo {}", processed.getId());
+        photo
+            .status(PhotoStatus.READY)
+            .height(processed.getHeight())
+            .width(processed.getWidth())
+            .taken(processed.getTaken())
+            .uploaded(Instant.now())
+            .latitude(processed.getLatitude())
+            .longitude(processed.getLongitude())
+            .blurhash(processed.getBlurhash())
+            .dominantColor(processed.getDominantColor());
+        Photo result = photoRepository.save(photo);
+        PhotoContent processedContent = photoContentRepository.getById(processed.getId());
+        PhotoContent content = new PhotoContent()
+            .id(result.getId())
+            .imageKey(processedContent.getImageKey())
+            .imageSize(processedContent.getImageSize())
+            .perceptualHash(processedContent.getPerceptualHash())
+            .featureVector(processedContent.getFeatureVector())
+            .processed(processedContent.getProcessed());
+        for (PhotoThumbnail thumbnail : processedContent.getThumbnails()) {
+            content
+                .getThumbnails()
+                .add(new PhotoThumbnail().size(thumbnail.getSize()).imageKey(thumbnail.getImageKey()).imageSize(thumbnail.getImageSize()));
+        }
+        photoContentRepository.save(content);
+        publishChanged(result);
+        if (content.getPerceptualHash() != null) {
+            eventPublisher.publishEvent(new PhotoHashChangedEvent(result.getId(), content.getPerceptualHash()));
+        }
+        if (content.getFeatureVector() != null) {
+            eventPublisher.publishEvent(new PhotoFeaturesChangedEvent(result.getId(), ImageFeatures.fromBytes(content.getFeatureVector())));
+        }
+        return result;
+    }
+
+    /**
+     * Publish the changes of a saved photo, which are applied to the in-memory indexes once committed.
+     */
+    private void publishChanged(Photo photo) {
+        publishTagsChanged(photo);
+        eventPublisher.publishEvent(new PhotoTakenChangedEvent(photo.getId(), photo.getTaken()));
+        eventPublisher.publishEvent(new PhotoLocationChangedEvent(photo.getId(), photo.getLatitude(), photo.getLongitude()));
+    }
+
+    private void publishTagsChanged(Photo photo) {
+        Set<Long> tagIds = photo.getTags().stream().map(Tag::getId).collect(Collectors.toSet());
+        eventPublisher.publishEvent(new PhotoTagsChangedEvent(photo.getId(), tagIds));
+    }
+
+    private void storeImage(Photo photo, byte[] image) {
+        BlobInfo blob;
+        try {
+            blob = blobStore.put(image);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store photo image", e);
+        }
+        log.debug("Stored image of Photo {} as blob {}", photo.getId(), blob);
+        if (saveContent(photo, blob)) {
+            eventPublisher.publishEvent(new PhotoUploadedEvent(photo.getId()));
+        }
+    }
+
+    /**
+     * Save the content of a photo, dropping its thumbnails, and the descriptors and the placeholder of its image, if its
+     * image has changed.
+     *
+     * @return {@code true} if the image of the photo has changed.
+     */
+    private boolean saveContent(Photo photo, BlobInfo blob) {
+        PhotoContent content = photoContentRepository.findById(photo.getId()).orElseGet(() -> new PhotoContent().id(photo.getId()));
+        if (blob.getKey().equals(content.getImageKey())) {
+            return false;
+        }
+        content.setImageKey(blob.getKey());
+        content.setImageSize(blob.getSize());
+        content.getThumbnails().clear();
+        content.setProcessed(false);
+        if (content.getPerceptualHash() != null) {
+            content.setPerceptualHash(null);
+            eventPublisher.publishEvent(new PhotoHashChangedEvent(photo.getId(), null));
+        }
+        if (content.getFeatureVector() != null) {
+            content.setFeatureVector(null);
+            eventPublisher.publishEvent(new PhotoFeaturesChangedEvent(photo.getId(), null));
+        }
+        photo.setBlurhash(null);
+        photo.setDominantColor(null);
+        photoContentRepository.save(content);
+        return true;
+    }
+
+    /**
+     * Get the content of a photo.
+     *
+     * @param photoId the id of the photo.
+     * @return the content of the photo, or empty if the photo does not exist or has no image.
+     */
+    @Transactional(readOnly = true)
+    public Optional<PhotoContent> findContent(Long photoId) {
+        return photoContentRepository.findById(photoId);
+    }
+
+    /**
+     * Get the content of a photo with its thumbnails, so that it can be used once the transaction is closed.
+     *
+     * @param photoId the id of the photo.
+     * @return the content of the photo, or empty if the photo does not exist or has no image.
+     */
+    @Transactional(readOnly = true)
+    public Optional<PhotoContent> findContentWithThumbnails(Long photoId) {
+        Optional<PhotoContent> content = photoContentRepository.findById(photoId);
+        content.ifPresent(photoContent -> Hibernate.initialize(photoContent.getThumbnails()));
+        return content;
+    }
+
+    /**
+     * Load the image content of a photo from the blob store, if it is not already loaded.
+     *
+     * @param photo the photo whose image should be loaded.
+     * @return the photo.
+     */
+    @Transactional(readOnly = true)
+    public Photo loadImage(Photo photo) {
+        if (photo.getImage() == null && photo.getId() != null) {
+            findContent(photo.getId())
+                .ifPresent(content -> {
+                    try {
+                        photo.setImage(blobStore.getBytes(content.getImageKey()));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Could not load image of Photo " + photo.getId(), e);
+                    }
+                });
+        }
+        return photo;
+    }
+
+    /**
+     * Get the image of a photo as a resource that can be streamed, without loading it in memory.
+     * Images kept on the local disk are returned as file resources, so that they can be read with file channels.
+     *
+     * @param key the key of the image, or of one of its thumbnails, in the blob store.
+     * @param size the size of the image in bytes.
+     * @return the image resource.
+     */
+    public Resource getImageResource(String key, long size) {
+        return blobStore.getPath(key).<Resource>map(FileSystemResource::new).orElseGet(() -> new BlobResource(blobStore, key, size));
+    }
+
+    /**
+     * Delete a photo and its content.
+     * <p>
+     * The image itself stays in the blob store, where it may be shared with other photos having the same content.
+     *
+     * @param id the id of the photo.
+     */
+    public void delete(Long id) {
+        photoContentRepository.findById(id).ifPresent(photoContentRepository::delete);
+        photoRepository.deleteById(id);
+        eventPublisher.publishEvent(new PhotoDeletedEvent(id));
+    }
+}
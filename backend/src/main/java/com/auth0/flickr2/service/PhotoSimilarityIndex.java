@@ -0,0 +1,189 @@
+package com.auth0.flickr2.service;
+
+import com.auth0.flickr2.repository.PhotoContentRepository;
+import com.auth0.flickr2.service.dto.SimilarPhotoDTO;
+import com.auth0.flickr2.service.similarity.HnswGraph;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * In-memory approximate nearest neighbour index of the {@link ImageFeatures} of the photo images, finding the photos
+ * which look like a photo among millions in a few milliseconds.
+ * <p>
+ * The feature vectors are kept in a {@link HnswGraph}, whose searches only compare a vector to a few thousand others.
+ * The index is built from the database when the application is ready, then kept up to date from the
+ * {@link PhotoFeaturesChangedEvent} and {@link PhotoDeletedEvent} published once their transaction has been committed,
+ * each change inserting a single vector in the graph. Updates received while the index is being rebuilt are applied
+ * again to the rebuilt index, and the vectors of deleted photos are dropped from the graph when it is rebuilt.
+ */
+@Service
+public class PhotoSimilarityIndex {
+
+    /**
+     * Number of links of the nodes of the upper layers of the graph.
+     */
+    private static final int M = 16;
+
+    private static final int EF_CONSTRUCTION = 100;
+
+    private static final int EF_SEARCH = 64;
+
+    private final Logger log = LoggerFactory.getLogger(PhotoSimilarityIndex.class);
+
+    private final PhotoContentRepository photoContentRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private HnswGraph graph = newGraph();
+
+    /**
+     * Updates received since the rebuild of the index started, or {@code null} when the index is not being rebuilt.
+     */
+    private List<Runnable> pendingUpdates;
+
+    public PhotoSimilarityIndex(PhotoContentRepository photoContentRepository) {
+        this.photoContentRepository = photoContentRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @TransactionalEventListener
+    public void onPhotoFeaturesChanged(PhotoFeaturesChangedEvent event) {
+        int photoId = toIndexId(event.getPhotoId());
+        float[] featureVector = event.getFeatureVector();
+        update(() -> {
+            if (featureVector != null) {
+                graph.add(photoId, featureVector);
+            } else {
+                graph.remove(photoId);
+            }
+        });
+    }
+
+    @TransactionalEventListener
+    public void onPhotoDeleted(PhotoDeletedEvent event) {
+        int photoId = toIndexId(event.getPhotoId());
+        update(() -> graph.remove(photoId));
+    }
+
+    /**
+     * Rebuild the index from the database, dropping the vectors of the deleted photos.
+     */
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            pendingUpdates = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        HnswGraph newGraph = newGraph();
+        boolean built = false;
+        try {
+            try (Stream<Object[]> contents = photoContentRepository.streamAllIdsWithFeatureVector()) {
+                contents.forEach(content -> newGraph.add(toIndexId((Long) content[0]), ImageFeatures.fromBytes((byte[]) content[1])));
+            }
+            built = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (built) {
+                    graph = newGraph;
+                    pendingUpdates.forEach(Runnable::run);
+                }
+                pendingUpdates = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("Built photo similarity index of {} photos", newGraph.size());
+    }
+
+    private void update(Runnable update) {
+        lock.writeLock().lock();
+        try {
+            update.run();
+            if (pendingUpdates != null) {
+                pendingUpdates.add(update);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Find the photos whose image looks the most like the image of a photo, the closest first.
+     * <p>
+     * The search is approximate: a few of the closest photos may be missed.
+     *
+     * @param photoId the id of the photo.
+     * @param limit the maximum number of photos to return.
+     * @return the other photos, or empty if the photo has no feature vector.
+     */
+    public Optional<List<SimilarPhotoDTO>> findSimilar(Long photoId, int limit) {
+        int indexId = toIndexId(photoId);
+        List<HnswGraph.Neighbour> neighbours;
+        lock.readLock().lock();
+        try {
+            float[] featureVector = graph.get(indexId);
+            if (featureVector == null) {
+                return Optional.empty();
+            }
+            // the photo is its own closest neighbour
+            neighbours = graph.search(featureVector, limit + 1, EF_SEARCH);
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<SimilarPhotoDTO> similarPhotos = new ArrayList<>();
+        for (HnswGraph.Neighbour neighbour : neighbours) {
+            if (neighbour.getId() != indexId && similarPhotos.size() < limit) {
+                similarPhotos.add(new SimilarPhotoDTO(Integer.toUnsignedLong(neighbour.getId()), neighbour.getDistance()));
+            }
+        }
+        return Optional.of(similarPhotos);
+    }
+
+    /**
+     * Get the number of photos in the index.
+     *
+     * @return the number of photos with a feature vector.
+     */
+    public int getPhotoCount() {
+        lock.readLock().lock();
+        try {
+            return graph.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static HnswGraph newGraph() {
+        // seeded, so that the index is built the same way from the same photos
+        return new HnswGraph(ImageFeatures.DIMENSIONS, M, EF_CONSTRUCTION, 42);
+    }
+
+    /**
+     * Photo ids are kept as unsigned 32-bit integers, which fits 4 billion photos.
+     */
+    private static int toIndexId(Long photoId) {
+        if (photoId < 0 || photoId > 0xFFFFFFFFL) {
+            throw new IllegalArgumentException("Photo id out of the index range: " + photoId);
+        }
+        return (int) (long) photoId;
+    }
+}
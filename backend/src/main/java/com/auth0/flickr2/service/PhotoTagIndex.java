@@ -0,0 +1,333 @@
+package com.auth0.flickr2.service;
+
+import com.auth0.flickr2.repository.PhotoRepository;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * In-memory inverted index of the photo tags, keeping the ids of the photos of each tag in a compressed bitmap, so
+ * that photos can be filtered by any combination of tags with a few bitmap operations instead of one join per tag.
+ * <p>
+ * The index is built from the database when the application is ready, then kept up to date from the
+ * {@link PhotoTagsChangedEvent} and {@link PhotoDeletedEvent} published by the {@link PhotoService}, and the
+ * {@link TagDeletedEvent} published when a tag is deleted, once their transaction has been committed. The tag ids of
+ * each photo are kept too, so that an update only touches the bitmaps of the previous tags of the photo. Updates received while the index is being rebuilt are applied again to the rebuilt
+ * index.
+ */
+@Service
+public class PhotoTagIndex {
+
+    private final Logger log = LoggerFactory.getLogger(PhotoTagIndex.class);
+
+    private final PhotoRepository photoRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private RoaringBitmap photos = new RoaringBitmap();
+
+    private Map<Long, RoaringBitmap> photosByTag = new HashMap<>();
+
+    private Map<Integer, long[]> tagIdsByPhoto = new HashMap<>();
+
+    /**
+     * Incremented on each change of the index, so that the readers of the photo counts can tell when they are stale.
+     */
+    private volatile long version;
+
+    /**
+     * Updates received since the rebuild of the index started, or {@code null} when the index is not being rebuilt.
+     */
+    private List<Runnable> pendingUpdates;
+
+    public PhotoTagIndex(PhotoRepository photoRepository) {
+        this.photoRepository = photoRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @TransactionalEventListener
+    public void onPhotoTagsChanged(PhotoTagsChangedEvent event) {
+        int photoId = toIndexId(event.getPhotoId());
+        update(() -> setTags(photoId, event.getTagIds()));
+    }
+
+    @TransactionalEventListener
+    public void onPhotoDeleted(PhotoDeletedEvent event) {
+        int photoId = toIndexId(event.getPhotoId());
+        update(() -> remove(photoId));
+    }
+
+    @TransactionalEventListener
+    public void onTagDeleted(TagDeletedEvent event) {
+        Long tagId = event.getTagId();
+        update(() -> removeTag(tagId));
+    }
+
+    /**
+     * Rebuild the index from the database.
+     */
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            pendingUpdates = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        RoaringBitmap newPhotos = new RoaringBitmap();
+        Map<Long, RoaringBitmap> newPhotosByTag = new HashMap<>();
+        Map<Integer, long[]> newTagIdsByPhoto = new HashMap<>();
+        boolean built = false;
+        try {
+            try (Stream<Long> ids = photoRepository.streamAllIds()) {
+                ids.forEach(id -> newPhotos.add(toIndexId(id)));
+            }
+            try (Stream<Object[]> ids = photoRepository.streamAllIdsWithTagIds()) {
+                ids.forEach(id -> {
+                    int photoId = toIndexId((Long) id[0]);
+                    Long tagId = (Long) id[1];
+                    newPhotosByTag.computeIfAbsent(tagId, key -> new RoaringBitmap()).add(photoId);
+                    newTagIdsByPhoto.merge(photoId, new long[] { tagId }, PhotoTagIndex::concat);
+                });
+            }
+            newPhotos.runOptimize();
+            newPhotosByTag.values().forEach(RoaringBitmap::runOptimize);
+            built = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (built) {
+                    photos = newPhotos;
+                    photosByTag = newPhotosByTag;
+                    tagIdsByPhoto = newTagIdsByPhoto;
+                    pendingUpdates.forEach(Runnable::run);
+                    version++;
+                }
+                pendingUpdates = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("Built photo tag index of {} photos and {} tags", newPhotos.getCardinality(), newPhotosByTag.size());
+    }
+
+    private void update(Runnable update) {
+        lock.writeLock().lock();
+        try {
+            update.run();
+            version++;
+            if (pendingUpdates != null) {
+                pendingUpdates.add(update);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void setTags(int photoId, Collection<Long> tagIds) {
+        remove(photoId);
+        photos.add(photoId);
+        for (Long tagId : tagIds) {
+            photosByTag.computeIfAbsent(tagId, id -> new RoaringBitmap()).add(photoId);
+        }
+        if (!tagIds.isEmpty()) {
+            tagIdsByPhoto.put(photoId, tagIds.stream().mapToLong(Long::longValue).toArray());
+        }
+    }
+
+    private void remove(int photoId) {
+        photos.remove(photoId);
+        long[] tagIds = tagIdsByPhoto.remove(photoId);
+        if (tagIds != null) {
+            for (long tagId : tagIds) {
+                RoaringBitmap tagPhotos = photosByTag.get(tagId);
+                if (tagPhotos != null && tagPhotos.checkedRemove(photoId) && tagPhotos.isEmpty()) {
+                    photosByTag.remove(tagId);
+                }
+            }
+        }
+    }
+
+    private void removeTag(Long tagId) {
+        RoaringBitmap tagPhotos = photosByTag.remove(tagId);
+        if (tagPhotos != null) {
+            for (int photoId : tagPhotos) {
+                long[] tagIds = tagIdsByPhoto.get(photoId);
+                long[] remainingTagIds = tagIds != null ? Arrays.stream(tagIds).filter(id -> id != tagId).toArray() : null;
+                if (remainingTagIds == null || remainingTagIds.length == 0) {
+                    tagIdsByPhoto.remove(photoId);
+                } else {
+                    tagIdsByPhoto.put(photoId, remainingTagIds);
+                }
+            }
+        }
+    }
+
+    private static long[] concat(long[] tagIds, long[] otherTagIds) {
+        long[] allTagIds = Arrays.copyOf(tagIds, tagIds.length + otherTagIds.length);
+        System.arraycopy(otherTagIds, 0, allTagIds, tagIds.length, otherTagIds.length);
+        return allTagIds;
+    }
+
+    /**
+     * Find the photos having all of some tags, at least one of other tags, and none of other tags.
+     *
+     * @param allTagIds the ids of the tags that photos must all have, or an empty collection.
+     * @param anyTagIds the ids of the tags that photos must have at least one of, or an empty collection.
+     * @param notTagIds the ids of the tags that photos must not have.
+     * @return the ids of the photos.
+     */
+    public RoaringBitmap find(Collection<Long> allTagIds, Collection<Long> anyTagIds, Collection<Long> notTagIds) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap result;
+            if (!allTagIds.isEmpty()) {
+                // intersecting the smallest bitmaps first keeps the intermediate results small
+                RoaringBitmap[] bitmaps = getBitmaps(allTagIds);
+                Arrays.sort(bitmaps, Comparator.comparingInt(RoaringBitmap::getCardinality));
+                result = bitmaps[0].clone();
+                for (int i = 1; i < bitmaps.length && !result.isEmpty(); i++) {
+                    result.and(bitmaps[i]);
+                }
+            } else {
+                result = photos.clone();
+            }
+            if (!anyTagIds.isEmpty()) {
+                result.and(FastAggregation.or(getBitmaps(anyTagIds)));
+            }
+            if (!notTagIds.isEmpty()) {
+                result.andNot(FastAggregation.or(getBitmaps(notTagIds)));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find a page of the photos having all of some tags, at least one of other tags, and none of other tags, the most
+     * recently created first.
+     *
+     * @param allTagIds the ids of the tags that photos must all have, or an empty collection.
+     * @param anyTagIds the ids of the tags that photos must have at least one of, or an empty collection.
+     * @param notTagIds the ids of the tags that photos must not have.
+     * @param pageable the pagination information, whose sort is ignored.
+     * @return the page of the ids of the photos.
+     */
+    public Page<Long> find(Collection<Long> allTagIds, Collection<Long> anyTagIds, Collection<Long> notTagIds, Pageable pageable) {
+        RoaringBitmap result = find(allTagIds, anyTagIds, notTagIds);
+        long total = result.getLongCardinality();
+        List<Long> ids = new ArrayList<>();
+        for (long rank = total - 1 - pageable.getOffset(); rank >= 0 && ids.size() < pageable.getPageSize(); rank--) {
+            ids.add(Integer.toUnsignedLong(result.select((int) rank)));
+        }
+        return new PageImpl<>(ids, pageable, total);
+    }
+
+    private RoaringBitmap[] getBitmaps(Collection<Long> tagIds) {
+        return tagIds.stream().map(tagId -> photosByTag.getOrDefault(tagId, new RoaringBitmap())).toArray(RoaringBitmap[]::new);
+    }
+
+    /**
+     * Get the number of photos in the index.
+     *
+     * @return the number of photos.
+     */
+    public long getPhotoCount() {
+        lock.readLock().lock();
+        try {
+            return photos.getLongCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the number of photos having a tag.
+     *
+     * @param tagId the id of the tag.
+     * @return the number of photos of the tag.
+     */
+    public long getPhotoCount(Long tagId) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap tagPhotos = photosByTag.get(tagId);
+            return tagPhotos != null ? tagPhotos.getLongCardinality() : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the number of photos of each tag having photos.
+     *
+     * @return the numbers of photos, by tag id.
+     */
+    public Map<Long, Long> getPhotoCounts() {
+        lock.readLock().lock();
+        try {
+            Map<Long, Long> photoCounts = new HashMap<>(photosByTag.size() * 2);
+            photosByTag.forEach((tagId, tagPhotos) -> photoCounts.put(tagId, tagPhotos.getLongCardinality()));
+            return photoCounts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the version of the index, which changes each time photos or tags are updated.
+     *
+     * @return the version of the index.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Get the number of bytes taken by the bitmaps of the index.
+     *
+     * @return the size of the index, in bytes.
+     */
+    public long getSizeInBytes() {
+        lock.readLock().lock();
+        try {
+            return photos.getLongSizeInBytes() + photosByTag.values().stream().mapToLong(RoaringBitmap::getLongSizeInBytes).sum();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Photo ids are kept as unsigned 32-bit integers, which fits 4 billion photos.
+     */
+    private static int toIndexId(Long photoId) {
+        if (photoId < 0 || photoId > 0xFFFFFFFFL) {
+            throw new IllegalArgumentException("Photo id out of the index range: " + photoId);
+        }
+        return (int) (long) photoId;
+    }
+}
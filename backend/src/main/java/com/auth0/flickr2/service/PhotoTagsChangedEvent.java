@@ -0,0 +1,31 @@
+package com.auth0.flickr2.service;
+
+import java.util.Set;
+
+/**
+ * Event published when a {@link com.auth0.flickr2.domain.Photo} has been saved, with the tags it now has.
+ */
+public class PhotoTagsChangedEvent {
+
+    private final Long photoId;
+
+    private final Set<Long> tagIds;
+
+    public PhotoTagsChangedEvent(Long photoId, Set<Long> tagIds) {
+        this.photoId = photoId;
+        this.tagIds = tagIds;
+    }
+
+    public Long getPhotoId() {
+        return photoId;
+    }
+
+    public Set<Long> getTagIds() {
+        return tagIds;
+    }
+
+    @Override
+    public String toString() {
+        return "PhotoTagsChangedEvent{photoId=" + photoId + ", tagIds=" + tagIds + "}";
+    }
+}
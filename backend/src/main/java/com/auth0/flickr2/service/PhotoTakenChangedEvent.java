@@ -0,0 +1,32 @@
+package com.auth0.flickr2.service;
+
+import java.time.Instant;
+
+/**
+ * Event published when a {@link com.auth0.flickr2.domain.Photo} has been saved, with its date taken, which may have
+ * changed.
+ */
+public class PhotoTakenChangedEvent {
+
+    private final Long photoId;
+
+    private final Instant taken;
+
+    public PhotoTakenChangedEvent(Long photoId, Instant taken) {
+        this.photoId = photoId;
+        this.taken = taken;
+    }
+
+    public Long getPhotoId() {
+        return photoId;
+    }
+
+    public Instant getTaken() {
+        return taken;
+    }
+
+    @Override
+    public String toString() {
+        return "PhotoTakenChangedEvent{photoId=" + photoId + ", taken=" + taken + "}";
+    }
+}
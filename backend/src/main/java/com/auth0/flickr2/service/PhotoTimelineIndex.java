@@ -0,0 +1,279 @@
+package com.auth0.flickr2.service;
+
+import com.auth0.flickr2.repository.PhotoRepository;
+import com.auth0.flickr2.service.dto.TimelineBucketDTO;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * In-memory rollup of the photos by day taken, counting the photos of each day, month or year of the timeline without
+ * reading the photos themselves.
+ * <p>
+ * The ids of the photos taken each day, in UTC, are kept in a compressed bitmap, in a map sorted by day. Histograms
+ * are computed from the cardinalities of the bitmaps, then cached until the next change. The index is built from the
+ * database when the application is ready, then kept up to date from the {@link PhotoTakenChangedEvent} and
+ * {@link PhotoDeletedEvent} published once their transaction has been committed. Updates received while the index is
+ * being rebuilt are applied again to the rebuilt index.
+ */
+@Service
+public class PhotoTimelineIndex {
+
+    /**
+     * Length of the buckets of a timeline histogram.
+     */
+    public enum Granularity {
+        DAY,
+        MONTH,
+        YEAR;
+
+        LocalDate truncate(LocalDate day) {
+            switch (this) {
+                case MONTH:
+                    return day.withDayOfMonth(1);
+                case YEAR:
+                    return day.withDayOfYear(1);
+                default:
+                    return day;
+            }
+        }
+    }
+
+    private final Logger log = LoggerFactory.getLogger(PhotoTimelineIndex.class);
+
+    private final PhotoRepository photoRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Ids of the photos taken each day, by epoch day.
+     */
+    private NavigableMap<Long, RoaringBitmap> photosByDay = new TreeMap<>();
+
+    /**
+     * Ids of the photos without a date taken, which are still being processed.
+     */
+    private RoaringBitmap undatedPhotos = new RoaringBitmap();
+
+    /**
+     * Histograms computed since the last change of the index.
+     */
+    private final Map<Granularity, List<TimelineBucketDTO>> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * Updates received since the rebuild of the index started, or {@code null} when the index is not being rebuilt.
+     */
+    private List<Runnable> pendingUpdates;
+
+    public PhotoTimelineIndex(PhotoRepository photoRepository) {
+        this.photoRepository = photoRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @TransactionalEventListener
+    public void onPhotoTakenChanged(PhotoTakenChangedEvent event) {
+        int photoId = toIndexId(event.getPhotoId());
+        Instant taken = event.getTaken();
+        update(() -> setTaken(photoId, taken));
+    }
+
+    @TransactionalEventListener
+    public void onPhotoDeleted(PhotoDeletedEvent event) {
+        int photoId = toIndexId(event.getPhotoId());
+        update(() -> remove(photoId));
+    }
+
+    /**
+     * Rebuild the index from the database.
+     */
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            pendingUpdates = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        NavigableMap<Long, RoaringBitmap> newPhotosByDay = new TreeMap<>();
+        RoaringBitmap newUndatedPhotos = new RoaringBitmap();
+        boolean built = false;
+        try {
+            try (Stream<Object[]> photos = photoRepository.streamAllIdsWithTaken()) {
+                photos.forEach(photo -> {
+                    int photoId = toIndexId((Long) photo[0]);
+                    Instant taken = (Instant) photo[1];
+                    if (taken != null) {
+                        newPhotosByDay.computeIfAbsent(toEpochDay(taken), day -> new RoaringBitmap()).add(photoId);
+                    } else {
+                        newUndatedPhotos.add(photoId);
+                    }
+                });
+            }
+            newPhotosByDay.values().forEach(RoaringBitmap::runOptimize);
+            built = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (built) {
+                    photosByDay = newPhotosByDay;
+                    undatedPhotos = newUndatedPhotos;
+                    histograms.clear();
+                    pendingUpdates.forEach(Runnable::run);
+                }
+                pendingUpdates = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("Built photo timeline index of {} days", newPhotosByDay.size());
+    }
+
+    private void update(Runnable update) {
+        lock.writeLock().lock();
+        try {
+            update.run();
+            histograms.clear();
+            if (pendingUpdates != null) {
+                pendingUpdates.add(update);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void setTaken(int photoId, Instant taken) {
+        remove(photoId);
+        if (taken != null) {
+            photosByDay.computeIfAbsent(toEpochDay(taken), day -> new RoaringBitmap()).add(photoId);
+        } else {
+            undatedPhotos.add(photoId);
+        }
+    }
+
+    private void remove(int photoId) {
+        if (undatedPhotos.checkedRemove(photoId)) {
+            return;
+        }
+        // a photo is taken on a single day
+        Iterator<RoaringBitmap> iterator = photosByDay.values().iterator();
+        while (iterator.hasNext()) {
+            RoaringBitmap dayPhotos = iterator.next();
+            if (dayPhotos.checkedRemove(photoId)) {
+                if (dayPhotos.isEmpty()) {
+                    iterator.remove();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Get the number of photos taken each day, month or year, the most recent first, omitting the periods without
+     * photos.
+     *
+     * @param granularity the length of the periods.
+     * @return the buckets of the histogram, each starting on the first day of its period.
+     */
+    public List<TimelineBucketDTO> getHistogram(Granularity granularity) {
+        lock.readLock().lock();
+        try {
+            // computed under the read lock, so that a histogram of a changed index is never cached
+            return histograms.computeIfAbsent(granularity, this::computeHistogram);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<TimelineBucketDTO> computeHistogram(Granularity granularity) {
+        List<TimelineBucketDTO> buckets = new ArrayList<>();
+        LocalDate bucketDate = null;
+        long count = 0;
+        for (Map.Entry<Long, RoaringBitmap> day : photosByDay.descendingMap().entrySet()) {
+            LocalDate date = granularity.truncate(LocalDate.ofEpochDay(day.getKey()));
+            if (!date.equals(bucketDate)) {
+                if (bucketDate != null) {
+                    buckets.add(new TimelineBucketDTO(bucketDate, count));
+                }
+                bucketDate = date;
+                count = 0;
+            }
+            count += day.getValue().getLongCardinality();
+        }
+        if (bucketDate != null) {
+            buckets.add(new TimelineBucketDTO(bucketDate, count));
+        }
+        return Collections.unmodifiableList(buckets);
+    }
+
+    /**
+     * Count the photos coming before the photos taken on a day in the list of the photos by date taken, the most
+     * recent first: the photos taken after the day, and the photos without a date taken.
+     *
+     * @param date the day.
+     * @return the number of photos.
+     */
+    public long countBefore(LocalDate date) {
+        lock.readLock().lock();
+        try {
+            long count = undatedPhotos.getLongCardinality();
+            for (RoaringBitmap dayPhotos : photosByDay.tailMap(date.toEpochDay(), false).values()) {
+                count += dayPhotos.getLongCardinality();
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the number of photos in the index.
+     *
+     * @return the number of photos, with or without a date taken.
+     */
+    public long getPhotoCount() {
+        lock.readLock().lock();
+        try {
+            return undatedPhotos.getLongCardinality() + photosByDay.values().stream().mapToLong(RoaringBitmap::getLongCardinality).sum();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static long toEpochDay(Instant taken) {
+        return Math.floorDiv(taken.getEpochSecond(), ChronoUnit.DAYS.getDuration().getSeconds());
+    }
+
+    /**
+     * Photo ids are kept as unsigned 32-bit integers, which fits 4 billion photos.
+     */
+    private static int toIndexId(Long photoId) {
+        if (photoId < 0 || photoId > 0xFFFFFFFFL) {
+            throw new IllegalArgumentException("Photo id out of the index range: " + photoId);
+        }
+        return (int) (long) photoId;
+    }
+}
@@ -0,0 +1,23 @@
+package com.auth0.flickr2.service;
+
+/**
+ * Event published when the image of a new {@link com.auth0.flickr2.domain.Photo} has been stored, and the photo
+ * is waiting to be processed.
+ */
+public class PhotoUploadedEvent {
+
+    private final Long photoId;
+
+    public PhotoUploadedEvent(Long photoId) {
+        this.photoId = photoId;
+    }
+
+    public Long getPhotoId() {
+        return photoId;
+    }
+
+    @Override
+    public String toString() {
+        return "PhotoUploadedEvent{photoId=" + photoId + "}";
+    }
+}
@@ -0,0 +1,29 @@
+package com.auth0.flickr2.service;
+
+/**
+ * Event published when a {@link com.auth0.flickr2.domain.Tag} has been created or renamed.
+ */
+public class TagChangedEvent {
+
+    private final Long tagId;
+
+    private final String name;
+
+    public TagChangedEvent(Long tagId, String name) {
+        this.tagId = tagId;
+        this.name = name;
+    }
+
+    public Long getTagId() {
+        return tagId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return "TagChangedEvent{tagId=" + tagId + ", name='" + name + "'}";
+    }
+}
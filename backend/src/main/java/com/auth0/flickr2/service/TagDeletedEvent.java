@@ -0,0 +1,22 @@
+package com.auth0.flickr2.service;
+
+/**
+ * Event published when a {@link com.auth0.flickr2.domain.Tag} has been deleted.
+ */
+public class TagDeletedEvent {
+
+    private final Long tagId;
+
+    public TagDeletedEvent(Long tagId) {
+        this.tagId = tagId;
+    }
+
+    public Long getTagId() {
+        return tagId;
+    }
+
+    @Override
+    public String toString() {
+        return "TagDeletedEvent{tagId=" + tagId + "}";
+    }
+}
@@ -0,0 +1,280 @@
+package com.auth0.flickr2.service;
+
+import com.auth0.flickr2.domain.Tag;
+import com.auth0.flickr2.repository.TagRepository;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * In-memory index of the tag names, suggesting the tags starting with a prefix without querying the database.
+ * <p>
+ * Tag names are kept in an array sorted by their lower case form, where the tags starting with a prefix are found by
+ * binary search, along with the number of their photos read from the {@link PhotoTagIndex}, by which they are ranked.
+ * As short prefixes match a large share of the tags, the best suggestions of the prefixes of at most
+ * {@value #SHORT_PREFIX_LENGTH} characters are computed with the index. The index is replaced on each change of a tag,
+ * and in the background when the photo counts have changed, as tags are read far more often than they change.
+ */
+@Service
+public class TagSuggestIndex {
+
+    /**
+     * The maximum number of suggested tags.
+     */
+    public static final int MAX_SUGGESTIONS = 50;
+
+    private static final int SHORT_PREFIX_LENGTH = 2;
+
+    private final Logger log = LoggerFactory.getLogger(TagSuggestIndex.class);
+
+    private final TagRepository tagRepository;
+
+    private final PhotoTagIndex photoTagIndex;
+
+    private final Executor taskExecutor;
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    private volatile Snapshot snapshot = new Snapshot(new Entry[0], -1);
+
+    public TagSuggestIndex(TagRepository tagRepository, PhotoTagIndex photoTagIndex, @Qualifier("taskExecutor") Executor taskExecutor) {
+        this.tagRepository = tagRepository;
+        this.photoTagIndex = photoTagIndex;
+        this.taskExecutor = taskExecutor;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @TransactionalEventListener
+    public void onTagChanged(TagChangedEvent event) {
+        put(event.getTagId(), event.getName());
+    }
+
+    @TransactionalEventListener
+    public void onTagDeleted(TagDeletedEvent event) {
+        remove(event.getTagId());
+    }
+
+    /**
+     * Rebuild the index from the database.
+     */
+    public synchronized void rebuild() {
+        long version = photoTagIndex.getVersion();
+        Map<Long, Long> photoCounts = photoTagIndex.getPhotoCounts();
+        Entry[] entries = tagRepository
+            .findAll()
+            .stream()
+            .map(tag -> new Entry(tag.getId(), tag.getName(), photoCounts.getOrDefault(tag.getId(), 0L)))
+            .sorted()
+            .toArray(Entry[]::new);
+        snapshot = new Snapshot(entries, version);
+        log.info("Built tag suggestion index of {} tags", entries.length);
+    }
+
+    private synchronized void put(Long tagId, String name) {
+        Entry[] entries = snapshot.entries;
+        List<Entry> newEntries = new ArrayList<>(entries.length + 1);
+        long photoCount = -1;
+        for (Entry entry : entries) {
+            if (!entry.id.equals(tagId)) {
+                newEntries.add(entry);
+            } else {
+                photoCount = entry.photoCount;
+            }
+        }
+        Entry entry = new Entry(tagId, name, photoCount >= 0 ? photoCount : photoTagIndex.getPhotoCount(tagId));
+        int index = Collections.binarySearch(newEntries, entry);
+        newEntries.add(index < 0 ? -index - 1 : index, entry);
+        snapshot = new Snapshot(newEntries.toArray(new Entry[0]), snapshot.version);
+    }
+
+    private synchronized void remove(Long tagId) {
+        Entry[] entries = Arrays.stream(snapshot.entries).filter(entry -> !entry.id.equals(tagId)).toArray(Entry[]::new);
+        snapshot = new Snapshot(entries, snapshot.version);
+    }
+
+    private synchronized void refreshPhotoCounts() {
+        long version = photoTagIndex.getVersion();
+        Map<Long, Long> photoCounts = photoTagIndex.getPhotoCounts();
+        Entry[] entries = snapshot.entries.clone();
+        for (int i = 0; i < entries.length; i++) {
+            Entry entry = entries[i];
+            entries[i] = new Entry(entry.id, entry.name, entry.lowerName, photoCounts.getOrDefault(entry.id, 0L));
+        }
+        snapshot = new Snapshot(entries, version);
+    }
+
+    /**
+     * Suggest the tags whose name starts with a prefix, ignoring case, the tags of the most photos first.
+     * <p>
+     * Photo counts are refreshed in the background once the {@link PhotoTagIndex} has changed, so the ranking may lag
+     * behind the latest changes of the photo tags.
+     *
+     * @param prefix the prefix of the tag names, which must not be empty.
+     * @param limit the maximum number of suggested tags, at most {@value #MAX_SUGGESTIONS}.
+     * @return the suggested tags.
+     */
+    public List<Tag> suggest(String prefix, int limit) {
+        if (prefix.isEmpty()) {
+            throw new IllegalArgumentException("The prefix of the suggested tags must not be empty");
+        }
+        refreshPhotoCountsIfChanged();
+        Snapshot current = snapshot;
+        String lowerPrefix = prefix.toLowerCase(Locale.ROOT);
+        int maxSize = Math.min(limit, MAX_SUGGESTIONS);
+        List<Entry> ranked;
+        if (lowerPrefix.length() <= SHORT_PREFIX_LENGTH) {
+            Entry[] best = current.bestByShortPrefix.getOrDefault(lowerPrefix, new Entry[0]);
+            ranked = Arrays.asList(best).subList(0, Math.min(maxSize, best.length));
+        } else {
+            ranked = rank(current.entries, lowerPrefix, maxSize);
+        }
+        List<Tag> tags = new ArrayList<>(ranked.size());
+        for (Entry entry : ranked) {
+            tags.add(new Tag().id(entry.id).name(entry.name));
+        }
+        return tags;
+    }
+
+    private void refreshPhotoCountsIfChanged() {
+        if (snapshot.version != photoTagIndex.getVersion() && refreshing.compareAndSet(false, true)) {
+            taskExecutor.execute(() -> {
+                try {
+                    refreshPhotoCounts();
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Get the number of tags in the index.
+     *
+     * @return the number of tags.
+     */
+    public int getCount() {
+        return snapshot.entries.length;
+    }
+
+    private static List<Entry> rank(Entry[] entries, String lowerPrefix, int maxSize) {
+        // keeps the best suggestions found so far, the worst first
+        PriorityQueue<Entry> best = new PriorityQueue<>(maxSize + 1, Entry.RANK.reversed());
+        for (int i = lowerBound(entries, lowerPrefix); i < entries.length && entries[i].lowerName.startsWith(lowerPrefix); i++) {
+            best.add(entries[i]);
+            if (best.size() > maxSize) {
+                best.poll();
+            }
+        }
+        List<Entry> ranked = new ArrayList<>(best);
+        ranked.sort(Entry.RANK);
+        return ranked;
+    }
+
+    private static int lowerBound(Entry[] entries, String lowerName) {
+        int low = 0;
+        int high = entries.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (entries[middle].lowerName.compareTo(lowerName) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * The tags sorted by name, with the best suggestions of each short prefix.
+     */
+    private static final class Snapshot {
+
+        private final Entry[] entries;
+
+        private final Map<String, Entry[]> bestByShortPrefix;
+
+        /**
+         * The version of the {@link PhotoTagIndex} the photo counts were read from.
+         */
+        private final long version;
+
+        private Snapshot(Entry[] entries, long version) {
+            this.entries = entries;
+            this.version = version;
+            Map<String, PriorityQueue<Entry>> best = new HashMap<>();
+            for (Entry entry : entries) {
+                for (int length = 1; length <= Math.min(SHORT_PREFIX_LENGTH, entry.lowerName.length()); length++) {
+                    PriorityQueue<Entry> prefixBest = best.computeIfAbsent(
+                        entry.lowerName.substring(0, length),
+                        prefix -> new PriorityQueue<>(Entry.RANK.reversed())
+                    );
+                    prefixBest.add(entry);
+                    if (prefixBest.size() > MAX_SUGGESTIONS) {
+                        prefixBest.poll();
+                    }
+                }
+            }
+            this.bestByShortPrefix = new HashMap<>(best.size() * 2);
+            best.forEach((prefix, prefixBest) -> {
+                Entry[] ranked = prefixBest.toArray(new Entry[0]);
+                Arrays.sort(ranked, Entry.RANK);
+                bestByShortPrefix.put(prefix, ranked);
+            });
+        }
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+
+        /**
+         * The tags of the most photos first, then by name.
+         */
+        private static final Comparator<Entry> RANK = Comparator
+            .comparingLong((Entry entry) -> entry.photoCount)
+            .reversed()
+            .thenComparing(Comparator.naturalOrder());
+
+        private final Long id;
+
+        private final String name;
+
+        private final String lowerName;
+
+        private final long photoCount;
+
+        private Entry(Long id, String name, long photoCount) {
+            this(id, name, name.toLowerCase(Locale.ROOT), photoCount);
+        }
+
+        private Entry(Long id, String name, String lowerName, long photoCount) {
+            this.id = id;
+            this.name = name;
+            this.lowerName = lowerName;
+            this.photoCount = photoCount;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int order = lowerName.compareTo(other.lowerName);
+            return order != 0 ? order : id.compareTo(other.id);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.auth0.flickr2.service;
+
+import com.auth0.flickr2.domain.PhotoThumbnail;
+import com.auth0.flickr2.service.storage.BlobInfo;
+import com.auth0.flickr2.service.storage.BlobStore;
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service generating the JPEG thumbnails of photo images, and storing them in the {@link BlobStore}.
+ * <p>
+ * The image is decoded once, subsampled for the largest thumbnail, then each thumbnail is scaled down from the
+ * previous one, the largest first.
+ */
+@Service
+public class ThumbnailService {
+
+    /**
+     * Sizes of the largest side of the generated thumbnails, in pixels.
+     */
+    public static final List<Integer> SIZES = List.of(1080, 480, 160);
+
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private final Logger log = LoggerFactory.getLogger(ThumbnailService.class);
+
+    private final BlobStore blobStore;
+
+    private final ImageRenderer imageRenderer;
+
+    public ThumbnailService(BlobStore blobStore, ImageRenderer imageRenderer) {
+        this.blobStore = blobStore;
+        this.imageRenderer = imageRenderer;
+    }
+
+    /**
+     * Generate and store the thumbnails of an image.
+     * <p>
+     * Images are never scaled up: no thumbnail is generated for sizes larger than the image itself.
+     *
+     * @param imageKey the key of the image in the blob store.
+     * @return the generated thumbnails, which is empty if the image format cannot be decoded.
+     * @throws IOException if the image could not be read, or a thumbnail could not be stored.
+     */
+    public Set<PhotoThumbnail> generate(String imageKey) throws IOException {
+        Set<PhotoThumbnail> thumbnails = new HashSet<>();
+        Optional<Dimension> imageSize = imageRenderer.readSize(imageKey);
+        if (imageSize.isEmpty()) {
+            log.debug("No image reader for blob {}", imageKey);
+            return thumbnails;
+        }
+        int largestSide = Math.max(imageSize.get().width, imageSize.get().height);
+        Optional<BufferedImage> decoded = imageRenderer.decode(imageKey, Math.min(1, (double) SIZES.get(0) / largestSide));
+        if (decoded.isEmpty()) {
+            return thumbnails;
+        }
+        BufferedImage image = decoded.get();
+        for (int size : SIZES) {
+            if (size < largestSide) {
+                image = ImageRenderer.scaleToFit(image, size);
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                ImageRenderer.writeJpeg(image, JPEG_QUALITY, out);
+                BlobInfo blob = blobStore.put(out.toByteArray());
+                log.debug("Stored {}px thumbnail of blob {} as blob {}", size, imageKey, blob);
+                thumbnails.add(new PhotoThumbnail().size(size).imageKey(blob.getKey()).imageSize(blob.getSize()));
+            }
+        }
+        return thumbnails;
+    }
+}
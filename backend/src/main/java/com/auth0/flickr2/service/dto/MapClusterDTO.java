@@ -0,0 +1,84 @@
+package com.auth0.flickr2.service.dto;
+
+/**
+ * A DTO representing a marker of the photo map: a cluster of the photos taken close to each other.
+ */
+public class MapClusterDTO {
+
+    private double latitude;
+
+    private double longitude;
+
+    private long count;
+
+    private Long photoId;
+
+    public MapClusterDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public MapClusterDTO(double latitude, double longitude, long count, Long photoId) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.count = count;
+        this.photoId = photoId;
+    }
+
+    /**
+     * Get the latitude of the center of the photos of the cluster.
+     *
+     * @return the latitude, in degrees.
+     */
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(double latitude) {
+        this.latitude = latitude;
+    }
+
+    /**
+     * Get the longitude of the center of the photos of the cluster.
+     *
+     * @return the longitude, in degrees.
+     */
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(double longitude) {
+        this.longitude = longitude;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    /**
+     * Get the id of one of the photos of the cluster, which can illustrate the marker.
+     *
+     * @return the id of the photo.
+     */
+    public Long getPhotoId() {
+        return photoId;
+    }
+
+    public void setPhotoId(Long photoId) {
+        this.photoId = photoId;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "MapClusterDTO{" +
+            "latitude=" + latitude +
+            ", longitude=" + longitude +
+            ", count=" + count +
+            ", photoId=" + photoId +
+            "}";
+    }
+}
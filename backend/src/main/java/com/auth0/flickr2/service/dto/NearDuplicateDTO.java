@@ -0,0 +1,50 @@
+package com.auth0.flickr2.service.dto;
+
+/**
+ * A DTO representing a photo whose image looks like the image of another photo.
+ */
+public class NearDuplicateDTO {
+
+    private Long photoId;
+
+    private int distance;
+
+    public NearDuplicateDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public NearDuplicateDTO(Long photoId, int distance) {
+        this.photoId = photoId;
+        this.distance = distance;
+    }
+
+    public Long getPhotoId() {
+        return photoId;
+    }
+
+    public void setPhotoId(Long photoId) {
+        this.photoId = photoId;
+    }
+
+    /**
+     * Get the Hamming distance between the perceptual hashes of the images, 0 for images which look the same.
+     *
+     * @return the number of differing bits, between 0 and 64.
+     */
+    public int getDistance() {
+        return distance;
+    }
+
+    public void setDistance(int distance) {
+        this.distance = distance;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "NearDuplicateDTO{" +
+            "photoId=" + photoId +
+            ", distance=" + distance +
+            "}";
+    }
+}
@@ -0,0 +1,50 @@
+package com.auth0.flickr2.service.dto;
+
+/**
+ * A DTO representing a photo whose image has colours and a layout similar to the image of another photo.
+ */
+public class SimilarPhotoDTO {
+
+    private Long photoId;
+
+    private float distance;
+
+    public SimilarPhotoDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public SimilarPhotoDTO(Long photoId, float distance) {
+        this.photoId = photoId;
+        this.distance = distance;
+    }
+
+    public Long getPhotoId() {
+        return photoId;
+    }
+
+    public void setPhotoId(Long photoId) {
+        this.photoId = photoId;
+    }
+
+    /**
+     * Get the distance between the feature vectors of the images, 0 for images which look the same.
+     *
+     * @return the squared Euclidean distance, between 0 and 4.
+     */
+    public float getDistance() {
+        return distance;
+    }
+
+    public void setDistance(float distance) {
+        this.distance = distance;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "SimilarPhotoDTO{" +
+            "photoId=" + photoId +
+            ", distance=" + distance +
+            "}";
+    }
+}
@@ -0,0 +1,52 @@
+package com.auth0.flickr2.service.dto;
+
+import java.time.LocalDate;
+
+/**
+ * A DTO representing the number of photos taken during a day, a month or a year of the timeline.
+ */
+public class TimelineBucketDTO {
+
+    private LocalDate date;
+
+    private long count;
+
+    public TimelineBucketDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public TimelineBucketDTO(LocalDate date, long count) {
+        this.date = date;
+        this.count = count;
+    }
+
+    /**
+     * Get the first day of the bucket.
+     *
+     * @return the first day.
+     */
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "TimelineBucketDTO{" +
+            "date=" + date +
+            ", count=" + count +
+            "}";
+    }
+}
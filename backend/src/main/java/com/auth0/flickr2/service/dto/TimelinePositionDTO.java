@@ -0,0 +1,70 @@
+package com.auth0.flickr2.service.dto;
+
+import java.time.LocalDate;
+
+/**
+ * A DTO representing a position of the timeline: where the photos taken on a day, or before it, start in the list of
+ * the photos by date taken.
+ */
+public class TimelinePositionDTO {
+
+    private LocalDate date;
+
+    private String cursor;
+
+    private long offset;
+
+    public TimelinePositionDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public TimelinePositionDTO(LocalDate date, String cursor, long offset) {
+        this.date = date;
+        this.cursor = cursor;
+        this.offset = offset;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    /**
+     * Get the cursor of the slice starting at the position.
+     *
+     * @return the cursor.
+     */
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    /**
+     * Get the number of photos before the position.
+     *
+     * @return the number of photos.
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    public void setOffset(long offset) {
+        this.offset = offset;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "TimelinePositionDTO{" +
+            "date=" + date +
+            ", cursor='" + cursor + '\'' +
+            ", offset=" + offset +
+            "}";
+    }
+}
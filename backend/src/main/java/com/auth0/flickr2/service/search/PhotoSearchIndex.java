@@ -0,0 +1,242 @@
+package com.auth0.flickr2.service.search;
+
+import com.auth0.flickr2.domain.Album;
+import com.auth0.flickr2.domain.Photo;
+import com.auth0.flickr2.domain.Tag;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.custom.CustomAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopScoreDocCollector;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Lucene full-text index of the photos, on the titles and descriptions of the photos and of their album, and on the
+ * names of their tags.
+ * <p>
+ * Each query term matches the words equal to it, the words starting with it, and, with a lower score, the words
+ * within one or two edits of it: searching as the user types finds the photos, typos included. Searches use
+ * near-real-time readers, which see the changes as soon as they have been written, before they are committed.
+ */
+public class PhotoSearchIndex implements Closeable {
+
+    private static final String ID = "id";
+    private static final String TITLE = "title";
+    private static final String DESCRIPTION = "description";
+    private static final String TAGS = "tags";
+    private static final String ALBUM = "album";
+
+    /**
+     * Boosts of the indexed fields: a word of the title weighs more than a word of the description.
+     */
+    private static final Map<String, Float> FIELD_BOOSTS = Map.of(TITLE, 3f, TAGS, 2f, ALBUM, 1f, DESCRIPTION, 1f);
+
+    private static final float PREFIX_BOOST = 0.5f;
+    private static final float FUZZY_BOOST = 0.2f;
+
+    private final Directory directory;
+
+    private final Analyzer analyzer;
+
+    private final IndexWriter writer;
+
+    private final SearcherManager searcherManager;
+
+    /**
+     * Open the index, creating it if it does not exist.
+     *
+     * @param root the directory of the index, or {@code null} to keep the index in memory.
+     */
+    public PhotoSearchIndex(Path root) {
+        try {
+            this.directory = root != null ? FSDirectory.open(root) : new ByteBuffersDirectory();
+            this.analyzer = CustomAnalyzer.builder().withTokenizer("standard").addTokenFilter("lowercase").addTokenFilter("asciiFolding").build();
+            this.writer = new IndexWriter(directory, new IndexWriterConfig(analyzer));
+            this.searcherManager = new SearcherManager(writer, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open search index " + root, e);
+        }
+    }
+
+    /**
+     * Add or replace the documents of photos.
+     *
+     * @param photos the photos, with their album and tags.
+     * @throws IOException if the index could not be written.
+     */
+    public void update(Collection<Photo> photos) throws IOException {
+        for (Photo photo : photos) {
+            writer.updateDocument(new Term(ID, photo.getId().toString()), toDocument(photo));
+        }
+        refresh();
+    }
+
+    /**
+     * Delete the documents of photos.
+     *
+     * @param photoIds the ids of the photos.
+     * @throws IOException if the index could not be written.
+     */
+    public void delete(Collection<Long> photoIds) throws IOException {
+        Term[] terms = photoIds.stream().map(id -> new Term(ID, id.toString())).toArray(Term[]::new);
+        writer.deleteDocuments(terms);
+        refresh();
+    }
+
+    /**
+     * Delete all the documents.
+     *
+     * @throws IOException if the index could not be written.
+     */
+    public void deleteAll() throws IOException {
+        writer.deleteAll();
+        refresh();
+    }
+
+    /**
+     * Commit the changes to the directory of the index, so that they survive a restart.
+     *
+     * @throws IOException if the index could not be written.
+     */
+    public void commit() throws IOException {
+        writer.commit();
+    }
+
+    private void refresh() throws IOException {
+        searcherManager.maybeRefresh();
+    }
+
+    private static Document toDocument(Photo photo) {
+        Document document = new Document();
+        document.add(new StringField(ID, photo.getId().toString(), Field.Store.YES));
+        addText(document, TITLE, photo.getTitle());
+        addText(document, DESCRIPTION, photo.getDescription());
+        for (Tag tag : photo.getTags()) {
+            addText(document, TAGS, tag.getName());
+        }
+        Album album = photo.getAlbum();
+        if (album != null) {
+            addText(document, ALBUM, album.getTitle());
+            addText(document, ALBUM, album.getDescription());
+        }
+        return document;
+    }
+
+    private static void addText(Document document, String field, String text) {
+        if (text != null) {
+            document.add(new TextField(field, text, Field.Store.NO));
+        }
+    }
+
+    /**
+     * Search photos, the best matches first.
+     *
+     * @param text the words to search, which must all match.
+     * @param pageable the pagination information, whose sort is ignored.
+     * @return the page of the ids of the matching photos.
+     * @throws IOException if the index could not be read.
+     */
+    public Page<Long> search(String text, Pageable pageable) throws IOException {
+        List<String> terms = analyze(text);
+        if (terms.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        for (String term : terms) {
+            query.add(termQuery(term), BooleanClause.Occur.MUST);
+        }
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            int offset = (int) Math.min(pageable.getOffset(), Integer.MAX_VALUE - pageable.getPageSize());
+            TopScoreDocCollector collector = TopScoreDocCollector.create(offset + pageable.getPageSize(), Integer.MAX_VALUE);
+            searcher.search(query.build(), collector);
+            TopDocs topDocs = collector.topDocs(offset, pageable.getPageSize());
+            List<Long> ids = new ArrayList<>(topDocs.scoreDocs.length);
+            for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                ids.add(Long.valueOf(searcher.doc(scoreDoc.doc).get(ID)));
+            }
+            return new PageImpl<>(ids, pageable, collector.getTotalHits());
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    private static Query termQuery(String term) {
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        for (Map.Entry<String, Float> field : FIELD_BOOSTS.entrySet()) {
+            Term fieldTerm = new Term(field.getKey(), term);
+            float boost = field.getValue();
+            query.add(new BoostQuery(new TermQuery(fieldTerm), boost), BooleanClause.Occur.SHOULD);
+            query.add(new BoostQuery(new PrefixQuery(fieldTerm), boost * PREFIX_BOOST), BooleanClause.Occur.SHOULD);
+            if (term.length() >= 3) {
+                int maxEdits = term.length() >= 6 ? 2 : 1;
+                query.add(new BoostQuery(new FuzzyQuery(fieldTerm, maxEdits, 1), boost * FUZZY_BOOST), BooleanClause.Occur.SHOULD);
+            }
+        }
+        return query.build();
+    }
+
+    private List<String> analyze(String text) throws IOException {
+        List<String> terms = new ArrayList<>();
+        try (TokenStream tokens = analyzer.tokenStream(TITLE, text)) {
+            CharTermAttribute term = tokens.addAttribute(CharTermAttribute.class);
+            tokens.reset();
+            while (tokens.incrementToken()) {
+                terms.add(term.toString());
+            }
+            tokens.end();
+        }
+        return terms.stream().distinct().collect(Collectors.toList());
+    }
+
+    /**
+     * Get the number of indexed photos.
+     *
+     * @return the number of documents of the index.
+     */
+    public int getCount() {
+        return writer.getDocStats().numDocs;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            searcherManager.close();
+            writer.close();
+        } finally {
+            directory.close();
+        }
+    }
+}
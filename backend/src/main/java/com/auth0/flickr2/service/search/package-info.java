@@ -0,0 +1,4 @@
+/**
+ * Full-text search.
+ */
+package com.auth0.flickr2.service.search;
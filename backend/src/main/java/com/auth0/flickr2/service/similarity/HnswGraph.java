@@ -0,0 +1,493 @@
+package com.auth0.flickr2.service.similarity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Hierarchical navigable small world graph over vectors: an approximate nearest neighbour index, whose searches
+ * compute the distances to a few thousand vectors whatever the number of vectors.
+ * <p>
+ * Each vector is a node of the bottom layer of the graph, linked to about {@code 2 * m} of its nearest neighbours,
+ * and of a random number of upper layers, each holding exponentially fewer nodes, linked to {@code m} of their
+ * neighbours. A search walks greedily from the single node of the top layer down to the bottom layer, then explores
+ * the neighbourhood of the closest nodes found. Neighbours are selected so that they are not closer to each other than
+ * to their node, which keeps links between the clusters of vectors.
+ * <p>
+ * Vectors are kept in a single array of floats, and links in arrays of node indexes. Nodes are never unlinked: a
+ * removed vector still routes the searches but is no longer returned, until the graph is built again.
+ * <p>
+ * This class is not thread-safe: searches may run concurrently, but not with the updates.
+ *
+ * @see <a href="https://arxiv.org/abs/1603.09320">Efficient and robust approximate nearest neighbor search using
+ * Hierarchical Navigable Small World graphs</a>
+ */
+public class HnswGraph {
+
+    private final int dimensions;
+
+    private final int m;
+
+    private final int efConstruction;
+
+    private final double levelMultiplier;
+
+    private final SplittableRandom random;
+
+    private float[] vectors;
+
+    private int[] ids;
+
+    /**
+     * Links of the nodes at each of their layers, each array holding the number of links then the linked nodes.
+     */
+    private int[][][] links;
+
+    private boolean[] removed;
+
+    private int nodeCount;
+
+    private int removedCount;
+
+    private final Map<Integer, Integer> nodesById = new HashMap<>();
+
+    private int entryPoint = -1;
+
+    private int topLayer = -1;
+
+    /**
+     * Create an empty graph.
+     *
+     * @param dimensions the number of dimensions of the vectors.
+     * @param m the number of links of the nodes in the upper layers, which is doubled in the bottom layer.
+     * @param efConstruction the number of candidate neighbours explored when adding a vector.
+     * @param seed the seed of the random layers of the nodes.
+     */
+    public HnswGraph(int dimensions, int m, int efConstruction, long seed) {
+        this.dimensions = dimensions;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1 / Math.log(m);
+        this.random = new SplittableRandom(seed);
+        int capacity = 16;
+        this.vectors = new float[capacity * dimensions];
+        this.ids = new int[capacity];
+        this.links = new int[capacity][][];
+        this.removed = new boolean[capacity];
+    }
+
+    /**
+     * Add a vector, replacing the vector of the same id.
+     *
+     * @param id the id of the vector.
+     * @param vector the vector, which is copied.
+     */
+    public void add(int id, float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException("Expected a vector of " + dimensions + " dimensions, got " + vector.length);
+        }
+        remove(id);
+        int node = newNode(id, vector);
+        int layer = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+        links[node] = new int[layer + 1][];
+        for (int l = 0; l <= layer; l++) {
+            links[node][l] = new int[maxLinks(l) + 1];
+        }
+        if (entryPoint < 0) {
+            entryPoint = node;
+            topLayer = layer;
+            return;
+        }
+        int closest = entryPoint;
+        for (int l = topLayer; l > layer; l--) {
+            closest = greedySearch(vector, closest, l);
+        }
+        int[] entryPoints = { closest };
+        for (int l = Math.min(layer, topLayer); l >= 0; l--) {
+            long[] candidates = searchLayer(vector, entryPoints, efConstruction, l, false);
+            int[] neighbours = selectNeighbours(candidates, m);
+            System.arraycopy(neighbours, 0, links[node][l], 1, neighbours.length);
+            links[node][l][0] = neighbours.length;
+            for (int neighbour : neighbours) {
+                link(neighbour, node, l);
+            }
+            entryPoints = new int[candidates.length];
+            for (int i = 0; i < candidates.length; i++) {
+                entryPoints[i] = nodeOf(candidates[i]);
+            }
+        }
+        if (layer > topLayer) {
+            entryPoint = node;
+            topLayer = layer;
+        }
+    }
+
+    /**
+     * Remove the vector of an id.
+     *
+     * @param id the id of the vector.
+     * @return {@code true} if the graph had a vector with this id.
+     */
+    public boolean remove(int id) {
+        Integer node = nodesById.remove(id);
+        if (node == null) {
+            return false;
+        }
+        removed[node] = true;
+        removedCount++;
+        return true;
+    }
+
+    /**
+     * Get the vector of an id.
+     *
+     * @param id the id of the vector.
+     * @return a copy of the vector, or {@code null} if the graph has no vector with this id.
+     */
+    public float[] get(int id) {
+        Integer node = nodesById.get(id);
+        return node != null ? Arrays.copyOfRange(vectors, node * dimensions, (node + 1) * dimensions) : null;
+    }
+
+    /**
+     * Find the vectors closest to a vector.
+     *
+     * @param vector the vector to search.
+     * @param k the number of vectors to find.
+     * @param ef the number of candidates explored, which trades speed for recall: at least {@code k}.
+     * @return the closest vectors, the closest first.
+     */
+    public List<Neighbour> search(float[] vector, int k, int ef) {
+        List<Neighbour> neighbours = new ArrayList<>();
+        if (nodesById.isEmpty()) {
+            return neighbours;
+        }
+        int closest = entryPoint;
+        for (int l = topLayer; l > 0; l--) {
+            closest = greedySearch(vector, closest, l);
+        }
+        long[] candidates = searchLayer(vector, new int[] { closest }, Math.max(ef, k), 0, true);
+        for (int i = 0; i < candidates.length && neighbours.size() < k; i++) {
+            neighbours.add(new Neighbour(ids[nodeOf(candidates[i])], distanceOf(candidates[i])));
+        }
+        return neighbours;
+    }
+
+    /**
+     * Get the number of vectors in the graph.
+     *
+     * @return the number of vectors, without the removed ones.
+     */
+    public int size() {
+        return nodesById.size();
+    }
+
+    /**
+     * Get the number of removed vectors which still route the searches.
+     *
+     * @return the number of removed vectors.
+     */
+    public int getRemovedCount() {
+        return removedCount;
+    }
+
+    private int newNode(int id, float[] vector) {
+        if (nodeCount == ids.length) {
+            int capacity = ids.length + (ids.length >> 1);
+            vectors = Arrays.copyOf(vectors, capacity * dimensions);
+            ids = Arrays.copyOf(ids, capacity);
+            links = Arrays.copyOf(links, capacity);
+            removed = Arrays.copyOf(removed, capacity);
+        }
+        int node = nodeCount++;
+        System.arraycopy(vector, 0, vectors, node * dimensions, dimensions);
+        ids[node] = id;
+        nodesById.put(id, node);
+        return node;
+    }
+
+    private int maxLinks(int layer) {
+        return layer == 0 ? 2 * m : m;
+    }
+
+    /**
+     * Link a node to a new neighbour, selecting its neighbours again when it has too many.
+     */
+    private void link(int node, int neighbour, int layer) {
+        int[] nodeLinks = links[node][layer];
+        int count = nodeLinks[0];
+        if (count < nodeLinks.length - 1) {
+            nodeLinks[count + 1] = neighbour;
+            nodeLinks[0] = count + 1;
+            return;
+        }
+        long[] candidates = new long[count + 1];
+        for (int i = 0; i < count; i++) {
+            candidates[i] = candidate(distance(node, nodeLinks[i + 1]), nodeLinks[i + 1]);
+        }
+        candidates[count] = candidate(distance(node, neighbour), neighbour);
+        Arrays.sort(candidates);
+        int[] neighbours = selectNeighbours(candidates, count);
+        System.arraycopy(neighbours, 0, nodeLinks, 1, neighbours.length);
+        nodeLinks[0] = neighbours.length;
+    }
+
+    /**
+     * Select the neighbours of a node among candidates sorted by distance: a candidate closer to a selected neighbour
+     * than to the node is skipped, unless there are not enough candidates left.
+     */
+    private int[] selectNeighbours(long[] candidates, int count) {
+        int[] selected = new int[Math.min(count, candidates.length)];
+        int selectedCount = 0;
+        boolean[] skipped = new boolean[candidates.length];
+        for (int i = 0; i < candidates.length && selectedCount < selected.length; i++) {
+            int candidate = nodeOf(candidates[i]);
+            float distance = distanceOf(candidates[i]);
+            boolean diverse = true;
+            for (int j = 0; j < selectedCount && diverse; j++) {
+                diverse = distance(candidate, selected[j]) >= distance;
+            }
+            if (diverse) {
+                selected[selectedCount++] = candidate;
+            } else {
+                skipped[i] = true;
+            }
+        }
+        for (int i = 0; i < candidates.length && selectedCount < selected.length; i++) {
+            if (skipped[i]) {
+                selected[selectedCount++] = nodeOf(candidates[i]);
+            }
+        }
+        return selectedCount == selected.length ? selected : Arrays.copyOf(selected, selectedCount);
+    }
+
+    private int greedySearch(float[] vector, int start, int layer) {
+        int closest = start;
+        float closestDistance = distance(vector, closest);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] nodeLinks = links[closest][layer];
+            for (int i = 1; i <= nodeLinks[0]; i++) {
+                float distance = distance(vector, nodeLinks[i]);
+                if (distance < closestDistance) {
+                    closest = nodeLinks[i];
+                    closestDistance = distance;
+                    improved = true;
+                }
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * Explore the neighbourhood of entry points in a layer, keeping the {@code ef} closest nodes found.
+     *
+     * @return the closest nodes, as {@link #candidate(float, int)}, the closest first.
+     */
+    private long[] searchLayer(float[] vector, int[] entryPoints, int ef, int layer, boolean skipRemoved) {
+        IntSet visited = new IntSet(ef * maxLinks(layer));
+        LongHeap candidates = new LongHeap(ef * 2);
+        // the farthest result on top
+        LongHeap results = new LongHeap(ef + 1);
+        for (int entry : entryPoints) {
+            if (visited.add(entry)) {
+                long candidate = candidate(distance(vector, entry), entry);
+                candidates.push(candidate);
+                if (!skipRemoved || !removed[entry]) {
+                    results.push(-candidate);
+                }
+            }
+        }
+        while (candidates.size() > 0) {
+            long closest = candidates.pop();
+            if (results.size() >= ef && distanceOf(closest) > distanceOf(-results.peek())) {
+                break;
+            }
+            int[] nodeLinks = links[nodeOf(closest)][layer];
+            for (int i = 1; i <= nodeLinks[0]; i++) {
+                int neighbour = nodeLinks[i];
+                if (!visited.add(neighbour)) {
+                    continue;
+                }
+                float distance = distance(vector, neighbour);
+                if (results.size() < ef || distance < distanceOf(-results.peek())) {
+                    long candidate = candidate(distance, neighbour);
+                    candidates.push(candidate);
+                    if (!skipRemoved || !removed[neighbour]) {
+                        results.push(-candidate);
+                        if (results.size() > ef) {
+                            results.pop();
+                        }
+                    }
+                }
+            }
+        }
+        long[] closest = new long[results.size()];
+        for (int i = closest.length - 1; i >= 0; i--) {
+            closest[i] = -results.pop();
+        }
+        return closest;
+    }
+
+    private float distance(float[] vector, int node) {
+        int offset = node * dimensions;
+        float distance = 0;
+        for (int i = 0; i < dimensions; i++) {
+            float difference = vector[i] - vectors[offset + i];
+            distance += difference * difference;
+        }
+        return distance;
+    }
+
+    private float distance(int node, int other) {
+        int offset = node * dimensions;
+        int otherOffset = other * dimensions;
+        float distance = 0;
+        for (int i = 0; i < dimensions; i++) {
+            float difference = vectors[offset + i] - vectors[otherOffset + i];
+            distance += difference * difference;
+        }
+        return distance;
+    }
+
+    /**
+     * Pack a node with its distance in a long, ordered by distance then node: the bits of non-negative floats are
+     * ordered as the floats themselves.
+     */
+    private static long candidate(float distance, int node) {
+        return ((long) Float.floatToIntBits(distance) << 32) | node;
+    }
+
+    private static int nodeOf(long candidate) {
+        return (int) candidate;
+    }
+
+    private static float distanceOf(long candidate) {
+        return Float.intBitsToFloat((int) (candidate >>> 32));
+    }
+
+    /**
+     * A vector found by a search.
+     */
+    public static final class Neighbour {
+
+        private final int id;
+
+        private final float distance;
+
+        Neighbour(int id, float distance) {
+            this.id = id;
+            this.distance = distance;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        /**
+         * Get the distance to the searched vector.
+         *
+         * @return the squared Euclidean distance.
+         */
+        public float getDistance() {
+            return distance;
+        }
+    }
+
+    /**
+     * Binary min-heap of longs.
+     */
+    private static final class LongHeap {
+
+        private long[] values;
+
+        private int size;
+
+        LongHeap(int capacity) {
+            values = new long[Math.max(1, capacity)];
+        }
+
+        int size() {
+            return size;
+        }
+
+        long peek() {
+            return values[0];
+        }
+
+        void push(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            int i = size++;
+            while (i > 0 && values[(i - 1) / 2] > value) {
+                values[i] = values[(i - 1) / 2];
+                i = (i - 1) / 2;
+            }
+            values[i] = value;
+        }
+
+        long pop() {
+            long top = values[0];
+            long last = values[--size];
+            int i = 0;
+            while (2 * i + 1 < size) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && values[child + 1] < values[child]) {
+                    child++;
+                }
+                if (values[child] >= last) {
+                    break;
+                }
+                values[i] = values[child];
+                i = child;
+            }
+            values[i] = last;
+            return top;
+        }
+    }
+
+    /**
+     * Open addressing set of non-negative ints.
+     */
+    private static final class IntSet {
+
+        private int[] slots;
+
+        private int size;
+
+        IntSet(int expectedSize) {
+            slots = new int[Integer.highestOneBit(Math.max(4, expectedSize) * 2) * 2];
+            Arrays.fill(slots, -1);
+        }
+
+        boolean add(int value) {
+            if (2 * (size + 1) > slots.length) {
+                int[] previous = slots;
+                slots = new int[previous.length * 2];
+                Arrays.fill(slots, -1);
+                size = 0;
+                for (int slot : previous) {
+                    if (slot >= 0) {
+                        add(slot);
+                    }
+                }
+            }
+            int mask = slots.length - 1;
+            int i = (value * 0x9E3779B9) & mask;
+            while (slots[i] >= 0) {
+                if (slots[i] == value) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            slots[i] = value;
+            size++;
+            return true;
+        }
+    }
+}
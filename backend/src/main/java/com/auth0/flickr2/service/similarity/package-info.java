@@ -0,0 +1,4 @@
+/**
+ * Approximate nearest neighbour search.
+ */
+package com.auth0.flickr2.service.similarity;
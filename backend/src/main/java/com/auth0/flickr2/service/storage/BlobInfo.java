@@ -0,0 +1,55 @@
+package com.auth0.flickr2.service.storage;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * The key and size of a stored blob.
+ */
+public final class BlobInfo implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String key;
+
+    private final long size;
+
+    public BlobInfo(String key, long size) {
+        this.key = key;
+        this.size = size;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BlobInfo)) {
+            return false;
+        }
+        BlobInfo blobInfo = (BlobInfo) o;
+        return size == blobInfo.size && key.equals(blobInfo.key);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(key, size);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "BlobInfo{" +
+            "key='" + key + "'" +
+            ", size=" + size +
+            "}";
+    }
+}
@@ -0,0 +1,15 @@
+package com.auth0.flickr2.service.storage;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a blob is requested with a key that is not stored.
+ */
+public class BlobNotFoundException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public BlobNotFoundException(String key) {
+        super("Blob not found: " + key);
+    }
+}
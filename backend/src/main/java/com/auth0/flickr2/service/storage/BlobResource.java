@@ -0,0 +1,46 @@
+package com.auth0.flickr2.service.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import org.springframework.core.io.AbstractResource;
+
+/**
+ * {@link org.springframework.core.io.Resource} reading a blob from a {@link BlobStore}.
+ * <p>
+ * Unlike an {@link org.springframework.core.io.InputStreamResource}, it can be opened several times, which allows
+ * it to be served with HTTP range requests.
+ */
+public class BlobResource extends AbstractResource {
+
+    private final BlobStore blobStore;
+
+    private final String key;
+
+    private final long size;
+
+    public BlobResource(BlobStore blobStore, String key, long size) {
+        this.blobStore = blobStore;
+        this.key = key;
+        this.size = size;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return blobStore.get(key);
+    }
+
+    @Override
+    public boolean exists() {
+        return blobStore.exists(key);
+    }
+
+    @Override
+    public long contentLength() {
+        return size;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Blob [" + key + "]";
+    }
+}
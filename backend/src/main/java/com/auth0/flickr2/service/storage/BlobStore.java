@@ -0,0 +1,84 @@
+package com.auth0.flickr2.service.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Content-addressed storage for binary content.
+ * <p>
+ * Blobs are identified by the lowercase hexadecimal SHA-256 digest of their content, so storing the same
+ * bytes twice returns the same key and only keeps one copy.
+ */
+public interface BlobStore {
+    /**
+     * Store the content of the given stream. The stream is read until its end but not closed.
+     *
+     * @param content the content to store.
+     * @return the key and size of the stored blob.
+     * @throws IOException if the content could not be read or written.
+     */
+    BlobInfo put(InputStream content) throws IOException;
+
+    /**
+     * Store the given content.
+     *
+     * @param content the content to store.
+     * @return the key and size of the stored blob.
+     * @throws IOException if the content could not be written.
+     */
+    default BlobInfo put(byte[] content) throws IOException {
+        return put(new ByteArrayInputStream(content));
+    }
+
+    /**
+     * Open the blob with the given key for reading. The caller is responsible for closing the stream.
+     *
+     * @param key the key of the blob.
+     * @return a stream over the content of the blob.
+     * @throws BlobNotFoundException if there is no blob with this key.
+     * @throws IOException if the blob could not be read.
+     */
+    InputStream get(String key) throws IOException;
+
+    /**
+     * Read the whole content of the blob with the given key.
+     *
+     * @param key the key of the blob.
+     * @return the content of the blob.
+     * @throws BlobNotFoundException if there is no blob with this key.
+     * @throws IOException if the blob could not be read.
+     */
+    default byte[] getBytes(String key) throws IOException {
+        try (InputStream in = get(key)) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * Get the local file holding a blob, for stores that keep blobs on the local disk.
+     * This allows callers to read blobs with file channels instead of streams.
+     *
+     * @param key the key of the blob.
+     * @return the path of the blob file, or empty if the blob is not stored as a local file.
+     */
+    default Optional<Path> getPath(String key) {
+        return Optional.empty();
+    }
+
+    /**
+     * @param key the key of the blob.
+     * @return {@code true} if a blob with this key is stored.
+     */
+    boolean exists(String key);
+
+    /**
+     * Delete the blob with the given key, if it exists.
+     *
+     * @param key the key of the blob.
+     * @throws IOException if the blob could not be deleted.
+     */
+    void delete(String key) throws IOException;
+}
@@ -0,0 +1,159 @@
+package com.auth0.flickr2.service.storage;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link BlobStore} keeping blobs as files on the local disk.
+ * <p>
+ * A blob with key {@code abcdef...} is stored as {@code <root>/ab/cd/abcdef...}, so that no single directory
+ * grows too large. Content is first written to a temporary file under {@code <root>/tmp} while its digest is
+ * computed, then atomically renamed to its final location: readers never see a partially written blob.
+ */
+public class FileSystemBlobStore implements BlobStore {
+
+    private static final Pattern KEY_PATTERN = Pattern.compile("^[0-9a-f]{64}$");
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private static final String TMP_DIRECTORY = "tmp";
+
+    private final Logger log = LoggerFactory.getLogger(FileSystemBlobStore.class);
+
+    private final Path root;
+
+    private final Path tmp;
+
+    public FileSystemBlobStore(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+        this.tmp = this.root.resolve(TMP_DIRECTORY);
+        try {
+            Files.createDirectories(this.tmp);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create blob store directory " + this.tmp, e);
+        }
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    @Override
+    public BlobInfo put(InputStream content) throws IOException {
+        Path tempFile = Files.createTempFile(tmp, "upload-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            long size;
+            try (InputStream in = new DigestInputStream(new NonClosingInputStream(content), digest)) {
+                size = Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String key = toHex(digest.digest());
+            Path target = resolve(key);
+            if (Files.exists(target)) {
+                log.debug("Blob {} already stored", key);
+                Files.delete(tempFile);
+            } else {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // Stored concurrently by another writer, with the same content
+                    Files.delete(tempFile);
+                }
+            }
+            return new BlobInfo(key, size);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        try {
+            return Files.newInputStream(resolve(key));
+        } catch (NoSuchFileException e) {
+            throw new BlobNotFoundException(key);
+        }
+    }
+
+    @Override
+    public Optional<Path> getPath(String key) {
+        Path path = resolve(key);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return isValidKey(key) && Files.isRegularFile(resolve(key));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    /**
+     * Resolve the path of the file holding the blob with the given key.
+     *
+     * @param key the key of the blob.
+     * @return the path of the blob file, which may not exist.
+     * @throws IllegalArgumentException if the key is not a SHA-256 hexadecimal digest.
+     */
+    public Path resolve(String key) {
+        if (!isValidKey(key)) {
+            throw new IllegalArgumentException("Invalid blob key: " + key);
+        }
+        return root.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key);
+    }
+
+    private static boolean isValidKey(String key) {
+        return key != null && KEY_PATTERN.matcher(key).matches();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+            chars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xf];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Leaves closing the caller's stream to the caller.
+     */
+    private static final class NonClosingInputStream extends FilterInputStream {
+
+        private NonClosingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public void close() {
+            // the wrapped stream is owned by the caller
+        }
+    }
+}
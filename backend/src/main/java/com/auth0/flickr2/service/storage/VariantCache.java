@@ -0,0 +1,211 @@
+package com.auth0.flickr2.service.storage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Size-bounded cache of rendered files on the local disk, evicting the least recently used files first.
+ * <p>
+ * Files are rendered at most once at a time: concurrent requests for a file which is being rendered wait for that
+ * rendering instead of starting their own. Rendering goes to a temporary file under {@code <root>/tmp}, atomically
+ * renamed once complete, so that readers never see a partially rendered file.
+ * <p>
+ * The recency of files is kept in memory, and rebuilt from their last modification time when the cache is created.
+ */
+public class VariantCache {
+
+    private static final Pattern NAME_PATTERN = Pattern.compile("^[0-9A-Za-z._-]{1,200}$");
+
+    private static final String TMP_DIRECTORY = "tmp";
+
+    private final Logger log = LoggerFactory.getLogger(VariantCache.class);
+
+    private final Path root;
+
+    private final Path tmp;
+
+    private final long maxSize;
+
+    /**
+     * Sizes of the cached files, in access order.
+     */
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final ConcurrentMap<String, CompletableFuture<Path>> renderings = new ConcurrentHashMap<>();
+
+    private long size;
+
+    public VariantCache(Path root, long maxSize) {
+        this.root = root.toAbsolutePath().normalize();
+        this.tmp = this.root.resolve(TMP_DIRECTORY);
+        this.maxSize = maxSize;
+        try {
+            Files.createDirectories(this.tmp);
+            loadEntries();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open variant cache directory " + this.root, e);
+        }
+    }
+
+    private void loadEntries() throws IOException {
+        try (Stream<Path> files = Files.list(root)) {
+            files
+                .filter(Files::isRegularFile)
+                .sorted(Comparator.comparing(VariantCache::lastModified))
+                .forEach(file -> {
+                    try {
+                        entries.put(file.getFileName().toString(), Files.size(file));
+                        size += Files.size(file);
+                    } catch (IOException e) {
+                        log.warn("Could not read variant cache file {}: {}", file, e.getMessage());
+                    }
+                });
+        }
+        log.debug("Loaded {} files, {} bytes, in variant cache {}", entries.size(), size, root);
+        evict();
+    }
+
+    /**
+     * Get a cached file, rendering it if it is not cached yet.
+     *
+     * @param name the name of the file, which identifies its content.
+     * @param renderer the renderer writing the content of the file when it is not cached.
+     * @return the path of the cached file.
+     * @throws IOException if the file could not be rendered.
+     */
+    public Path get(String name, Renderer renderer) throws IOException {
+        if (!NAME_PATTERN.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid variant name: " + name);
+        }
+        Path file = root.resolve(name);
+        if (touch(name)) {
+            return file;
+        }
+        CompletableFuture<Path> rendering = new CompletableFuture<>();
+        CompletableFuture<Path> existingRendering = renderings.putIfAbsent(name, rendering);
+        if (existingRendering != null) {
+            return await(existingRendering);
+        }
+        try {
+            // the file may have been rendered by a rendering which completed since the first lookup
+            if (!touch(name)) {
+                render(name, file, renderer);
+            }
+            rendering.complete(file);
+            return file;
+        } catch (IOException | RuntimeException e) {
+            rendering.completeExceptionally(e);
+            throw e;
+        } finally {
+            renderings.remove(name, rendering);
+        }
+    }
+
+    private void render(String name, Path file, Renderer renderer) throws IOException {
+        Path tempFile = Files.createTempFile(tmp, "variant-", ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(tempFile)) {
+                renderer.render(out);
+            }
+            long fileSize = Files.size(tempFile);
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            synchronized (entries) {
+                Long previousSize = entries.put(name, fileSize);
+                size += fileSize - (previousSize != null ? previousSize : 0);
+            }
+            log.debug("Rendered variant {}, {} bytes", name, fileSize);
+            evict();
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private boolean touch(String name) {
+        synchronized (entries) {
+            return entries.get(name) != null;
+        }
+    }
+
+    private void evict() {
+        synchronized (entries) {
+            Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+            // the most recently used file is always kept, even if it is larger than the cache
+            while (size > maxSize && entries.size() > 1 && iterator.hasNext()) {
+                Map.Entry<String, Long> eldest = iterator.next();
+                try {
+                    Files.deleteIfExists(root.resolve(eldest.getKey()));
+                } catch (IOException e) {
+                    log.warn("Could not delete variant {}: {}", eldest.getKey(), e.getMessage());
+                }
+                size -= eldest.getValue();
+                iterator.remove();
+            }
+        }
+    }
+
+    private static Path await(CompletableFuture<Path> rendering) throws IOException {
+        try {
+            return rendering.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class).lastModifiedTime().toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Get the total size of the cached files.
+     *
+     * @return the size of the cache, in bytes.
+     */
+    public long getSize() {
+        synchronized (entries) {
+            return size;
+        }
+    }
+
+    /**
+     * Get the number of cached files.
+     *
+     * @return the number of cached files.
+     */
+    public int getCount() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Writes the content of a file to cache.
+     */
+    @FunctionalInterface
+    public interface Renderer {
+        void render(OutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Binary content storage.
+ */
+package com.auth0.flickr2.service.storage;
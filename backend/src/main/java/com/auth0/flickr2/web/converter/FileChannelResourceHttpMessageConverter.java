@@ -0,0 +1,27 @@
+package com.auth0.flickr2.web.converter;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.Optional;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.ResourceHttpMessageConverter;
+
+/**
+ * {@link ResourceHttpMessageConverter} writing file-backed resources with {@link FileChannel#transferTo}.
+ */
+public class FileChannelResourceHttpMessageConverter extends ResourceHttpMessageConverter {
+
+    @Override
+    protected void writeContent(Resource resource, HttpOutputMessage outputMessage) throws IOException, HttpMessageNotWritableException {
+        Optional<FileChannel> fileChannel = FileChannelTransfer.openFileChannel(resource);
+        if (fileChannel.isEmpty()) {
+            super.writeContent(resource, outputMessage);
+            return;
+        }
+        try (FileChannel channel = fileChannel.get()) {
+            FileChannelTransfer.transfer(channel, 0, channel.size(), outputMessage.getBody());
+        }
+    }
+}
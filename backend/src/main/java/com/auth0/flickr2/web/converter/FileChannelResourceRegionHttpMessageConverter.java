@@ -0,0 +1,35 @@
+package com.auth0.flickr2.web.converter;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.Optional;
+import org.springframework.core.io.support.ResourceRegion;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.ResourceRegionHttpMessageConverter;
+
+/**
+ * {@link ResourceRegionHttpMessageConverter} writing single ranges of file-backed resources with
+ * {@link FileChannel#transferTo}, seeking directly to the start of the range.
+ */
+public class FileChannelResourceRegionHttpMessageConverter extends ResourceRegionHttpMessageConverter {
+
+    @Override
+    protected void writeResourceRegion(ResourceRegion region, HttpOutputMessage outputMessage) throws IOException {
+        Optional<FileChannel> fileChannel = FileChannelTransfer.openFileChannel(region.getResource());
+        if (fileChannel.isEmpty()) {
+            super.writeResourceRegion(region, outputMessage);
+            return;
+        }
+        try (FileChannel channel = fileChannel.get()) {
+            long start = region.getPosition();
+            long length = channel.size();
+            long end = Math.min(start + region.getCount() - 1, length - 1);
+            long count = end - start + 1;
+            HttpHeaders headers = outputMessage.getHeaders();
+            headers.add("Content-Range", "bytes " + start + '-' + end + '/' + length);
+            headers.setContentLength(count);
+            FileChannelTransfer.transfer(channel, start, count, outputMessage.getBody());
+        }
+    }
+}
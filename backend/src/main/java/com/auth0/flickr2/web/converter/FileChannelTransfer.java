@@ -0,0 +1,52 @@
+package com.auth0.flickr2.web.converter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Optional;
+import org.springframework.core.io.Resource;
+
+/**
+ * Copies file-backed resources to a response with {@link FileChannel#transferTo}, which lets the JDK move the
+ * bytes through direct buffers (or the kernel, when the target allows it) instead of heap byte arrays.
+ */
+final class FileChannelTransfer {
+
+    private FileChannelTransfer() {}
+
+    /**
+     * Open the file channel of a resource, if it is backed by a file.
+     */
+    static Optional<FileChannel> openFileChannel(Resource resource) throws IOException {
+        if (!resource.isFile()) {
+            return Optional.empty();
+        }
+        ReadableByteChannel channel = resource.readableChannel();
+        if (channel instanceof FileChannel) {
+            return Optional.of((FileChannel) channel);
+        }
+        channel.close();
+        return Optional.empty();
+    }
+
+    /**
+     * Transfer {@code count} bytes of the channel, starting at {@code position}, to the given stream.
+     * The stream is flushed but not closed.
+     */
+    static void transfer(FileChannel channel, long position, long count, OutputStream out) throws IOException {
+        WritableByteChannel target = Channels.newChannel(out);
+        long end = Math.min(position + count, channel.size());
+        long current = position;
+        while (current < end) {
+            long transferred = channel.transferTo(current, end - current, target);
+            if (transferred <= 0) {
+                break;
+            }
+            current += transferred;
+        }
+        out.flush();
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * HTTP message converters.
+ */
+package com.auth0.flickr2.web.converter;
@@ -2,6 +2,7 @@ package com.auth0.flickr2.web.rest;
 
 import com.auth0.flickr2.domain.Album;
 import com.auth0.flickr2.repository.AlbumRepository;
+import com.auth0.flickr2.service.AlbumChangedEvent;
 import com.auth0.flickr2.web.rest.errors.BadRequestAlertException;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -13,6 +14,7 @@ import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpHeaders;
@@ -42,8 +44,11 @@ public class AlbumResource {
 
     private final AlbumRepository albumRepository;
 
-    public AlbumResource(AlbumRepository albumRepository) {
+    private final ApplicationEventPublisher eventPublisher;
+
+    public AlbumResource(AlbumRepository albumRepository, ApplicationEventPublisher eventPublisher) {
         this.albumRepository = albumRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -92,6 +97,7 @@ public class AlbumResource {
         }
 
         Album result = albumRepository.save(album);
+        eventPublisher.publishEvent(new AlbumChangedEvent(result.getId()));
         return ResponseEntity
             .ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, album.getId().toString()))
@@ -142,6 +148,7 @@ public class AlbumResource {
                 return existingAlbum;
             })
             .map(albumRepository::save);
+        result.ifPresent(updatedAlbum -> eventPublisher.publishEvent(new AlbumChangedEvent(updatedAlbum.getId())));
 
         return ResponseUtil.wrapOrNotFound(
             result,
@@ -1,38 +1,69 @@
 package com.auth0.flickr2.web.rest;
 
 import com.auth0.flickr2.domain.Photo;
+import com.auth0.flickr2.domain.PhotoContent;
+import com.auth0.flickr2.domain.PhotoThumbnail;
+import com.auth0.flickr2.domain.enumeration.PhotoStatus;
 import com.auth0.flickr2.repository.PhotoRepository;
+import com.auth0.flickr2.repository.TagRepository;
+import com.auth0.flickr2.security.AuthoritiesConstants;
+import com.auth0.flickr2.service.ImageRenderer;
+import com.auth0.flickr2.service.ImageVariantService;
+import com.auth0.flickr2.service.PhotoGeoIndex;
+import com.auth0.flickr2.service.PhotoNearDuplicateIndex;
+import com.auth0.flickr2.service.PhotoSearchQueue;
+import com.auth0.flickr2.service.PhotoSearchService;
+import com.auth0.flickr2.service.PhotoService;
+import com.auth0.flickr2.service.PhotoSimilarityIndex;
+import com.auth0.flickr2.service.PhotoTagIndex;
+import com.auth0.flickr2.service.PhotoTimelineIndex;
+import com.auth0.flickr2.service.dto.MapClusterDTO;
+import com.auth0.flickr2.service.dto.NearDuplicateDTO;
+import com.auth0.flickr2.service.dto.SimilarPhotoDTO;
+import com.auth0.flickr2.service.dto.TimelineBucketDTO;
+import com.auth0.flickr2.service.dto.TimelinePositionDTO;
 import com.auth0.flickr2.web.rest.errors.BadRequestAlertException;
-import com.drew.imaging.ImageMetadataReader;
-import com.drew.imaging.ImageProcessingException;
-import com.drew.metadata.Metadata;
-import com.drew.metadata.MetadataException;
-import com.drew.metadata.exif.ExifSubIFDDirectory;
-import com.drew.metadata.jpeg.JpegDirectory;
-import java.io.BufferedInputStream;
+import com.auth0.flickr2.web.rest.util.CursorPaginationUtil;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.time.Instant;
-import java.util.Date;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
-import javax.xml.bind.DatatypeConverter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
@@ -50,71 +81,193 @@ public class PhotoResource {
 
     private static final String ENTITY_NAME = "photo";
 
+    /**
+     * Largest distance between the perceptual hashes of near-duplicates: beyond it, images only share their overall
+     * layout, and the search visits most of the {@link PhotoNearDuplicateIndex}.
+     */
+    private static final int MAX_NEAR_DUPLICATE_DISTANCE = 16;
+
+    private static final int MAX_NEAR_DUPLICATES = 100;
+
+    private static final int MAX_SIMILAR_PHOTOS = 100;
+
+    private static final Pattern IMAGE_DIGEST_PATTERN = Pattern.compile("^[0-9a-f]{64}$");
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
     private final PhotoRepository photoRepository;
 
-    public PhotoResource(PhotoRepository photoRepository) {
+    private final TagRepository tagRepository;
+
+    private final PhotoService photoService;
+
+    private final ImageVariantService imageVariantService;
+
+    private final PhotoTagIndex photoTagIndex;
+
+    private final PhotoSearchService photoSearchService;
+
+    private final PhotoSearchQueue photoSearchQueue;
+
+    private final PhotoTimelineIndex photoTimelineIndex;
+
+    private final PhotoGeoIndex photoGeoIndex;
+
+    private final PhotoNearDuplicateIndex photoNearDuplicateIndex;
+
+    private final PhotoSimilarityIndex photoSimilarityIndex;
+
+    public PhotoResource(
+        PhotoRepository photoRepository,
+        TagRepository tagRepository,
+        PhotoService photoService,
+        ImageVariantService imageVariantService,
+        PhotoTagIndex photoTagIndex,
+        PhotoSearchService photoSearchService,
+        PhotoSearchQueue photoSearchQueue,
+        PhotoTimelineIndex photoTimelineIndex,
+        PhotoGeoIndex photoGeoIndex,
+        PhotoNearDuplicateIndex photoNearDuplicateIndex,
+        PhotoSimilarityIndex photoSimilarityIndex
+    ) {
         this.photoRepository = photoRepository;
+        this.tagRepository = tagRepository;
+        this.photoService = photoService;
+        this.imageVariantService = imageVariantService;
+        this.photoTagIndex = photoTagIndex;
+        this.photoSearchService = photoSearchService;
+        this.photoSearchQueue = photoSearchQueue;
+        this.photoTimelineIndex = photoTimelineIndex;
+        this.photoGeoIndex = photoGeoIndex;
+        this.photoNearDuplicateIndex = photoNearDuplicateIndex;
+        this.photoSimilarityIndex = photoSimilarityIndex;
     }
 
     /**
      * {@code POST  /photos} : Create a new photo.
+     * <p>
+     * Like an uploaded image, the image is processed asynchronously: the photo is returned in the {@code PENDING}
+     * status, without its image, and its {@code Location} can be polled until it is {@code READY}.
      *
      * @param photo the photo to create.
-     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new photo, or with status {@code 400 (Bad Request)} if the photo has already an ID.
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)} and with body the new pending photo,
+     * or with status {@code 201 (Created)} and with body the new ready photo,
+     * or with status {@code 400 (Bad Request)} if the photo has already an ID or has no image.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("/photos")
-    public ResponseEntity<Photo> createPhoto(@Valid @RequestBody Photo photo) throws Exception {
+    public ResponseEntity<Photo> createPhoto(@Valid @RequestBody Photo photo) throws URISyntaxException {
         log.debug("REST request to save Photo : {}", photo);
         if (photo.getId() != null) {
             throw new BadRequestAlertException("A new photo cannot already have an ID", ENTITY_NAME, "idexists");
         }
-
-        try {
-            photo = setMetadata(photo);
-        } catch (ImageProcessingException ipe) {
-            log.error(ipe.getMessage());
+        if (photo.getImage() == null) {
+            throw new BadRequestAlertException("A new photo must have an image", ENTITY_NAME, "imagenull");
         }
 
-        Photo result = photoRepository.save(photo);
+        byte[] image = photo.getImage();
+        Photo result = photoService.create(photo.image(null), new ByteArrayInputStream(image));
         return ResponseEntity
-            .created(new URI("/api/photos/" + result.getId()))
+            .status(result.getStatus() == PhotoStatus.READY ? HttpStatus.CREATED : HttpStatus.ACCEPTED)
+            .location(new URI("/api/photos/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, result.getId().toString()))
             .body(result);
     }
 
-    private Photo setMetadata(Photo photo) throws ImageProcessingException, IOException, MetadataException {
-        String str = DatatypeConverter.printBase64Binary(photo.getImage());
-        byte[] data2 = DatatypeConverter.parseBase64Binary(str);
-        InputStream inputStream = new ByteArrayInputStream(data2);
-        BufferedInputStream bis = new BufferedInputStream(inputStream);
-        Metadata metadata = ImageMetadataReader.readMetadata(bis);
-        ExifSubIFDDirectory directory = metadata.getFirstDirectoryOfType(ExifSubIFDDirectory.class);
-
-        if (directory != null) {
-            Date date = directory.getDateDigitized();
-            if (date != null) {
-                photo.setTaken(date.toInstant());
-            }
+    /**
+     * {@code POST  /photos} : Create a new photo by uploading its image as a {@code multipart/form-data} file.
+     * <p>
+     * The image part is spooled to disk by the servlet container, then streamed to the blob store: unlike the JSON
+     * endpoint, the upload never holds the image, or its base64 encoding, in memory. The image is then processed
+     * asynchronously: the photo is returned in the {@code PENDING} status, and its {@code Location} can be polled
+     * until it is {@code READY}, with its date taken and dimensions set. An image which has already been processed for
+     * another photo is not processed again: the photo is then created {@code READY}.
+     *
+     * @param title the title of the photo.
+     * @param description the description of the photo.
+     * @param image the image of the photo.
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)} and with body the new pending photo,
+     * or with status {@code 201 (Created)} and with body the new ready photo,
+     * or with status {@code 400 (Bad Request)} if the image is empty or has no content type.
+     * @throws URISyntaxException if the Location URI syntax is incorrect.
+     * @throws IOException if the image could not be read.
+     */
+    @PostMapping(value = "/photos", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<Photo> uploadPhoto(
+        @RequestParam String title,
+        @RequestParam(required = false) String description,
+        @RequestPart MultipartFile image
+    ) throws URISyntaxException, IOException {
+        log.debug("REST request to upload Photo : {}, {} bytes", title, image.getSize());
+        if (image.isEmpty()) {
+            throw new BadRequestAlertException("A new photo must have an image", ENTITY_NAME, "imagenull");
+        }
+        if (image.getContentType() == null) {
+            throw new BadRequestAlertException("The image must have a content type", ENTITY_NAME, "imagecontenttypenull");
         }
 
-        if (photo.getTaken() == null) {
-            log.debug("Photo EXIF date digitized not available, setting taken on date to now...");
-            photo.setTaken(Instant.now());
+        Photo photo = new Photo().title(title).description(description).imageContentType(image.getContentType());
+        Photo result;
+        try (InputStream in = image.getInputStream()) {
+            result = photoService.create(photo, in);
         }
+        return ResponseEntity
+            .status(result.getStatus() == PhotoStatus.READY ? HttpStatus.CREATED : HttpStatus.ACCEPTED)
+            .location(new URI("/api/photos/" + result.getId()))
+            .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, result.getId().toString()))
+            .body(result);
+    }
 
-        photo.setUploaded(Instant.now());
+    /**
+     * {@code HEAD  /photos/by-hash/:sha256} : Check whether an image has already been uploaded, so that a client can
+     * create a photo of it without uploading it again.
+     *
+     * @param sha256 the SHA-256 digest of the image, in lower case hexadecimal.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} if the image has been uploaded and processed,
+     * or with status {@code 404 (Not Found)}, or with status {@code 400 (Bad Request)} if the digest is invalid.
+     */
+    @RequestMapping(value = "/photos/by-hash/{sha256}", method = RequestMethod.HEAD)
+    @Transactional(readOnly = true)
+    public ResponseEntity<Void> checkPhotoImage(@PathVariable String sha256) {
+        log.debug("REST request to check Photo image : {}", sha256);
+        checkImageDigest(sha256);
+        return photoService.existsImage(sha256) ? ResponseEntity.ok().build() : ResponseEntity.notFound().build();
+    }
 
-        JpegDirectory jpgDirectory = metadata.getFirstDirectoryOfType(JpegDirectory.class);
-        if (jpgDirectory != null) {
-            photo.setHeight(jpgDirectory.getImageHeight());
-            photo.setWidth(jpgDirectory.getImageWidth());
+    /**
+     * {@code POST  /photos/by-hash/:sha256} : Create a new photo of an image which has already been uploaded.
+     *
+     * @param sha256 the SHA-256 digest of the image, in lower case hexadecimal.
+     * @param title the title of the photo.
+     * @param description the description of the photo.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new photo,
+     * or with status {@code 404 (Not Found)} if the image has not been uploaded,
+     * or with status {@code 400 (Bad Request)} if the digest is invalid.
+     * @throws URISyntaxException if the Location URI syntax is incorrect.
+     */
+    @PostMapping("/photos/by-hash/{sha256}")
+    public ResponseEntity<Photo> createPhotoFromImage(
+        @PathVariable String sha256,
+        @RequestParam String title,
+        @RequestParam(required = false) String description
+    ) throws URISyntaxException {
+        log.debug("REST request to create Photo : {} from image {}", title, sha256);
+        checkImageDigest(sha256);
+        Optional<Photo> result = photoService.createFromImage(new Photo().title(title).description(description), sha256);
+        if (result.isEmpty()) {
+            return ResponseEntity.notFound().build();
         }
+        return ResponseEntity
+            .created(new URI("/api/photos/" + result.get().getId()))
+            .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, result.get().getId().toString()))
+            .body(result.get());
+    }
 
-        return photo;
+    private static void checkImageDigest(String sha256) {
+        if (!IMAGE_DIGEST_PATTERN.matcher(sha256).matches()) {
+            throw new BadRequestAlertException("Invalid SHA-256 digest", ENTITY_NAME, "digestinvalid");
+        }
     }
 
     /**
@@ -142,7 +295,7 @@ public class PhotoResource {
             throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
         }
 
-        Photo result = photoRepository.save(photo);
+        Photo result = photoService.loadImage(photoService.save(photo));
         return ResponseEntity
             .ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, photo.getId().toString()))
@@ -204,10 +357,17 @@ public class PhotoResource {
                 if (photo.getUploaded() != null) {
                     existingPhoto.setUploaded(photo.getUploaded());
                 }
+                if (photo.getLatitude() != null) {
+                    existingPhoto.setLatitude(photo.getLatitude());
+                }
+                if (photo.getLongitude() != null) {
+                    existingPhoto.setLongitude(photo.getLongitude());
+                }
 
                 return existingPhoto;
             })
-            .map(photoRepository::save);
+            .map(photoService::save)
+            .map(photoService::loadImage);
 
         return ResponseUtil.wrapOrNotFound(
             result,
@@ -217,16 +377,27 @@ public class PhotoResource {
 
     /**
      * {@code GET  /photos} : get all the photos.
+     * <p>
+     * When a {@code cursor} is given, which is empty for the first slice, photos are sorted by date taken, most
+     * recent first, and returned by slices of the requested page size, and the cursor of the next slice is returned
+     * in the {@code X-Next-Cursor} header: deep slices cost as much as the first one, and no count query is run.
+     * Photos which are still being processed, without a date taken yet, come first.
      *
      * @param pageable the pagination information.
      * @param eagerload flag to eager load entities from relationships (This is applicable for many-to-many).
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of photos in body.
+     * @param cursor the cursor of the slice to get.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of photos in body,
+     * or with status {@code 400 (Bad Request)} if the cursor is not valid.
      */
     @GetMapping("/photos")
     public ResponseEntity<List<Photo>> getAllPhotos(
         Pageable pageable,
-        @RequestParam(required = false, defaultValue = "false") boolean eagerload
+        @RequestParam(required = false, defaultValue = "false") boolean eagerload,
+        @RequestParam(required = false) String cursor
     ) {
+        if (cursor != null) {
+            return getPhotoSlice(pageable, eagerload, cursor);
+        }
         log.debug("REST request to get a page of Photos");
         Page<Photo> page;
         if (eagerload) {
@@ -238,6 +409,277 @@ public class PhotoResource {
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    private ResponseEntity<List<Photo>> getPhotoSlice(Pageable pageable, boolean eagerload, String cursor) {
+        log.debug("REST request to get a slice of Photos after : {}", cursor);
+        Pageable slicePageable = PageRequest.of(0, pageable.getPageSize());
+        Slice<Photo> slice;
+        if (cursor.isEmpty()) {
+            slice = photoRepository.findFirstSliceByTaken(slicePageable);
+        } else {
+            try {
+                List<String> key = CursorPaginationUtil.decodeCursor(cursor, 2);
+                Long lastId = Long.valueOf(key.get(1));
+                slice =
+                    key.get(0) == null
+                        ? photoRepository.findSliceByTakenAfterNotTaken(lastId, slicePageable)
+                        : photoRepository.findSliceByTakenAfter(Instant.parse(key.get(0)), lastId, slicePageable);
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "cursorinvalid");
+            }
+        }
+        String nextCursor = null;
+        if (slice.hasNext()) {
+            Photo last = slice.getContent().get(slice.getNumberOfElements() - 1);
+            nextCursor = CursorPaginationUtil.encodeCursor(last.getTaken(), last.getId());
+        }
+        List<Photo> photos = slice.getContent();
+        if (eagerload) {
+            photos = photoRepository.findAllWithEagerRelationshipsInOrder(photos.stream().map(Photo::getId).collect(Collectors.toList()));
+        }
+        HttpHeaders headers = CursorPaginationUtil.generateCursorPaginationHttpHeaders(
+            ServletUriComponentsBuilder.fromCurrentRequest(),
+            nextCursor
+        );
+        return ResponseEntity.ok().headers(headers).body(photos);
+    }
+
+    /**
+     * {@code GET  /photos/timeline} : get the number of photos taken each day, month or year, the most recent first.
+     * <p>
+     * Counts are served from the {@link PhotoTimelineIndex}, without querying the database. Days are in UTC, and the
+     * periods without photos are omitted.
+     *
+     * @param granularity the length of the periods: {@code day}, {@code month} or {@code year}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of periods, with their first day and
+     * their number of photos, in body, or with status {@code 400 (Bad Request)} if the granularity is not valid.
+     */
+    @GetMapping("/photos/timeline")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResponseEntity<List<TimelineBucketDTO>> getPhotoTimeline(@RequestParam(defaultValue = "month") String granularity) {
+        log.debug("REST request to get the timeline of Photos by : {}", granularity);
+        PhotoTimelineIndex.Granularity bucketGranularity;
+        try {
+            bucketGranularity = PhotoTimelineIndex.Granularity.valueOf(granularity.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid granularity", ENTITY_NAME, "granularityinvalid");
+        }
+        return ResponseEntity.ok(photoTimelineIndex.getHistogram(bucketGranularity));
+    }
+
+    /**
+     * {@code GET  /photos/timeline/position} : get the position of a day in the list of the photos by date taken.
+     * <p>
+     * The returned cursor gets the slices of {@code GET /photos} starting with the photos taken on the day, or with
+     * the photos taken before it if there are none, and the returned offset is the number of photos before them.
+     * Neither queries the database.
+     *
+     * @param date the day, in UTC.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the position in body.
+     */
+    @GetMapping("/photos/timeline/position")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResponseEntity<TimelinePositionDTO> getPhotoTimelinePosition(@RequestParam LocalDate date) {
+        log.debug("REST request to get the position of the day in the timeline of Photos : {}", date);
+        // the slice after the first instant of the next day, where no photo id is lower than 0
+        Instant startOfNextDay = date.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+        String cursor = CursorPaginationUtil.encodeCursor(startOfNextDay, 0L);
+        return ResponseEntity.ok(new TimelinePositionDTO(date, cursor, photoTimelineIndex.countBefore(date)));
+    }
+
+    /**
+     * {@code GET  /photos/map} : get the clustered markers of the photos of a map view.
+     * <p>
+     * Markers are computed by the {@link PhotoGeoIndex}, without querying the database, so that a view of a large
+     * library costs a bounded number of markers rather than one per photo.
+     *
+     * @param bbox the bounds of the view, as {@code west,south,east,north} in degrees, the west bound being greater
+     * than the east bound when the view crosses the antimeridian.
+     * @param zoom the zoom level of the view, 0 showing the whole world on a single tile.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of markers, the largest first, in
+     * body, or with status {@code 400 (Bad Request)} if the bounds or the zoom are not valid.
+     */
+    @GetMapping("/photos/map")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResponseEntity<List<MapClusterDTO>> getPhotoMap(@RequestParam String bbox, @RequestParam int zoom) {
+        log.debug("REST request to get the map of Photos in : {} at zoom {}", bbox, zoom);
+        double[] bounds = parseBoundingBox(bbox);
+        if (zoom < 0) {
+            throw new BadRequestAlertException("Invalid zoom", ENTITY_NAME, "zoominvalid");
+        }
+        return ResponseEntity.ok(photoGeoIndex.cluster(bounds[1], bounds[0], bounds[3], bounds[2], zoom));
+    }
+
+    private static double[] parseBoundingBox(String bbox) {
+        String[] values = bbox.split(",");
+        if (values.length != 4) {
+            throw new BadRequestAlertException("Invalid bounding box", ENTITY_NAME, "bboxinvalid");
+        }
+        double[] bounds = new double[4];
+        try {
+            for (int i = 0; i < 4; i++) {
+                bounds[i] = Double.parseDouble(values[i].trim());
+            }
+        } catch (NumberFormatException e) {
+            throw new BadRequestAlertException("Invalid bounding box", ENTITY_NAME, "bboxinvalid");
+        }
+        boolean valid =
+            Math.abs(bounds[0]) <= 180 && Math.abs(bounds[2]) <= 180 && Math.abs(bounds[1]) <= 90 && Math.abs(bounds[3]) <= 90;
+        if (!valid || bounds[1] > bounds[3]) {
+            throw new BadRequestAlertException("Invalid bounding box", ENTITY_NAME, "bboxinvalid");
+        }
+        return bounds;
+    }
+
+    /**
+     * {@code GET  /photos/:id/near-duplicates} : get the photos whose image looks like the image of the "id" photo,
+     * such as burst shots or resized copies.
+     * <p>
+     * The photos are found by the {@link PhotoNearDuplicateIndex}, from the perceptual hashes of their images, which are
+     * computed in the background once the photos are processed.
+     *
+     * @param id the id of the photo.
+     * @param maxDistance the largest number of bits differing between the perceptual hashes of the images, 0 only
+     * returning the images which look the same.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of photos, the closest first, in
+     * body, or with status {@code 404 (Not Found)}, or with status {@code 400 (Bad Request)} if the distance is not
+     * valid.
+     */
+    @GetMapping("/photos/{id}/near-duplicates")
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public ResponseEntity<List<NearDuplicateDTO>> getPhotoNearDuplicates(
+        @PathVariable Long id,
+        @RequestParam(defaultValue = "8") int maxDistance
+    ) {
+        log.debug("REST request to get the near-duplicates of Photo : {} within {}", id, maxDistance);
+        if (maxDistance < 0 || maxDistance > MAX_NEAR_DUPLICATE_DISTANCE) {
+            throw new BadRequestAlertException("Invalid distance", ENTITY_NAME, "maxdistanceinvalid");
+        }
+        Optional<List<NearDuplicateDTO>> nearDuplicates = photoNearDuplicateIndex.findNearDuplicates(id, maxDistance, MAX_NEAR_DUPLICATES);
+        if (nearDuplicates.isEmpty() && !photoRepository.existsById(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        // a photo whose image has no perceptual hash yet has no near-duplicates
+        return ResponseEntity.ok(nearDuplicates.orElse(List.of()));
+    }
+
+    /**
+     * {@code GET  /photos/:id/similar} : get the photos whose image looks the most like the image of the "id" photo,
+     * with similar colours laid out in a similar way.
+     * <p>
+     * The photos are found by the {@link PhotoSimilarityIndex}, from the feature vectors of their images, which are
+     * computed in the background once the photos are processed.
+     *
+     * @param id the id of the photo.
+     * @param limit the maximum number of photos to return.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of photos, the closest first, in
+     * body, or with status {@code 404 (Not Found)}, or with status {@code 400 (Bad Request)} if the limit is not valid.
+     */
+    @GetMapping("/photos/{id}/similar")
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public ResponseEntity<List<SimilarPhotoDTO>> getSimilarPhotos(@PathVariable Long id, @RequestParam(defaultValue = "20") int limit) {
+        log.debug("REST request to get the Photos similar to Photo : {}", id);
+        if (limit < 1 || limit > MAX_SIMILAR_PHOTOS) {
+            throw new BadRequestAlertException("Invalid limit", ENTITY_NAME, "limitinvalid");
+        }
+        Optional<List<SimilarPhotoDTO>> similarPhotos = photoSimilarityIndex.findSimilar(id, limit);
+        if (similarPhotos.isEmpty() && !photoRepository.existsById(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        // a photo whose image has no feature vector yet has no similar photos
+        return ResponseEntity.ok(similarPhotos.orElse(List.of()));
+    }
+
+    /**
+     * {@code GET  /photos/search} : get the photos having some tags, the most recently created first.
+     * <p>
+     * Tags are given by name, ignoring case, and photos are filtered by the {@link PhotoTagIndex} rather than by the
+     * database.
+     *
+     * @param tags the names of the tags that photos must all have.
+     * @param anyTags the names of the tags that photos must have at least one of.
+     * @param notTags the names of the tags that photos must not have.
+     * @param pageable the pagination information, whose sort is ignored.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of photos, with their tags, in body.
+     */
+    @GetMapping("/photos/search")
+    public ResponseEntity<List<Photo>> searchPhotosByTags(
+        @RequestParam(required = false, defaultValue = "") List<String> tags,
+        @RequestParam(required = false, defaultValue = "") List<String> anyTags,
+        @RequestParam(required = false, defaultValue = "") List<String> notTags,
+        Pageable pageable
+    ) {
+        log.debug("REST request to search Photos by tags : {}, any of {}, none of {}", tags, anyTags, notTags);
+        Set<String> allTagNames = toLowerTagNames(tags);
+        List<Long> allTagIds = findTagIds(allTagNames);
+        Set<String> anyTagNames = toLowerTagNames(anyTags);
+        List<Long> anyTagIds = findTagIds(anyTagNames);
+        Page<Photo> page;
+        if (allTagIds.size() < allTagNames.size() || (!anyTagNames.isEmpty() && anyTagIds.isEmpty())) {
+            // tags which do not exist are on no photo
+            page = Page.empty(pageable);
+        } else {
+            List<Long> notTagIds = findTagIds(toLowerTagNames(notTags));
+            Page<Long> ids = photoTagIndex.find(allTagIds, anyTagIds, notTagIds, pageable);
+            List<Photo> photos = photoRepository.findAllWithEagerRelationshipsInOrder(ids.getContent());
+            page = new PageImpl<>(photos, pageable, ids.getTotalElements());
+        }
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
+    private static Set<String> toLowerTagNames(List<String> names) {
+        return names
+            .stream()
+            .map(String::trim)
+            .filter(name -> !name.isEmpty())
+            .map(name -> name.toLowerCase(Locale.ROOT))
+            .collect(Collectors.toSet());
+    }
+
+    private List<Long> findTagIds(Set<String> lowerNames) {
+        return lowerNames.isEmpty() ? List.of() : tagRepository.findAllIdsByLowerNameIn(lowerNames);
+    }
+
+    /**
+     * {@code GET  /_search/photos?q=:query} : search the photos by words of their title, description, tags or album,
+     * the best matches first.
+     * <p>
+     * Each word matches the words equal to it, starting with it, or differing from it by a typo. Photos are found by
+     * the full-text index, without holding a database connection, then the photos of the page are fetched by their ids
+     * with a single query. Photos changed by a recent transaction may not be found yet, as the index is updated in
+     * the background.
+     *
+     * @param query the words to search.
+     * @param pageable the pagination information, whose sort is ignored.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of photos, with their tags, in body.
+     */
+    @GetMapping("/_search/photos")
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public ResponseEntity<List<Photo>> searchPhotos(@RequestParam("q") String query, Pageable pageable) {
+        log.debug("REST request to search Photos for query : {}", query);
+        Page<Long> ids = photoSearchService.search(query, pageable);
+        List<Photo> photos = photoRepository.findAllWithEagerRelationshipsInOrder(ids.getContent());
+        Page<Photo> page = new PageImpl<>(photos, pageable, ids.getTotalElements());
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
+    /**
+     * {@code POST  /_search/photos/_reindex} : rebuild the full-text index of the photos from the database, in the
+     * background.
+     *
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)}, or with status {@code 409 (Conflict)} if
+     * the index is already being rebuilt.
+     */
+    @PostMapping("/_search/photos/_reindex")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResponseEntity<Void> reindexPhotos() {
+        log.debug("REST request to rebuild the Photo search index");
+        HttpStatus status = photoSearchQueue.reindexAsync() ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT;
+        return ResponseEntity.status(status).build();
+    }
+
     /**
      * {@code GET  /photos/:id} : get the "id" photo.
      *
@@ -247,10 +689,131 @@ public class PhotoResource {
     @GetMapping("/photos/{id}")
     public ResponseEntity<Photo> getPhoto(@PathVariable Long id) {
         log.debug("REST request to get Photo : {}", id);
-        Optional<Photo> photo = photoRepository.findOneWithEagerRelationships(id);
+        Optional<Photo> photo = photoRepository.findOneWithEagerRelationships(id).map(photoService::loadImage);
         return ResponseUtil.wrapOrNotFound(photo);
     }
 
+    /**
+     * {@code GET  /photos/:id/image} : get the image of the "id" photo as raw bytes.
+     * <p>
+     * The content hash of the image is used as a strong ETag, and range and conditional requests are supported.
+     * When the {@code v} parameter matches the content hash of the original image, the response is cacheable
+     * forever: a new image for this photo would have a different hash, and so a different URL.
+     * <p>
+     * When a {@code size} is requested, the smallest JPEG thumbnail whose largest side covers it is returned
+     * instead of the original image, if the photo has one.
+     * <p>
+     * When a width {@code w} or a height {@code h} is requested, a JPEG variant with these dimensions is rendered,
+     * or taken from the variant cache. The {@code DPR}, {@code Width} and {@code Save-Data} client hints are
+     * honoured: dimensions are multiplied by the device pixel ratio, the {@code Width} hint is used when no
+     * dimension is requested, and variants are compressed more when the client asks to save data. The {@code DPR}
+     * and {@code Width} hints which are not positive numbers are ignored.
+     * <p>
+     * Variants are rendered outside of any transaction, so that a render does not hold a database connection.
+     *
+     * @param id the id of the photo whose image to retrieve.
+     * @param version the content hash of the original image, if known by the client.
+     * @param size the size of the largest side of the image to display, in pixels.
+     * @param width the width of the variant to render, in CSS pixels.
+     * @param height the height of the variant to render, in CSS pixels.
+     * @param fit how the image is fitted into the variant dimensions: {@code contain} (default), {@code cover} or {@code fill}.
+     * @param dpr the {@code DPR} client hint.
+     * @param widthHint the {@code Width} client hint, in physical pixels.
+     * @param saveData the {@code Save-Data} client hint.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the image,
+     * or with status {@code 206 (Partial Content)} and with body the requested ranges of the image,
+     * or with status {@code 304 (Not Modified)},
+     * or with status {@code 400 (Bad Request)} if the variant parameters are not valid,
+     * or with status {@code 404 (Not Found)}.
+     * @throws IOException if the variant could not be rendered.
+     */
+    @GetMapping("/photos/{id}/image")
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public ResponseEntity<Resource> getPhotoImage(
+        @PathVariable Long id,
+        @RequestParam(name = "v", required = false) String version,
+        @RequestParam(required = false) Integer size,
+        @RequestParam(name = "w", required = false) Integer width,
+        @RequestParam(name = "h", required = false) Integer height,
+        @RequestParam(required = false) String fit,
+        @RequestHeader(name = "DPR", required = false) Double dpr,
+        @RequestHeader(name = "Width", required = false) Integer widthHint,
+        @RequestHeader(name = "Save-Data", required = false) String saveData
+    ) throws IOException {
+        log.debug("REST request to get the image of Photo : {}, size {}, w {}, h {}, fit {}", id, size, width, height, fit);
+        Photo photo = photoRepository.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        PhotoContent content = photoService
+            .findContentWithThumbnails(id)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        String cacheControl = content.getImageKey().equals(version)
+            ? CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().getHeaderValue() + ", immutable"
+            : CacheControl.noCache().cachePrivate().getHeaderValue();
+        ResponseEntity.BodyBuilder response = ResponseEntity
+            .ok()
+            .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+            .varyBy("DPR", "Width", "Save-Data");
+        if (photo.getUploaded() != null) {
+            response.lastModified(photo.getUploaded());
+        }
+
+        Integer physicalWidthHint = widthHint != null && widthHint > 0 ? widthHint : null;
+        Double pixelRatioHint = dpr != null && Double.isFinite(dpr) && dpr > 0 ? dpr : null;
+        if (width != null || height != null || (physicalWidthHint != null && size == null)) {
+            Optional<ImageVariantService.Variant> variant = getVariant(
+                content,
+                width,
+                height,
+                fit,
+                pixelRatioHint,
+                physicalWidthHint,
+                saveData
+            );
+            if (variant.isPresent()) {
+                return response
+                    .contentType(MediaType.IMAGE_JPEG)
+                    .eTag(variant.get().getName())
+                    .body(new FileSystemResource(variant.get().getFile()));
+            }
+        }
+
+        Optional<PhotoThumbnail> thumbnail = size != null ? content.getThumbnail(size) : Optional.empty();
+        String imageKey = thumbnail.map(PhotoThumbnail::getImageKey).orElse(content.getImageKey());
+        long imageSize = thumbnail.map(PhotoThumbnail::getImageSize).orElse(content.getImageSize());
+        String contentType = thumbnail.isPresent() ? ImageRenderer.JPEG_CONTENT_TYPE : photo.getImageContentType();
+        return response
+            .contentType(MediaType.parseMediaType(contentType))
+            .eTag(imageKey)
+            .body(photoService.getImageResource(imageKey, imageSize));
+    }
+
+    private Optional<ImageVariantService.Variant> getVariant(
+        PhotoContent content,
+        Integer width,
+        Integer height,
+        String fit,
+        Double dpr,
+        Integer widthHint,
+        String saveData
+    ) throws IOException {
+        if ((width != null && width < 1) || (height != null && height < 1)) {
+            throw new BadRequestAlertException("Invalid image dimensions", ENTITY_NAME, "imagedimensionsinvalid");
+        }
+        ImageVariantService.Fit imageFit;
+        try {
+            imageFit = fit != null ? ImageVariantService.Fit.valueOf(fit.toUpperCase(Locale.ROOT)) : ImageVariantService.Fit.CONTAIN;
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid image fit", ENTITY_NAME, "imagefitinvalid");
+        }
+        double pixelRatio = dpr != null ? Math.min(Math.max(dpr, 1), 4) : 1;
+        Integer physicalWidth = width != null ? Integer.valueOf((int) Math.ceil(width * pixelRatio)) : null;
+        Integer physicalHeight = height != null ? Integer.valueOf((int) Math.ceil(height * pixelRatio)) : null;
+        if (physicalWidth == null && physicalHeight == null) {
+            physicalWidth = widthHint;
+        }
+        float quality = "on".equalsIgnoreCase(saveData) ? ImageVariantService.SAVE_DATA_QUALITY : ImageVariantService.DEFAULT_QUALITY;
+        return imageVariantService.getVariant(content.getImageKey(), physicalWidth, physicalHeight, imageFit, quality);
+    }
+
     /**
      * {@code DELETE  /photos/:id} : delete the "id" photo.
      *
@@ -260,7 +823,7 @@ public class PhotoResource {
     @DeleteMapping("/photos/{id}")
     public ResponseEntity<Void> deletePhoto(@PathVariable Long id) {
         log.debug("REST request to delete Photo : {}", id);
-        photoRepository.deleteById(id);
+        photoService.delete(id);
         return ResponseEntity
             .noContent()
             .headers(HeaderUtil.createEntityDeletionAlert(applicationName, true, ENTITY_NAME, id.toString()))
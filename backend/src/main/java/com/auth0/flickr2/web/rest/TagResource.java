@@ -2,7 +2,11 @@ package com.auth0.flickr2.web.rest;
 
 import com.auth0.flickr2.domain.Tag;
 import com.auth0.flickr2.repository.TagRepository;
+import com.auth0.flickr2.service.TagChangedEvent;
+import com.auth0.flickr2.service.TagDeletedEvent;
+import com.auth0.flickr2.service.TagSuggestIndex;
 import com.auth0.flickr2.web.rest.errors.BadRequestAlertException;
+import com.auth0.flickr2.web.rest.util.CursorPaginationUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
@@ -13,11 +17,15 @@ import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
@@ -42,15 +50,21 @@ public class TagResource {
 
     private final TagRepository tagRepository;
 
-    public TagResource(TagRepository tagRepository) {
+    private final TagSuggestIndex tagSuggestIndex;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public TagResource(TagRepository tagRepository, TagSuggestIndex tagSuggestIndex, ApplicationEventPublisher eventPublisher) {
         this.tagRepository = tagRepository;
+        this.tagSuggestIndex = tagSuggestIndex;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
      * {@code POST  /tags} : Create a new tag.
      *
      * @param tag the tag to create.
-     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new tag, or with status {@code 400 (Bad Request)} if the tag has already an ID.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new tag, or with status {@code 400 (Bad Request)} if the tag has already an ID, or if its name is already used.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("/tags")
@@ -59,7 +73,9 @@ public class TagResource {
         if (tag.getId() != null) {
             throw new BadRequestAlertException("A new tag cannot already have an ID", ENTITY_NAME, "idexists");
         }
+        checkNameIsUnique(tag);
         Tag result = tagRepository.save(tag);
+        eventPublisher.publishEvent(new TagChangedEvent(result.getId(), result.getName()));
         return ResponseEntity
             .created(new URI("/api/tags/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, result.getId().toString()))
@@ -90,8 +106,10 @@ public class TagResource {
         if (!tagRepository.existsById(id)) {
             throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
         }
+        checkNameIsUnique(tag);
 
         Tag result = tagRepository.save(tag);
+        eventPublisher.publishEvent(new TagChangedEvent(result.getId(), result.getName()));
         return ResponseEntity
             .ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, tag.getId().toString()))
@@ -123,6 +141,9 @@ public class TagResource {
         if (!tagRepository.existsById(id)) {
             throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
         }
+        if (tag.getName() != null) {
+            checkNameIsUnique(tag);
+        }
 
         Optional<Tag> result = tagRepository
             .findById(tag.getId())
@@ -134,6 +155,7 @@ public class TagResource {
                 return existingTag;
             })
             .map(tagRepository::save);
+        result.ifPresent(updatedTag -> eventPublisher.publishEvent(new TagChangedEvent(updatedTag.getId(), updatedTag.getName())));
 
         return ResponseUtil.wrapOrNotFound(
             result,
@@ -141,20 +163,92 @@ public class TagResource {
         );
     }
 
+    /**
+     * Check that no other tag has the name of a tag, ignoring case.
+     *
+     * @param tag the tag to check.
+     * @throws BadRequestAlertException {@code 400 (Bad Request)} if another tag has the same name.
+     */
+    private void checkNameIsUnique(Tag tag) {
+        Optional<Tag> existingTag = tagRepository.findOneByNameIgnoreCase(tag.getName());
+        if (existingTag.isPresent() && !existingTag.get().getId().equals(tag.getId())) {
+            throw new BadRequestAlertException("Tag name already used", ENTITY_NAME, "nameexists");
+        }
+    }
+
     /**
      * {@code GET  /tags} : get all the tags.
+     * <p>
+     * When a {@code cursor} is given, which is empty for the first slice, tags are sorted by name and returned by
+     * slices of the requested page size, and the cursor of the next slice is returned in the {@code X-Next-Cursor}
+     * header: deep slices cost as much as the first one, and no count query is run.
      *
      * @param pageable the pagination information.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of tags in body.
+     * @param cursor the cursor of the slice to get.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of tags in body,
+     * or with status {@code 400 (Bad Request)} if the cursor is not valid.
      */
     @GetMapping("/tags")
-    public ResponseEntity<List<Tag>> getAllTags(Pageable pageable) {
+    public ResponseEntity<List<Tag>> getAllTags(Pageable pageable, @RequestParam(required = false) String cursor) {
+        if (cursor != null) {
+            return getTagSlice(pageable, cursor);
+        }
         log.debug("REST request to get a page of Tags");
         Page<Tag> page = tagRepository.findAll(pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    private ResponseEntity<List<Tag>> getTagSlice(Pageable pageable, String cursor) {
+        log.debug("REST request to get a slice of Tags after : {}", cursor);
+        Pageable slicePageable = PageRequest.of(0, pageable.getPageSize());
+        Slice<Tag> slice;
+        if (cursor.isEmpty()) {
+            slice = tagRepository.findFirstSliceByName(slicePageable);
+        } else {
+            try {
+                List<String> key = CursorPaginationUtil.decodeCursor(cursor, 2);
+                slice = tagRepository.findSliceByNameAfter(key.get(0), Long.valueOf(key.get(1)), slicePageable);
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "cursorinvalid");
+            }
+        }
+        String nextCursor = null;
+        if (slice.hasNext()) {
+            Tag last = slice.getContent().get(slice.getNumberOfElements() - 1);
+            nextCursor = CursorPaginationUtil.encodeCursor(last.getName(), last.getId());
+        }
+        HttpHeaders headers = CursorPaginationUtil.generateCursorPaginationHttpHeaders(
+            ServletUriComponentsBuilder.fromCurrentRequest(),
+            nextCursor
+        );
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
+    /**
+     * {@code GET  /tags/_suggest} : suggest the tags whose name starts with a prefix, ignoring case.
+     * <p>
+     * Suggestions are served from the {@link TagSuggestIndex}, without querying the database, and ranked by the
+     * number of photos of the tags.
+     *
+     * @param prefix the prefix of the tag names, which must not be empty.
+     * @param size the maximum number of suggested tags, at most {@value TagSuggestIndex#MAX_SUGGESTIONS}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of suggested tags in body,
+     * or with status {@code 400 (Bad Request)} if the prefix is empty.
+     */
+    @GetMapping("/tags/_suggest")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResponseEntity<List<Tag>> suggestTags(
+        @RequestParam String prefix,
+        @RequestParam(defaultValue = "10") int size
+    ) {
+        log.debug("REST request to suggest Tags starting with : {}", prefix);
+        if (prefix.isEmpty()) {
+            throw new BadRequestAlertException("Empty prefix", ENTITY_NAME, "prefixempty");
+        }
+        return ResponseEntity.ok(tagSuggestIndex.suggest(prefix, Math.max(1, Math.min(size, TagSuggestIndex.MAX_SUGGESTIONS))));
+    }
+
     /**
      * {@code GET  /tags/:id} : get the "id" tag.
      *
@@ -178,6 +272,7 @@ public class TagResource {
     public ResponseEntity<Void> deleteTag(@PathVariable Long id) {
         log.debug("REST request to delete Tag : {}", id);
         tagRepository.deleteById(id);
+        eventPublisher.publishEvent(new TagDeletedEvent(id));
         return ResponseEntity
             .noContent()
             .headers(HeaderUtil.createEntityDeletionAlert(applicationName, true, ENTITY_NAME, id.toString()))
@@ -0,0 +1,79 @@
+package com.auth0.flickr2.web.rest.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Utility class for handling cursor (keyset) pagination.
+ * <p>
+ * A cursor is an opaque token holding the sort key of the last element of a slice: the next slice starts right after
+ * it, whatever the number of elements before it, and without counting them. The cursor of the next slice is returned
+ * in the {@value #NEXT_CURSOR_HEADER} header, and in the {@code next} link of the {@code Link} header.
+ */
+public final class CursorPaginationUtil {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    public static final String CURSOR_PARAMETER = "cursor";
+
+    private static final String SEPARATOR = ".";
+
+    private CursorPaginationUtil() {}
+
+    /**
+     * Encode the values of a sort key as a cursor.
+     *
+     * @param values the values of the sort key, which may be {@code null}.
+     * @return the cursor.
+     */
+    public static String encodeCursor(Object... values) {
+        List<String> segments = new ArrayList<>(values.length);
+        for (Object value : values) {
+            String segment = value != null ? value.toString() : "";
+            segments.add(Base64.getUrlEncoder().withoutPadding().encodeToString(segment.getBytes(StandardCharsets.UTF_8)));
+        }
+        return String.join(SEPARATOR, segments);
+    }
+
+    /**
+     * Decode the values of a sort key from a cursor.
+     *
+     * @param cursor the cursor.
+     * @param size the number of values of the sort key.
+     * @return the values of the sort key, empty values being decoded as {@code null}.
+     * @throws IllegalArgumentException if the cursor is not valid.
+     */
+    public static List<String> decodeCursor(String cursor, int size) {
+        String[] segments = cursor.split("\\" + SEPARATOR, -1);
+        if (segments.length != size) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        List<String> values = new ArrayList<>(size);
+        for (String segment : segments) {
+            String value = new String(Base64.getUrlDecoder().decode(segment), StandardCharsets.UTF_8);
+            values.add(value.isEmpty() ? null : value);
+        }
+        return values;
+    }
+
+    /**
+     * Generate pagination headers for a slice of a cursor paginated list.
+     *
+     * @param uriBuilder the URI builder of the current request.
+     * @param nextCursor the cursor of the next slice, or {@code null} if this slice is the last one.
+     * @return the {@link HttpHeaders}.
+     */
+    public static HttpHeaders generateCursorPaginationHttpHeaders(UriComponentsBuilder uriBuilder, String nextCursor) {
+        HttpHeaders headers = new HttpHeaders();
+        if (nextCursor != null) {
+            headers.add(NEXT_CURSOR_HEADER, nextCursor);
+            String nextUri = uriBuilder.replaceQueryParam(CURSOR_PARAMETER, nextCursor).toUriString().replace(",", "%2C").replace(";", "%3B");
+            headers.add(HttpHeaders.LINK, "<" + nextUri + ">; rel=\"next\"");
+        }
+        return headers;
+    }
+}
@@ -2,7 +2,7 @@ import React, { useState, useEffect, useCallback } from 'react';
 import InfiniteScroll from 'react-infinite-scroll-component';
 import { Link, RouteComponentProps } from 'react-router-dom';
 import { Button, Table } from 'reactstrap';
-import { openFile, byteSize, Translate, TextFormat, getSortState } from 'react-jhipster';
+import { Translate, TextFormat, getSortState } from 'react-jhipster';
 import { FontAwesomeIcon } from '@fortawesome/react-fontawesome';
 
 import { getEntities, reset } from './photo.reducer';
@@ -107,7 +107,8 @@ export const Photo = (props: RouteComponentProps<{ url: string }>) => {
 
   const { match } = props;
   const photoSet = photoList.map(photo => ({
-    src: `data:${photo.imageContentType};base64,${photo.image}`,
+    src: `api/photos/${photo.id}/image?size=480`,
+    full: `api/photos/${photo.id}/image?size=1080`,
     width: photo.height > photo.width ? 3 : photo.height === photo.width ? 1 : 4,
     height: photo.height > photo.width ? 4 : photo.height === photo.width ? 1 : 3,
     title: photo.title,
@@ -137,7 +138,7 @@ export const Photo = (props: RouteComponentProps<{ url: string }>) => {
               currentIndex={currentImage}
               views={photoSet.map(x => ({
                 ...x,
-                source: x.src,
+                source: x.full,
                 caption: x.title,
               }))}
             />
@@ -164,8 +165,8 @@ export const Photo = (props: RouteComponentProps<{ url: string }>) => {
                   <th className="hand" onClick={sort('description')}>
                     <Translate contentKey="flickr2App.photo.description">Description</Translate> <FontAwesomeIcon icon="sort" />
                   </th>
-                  <th className="hand" onClick={sort('image')}>
-                    <Translate contentKey="flickr2App.photo.image">Image</Translate> <FontAwesomeIcon icon="sort" />
+                  <th>
+                    <Translate contentKey="flickr2App.photo.image">Image</Translate>
                   </th>
                   <th className="hand" onClick={sort('height')}>
                     <Translate contentKey="flickr2App.photo.height">Height</Translate> <FontAwesomeIcon icon="sort" />
@@ -196,19 +197,13 @@ export const Photo = (props: RouteComponentProps<{ url: string }>) => {
                     <td>{photo.title}</td>
                     <td>{photo.description}</td>
                     <td>
-                      {photo.image ? (
-                        <div>
-                          {photo.imageContentType ? (
-                            <a onClick={openFile(photo.imageContentType, photo.image)}>
-                              <img src={`data:${photo.imageContentType};base64,${photo.image}`} style={{ maxHeight: '30px' }} />
-                              &nbsp;
-                            </a>
-                          ) : null}
-                          <span>
-                            {photo.imageContentType}, {byteSize(photo.image)}
-                          </span>
-                        </div>
-                      ) : null}
+                      <div>
+                        <a href={`api/photos/${photo.id}/image`} target="_blank" rel="noopener noreferrer">
+                          <img src={`api/photos/${photo.id}/image?size=160`} style={{ maxHeight: '30px' }} />
+                          &nbsp;
+                        </a>
+                        <span>{photo.imageContentType}</span>
+                      </div>
                     </td>
                     <td>{photo.height}</td>
                     <td>{photo.width}</td>
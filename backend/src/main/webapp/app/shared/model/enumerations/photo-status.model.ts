@@ -0,0 +1,7 @@
+export enum PhotoStatus {
+  PENDING = 'PENDING',
+
+  READY = 'READY',
+
+  FAILED = 'FAILED',
+}
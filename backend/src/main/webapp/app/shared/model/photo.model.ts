@@ -1,6 +1,7 @@
 import dayjs from 'dayjs';
 import { IAlbum } from 'app/shared/model/album.model';
 import { ITag } from 'app/shared/model/tag.model';
+import { PhotoStatus } from 'app/shared/model/enumerations/photo-status.model';
 
 export interface IPhoto {
   id?: number;
@@ -12,6 +13,11 @@ export interface IPhoto {
   width?: number | null;
   taken?: string | null;
   uploaded?: string | null;
+  latitude?: number | null;
+  longitude?: number | null;
+  blurhash?: string | null;
+  dominantColor?: string | null;
+  status?: PhotoStatus;
   album?: IAlbum | null;
   tags?: ITag[] | null;
 }
@@ -0,0 +1,116 @@
+package com.auth0.flickr2.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.stream.Stream;
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import org.ehcache.config.ResourcePools;
+import org.ehcache.config.ResourceType;
+import org.ehcache.config.SizedResourcePool;
+import org.ehcache.config.units.EntryUnit;
+import org.ehcache.config.units.MemoryUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
+import org.springframework.util.unit.DataSize;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Unit tests for {@link CacheConfiguration}.
+ */
+class CacheConfigurationTest {
+
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        JHipsterProperties jHipsterProperties = new JHipsterProperties();
+        jHipsterProperties.getCache().getEhcache().setMaxEntries(50);
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        ApplicationProperties.Cache.Region photos = new ApplicationProperties.Cache.Region();
+        photos.setHeap(DataSize.ofMegabytes(1));
+        photos.setOffHeap(DataSize.ofMegabytes(2));
+        applicationProperties.getCache().getRegions().put(com.auth0.flickr2.domain.Photo.class.getName(), photos);
+        ApplicationProperties.Cache.Region authorities = new ApplicationProperties.Cache.Region();
+        authorities.setHeapEntries(10L);
+        authorities.setTimeToLive(Duration.ofDays(1));
+        applicationProperties.getCache().getRegions().put(com.auth0.flickr2.domain.Authority.class.getName(), authorities);
+
+        CacheConfiguration cacheConfiguration = new CacheConfiguration(jHipsterProperties, applicationProperties);
+        JCacheManagerCustomizer cacheManagerCustomizer = cacheConfiguration.cacheManagerCustomizer();
+        @SuppressWarnings("unchecked")
+        ObjectProvider<JCacheManagerCustomizer> cacheManagerCustomizers = mock(ObjectProvider.class);
+        when(cacheManagerCustomizers.orderedStream()).thenReturn(Stream.of(cacheManagerCustomizer));
+        cacheManager = cacheConfiguration.jCacheCacheManager(cacheManagerCustomizers);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cacheManager.close();
+    }
+
+    @Test
+    void shouldSizeConfiguredRegionsInBytes() {
+        ResourcePools resourcePools = getResourcePools(com.auth0.flickr2.domain.Photo.class.getName());
+
+        SizedResourcePool heap = resourcePools.getPoolForResource(ResourceType.Core.HEAP);
+        assertThat(heap.getSize()).isEqualTo(1024L * 1024L);
+        assertThat(heap.getUnit()).isEqualTo(MemoryUnit.B);
+        SizedResourcePool offHeap = resourcePools.getPoolForResource(ResourceType.Core.OFFHEAP);
+        assertThat(offHeap.getSize()).isEqualTo(2L * 1024L * 1024L);
+        assertThat(resourcePools.getResourceTypeSet()).doesNotContain(ResourceType.Core.DISK);
+
+        // entries are serialized in the off-heap tier
+        Cache<Object, Object> cache = cacheManager.getCache(com.auth0.flickr2.domain.Photo.class.getName());
+        cache.put("key", new com.auth0.flickr2.domain.Photo().id(1L).title("title"));
+        assertThat(cache.get("key")).hasFieldOrPropertyWithValue("title", "title");
+    }
+
+    @Test
+    void shouldCountEntriesOfOtherRegions() {
+        SizedResourcePool authorities = getResourcePools(com.auth0.flickr2.domain.Authority.class.getName())
+            .getPoolForResource(ResourceType.Core.HEAP);
+        assertThat(authorities.getSize()).isEqualTo(10L);
+        assertThat(authorities.getUnit()).isEqualTo(EntryUnit.ENTRIES);
+
+        ResourcePools tags = getResourcePools(com.auth0.flickr2.domain.Tag.class.getName());
+        assertThat(tags.getPoolForResource(ResourceType.Core.HEAP).getSize()).isEqualTo(50L);
+        assertThat(tags.getResourceTypeSet()).containsExactly(ResourceType.Core.HEAP);
+    }
+
+    @Test
+    void shouldBindRegionMetrics() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        Cache<Object, Object> cache = cacheManager.getCache(com.auth0.flickr2.domain.Tag.class.getName());
+        JCacheMetrics.monitor(registry, cache, "cacheManager", "cacheManager");
+        new CacheLatencyMetrics(cacheManager, Tags.of("cacheManager", "cacheManager")).bindTo(registry);
+
+        cache.put("key", "value");
+        cache.get("key");
+        cache.get("other");
+
+        assertThat(registry.get("cache.gets").tag("cache", cache.getName()).tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("cache.gets").tag("cache", cache.getName()).tag("result", "miss").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("cache.puts").tag("cache", cache.getName()).functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("cache.gets.latency").tag("cache", cache.getName()).gauge().value()).isNotNaN().isNotNegative();
+        assertThat(registry.get("cache.puts.latency").tag("cache", cache.getName()).gauge().value()).isNotNaN().isNotNegative();
+    }
+
+    @SuppressWarnings("unchecked")
+    private ResourcePools getResourcePools(String cacheName) {
+        return cacheManager
+            .getCache(cacheName)
+            .unwrap(org.ehcache.Cache.class)
+            .getRuntimeConfiguration()
+            .getResourcePools();
+    }
+}
@@ -0,0 +1,276 @@
+package com.auth0.flickr2.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.configuration.MutableConfiguration;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.spi.CacheImplementor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link CacheInvalidationBus}, with two members in the same JVM.
+ */
+class CacheInvalidationBusTest {
+
+    private static final String REGION = "region";
+
+    private static final String OTHER_REGION = "other-region";
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private static final byte[] SECRET = "secret".getBytes(StandardCharsets.UTF_8);
+
+    private EhcacheCachingProvider cachingProvider;
+
+    private CacheManager managerA;
+
+    private CacheManager managerB;
+
+    private Cache<Object, Object> cacheA;
+
+    private Cache<Object, Object> cacheB;
+
+    private Cache<Object, Object> otherCacheB;
+
+    private int portA;
+
+    private int portB;
+
+    private CacheInvalidationBus busA;
+
+    private CacheInvalidationBus busB;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        cachingProvider = new EhcacheCachingProvider();
+        managerA = cachingProvider.getCacheManager(URI.create("urn:member-a"), new DefaultConfiguration(getClass().getClassLoader()));
+        managerB = cachingProvider.getCacheManager(URI.create("urn:member-b"), new DefaultConfiguration(getClass().getClassLoader()));
+        cacheA = managerA.createCache(REGION, new MutableConfiguration<>());
+        cacheB = managerB.createCache(REGION, new MutableConfiguration<>());
+        otherCacheB = managerB.createCache(OTHER_REGION, new MutableConfiguration<>());
+        portA = freePort();
+        portB = freePort();
+        busA = bus(managerA, portA, portB);
+    }
+
+    @AfterEach
+    void tearDown() {
+        busA.close();
+        if (busB != null) {
+            busB.close();
+        }
+        cachingProvider.close();
+    }
+
+    @Test
+    void invalidateShouldRemoveEntryFromOtherMembers() throws Exception {
+        busA.start();
+        startB();
+        cacheA.put("key", "new");
+        cacheB.put("key", "old");
+        cacheB.put("other", "old");
+
+        busA.invalidate(REGION, "key");
+
+        awaitRemoved(cacheB, "key");
+        assertThat(cacheB.get("other")).isEqualTo("old");
+        assertThat(cacheA.get("key")).isEqualTo("new");
+    }
+
+    @Test
+    void clearShouldClearRegionOfOtherMembers() throws Exception {
+        busA.start();
+        startB();
+        cacheB.put("key", "old");
+        cacheB.put("other", "old");
+
+        busA.clear(REGION);
+
+        awaitRemoved(cacheB, "key");
+        assertThat(cacheB.containsKey("other")).isFalse();
+    }
+
+    @Test
+    void evictShouldRemoveEntitiesAndCollectionsFromOtherMembers() throws Exception {
+        busA.start();
+        startB();
+        SessionFactoryImplementor sessionFactory = mock(SessionFactoryImplementor.class);
+        CacheImplementor secondLevelCache = mock(CacheImplementor.class);
+        when(sessionFactory.getCache()).thenReturn(secondLevelCache);
+        busB.setSessionFactory(sessionFactory);
+
+        busA.evictEntity("com.auth0.flickr2.domain.Tag", 1L);
+        busA.evictCollection("com.auth0.flickr2.domain.Photo.tags", 2L);
+
+        verify(secondLevelCache, timeout(TIMEOUT.toMillis())).evictEntityData("com.auth0.flickr2.domain.Tag", 1L);
+        verify(secondLevelCache, timeout(TIMEOUT.toMillis())).evictCollectionData("com.auth0.flickr2.domain.Photo.tags", 2L);
+    }
+
+    @Test
+    void keysOfOtherClassesShouldClearRegion() throws Exception {
+        busA.start();
+        startB();
+        cacheB.put("key", "old");
+        otherCacheB.put("key", "old");
+
+        busA.invalidate(REGION, URI.create("urn:key"));
+
+        awaitRemoved(cacheB, "key");
+        assertThat(otherCacheB.get("key")).isEqualTo("old");
+    }
+
+    @Test
+    void unauthenticatedMessagesShouldBeRejected() throws Exception {
+        startB();
+        cacheB.put("key", "old");
+
+        try (Socket socket = new Socket("localhost", portB)) {
+            socket.setSoTimeout((int) TIMEOUT.toMillis());
+            assertThat(socket.getInputStream().readNBytes(16)).hasSize(16);
+            DataOutputStream output = new DataOutputStream(socket.getOutputStream());
+            // a clear of all the regions, with a wrong code
+            output.writeInt(4);
+            output.write(new byte[] { 1, 0, 0, 0 });
+            output.write(new byte[32]);
+            output.flush();
+
+            assertThat(socket.getInputStream().read()).as("connection closed").isEqualTo(-1);
+        }
+        assertThat(cacheB.get("key")).isEqualTo("old");
+    }
+
+    @Test
+    void messagesWithAnotherSecretShouldBeRejected() throws Exception {
+        busA = bus(managerA, portA, portB, "other".getBytes(StandardCharsets.UTF_8));
+        busA.start();
+        startB();
+        cacheB.put("key", "old");
+
+        busA.clear(REGION);
+        busA.clear(REGION);
+
+        Thread.sleep(500);
+        assertThat(cacheB.get("key")).isEqualTo("old");
+    }
+
+    @Test
+    void stalledMemberShouldNotBlockSenders() throws Exception {
+        try (ServerSocket stalledMember = new ServerSocket(portB, 1, InetAddress.getLoopbackAddress())) {
+            stalledMember.setSoTimeout((int) TIMEOUT.toMillis());
+            busA.start();
+            char[] value = new char[30000];
+            long start = System.nanoTime();
+            for (int i = 0; i < 2000; i++) {
+                busA.invalidate(REGION, new String(value) + i);
+            }
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(TIMEOUT);
+
+            try (Socket connection = stalledMember.accept()) {
+                // the challenge is sent, then the invalidations are never read
+                connection.getOutputStream().write(new byte[16]);
+
+                // the member is disconnected once the write timeout is over
+                connection.setSoTimeout((int) TIMEOUT.toMillis());
+                InputStream input = connection.getInputStream();
+                byte[] buffer = new byte[65536];
+                long deadline = System.currentTimeMillis() + TIMEOUT.toMillis();
+                int read = 0;
+                while (read >= 0 && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(100);
+                    read = input.read(buffer);
+                }
+                assertThat(read).as("connection closed").isEqualTo(-1);
+            }
+        }
+    }
+
+    @Test
+    void unreachableMemberShouldBeClearedWhenReachedAgain() throws Exception {
+        busA.start();
+        busA.invalidate(REGION, "key");
+        // the invalidation is dropped before the member starts
+        Thread.sleep(200);
+
+        startB();
+        cacheB.put("key", "old");
+        cacheB.put("other", "old");
+        cacheB.put("stale", "old");
+        busA.invalidate(REGION, "other");
+
+        // the invalidations of a member are received in order
+        awaitRemoved(cacheB, "other");
+        assertThat(cacheB.containsKey("key")).isFalse();
+        assertThat(cacheB.containsKey("stale")).isFalse();
+    }
+
+    @Test
+    void cacheManagerShouldSendEvictions() throws Exception {
+        busA.start();
+        startB();
+        ClusterCacheManager cacheManager = new ClusterCacheManager(managerA, Map.of(), Runnable::run, busA);
+        cacheManager.afterPropertiesSet();
+        org.springframework.cache.Cache cache = cacheManager.getCache(REGION);
+        cacheB.put("key", "old");
+        cacheB.put("other", "old");
+
+        cache.put("other", "loaded");
+        cache.evict("key");
+
+        awaitRemoved(cacheB, "key");
+        assertThat(cacheB.get("other")).isEqualTo("old");
+    }
+
+    private void startB() throws IOException {
+        busB = bus(managerB, portB, portA);
+        busB.start();
+    }
+
+    private static CacheInvalidationBus bus(CacheManager cacheManager, int port, int memberPort) {
+        return bus(cacheManager, port, memberPort, SECRET);
+    }
+
+    private static CacheInvalidationBus bus(CacheManager cacheManager, int port, int memberPort, byte[] secret) {
+        return new CacheInvalidationBus(
+            cacheManager,
+            new InetSocketAddress("localhost", port),
+            List.of(new InetSocketAddress("localhost", memberPort)),
+            secret,
+            Duration.ofMillis(200),
+            Duration.ofMillis(500),
+            Duration.ZERO
+        );
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void awaitRemoved(Cache<Object, Object> cache, Object key) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT.toMillis();
+        while (cache.containsKey(key) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(cache.containsKey(key)).as("%s removed from %s", key, cache.getName()).isFalse();
+    }
+}
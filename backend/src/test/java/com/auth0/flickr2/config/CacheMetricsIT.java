@@ -0,0 +1,74 @@
+package com.auth0.flickr2.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.auth0.flickr2.IntegrationTest;
+import com.auth0.flickr2.repository.UserRepository;
+import com.auth0.flickr2.security.AuthoritiesConstants;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Integration tests for the metrics of the cache regions and the footprint of the {@code caches} management endpoint.
+ */
+@AutoConfigureMockMvc
+@WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+@IntegrationTest
+@TestPropertySource(
+    properties = { "management.endpoints.web.base-path=/management", "management.endpoints.web.exposure.include=caches" }
+)
+class CacheMetricsIT {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private MockMvc restMockMvc;
+
+    @Test
+    void regionsShouldHaveMetrics() {
+        Cache cache = cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE);
+        cache.clear();
+        double hits = meterRegistry.get("cache.gets").tag("cache", cache.getName()).tag("result", "hit").functionCounter().count();
+        cache.put("metrics", "value");
+        cache.get("metrics");
+
+        assertThat(meterRegistry.get("cache.gets").tag("cache", cache.getName()).tag("result", "hit").functionCounter().count())
+            .isEqualTo(hits + 1);
+        assertThat(meterRegistry.get("cache.evictions").tag("cache", cache.getName()).functionCounter()).isNotNull();
+        assertThat(meterRegistry.get("cache.gets.latency").tag("cache", cache.getName()).gauge().value()).isNotNaN();
+    }
+
+    @Test
+    void getCachesShouldReturnFootprint() throws Exception {
+        Cache cache = cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE);
+        cache.clear();
+        cache.put("footprint", "value");
+
+        restMockMvc
+            .perform(get("/management/caches"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.cacheManagers.cacheManager.caches.usersByLogin.target").exists())
+            .andExpect(jsonPath("$.cacheManagers.cacheManager.caches.usersByLogin.entries").value(1))
+            .andExpect(jsonPath("$.cacheManagers.cacheManager.caches.usersByLogin.estimatedBytes").value(greaterThan(0)))
+            .andExpect(jsonPath("$.cacheManagers.cacheManager.caches.usersByLogin.topKeys[0].key").value("footprint"));
+        restMockMvc
+            .perform(get("/management/caches/" + UserRepository.USERS_BY_LOGIN_CACHE))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.name").value(UserRepository.USERS_BY_LOGIN_CACHE));
+        restMockMvc.perform(get("/management/caches/unknown")).andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,69 @@
+package com.auth0.flickr2.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+import com.auth0.flickr2.repository.UserRepository;
+import java.util.Map;
+import java.util.stream.Stream;
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.cache.CachesEndpoint;
+import org.springframework.boot.actuate.cache.CachesEndpoint.CacheDescriptor;
+import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
+import org.springframework.cache.jcache.JCacheCacheManager;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Unit tests for {@link CachesEndpointFootprintExtension}.
+ */
+class CachesEndpointFootprintExtensionTest {
+
+    private CacheManager cacheManager;
+
+    private CachesEndpointFootprintExtension cachesEndpointFootprintExtension;
+
+    @BeforeEach
+    void setUp() {
+        CacheConfiguration cacheConfiguration = new CacheConfiguration(new JHipsterProperties(), new ApplicationProperties());
+        @SuppressWarnings("unchecked")
+        ObjectProvider<JCacheManagerCustomizer> cacheManagerCustomizers = mock(ObjectProvider.class);
+        when(cacheManagerCustomizers.orderedStream()).thenReturn(Stream.of(cacheConfiguration.cacheManagerCustomizer()));
+        cacheManager = cacheConfiguration.jCacheCacheManager(cacheManagerCustomizers);
+        JCacheCacheManager springCacheManager = new JCacheCacheManager(cacheManager);
+        springCacheManager.afterPropertiesSet();
+        Map<String, org.springframework.cache.CacheManager> cacheManagers = Map.of("cacheManager", springCacheManager);
+        cachesEndpointFootprintExtension = new CachesEndpointFootprintExtension(new CachesEndpoint(cacheManagers), cacheManagers);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cacheManager.close();
+    }
+
+    @Test
+    void cachesShouldDescribeFootprintOfRegions() {
+        Cache<Object, Object> cache = cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE);
+        cache.put("small", "a");
+        cache.put("large", "a".repeat(10_000));
+
+        Map<String, CacheDescriptor> caches = cachesEndpointFootprintExtension.caches().getCacheManagers().get("cacheManager").getCaches();
+
+        assertThat(caches).containsKey(UserRepository.USERS_BY_EMAIL_CACHE);
+        CachesEndpointFootprintExtension.CacheFootprint footprint = (CachesEndpointFootprintExtension.CacheFootprint) caches.get(
+            UserRepository.USERS_BY_LOGIN_CACHE
+        );
+        assertThat(footprint.getEntries()).isEqualTo(2);
+        assertThat(footprint.getEstimatedBytes()).isGreaterThan(10_000L);
+        assertThat(footprint.getTopKeys()).extracting(CachesEndpointFootprintExtension.KeyFootprint::getKey).containsExactly("large", "small");
+        CachesEndpointFootprintExtension.CacheFootprint empty = (CachesEndpointFootprintExtension.CacheFootprint) caches.get(
+            UserRepository.USERS_BY_EMAIL_CACHE
+        );
+        assertThat(empty.getEntries()).isZero();
+        assertThat(empty.getEstimatedBytes()).isNull();
+    }
+}
@@ -0,0 +1,129 @@
+package com.auth0.flickr2.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+import com.auth0.flickr2.IntegrationTest;
+import com.auth0.flickr2.domain.Tag;
+import com.auth0.flickr2.repository.TagRepository;
+import com.auth0.flickr2.repository.UserRepository;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.configuration.MutableConfiguration;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.spi.CacheImplementor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Integration tests for the {@code cluster} profile, with the application and another member of the cluster in the
+ * same JVM.
+ */
+@IntegrationTest
+@ActiveProfiles(Constants.SPRING_PROFILE_CLUSTER)
+@TestPropertySource(
+    properties = {
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=true", "application.cache.cluster.secret=" + ClusterCacheIT.SECRET,
+    }
+)
+class ClusterCacheIT {
+
+    static final String SECRET = "cluster-secret";
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private static EhcacheCachingProvider cachingProvider;
+
+    private static CacheManager memberCacheManager;
+
+    private static CacheImplementor memberSecondLevelCache;
+
+    private static CacheInvalidationBus member;
+
+    @Autowired
+    private org.springframework.cache.CacheManager cacheManager;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @BeforeAll
+    static void startMember() throws IOException {
+        cachingProvider = new EhcacheCachingProvider();
+        memberCacheManager =
+            cachingProvider.getCacheManager(URI.create("urn:member"), new DefaultConfiguration(ClusterCacheIT.class.getClassLoader()));
+        memberCacheManager.createCache(UserRepository.USERS_BY_LOGIN_CACHE, new MutableConfiguration<>());
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        member =
+            new CacheInvalidationBus(
+                memberCacheManager,
+                new InetSocketAddress("localhost", port),
+                List.of(),
+                SECRET.getBytes(StandardCharsets.UTF_8),
+                TIMEOUT,
+                TIMEOUT,
+                TIMEOUT
+            );
+        SessionFactoryImplementor sessionFactory = mock(SessionFactoryImplementor.class);
+        memberSecondLevelCache = mock(CacheImplementor.class);
+        when(sessionFactory.getCache()).thenReturn(memberSecondLevelCache);
+        member.setSessionFactory(sessionFactory);
+        member.start();
+    }
+
+    @AfterAll
+    static void stopMember() {
+        member.close();
+        cachingProvider.close();
+    }
+
+    @DynamicPropertySource
+    static void clusterProperties(DynamicPropertyRegistry registry) {
+        registry.add("application.cache.cluster.port", () -> 0);
+        registry.add("application.cache.cluster.members", () -> "localhost:" + member.getPort());
+    }
+
+    @Test
+    void cacheManagerShouldSendEvictions() throws Exception {
+        assertThat(cacheManager).isInstanceOf(ClusterCacheManager.class);
+        Cache<Object, Object> memberUsers = memberCacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE);
+        memberUsers.put("cluster", "stale");
+
+        cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).evict("cluster");
+
+        long deadline = System.currentTimeMillis() + TIMEOUT.toMillis();
+        while (memberUsers.containsKey("cluster") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(memberUsers.containsKey("cluster")).isFalse();
+    }
+
+    @Test
+    void committedUpdatesShouldBeSentToOtherMembers() {
+        Tag tag = tagRepository.saveAndFlush(new Tag().name("cluster"));
+        try {
+            tagRepository.saveAndFlush(tag.name("cluster-updated"));
+
+            verify(memberSecondLevelCache, timeout(TIMEOUT.toMillis())).evictEntityData(Tag.class.getName(), tag.getId());
+        } finally {
+            tagRepository.delete(tag);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.auth0.flickr2.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.auth0.flickr2.IntegrationTest;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests checking that the queries of the listings are planned with the indexes of the Liquibase changelog.
+ * <p>
+ * The test tables are nearly empty: on PostgreSQL, sequential scans are disabled for the transaction so that the
+ * planner picks an index whenever one is usable. H2 backs each foreign key with its own index, which it picks over an
+ * index with the same leading column unless the query also bounds the next column, as the listings of the next slices
+ * do.
+ */
+@IntegrationTest
+@Transactional
+class DatabaseIndexesIT {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private boolean postgresql;
+
+    @BeforeEach
+    public void init() {
+        String databaseProductName = jdbcTemplate.execute(
+            (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()
+        );
+        postgresql = "PostgreSQL".equalsIgnoreCase(databaseProductName);
+        if (postgresql) {
+            jdbcTemplate.execute("set local enable_seqscan = off");
+        }
+    }
+
+    @Test
+    void photosOfAlbumByTakenUseIndex() {
+        assertThat(plan("select id from photo where album_id = 1 and taken < timestamp '2021-10-12 00:00:00' order by taken desc"))
+            .contains("ix_photo__album_id_taken");
+    }
+
+    @Test
+    void photosByTakenUseIndex() {
+        assertThat(plan("select id from photo where taken < timestamp '2021-10-12 00:00:00' order by taken desc, id desc"))
+            .contains("ix_photo__taken_id");
+    }
+
+    @Test
+    void photosByUploadedUseIndex() {
+        assertThat(plan("select id from photo where uploaded > timestamp '2021-10-12 00:00:00'")).contains("ix_photo__uploaded");
+    }
+
+    @Test
+    void albumsOfUserUseIndex() {
+        assertThat(plan("select id from album where user_id = 'user' and created < timestamp '2021-10-12 00:00:00' order by created desc"))
+            .contains("ix_album__user_id_created");
+    }
+
+    @Test
+    void photosOfTagUseIndex() {
+        assertThat(plan("select photo_id from rel_photo__tag where tag_id = 1")).contains("ix_rel_photo__tag__tag_id_photo_id");
+    }
+
+    @Test
+    void tagsByNameUseIndex() {
+        assertThat(plan("select id from tag where name > 'a' or (name = 'a' and id > 1) order by name, id")).contains("ix_tag__name_id");
+    }
+
+    @Test
+    void tagByNameIgnoringCaseUsesIndex() {
+        if (postgresql) {
+            assertThat(plan("select id from tag where lower(name) = lower('a')")).contains("ux_tag__name_lower");
+        } else {
+            assertThat(plan("select id from tag where name_lower = 'a'")).contains("ux_tag__name_lower");
+        }
+    }
+
+    @Test
+    void tagNamesAreUniqueIgnoringCase() {
+        jdbcTemplate.update("insert into tag (id, name) values (-1, 'Sea')");
+        assertThatThrownBy(() -> jdbcTemplate.update("insert into tag (id, name) values (-2, 'SEA')"))
+            .isInstanceOf(DuplicateKeyException.class);
+    }
+
+    private String plan(String query) {
+        List<String> plan = jdbcTemplate.queryForList("explain " + query, String.class);
+        return String.join("\n", plan).toLowerCase();
+    }
+}
@@ -0,0 +1,165 @@
+package com.auth0.flickr2.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+/**
+ * Unit tests for {@link RefreshAheadCache}.
+ */
+class RefreshAheadCacheTest {
+
+    private static final Duration REFRESH_AFTER = Duration.ofMinutes(55);
+
+    private final MutableClock clock = new MutableClock();
+
+    private final List<Runnable> backgroundLoads = new ArrayList<>();
+
+    private ExecutorService readers;
+
+    private RefreshAheadCache cache;
+
+    @BeforeEach
+    void setUp() {
+        readers = Executors.newFixedThreadPool(8);
+        cache = new RefreshAheadCache(new ConcurrentMapCache("users"), REFRESH_AFTER, backgroundLoads::add, clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        readers.shutdownNow();
+    }
+
+    @Test
+    void concurrentMissesShouldLoadOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(
+                readers.submit(() ->
+                    cache.get(
+                        "login",
+                        () -> {
+                            loads.incrementAndGet();
+                            loading.countDown();
+                            release.await(5, TimeUnit.SECONDS);
+                            return "user";
+                        }
+                    )
+                )
+            );
+        }
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        // let the other reads wait for the load in progress
+        Thread.sleep(100);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("user");
+        }
+        assertThat(loads).hasValue(1);
+        assertThat(cache.get("login", String.class)).isEqualTo("user");
+    }
+
+    @Test
+    void failedLoadShouldNotBeCached() {
+        assertThatThrownBy(() ->
+                cache.get(
+                    "login",
+                    () -> {
+                        throw new IllegalStateException("database down");
+                    }
+                )
+            )
+            .isInstanceOf(Cache.ValueRetrievalException.class)
+            .hasCauseInstanceOf(IllegalStateException.class);
+
+        assertThat(cache.get("login")).isNull();
+        assertThat(cache.get("login", () -> "user")).isEqualTo("user");
+    }
+
+    @Test
+    void entriesShouldBeLoadedAgainBeforeTheyExpire() {
+        AtomicInteger loads = new AtomicInteger();
+        assertThat(cache.get("login", () -> "user-" + loads.incrementAndGet())).isEqualTo("user-1");
+
+        clock.advance(REFRESH_AFTER.minusSeconds(1));
+        assertThat(cache.get("login", () -> "user-" + loads.incrementAndGet())).isEqualTo("user-1");
+        assertThat(backgroundLoads).isEmpty();
+
+        clock.advance(Duration.ofSeconds(1));
+        assertThat(cache.get("login", () -> "user-" + loads.incrementAndGet())).isEqualTo("user-1");
+        assertThat(cache.get("login", () -> "user-" + loads.incrementAndGet())).isEqualTo("user-1");
+        assertThat(backgroundLoads).hasSize(1);
+
+        backgroundLoads.get(0).run();
+        assertThat(loads).hasValue(2);
+        assertThat(cache.get("login", () -> "user-" + loads.incrementAndGet())).isEqualTo("user-2");
+    }
+
+    @Test
+    void entriesEvictedWhileLoadedShouldNotBeCached() {
+        cache.get("login", () -> "old");
+        clock.advance(REFRESH_AFTER);
+        cache.get("login", () -> "new");
+
+        cache.evict("login");
+        backgroundLoads.get(0).run();
+
+        assertThat(cache.get("login")).isNull();
+    }
+
+    @Test
+    void putEntriesShouldBeRead() {
+        cache.put("login", null);
+        assertThat(cache.get("login")).isNotNull();
+        assertThat(cache.get("login").get()).isNull();
+        assertThat(cache.putIfAbsent("login", "user").get()).isNull();
+        assertThat(cache.putIfAbsent("other", "user")).isNull();
+        assertThat(cache.get("other", String.class)).isEqualTo("user");
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant = Instant.parse("2026-10-17T00:00:00Z");
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
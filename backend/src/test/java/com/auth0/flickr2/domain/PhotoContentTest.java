@@ -0,0 +1,23 @@
+package com.auth0.flickr2.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.auth0.flickr2.web.rest.TestUtil;
+import org.junit.jupiter.api.Test;
+
+class PhotoContentTest {
+
+    @Test
+    void equalsVerifier() throws Exception {
+        TestUtil.equalsVerifier(PhotoContent.class);
+        PhotoContent photoContent1 = new PhotoContent();
+        photoContent1.setId(1L);
+        PhotoContent photoContent2 = new PhotoContent();
+        photoContent2.setId(photoContent1.getId());
+        assertThat(photoContent1).isEqualTo(photoContent2);
+        photoContent2.setId(2L);
+        assertThat(photoContent1).isNotEqualTo(photoContent2);
+        photoContent1.setId(null);
+        assertThat(photoContent1).isNotEqualTo(photoContent2);
+    }
+}
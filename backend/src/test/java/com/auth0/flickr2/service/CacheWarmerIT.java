@@ -0,0 +1,127 @@
+package com.auth0.flickr2.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.auth0.flickr2.IntegrationTest;
+import com.auth0.flickr2.config.ApplicationProperties;
+import com.auth0.flickr2.domain.Authority;
+import com.auth0.flickr2.domain.Tag;
+import com.auth0.flickr2.domain.User;
+import com.auth0.flickr2.repository.UserRepository;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.cache.internal.DefaultCacheKeysFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Integration tests for {@link CacheWarmer}.
+ */
+@IntegrationTest
+@TestPropertySource(properties = { "application.cache.warm-start.regions=usersByLogin,com.auth0.flickr2.domain.Tag" })
+class CacheWarmerIT {
+
+    private static final String LOGIN = "warmstart";
+
+    @Autowired
+    private CacheWarmer cacheWarmer;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    private User user;
+
+    @BeforeEach
+    public void init() {
+        user = new User();
+        user.setId(UUID.randomUUID().toString());
+        user.setLogin(LOGIN);
+        user.setEmail(LOGIN + "@localhost");
+        user.setActivated(true);
+        user = userRepository.saveAndFlush(user);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        userRepository.delete(user);
+        cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).clear();
+        cacheManager.getCache(Tag.class.getName()).clear();
+    }
+
+    @Test
+    void restoreShouldLoadSavedKeysAgain() {
+        Cache<Object, Object> usersByLogin = cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE);
+        usersByLogin.clear();
+        userRepository.findOneWithAuthoritiesByLogin(LOGIN);
+        assertThat(usersByLogin.containsKey(LOGIN)).isTrue();
+
+        cacheWarmer.snapshot();
+        usersByLogin.clear();
+
+        assertThat(cacheWarmer.restore(UserRepository.USERS_BY_LOGIN_CACHE)).isEqualTo(1);
+        assertThat(usersByLogin.containsKey(LOGIN)).isTrue();
+    }
+
+    @Test
+    void restoreShouldSkipDeletedEntities() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        Cache<Object, Object> tags = cacheManager.getCache(Tag.class.getName());
+        tags.clear();
+        tags.put(
+            DefaultCacheKeysFactory.staticCreateEntityKey(
+                Long.MAX_VALUE,
+                sessionFactory.getMetamodel().entityPersister(Tag.class),
+                sessionFactory,
+                null
+            ),
+            "deleted"
+        );
+
+        cacheWarmer.snapshot();
+
+        assertThat(cacheWarmer.restore(Tag.class.getName())).isEqualTo(1);
+    }
+
+    @Test
+    void restoreShouldRejectKeysOfOtherTypes() throws Exception {
+        Path snapshot = Paths.get(applicationProperties.getCache().getWarmStart().getSnapshotRoot(), Tag.class.getName() + ".keys");
+        Files.createDirectories(snapshot.getParent());
+        try (ObjectOutputStream output = new ObjectOutputStream(Files.newOutputStream(snapshot))) {
+            output.writeObject(new ArrayList<>(List.of(new Date())));
+        }
+
+        assertThat(cacheWarmer.restore(Tag.class.getName())).isZero();
+    }
+
+    @Test
+    void restoreWithoutSnapshotShouldLoadNothing() {
+        assertThat(cacheWarmer.restore("unknown")).isZero();
+    }
+
+    @Test
+    void preloadShouldLoadAllEntities() {
+        assertThat(cacheWarmer.preload(Authority.class.getName())).isGreaterThanOrEqualTo(2);
+    }
+}
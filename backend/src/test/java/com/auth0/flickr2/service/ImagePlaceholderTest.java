@@ -0,0 +1,66 @@
+package com.auth0.flickr2.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link ImagePlaceholder}.
+ */
+class ImagePlaceholderTest {
+
+    @Test
+    void blurhashShouldEncodeUniformImage() {
+        // 4 by 3 components, no AC component, and a black DC component
+        assertThat(ImagePlaceholder.blurhash(image(64, 48, Color.BLACK, Color.BLACK))).isEqualTo("L00000fQfQfQfQfQfQfQfQfQfQfQ");
+        // a white DC component
+        assertThat(ImagePlaceholder.blurhash(image(64, 48, Color.WHITE, Color.WHITE)).substring(2, 6)).isEqualTo("TSUA");
+    }
+
+    @Test
+    void blurhashShouldEncodeLayout() {
+        String blurhash = ImagePlaceholder.blurhash(image(64, 48, Color.BLACK, Color.WHITE));
+        String mirrored = ImagePlaceholder.blurhash(image(64, 48, Color.WHITE, Color.BLACK));
+
+        assertThat(blurhash).hasSize(28).startsWith("L");
+        assertThat(mirrored).hasSize(28);
+        // same mean colour, opposite horizontal component
+        assertThat(mirrored.substring(0, 6)).isEqualTo(blurhash.substring(0, 6));
+        assertThat(mirrored).isNotEqualTo(blurhash);
+    }
+
+    @Test
+    void dominantColorShouldReturnMostPopulatedColour() {
+        BufferedImage image = image(64, 48, new Color(0x20, 0x40, 0xc0), Color.RED);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setColor(Color.GREEN);
+            graphics.fillRect(48, 0, 16, 48);
+        } finally {
+            graphics.dispose();
+        }
+
+        assertThat(ImagePlaceholder.dominantColor(image)).isEqualTo("#2040c0");
+        assertThat(ImagePlaceholder.dominantColor(image(64, 48, Color.WHITE, Color.WHITE))).isEqualTo("#ffffff");
+    }
+
+    /**
+     * An image whose left half is of a colour, and whose right half is of another colour.
+     */
+    private static BufferedImage image(int width, int height, Color left, Color right) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setColor(left);
+            graphics.fillRect(0, 0, width / 2, height);
+            graphics.setColor(right);
+            graphics.fillRect(width / 2, 0, width - width / 2, height);
+        } finally {
+            graphics.dispose();
+        }
+        return image;
+    }
+}
@@ -0,0 +1,84 @@
+package com.auth0.flickr2.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.auth0.flickr2.repository.PhotoRepository;
+import com.auth0.flickr2.service.dto.MapClusterDTO;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link PhotoGeoIndex}.
+ */
+class PhotoGeoIndexTest {
+
+    private PhotoRepository photoRepository;
+
+    private PhotoGeoIndex photoGeoIndex;
+
+    @BeforeEach
+    public void init() {
+        photoRepository = mock(PhotoRepository.class);
+        photoGeoIndex = new PhotoGeoIndex(photoRepository);
+        // Paris
+        photoGeoIndex.onPhotoLocationChanged(new PhotoLocationChangedEvent(1L, 48.8584, 2.2945));
+        photoGeoIndex.onPhotoLocationChanged(new PhotoLocationChangedEvent(2L, 48.8606, 2.3376));
+        // Lisbon
+        photoGeoIndex.onPhotoLocationChanged(new PhotoLocationChangedEvent(3L, 38.6916, -9.2160));
+        // Tokyo
+        photoGeoIndex.onPhotoLocationChanged(new PhotoLocationChangedEvent(4L, 35.6586, 139.7454));
+        // Fiji, east of the antimeridian
+        photoGeoIndex.onPhotoLocationChanged(new PhotoLocationChangedEvent(5L, -17.7134, -178.0650));
+        photoGeoIndex.onPhotoLocationChanged(new PhotoLocationChangedEvent(6L, null, null));
+    }
+
+    @Test
+    void clusterShouldGroupNearbyPhotosAtLowZoom() {
+        List<MapClusterDTO> clusters = photoGeoIndex.cluster(-90, -180, 90, 180, 0);
+
+        assertThat(clusters).extracting(MapClusterDTO::getCount).containsExactly(2L, 1L, 1L, 1L);
+        MapClusterDTO paris = clusters.get(0);
+        assertThat(paris.getPhotoId()).isEqualTo(1L);
+        assertThat(paris.getLatitude()).isCloseTo(48.8595, within(0.001));
+        assertThat(paris.getLongitude()).isCloseTo(2.316, within(0.001));
+        assertThat(photoGeoIndex.getPhotoCount()).isEqualTo(5);
+    }
+
+    @Test
+    void clusterShouldSplitPhotosAtHighZoom() {
+        assertThat(photoGeoIndex.cluster(48, 2, 49, 3, 2)).extracting(MapClusterDTO::getCount).containsExactly(2L);
+        assertThat(photoGeoIndex.cluster(48, 2, 49, 3, 16)).extracting(MapClusterDTO::getPhotoId).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    void clusterShouldOnlyReturnPhotosOfView() {
+        assertThat(photoGeoIndex.cluster(30, -10, 50, 10, 3)).extracting(MapClusterDTO::getPhotoId).containsExactlyInAnyOrder(1L, 3L);
+        // a view crossing the antimeridian
+        assertThat(photoGeoIndex.cluster(-30, 130, 40, -170, 3)).extracting(MapClusterDTO::getPhotoId).containsExactlyInAnyOrder(4L, 5L);
+    }
+
+    @Test
+    void clusterShouldFollowUpdates() {
+        photoGeoIndex.onPhotoLocationChanged(new PhotoLocationChangedEvent(1L, 38.7139, -9.1394));
+        photoGeoIndex.onPhotoLocationChanged(new PhotoLocationChangedEvent(4L, null, null));
+        photoGeoIndex.onPhotoDeleted(new PhotoDeletedEvent(2L));
+
+        assertThat(photoGeoIndex.cluster(30, -10, 50, 10, 0)).extracting(MapClusterDTO::getCount).containsExactly(2L);
+        assertThat(photoGeoIndex.getPhotoCount()).isEqualTo(3);
+    }
+
+    @Test
+    void rebuildShouldReplaceIndexWithDatabaseContent() {
+        when(photoRepository.streamAllIdsWithLocation()).thenReturn(Stream.<Object[]>of(new Object[] { 7L, 40.4168, -3.7038 }));
+
+        photoGeoIndex.rebuild();
+
+        assertThat(photoGeoIndex.cluster(-90, -180, 90, 180, 0)).extracting(MapClusterDTO::getPhotoId).containsExactly(7L);
+        assertThat(photoGeoIndex.getPhotoCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,170 @@
+package com.auth0.flickr2.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import com.auth0.flickr2.domain.Photo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link PhotoMetadataService}.
+ */
+class PhotoMetadataServiceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private PhotoMetadataService photoMetadataService;
+
+    @BeforeEach
+    public void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        photoMetadataService = new PhotoMetadataService(meterRegistry);
+    }
+
+    @Test
+    void setMetadataShouldOnlyReadJpegHeaders() throws Exception {
+        byte[] jpeg = createNoiseJpeg(1200, 800);
+        CountingInputStream in = new CountingInputStream(new ByteArrayInputStream(jpeg));
+
+        Photo photo = new Photo();
+        assertThat(photoMetadataService.setMetadata(photo, in)).isTrue();
+
+        assertThat(photo.getWidth()).isEqualTo(1200);
+        assertThat(photo.getHeight()).isEqualTo(800);
+        assertThat(photo.getTaken()).isNotNull();
+        assertThat(photo.getUploaded()).isNotNull();
+        assertThat(in.count).isLessThan(jpeg.length / 10);
+        assertThat(meterRegistry.get(PhotoMetadataService.TIMER_NAME).tags("type", "jpeg", "outcome", "success").timer().count())
+            .isEqualTo(1);
+    }
+
+    @Test
+    void setMetadataShouldLeaveUnknownFormatsUnchanged() throws Exception {
+        Photo photo = new Photo();
+        assertThat(photoMetadataService.setMetadata(photo, new ByteArrayInputStream(new byte[] { 1, 2, 3 }))).isFalse();
+
+        assertThat(photo.getTaken()).isNull();
+        assertThat(photo.getUploaded()).isNull();
+        assertThat(photo.getWidth()).isNull();
+        assertThat(meterRegistry.get(PhotoMetadataService.TIMER_NAME).tags("outcome", "unsupported").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void setMetadataShouldReadGpsLocation() throws Exception {
+        // 48° 51' 29.5" N, 2° 17' 40.2" W
+        long[] latitude = { 48, 1, 51, 1, 2950, 100 };
+        long[] longitude = { 2, 1, 17, 1, 402, 10 };
+        byte[] jpeg = withGpsExif(createNoiseJpeg(64, 48), latitude, 'W', longitude);
+
+        Photo photo = new Photo();
+        photoMetadataService.setMetadata(photo, new ByteArrayInputStream(jpeg));
+
+        assertThat(photo.getLatitude()).isCloseTo(48.858194, within(0.000001));
+        assertThat(photo.getLongitude()).isCloseTo(-2.294500, within(0.000001));
+        assertThat(photo.getWidth()).isEqualTo(64);
+    }
+
+    @Test
+    void setMetadataShouldIgnoreMissingGpsLocation() throws Exception {
+        Photo photo = new Photo();
+        photoMetadataService.setMetadata(photo, new ByteArrayInputStream(createNoiseJpeg(64, 48)));
+
+        assertThat(photo.getLatitude()).isNull();
+        assertThat(photo.getLongitude()).isNull();
+    }
+
+    /**
+     * Insert an EXIF segment holding a GPS location, in degrees, minutes and seconds of the northern hemisphere, after
+     * the start of a JPEG image.
+     */
+    private static byte[] withGpsExif(byte[] jpeg, long[] latitude, char longitudeRef, long[] longitude) {
+        ByteBuffer tiff = ByteBuffer.allocate(128);
+        // big endian TIFF header, then IFD0 with a single pointer to the GPS IFD
+        tiff.put(new byte[] { 'M', 'M', 0, 42 }).putInt(8);
+        tiff.putShort((short) 1).putShort((short) 0x8825).putShort((short) 4).putInt(1).putInt(26).putInt(0);
+        // GPS IFD: latitude reference and value, longitude reference and value
+        tiff.putShort((short) 4);
+        tiff.putShort((short) 1).putShort((short) 2).putInt(2).put(new byte[] { 'N', 0, 0, 0 });
+        tiff.putShort((short) 2).putShort((short) 5).putInt(3).putInt(80);
+        tiff.putShort((short) 3).putShort((short) 2).putInt(2).put(new byte[] { (byte) longitudeRef, 0, 0, 0 });
+        tiff.putShort((short) 4).putShort((short) 5).putInt(3).putInt(104);
+        tiff.putInt(0);
+        for (long value : latitude) {
+            tiff.putInt((int) value);
+        }
+        for (long value : longitude) {
+            tiff.putInt((int) value);
+        }
+        byte[] exif = "Exif\0\0".getBytes(StandardCharsets.US_ASCII);
+        int length = 2 + exif.length + tiff.capacity();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(jpeg, 0, 2);
+        out.write(0xFF);
+        out.write(0xE1);
+        out.write(length >> 8);
+        out.write(length & 0xFF);
+        out.write(exif, 0, exif.length);
+        out.write(tiff.array(), 0, tiff.capacity());
+        out.write(jpeg, 2, jpeg.length - 2);
+        return out.toByteArray();
+    }
+
+    private static byte[] createNoiseJpeg(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", out);
+        return out.toByteArray();
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
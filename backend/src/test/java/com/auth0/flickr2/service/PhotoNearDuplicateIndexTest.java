@@ -0,0 +1,128 @@
+package com.auth0.flickr2.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.auth0.flickr2.repository.PhotoContentRepository;
+import com.auth0.flickr2.service.dto.NearDuplicateDTO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link PhotoNearDuplicateIndex}.
+ */
+class PhotoNearDuplicateIndexTest {
+
+    private PhotoContentRepository photoContentRepository;
+
+    private PhotoNearDuplicateIndex photoNearDuplicateIndex;
+
+    @BeforeEach
+    public void init() {
+        photoContentRepository = mock(PhotoContentRepository.class);
+        photoNearDuplicateIndex = new PhotoNearDuplicateIndex(photoContentRepository);
+        photoNearDuplicateIndex.onPhotoHashChanged(new PhotoHashChangedEvent(1L, 0b0000L));
+        photoNearDuplicateIndex.onPhotoHashChanged(new PhotoHashChangedEvent(2L, 0b0001L));
+        photoNearDuplicateIndex.onPhotoHashChanged(new PhotoHashChangedEvent(3L, 0b0111L));
+        photoNearDuplicateIndex.onPhotoHashChanged(new PhotoHashChangedEvent(4L, 0b0000L));
+        photoNearDuplicateIndex.onPhotoHashChanged(new PhotoHashChangedEvent(5L, -1L));
+        photoNearDuplicateIndex.onPhotoHashChanged(new PhotoHashChangedEvent(6L, 0b1001L));
+    }
+
+    @Test
+    void findNearDuplicatesShouldReturnPhotosWithinDistance() {
+        assertThat(toStrings(photoNearDuplicateIndex.findNearDuplicates(1L, 0, 10).get())).containsExactly("4=0");
+        assertThat(toStrings(photoNearDuplicateIndex.findNearDuplicates(1L, 2, 10).get())).containsExactly("4=0", "2=1", "6=2");
+        assertThat(toStrings(photoNearDuplicateIndex.findNearDuplicates(2L, 3, 10).get())).containsExactly("1=1", "4=1", "6=1", "3=2");
+        assertThat(toStrings(photoNearDuplicateIndex.findNearDuplicates(5L, 61, 10).get())).containsExactly("3=61");
+        assertThat(photoNearDuplicateIndex.findNearDuplicates(5L, 60, 10).get()).isEmpty();
+    }
+
+    @Test
+    void findNearDuplicatesShouldMatchBruteForce() {
+        photoNearDuplicateIndex = new PhotoNearDuplicateIndex(photoContentRepository);
+        long[] hashes = new Random(42).longs(2000).toArray();
+        for (int i = 0; i < hashes.length; i++) {
+            // flip a few bits of the previous hash, as for a burst of shots
+            long hash = i % 4 == 0 ? hashes[i] : hashes[i - 1] ^ (1L << (hashes[i] & 63)) ^ (1L << ((hashes[i] >>> 6) & 63));
+            hashes[i] = hash;
+            photoNearDuplicateIndex.onPhotoHashChanged(new PhotoHashChangedEvent((long) i, hash));
+        }
+        for (int i = 0; i < hashes.length; i += 97) {
+            long hash = hashes[i];
+            long expected = 0;
+            for (int j = 0; j < hashes.length; j++) {
+                if (j != i && PerceptualHash.distance(hash, hashes[j]) <= 6) {
+                    expected++;
+                }
+            }
+            assertThat(photoNearDuplicateIndex.findNearDuplicates((long) i, 6, hashes.length).get()).hasSize((int) expected);
+        }
+    }
+
+    @Test
+    void findNearDuplicatesShouldLimitResults() {
+        assertThat(toStrings(photoNearDuplicateIndex.findNearDuplicates(1L, 2, 2).get())).containsExactly("4=0", "2=1");
+    }
+
+    @Test
+    void findNearDuplicatesShouldFollowUpdates() {
+        photoNearDuplicateIndex.onPhotoHashChanged(new PhotoHashChangedEvent(4L, -1L));
+        photoNearDuplicateIndex.onPhotoHashChanged(new PhotoHashChangedEvent(6L, null));
+        photoNearDuplicateIndex.onPhotoDeleted(new PhotoDeletedEvent(2L));
+
+        assertThat(toStrings(photoNearDuplicateIndex.findNearDuplicates(1L, 3, 10).get())).containsExactly("3=3");
+        assertThat(toStrings(photoNearDuplicateIndex.findNearDuplicates(5L, 0, 10).get())).containsExactly("4=0");
+        assertThat(photoNearDuplicateIndex.findNearDuplicates(6L, 64, 10)).isEmpty();
+        assertThat(photoNearDuplicateIndex.getPhotoCount()).isEqualTo(4);
+    }
+
+    @Test
+    void rebuildShouldReplaceIndexWithDatabaseContent() {
+        when(photoContentRepository.streamAllIdsWithPerceptualHash())
+            .thenReturn(Stream.of(new Object[] { 7L, 0b0000L }, new Object[] { 8L, 0b0011L }));
+
+        photoNearDuplicateIndex.rebuild();
+
+        assertThat(toStrings(photoNearDuplicateIndex.findNearDuplicates(7L, 2, 10).get())).containsExactly("8=2");
+        assertThat(photoNearDuplicateIndex.findNearDuplicates(1L, 2, 10)).isEmpty();
+        assertThat(photoNearDuplicateIndex.getPhotoCount()).isEqualTo(2);
+    }
+
+    @Test
+    void perceptualHashShouldMatchResizedImages() {
+        BufferedImage image = gradient(640, 480, Color.BLACK, Color.WHITE);
+        long hash = PerceptualHash.of(image);
+
+        assertThat(PerceptualHash.distance(hash, PerceptualHash.of(ImageRenderer.scale(image, 64, 48)))).isLessThanOrEqualTo(4);
+        assertThat(PerceptualHash.distance(hash, PerceptualHash.of(gradient(640, 480, Color.WHITE, Color.BLACK)))).isGreaterThan(16);
+    }
+
+    private static BufferedImage gradient(int width, int height, Color from, Color to) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setPaint(new GradientPaint(0, 0, from, width, height / 3f, to, true));
+            graphics.fillRect(0, 0, width, height);
+        } finally {
+            graphics.dispose();
+        }
+        return image;
+    }
+
+    private static List<String> toStrings(List<NearDuplicateDTO> nearDuplicates) {
+        return nearDuplicates
+            .stream()
+            .map(nearDuplicate -> nearDuplicate.getPhotoId() + "=" + nearDuplicate.getDistance())
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,106 @@
+package com.auth0.flickr2.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.auth0.flickr2.config.ApplicationProperties;
+import com.auth0.flickr2.domain.enumeration.PhotoStatus;
+import com.auth0.flickr2.repository.PhotoRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Unit tests for {@link PhotoProcessingQueue}.
+ */
+class PhotoProcessingQueueTest {
+
+    private final TreeSet<Long> photoIdsToProcess = new TreeSet<>();
+
+    private final List<Runnable> workers = new ArrayList<>();
+
+    private PhotoProcessingService photoProcessingService;
+
+    private PhotoRepository photoRepository;
+
+    private PhotoProcessingQueue photoProcessingQueue;
+
+    @BeforeEach
+    public void init() {
+        photoProcessingService = mock(PhotoProcessingService.class);
+        when(photoProcessingService.process(anyLong()))
+            .thenAnswer(invocation -> {
+                photoIdsToProcess.remove(invocation.<Long>getArgument(0));
+                return Optional.empty();
+            });
+        photoRepository = mock(PhotoRepository.class);
+        when(photoRepository.findIdsToProcessAfter(anyLong(), eq(PhotoStatus.PENDING), eq(PhotoStatus.READY), any(Pageable.class)))
+            .thenAnswer(invocation ->
+                photoIdsToProcess
+                    .tailSet(invocation.<Long>getArgument(0), false)
+                    .stream()
+                    .limit(invocation.<Pageable>getArgument(3).getPageSize())
+                    .collect(Collectors.toList())
+            );
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getProcessing().setConcurrency(1);
+        applicationProperties.getProcessing().setQueueCapacity(2);
+        photoProcessingQueue = new PhotoProcessingQueue(photoProcessingService, photoRepository, workers::add, applicationProperties);
+    }
+
+    @Test
+    void resumePendingPhotosShouldBackfillPageByPage() {
+        for (long photoId = 1; photoId <= 5; photoId++) {
+            photoIdsToProcess.add(photoId);
+        }
+
+        photoProcessingQueue.resumePendingPhotos();
+        assertThat(photoProcessingQueue.getQueuedCount()).isEqualTo(2);
+        runWorkers();
+
+        for (long photoId = 1; photoId <= 5; photoId++) {
+            verify(photoProcessingService).process(photoId);
+        }
+        assertThat(photoProcessingQueue.getQueuedCount()).isZero();
+        // the empty page ends the backfill
+        verify(photoRepository, times(4)).findIdsToProcessAfter(anyLong(), any(), any(), any());
+    }
+
+    @Test
+    void submitShouldQueuePhotosOnce() {
+        assertThat(photoProcessingQueue.submit(1L)).isTrue();
+        assertThat(photoProcessingQueue.submit(1L)).isTrue();
+        assertThat(photoProcessingQueue.getQueuedCount()).isEqualTo(1);
+
+        runWorkers();
+
+        verify(photoProcessingService, times(1)).process(1L);
+    }
+
+    @Test
+    void photosWhichDoNotFitShouldBeBackfilled() {
+        photoIdsToProcess.addAll(List.of(1L, 2L, 3L));
+        assertThat(photoProcessingQueue.submit(1L)).isTrue();
+        assertThat(photoProcessingQueue.submit(2L)).isTrue();
+        assertThat(photoProcessingQueue.submit(3L)).isFalse();
+
+        runWorkers();
+
+        verify(photoProcessingService).process(3L);
+        assertThat(photoIdsToProcess).isEmpty();
+    }
+
+    private void runWorkers() {
+        while (!workers.isEmpty()) {
+            workers.remove(0).run();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.auth0.flickr2.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+import com.auth0.flickr2.repository.PhotoRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link PhotoSearchQueue}.
+ */
+class PhotoSearchQueueTest {
+
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    private PhotoSearchService photoSearchService;
+
+    private PhotoSearchQueue photoSearchQueue;
+
+    @BeforeEach
+    public void init() {
+        photoSearchService = mock(PhotoSearchService.class);
+        when(photoSearchService.indexAfter(anyLong(), anyInt())).thenReturn(Optional.empty());
+        photoSearchQueue = new PhotoSearchQueue(photoSearchService, new PhotoTagIndex(mock(PhotoRepository.class)), tasks::add);
+    }
+
+    @Test
+    void emptyIndexShouldBeRebuiltInBackground() {
+        photoSearchQueue.onApplicationReady();
+
+        verify(photoSearchService, never()).clear();
+        assertThat(tasks).hasSize(1);
+        runTasks();
+        verify(photoSearchService).clear();
+    }
+
+    @Test
+    void failedChangesShouldBeQueuedAgain() {
+        doThrow(new IllegalStateException("disk full")).doNothing().when(photoSearchService).commit();
+
+        photoSearchQueue.onPhotoTagsChanged(new PhotoTagsChangedEvent(1L, Set.of()));
+        runTasks();
+
+        verify(photoSearchService, times(2)).index(List.of(1L));
+        verify(photoSearchService, times(2)).commit();
+        assertThat(photoSearchQueue.getQueuedCount()).isZero();
+        verify(photoSearchService, never()).clear();
+    }
+
+    @Test
+    void indexShouldBeRebuiltAfterRepeatedFailures() {
+        doThrow(new IllegalStateException("disk full")).when(photoSearchService).index(anyCollection());
+
+        photoSearchQueue.onPhotoTagsChanged(new PhotoTagsChangedEvent(1L, Set.of()));
+        runTasks();
+
+        verify(photoSearchService, times(3)).index(List.of(1L));
+        verify(photoSearchService).clear();
+        assertThat(photoSearchQueue.getQueuedCount()).isZero();
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.auth0.flickr2.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.auth0.flickr2.repository.PhotoContentRepository;
+import com.auth0.flickr2.service.dto.SimilarPhotoDTO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link PhotoSimilarityIndex}.
+ */
+class PhotoSimilarityIndexTest {
+
+    private PhotoContentRepository photoContentRepository;
+
+    private PhotoSimilarityIndex photoSimilarityIndex;
+
+    @BeforeEach
+    public void init() {
+        photoContentRepository = mock(PhotoContentRepository.class);
+        photoSimilarityIndex = new PhotoSimilarityIndex(photoContentRepository);
+        // a blue sky over a green field, a similar one, an inverted one, and a red square
+        photoSimilarityIndex.onPhotoFeaturesChanged(new PhotoFeaturesChangedEvent(1L, features(Color.BLUE, Color.GREEN)));
+        photoSimilarityIndex.onPhotoFeaturesChanged(new PhotoFeaturesChangedEvent(2L, features(new Color(20, 20, 240), Color.GREEN)));
+        photoSimilarityIndex.onPhotoFeaturesChanged(new PhotoFeaturesChangedEvent(3L, features(Color.GREEN, Color.BLUE)));
+        photoSimilarityIndex.onPhotoFeaturesChanged(new PhotoFeaturesChangedEvent(4L, features(Color.RED, Color.RED)));
+    }
+
+    @Test
+    void findSimilarShouldReturnClosestPhotosFirst() {
+        assertThat(photoSimilarityIndex.findSimilar(1L, 10).get()).extracting(SimilarPhotoDTO::getPhotoId).containsExactly(2L, 3L, 4L);
+        assertThat(photoSimilarityIndex.findSimilar(1L, 1).get()).extracting(SimilarPhotoDTO::getPhotoId).containsExactly(2L);
+        assertThat(photoSimilarityIndex.findSimilar(5L, 10)).isEmpty();
+    }
+
+    @Test
+    void findSimilarShouldFollowUpdates() {
+        photoSimilarityIndex.onPhotoFeaturesChanged(new PhotoFeaturesChangedEvent(4L, features(Color.BLUE, Color.GREEN)));
+        photoSimilarityIndex.onPhotoFeaturesChanged(new PhotoFeaturesChangedEvent(3L, null));
+        photoSimilarityIndex.onPhotoDeleted(new PhotoDeletedEvent(2L));
+
+        assertThat(photoSimilarityIndex.findSimilar(1L, 10).get()).extracting(SimilarPhotoDTO::getPhotoId).containsExactly(4L);
+        assertThat(photoSimilarityIndex.findSimilar(1L, 10).get().get(0).getDistance()).isZero();
+        assertThat(photoSimilarityIndex.findSimilar(3L, 10)).isEmpty();
+        assertThat(photoSimilarityIndex.getPhotoCount()).isEqualTo(2);
+    }
+
+    @Test
+    void rebuildShouldReplaceIndexWithDatabaseContent() {
+        when(photoContentRepository.streamAllIdsWithFeatureVector())
+            .thenReturn(
+                Stream.of(
+                    new Object[] { 7L, ImageFeatures.toBytes(features(Color.RED, Color.RED)) },
+                    new Object[] { 8L, ImageFeatures.toBytes(features(Color.RED, Color.BLUE)) }
+                )
+            );
+
+        photoSimilarityIndex.rebuild();
+
+        assertThat(photoSimilarityIndex.findSimilar(7L, 10).get()).extracting(SimilarPhotoDTO::getPhotoId).containsExactly(8L);
+        assertThat(photoSimilarityIndex.findSimilar(1L, 10)).isEmpty();
+        assertThat(photoSimilarityIndex.getPhotoCount()).isEqualTo(2);
+    }
+
+    @Test
+    void imageFeaturesShouldHaveUnitLength() {
+        float[] features = features(Color.BLUE, Color.GREEN);
+
+        assertThat(features).hasSize(ImageFeatures.DIMENSIONS);
+        assertThat(ImageFeatures.distance(features, new float[ImageFeatures.DIMENSIONS])).isCloseTo(1f, within(1e-4f));
+    }
+
+    /**
+     * Get the features of an image whose top third and bottom two thirds have the given colours.
+     */
+    private static float[] features(Color top, Color bottom) {
+        BufferedImage image = new BufferedImage(64, 48, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setColor(bottom);
+            graphics.fillRect(0, 0, 64, 48);
+            graphics.setColor(top);
+            graphics.fillRect(0, 0, 64, 16);
+        } finally {
+            graphics.dispose();
+        }
+        return ImageFeatures.of(image);
+    }
+}
@@ -0,0 +1,120 @@
+package com.auth0.flickr2.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.auth0.flickr2.repository.PhotoRepository;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+/**
+ * Unit tests for {@link PhotoTagIndex}.
+ */
+class PhotoTagIndexTest {
+
+    private static final Long SUNSET = 1L;
+    private static final Long BEACH = 2L;
+    private static final Long CITY = 3L;
+
+    private PhotoRepository photoRepository;
+
+    private PhotoTagIndex photoTagIndex;
+
+    @BeforeEach
+    public void init() {
+        photoRepository = mock(PhotoRepository.class);
+        photoTagIndex = new PhotoTagIndex(photoRepository);
+        photoTagIndex.onPhotoTagsChanged(new PhotoTagsChangedEvent(1L, Set.of(SUNSET, BEACH)));
+        photoTagIndex.onPhotoTagsChanged(new PhotoTagsChangedEvent(2L, Set.of(SUNSET, CITY)));
+        photoTagIndex.onPhotoTagsChanged(new PhotoTagsChangedEvent(3L, Set.of(BEACH)));
+        photoTagIndex.onPhotoTagsChanged(new PhotoTagsChangedEvent(4L, Set.of()));
+    }
+
+    @Test
+    void findShouldIntersectAllTags() {
+        assertThat(photoTagIndex.find(List.of(SUNSET, BEACH), List.of(), List.of()).toArray()).containsExactly(1);
+        assertThat(photoTagIndex.find(List.of(SUNSET, 42L), List.of(), List.of()).isEmpty()).isTrue();
+    }
+
+    @Test
+    void findShouldUniteAnyTags() {
+        assertThat(photoTagIndex.find(List.of(), List.of(BEACH, CITY), List.of()).toArray()).containsExactly(1, 2, 3);
+        assertThat(photoTagIndex.find(List.of(SUNSET), List.of(BEACH, CITY), List.of()).toArray()).containsExactly(1, 2);
+    }
+
+    @Test
+    void findShouldExcludeNotTags() {
+        assertThat(photoTagIndex.find(List.of(), List.of(), List.of(SUNSET)).toArray()).containsExactly(3, 4);
+        assertThat(photoTagIndex.find(List.of(SUNSET), List.of(), List.of(CITY)).toArray()).containsExactly(1);
+    }
+
+    @Test
+    void findShouldFollowUpdates() {
+        photoTagIndex.onPhotoTagsChanged(new PhotoTagsChangedEvent(1L, Set.of(CITY)));
+        photoTagIndex.onPhotoDeleted(new PhotoDeletedEvent(2L));
+
+        assertThat(photoTagIndex.find(List.of(SUNSET), List.of(), List.of()).isEmpty()).isTrue();
+        assertThat(photoTagIndex.find(List.of(CITY), List.of(), List.of()).toArray()).containsExactly(1);
+        assertThat(photoTagIndex.getPhotoCount()).isEqualTo(3);
+    }
+
+    @Test
+    void deletedTagsShouldBeDropped() {
+        photoTagIndex.onTagDeleted(new TagDeletedEvent(SUNSET));
+
+        assertThat(photoTagIndex.getPhotoCount(SUNSET)).isZero();
+        assertThat(photoTagIndex.find(List.of(), List.of(), List.of(SUNSET)).toArray()).containsExactly(1, 2, 3, 4);
+
+        photoTagIndex.onPhotoTagsChanged(new PhotoTagsChangedEvent(1L, Set.of(CITY)));
+        assertThat(photoTagIndex.getPhotoCount(BEACH)).isEqualTo(1);
+        assertThat(photoTagIndex.getPhotoCount(CITY)).isEqualTo(2);
+    }
+
+    @Test
+    void findShouldReturnPagesOfMostRecentPhotosFirst() {
+        Page<Long> firstPage = photoTagIndex.find(List.of(), List.of(), List.of(), PageRequest.of(0, 3));
+        Page<Long> lastPage = photoTagIndex.find(List.of(), List.of(), List.of(), PageRequest.of(1, 3));
+
+        assertThat(firstPage.getContent()).containsExactly(4L, 3L, 2L);
+        assertThat(firstPage.getTotalElements()).isEqualTo(4);
+        assertThat(lastPage.getContent()).containsExactly(1L);
+        assertThat(photoTagIndex.find(List.of(), List.of(), List.of(), PageRequest.of(2, 3)).getContent()).isEmpty();
+    }
+
+    @Test
+    void rebuildShouldReplaceIndexWithDatabaseContent() {
+        when(photoRepository.streamAllIds()).thenReturn(Stream.of(5L, 6L));
+        when(photoRepository.streamAllIdsWithTagIds()).thenReturn(Stream.of(new Object[] { 5L, CITY }, new Object[] { 6L, CITY }));
+
+        photoTagIndex.rebuild();
+
+        assertThat(photoTagIndex.find(List.of(CITY), List.of(), List.of()).toArray()).containsExactly(5, 6);
+        assertThat(photoTagIndex.find(List.of(SUNSET), List.of(), List.of()).isEmpty()).isTrue();
+        assertThat(photoTagIndex.getPhotoCount()).isEqualTo(2);
+
+        photoTagIndex.onPhotoDeleted(new PhotoDeletedEvent(5L));
+        assertThat(photoTagIndex.getPhotoCount(CITY)).isEqualTo(1);
+    }
+
+    @Test
+    void rebuildShouldKeepUpdatesReceivedWhileRebuilding() {
+        when(photoRepository.streamAllIds()).thenReturn(Stream.of(5L));
+        // the photo is saved while its tags are being read
+        when(photoRepository.streamAllIdsWithTagIds())
+            .thenAnswer(invocation -> {
+                photoTagIndex.onPhotoTagsChanged(new PhotoTagsChangedEvent(7L, Set.of(BEACH)));
+                return Stream.<Object[]>empty();
+            });
+
+        photoTagIndex.rebuild();
+
+        assertThat(photoTagIndex.find(List.of(BEACH), List.of(), List.of()).toArray()).containsExactly(7);
+        assertThat(photoTagIndex.getPhotoCount()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,82 @@
+package com.auth0.flickr2.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.auth0.flickr2.repository.PhotoRepository;
+import com.auth0.flickr2.service.PhotoTimelineIndex.Granularity;
+import com.auth0.flickr2.service.dto.TimelineBucketDTO;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link PhotoTimelineIndex}.
+ */
+class PhotoTimelineIndexTest {
+
+    private PhotoRepository photoRepository;
+
+    private PhotoTimelineIndex photoTimelineIndex;
+
+    @BeforeEach
+    public void init() {
+        photoRepository = mock(PhotoRepository.class);
+        photoTimelineIndex = new PhotoTimelineIndex(photoRepository);
+        photoTimelineIndex.onPhotoTakenChanged(new PhotoTakenChangedEvent(1L, Instant.parse("2019-12-31T23:59:59Z")));
+        photoTimelineIndex.onPhotoTakenChanged(new PhotoTakenChangedEvent(2L, Instant.parse("2020-01-01T00:00:00Z")));
+        photoTimelineIndex.onPhotoTakenChanged(new PhotoTakenChangedEvent(3L, Instant.parse("2020-01-01T12:00:00Z")));
+        photoTimelineIndex.onPhotoTakenChanged(new PhotoTakenChangedEvent(4L, Instant.parse("2020-03-15T08:00:00Z")));
+        photoTimelineIndex.onPhotoTakenChanged(new PhotoTakenChangedEvent(5L, null));
+    }
+
+    @Test
+    void getHistogramShouldCountPhotosByPeriod() {
+        assertThat(toStrings(photoTimelineIndex.getHistogram(Granularity.DAY)))
+            .containsExactly("2020-03-15=1", "2020-01-01=2", "2019-12-31=1");
+        assertThat(toStrings(photoTimelineIndex.getHistogram(Granularity.MONTH)))
+            .containsExactly("2020-03-01=1", "2020-01-01=2", "2019-12-01=1");
+        assertThat(toStrings(photoTimelineIndex.getHistogram(Granularity.YEAR))).containsExactly("2020-01-01=3", "2019-01-01=1");
+    }
+
+    @Test
+    void getHistogramShouldFollowUpdates() {
+        assertThat(toStrings(photoTimelineIndex.getHistogram(Granularity.YEAR))).containsExactly("2020-01-01=3", "2019-01-01=1");
+
+        photoTimelineIndex.onPhotoTakenChanged(new PhotoTakenChangedEvent(4L, Instant.parse("2019-06-01T00:00:00Z")));
+        photoTimelineIndex.onPhotoTakenChanged(new PhotoTakenChangedEvent(5L, Instant.parse("2021-01-01T00:00:00Z")));
+        photoTimelineIndex.onPhotoDeleted(new PhotoDeletedEvent(2L));
+
+        assertThat(toStrings(photoTimelineIndex.getHistogram(Granularity.YEAR)))
+            .containsExactly("2021-01-01=1", "2020-01-01=1", "2019-01-01=2");
+        assertThat(photoTimelineIndex.getPhotoCount()).isEqualTo(4);
+    }
+
+    @Test
+    void countBeforeShouldCountUndatedAndMoreRecentPhotos() {
+        assertThat(photoTimelineIndex.countBefore(LocalDate.parse("2020-03-15"))).isEqualTo(1);
+        assertThat(photoTimelineIndex.countBefore(LocalDate.parse("2020-02-01"))).isEqualTo(2);
+        assertThat(photoTimelineIndex.countBefore(LocalDate.parse("2020-01-01"))).isEqualTo(2);
+        assertThat(photoTimelineIndex.countBefore(LocalDate.parse("2019-12-31"))).isEqualTo(4);
+    }
+
+    @Test
+    void rebuildShouldReplaceIndexWithDatabaseContent() {
+        when(photoRepository.streamAllIdsWithTaken())
+            .thenReturn(Stream.of(new Object[] { 6L, Instant.parse("2018-05-01T10:00:00Z") }, new Object[] { 7L, null }));
+
+        photoTimelineIndex.rebuild();
+
+        assertThat(toStrings(photoTimelineIndex.getHistogram(Granularity.MONTH))).containsExactly("2018-05-01=1");
+        assertThat(photoTimelineIndex.getPhotoCount()).isEqualTo(2);
+    }
+
+    private static List<String> toStrings(List<TimelineBucketDTO> buckets) {
+        return buckets.stream().map(bucket -> bucket.getDate() + "=" + bucket.getCount()).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,74 @@
+package com.auth0.flickr2.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.auth0.flickr2.domain.Tag;
+import com.auth0.flickr2.repository.PhotoRepository;
+import com.auth0.flickr2.repository.TagRepository;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link TagSuggestIndex}.
+ */
+class TagSuggestIndexTest {
+
+    private PhotoTagIndex photoTagIndex;
+
+    private TagSuggestIndex tagSuggestIndex;
+
+    @BeforeEach
+    public void init() {
+        TagRepository tagRepository = mock(TagRepository.class);
+        when(tagRepository.findAll())
+            .thenReturn(
+                List.of(
+                    new Tag().id(1L).name("Sunset"),
+                    new Tag().id(2L).name("sunrise"),
+                    new Tag().id(3L).name("Sea"),
+                    new Tag().id(4L).name("Sun")
+                )
+            );
+        photoTagIndex = new PhotoTagIndex(mock(PhotoRepository.class));
+        photoTagIndex.onPhotoTagsChanged(new PhotoTagsChangedEvent(1L, Set.of(2L, 3L)));
+        photoTagIndex.onPhotoTagsChanged(new PhotoTagsChangedEvent(2L, Set.of(2L)));
+        photoTagIndex.onPhotoTagsChanged(new PhotoTagsChangedEvent(3L, Set.of(1L)));
+        tagSuggestIndex = new TagSuggestIndex(tagRepository, photoTagIndex, Runnable::run);
+        tagSuggestIndex.rebuild();
+    }
+
+    @Test
+    void suggestShouldRankTagsByPhotoCount() {
+        assertThat(tagSuggestIndex.suggest("SU", 10)).extracting(Tag::getName).containsExactly("sunrise", "Sunset", "Sun");
+        assertThat(tagSuggestIndex.suggest("su", 2)).extracting(Tag::getName).containsExactly("sunrise", "Sunset");
+        assertThat(tagSuggestIndex.suggest("suns", 10)).extracting(Tag::getId).containsExactly(1L);
+        assertThat(tagSuggestIndex.suggest("x", 10)).isEmpty();
+        assertThat(tagSuggestIndex.suggest("s", 10)).extracting(Tag::getName).containsExactly("sunrise", "Sea", "Sunset", "Sun");
+        assertThatThrownBy(() -> tagSuggestIndex.suggest("", 10)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void suggestShouldFollowUpdates() {
+        tagSuggestIndex.onTagChanged(new TagChangedEvent(3L, "Sunny sea"));
+        tagSuggestIndex.onTagChanged(new TagChangedEvent(5L, "Summer"));
+        tagSuggestIndex.onTagDeleted(new TagDeletedEvent(2L));
+
+        assertThat(tagSuggestIndex.suggest("su", 10)).extracting(Tag::getName).containsExactly("Sunny sea", "Sunset", "Summer", "Sun");
+        assertThat(tagSuggestIndex.suggest("se", 10)).isEmpty();
+        assertThat(tagSuggestIndex.getCount()).isEqualTo(4);
+    }
+
+    @Test
+    void suggestShouldFollowPhotoCounts() {
+        photoTagIndex.onPhotoTagsChanged(new PhotoTagsChangedEvent(1L, Set.of(4L)));
+        photoTagIndex.onPhotoTagsChanged(new PhotoTagsChangedEvent(2L, Set.of(4L)));
+
+        assertThat(tagSuggestIndex.suggest("su", 10)).extracting(Tag::getName).containsExactly("Sun", "Sunset", "sunrise");
+        assertThat(tagSuggestIndex.suggest("sun", 10)).extracting(Tag::getName).containsExactly("Sun", "Sunset", "sunrise");
+    }
+}
@@ -0,0 +1,83 @@
+package com.auth0.flickr2.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.auth0.flickr2.domain.PhotoThumbnail;
+import com.auth0.flickr2.service.storage.FileSystemBlobStore;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for {@link ThumbnailService}.
+ */
+class ThumbnailServiceTest {
+
+    @TempDir
+    Path root;
+
+    private FileSystemBlobStore blobStore;
+
+    private ThumbnailService thumbnailService;
+
+    @BeforeEach
+    public void init() {
+        blobStore = new FileSystemBlobStore(root);
+        thumbnailService = new ThumbnailService(blobStore, new ImageRenderer(blobStore));
+    }
+
+    @Test
+    void generateShouldStoreAllSizesOfLargeImages() throws Exception {
+        String imageKey = blobStore.put(createImage(4000, 3000, "png")).getKey();
+
+        List<PhotoThumbnail> thumbnails = sorted(thumbnailService.generate(imageKey));
+
+        assertThat(thumbnails).extracting(PhotoThumbnail::getSize).containsExactly(160, 480, 1080);
+        assertDimensions(thumbnails.get(0), 160, 120);
+        assertDimensions(thumbnails.get(1), 480, 360);
+        assertDimensions(thumbnails.get(2), 1080, 810);
+    }
+
+    @Test
+    void generateShouldNotScaleImagesUp() throws Exception {
+        String imageKey = blobStore.put(createImage(300, 400, "jpg")).getKey();
+
+        List<PhotoThumbnail> thumbnails = sorted(thumbnailService.generate(imageKey));
+
+        assertThat(thumbnails).extracting(PhotoThumbnail::getSize).containsExactly(160);
+        assertDimensions(thumbnails.get(0), 120, 160);
+    }
+
+    @Test
+    void generateShouldIgnoreUnknownFormats() throws Exception {
+        String imageKey = blobStore.put(new byte[] { 1, 2, 3 }).getKey();
+
+        assertThat(thumbnailService.generate(imageKey)).isEmpty();
+    }
+
+    private void assertDimensions(PhotoThumbnail thumbnail, int width, int height) throws IOException {
+        BufferedImage image = ImageIO.read(blobStore.resolve(thumbnail.getImageKey()).toFile());
+        assertThat(image.getWidth()).isEqualTo(width);
+        assertThat(image.getHeight()).isEqualTo(height);
+        assertThat(thumbnail.getImageSize()).isEqualTo(blobStore.resolve(thumbnail.getImageKey()).toFile().length());
+    }
+
+    private static List<PhotoThumbnail> sorted(Set<PhotoThumbnail> thumbnails) {
+        return thumbnails.stream().sorted(Comparator.comparing(PhotoThumbnail::getSize)).collect(Collectors.toList());
+    }
+
+    private static byte[] createImage(int width, int height, String format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), format, out);
+        return out.toByteArray();
+    }
+}
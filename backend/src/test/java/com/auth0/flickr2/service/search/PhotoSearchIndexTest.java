@@ -0,0 +1,104 @@
+package com.auth0.flickr2.service.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.auth0.flickr2.domain.Album;
+import com.auth0.flickr2.domain.Photo;
+import com.auth0.flickr2.domain.Tag;
+import java.io.IOException;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+/**
+ * Unit tests for {@link PhotoSearchIndex}.
+ */
+class PhotoSearchIndexTest {
+
+    private PhotoSearchIndex photoSearchIndex;
+
+    @BeforeEach
+    public void init() throws IOException {
+        photoSearchIndex = new PhotoSearchIndex(null);
+        Album lisbon = new Album().title("Holidays in Lisbon").description("Summer of the trams");
+        photoSearchIndex.update(
+            List.of(
+                photo(1L, "Sunset over the Tagus", "From the Miradouro").album(lisbon).addTag(tag("Sunset")),
+                photo(2L, "Tram 28", "Climbing to the castle").album(lisbon),
+                photo(3L, "Café terrace", null).addTag(tag("Coffee")),
+                photo(4L, "Sunrise", "Mountain sunset colours")
+            )
+        );
+    }
+
+    @AfterEach
+    public void destroy() throws IOException {
+        photoSearchIndex.close();
+    }
+
+    @Test
+    void searchShouldRankTitleMatchesFirst() throws IOException {
+        assertThat(photoSearchIndex.search("sunset", PageRequest.of(0, 10)).getContent()).containsExactly(1L, 4L);
+    }
+
+    @Test
+    void searchShouldMatchPrefixes() throws IOException {
+        assertThat(photoSearchIndex.search("castl", PageRequest.of(0, 10)).getContent()).containsExactly(2L);
+        assertThat(photoSearchIndex.search("lisb", PageRequest.of(0, 10)).getContent()).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    void searchShouldMatchTypos() throws IOException {
+        assertThat(photoSearchIndex.search("sunste", PageRequest.of(0, 10)).getContent()).containsExactly(1L, 4L);
+        assertThat(photoSearchIndex.search("coffe", PageRequest.of(0, 10)).getContent()).containsExactly(3L);
+    }
+
+    @Test
+    void searchShouldIgnoreCaseAndAccents() throws IOException {
+        assertThat(photoSearchIndex.search("CAFE", PageRequest.of(0, 10)).getContent()).containsExactly(3L);
+    }
+
+    @Test
+    void searchShouldMatchAllWords() throws IOException {
+        assertThat(photoSearchIndex.search("tram castle", PageRequest.of(0, 10)).getContent()).containsExactly(2L);
+        assertThat(photoSearchIndex.search("tram sunrise", PageRequest.of(0, 10)).getContent()).isEmpty();
+        assertThat(photoSearchIndex.search(" ,. ", PageRequest.of(0, 10)).getContent()).isEmpty();
+    }
+
+    @Test
+    void searchShouldReturnPages() throws IOException {
+        Page<Long> firstPage = photoSearchIndex.search("sunset", PageRequest.of(0, 1));
+        Page<Long> lastPage = photoSearchIndex.search("sunset", PageRequest.of(1, 1));
+
+        assertThat(firstPage.getContent()).containsExactly(1L);
+        assertThat(firstPage.getTotalElements()).isEqualTo(2);
+        assertThat(lastPage.getContent()).containsExactly(4L);
+    }
+
+    @Test
+    void searchShouldFollowUpdates() throws IOException {
+        photoSearchIndex.update(List.of(photo(1L, "Night over the Tagus", null)));
+        photoSearchIndex.delete(List.of(4L));
+
+        assertThat(photoSearchIndex.search("sunset", PageRequest.of(0, 10)).getContent()).isEmpty();
+        assertThat(photoSearchIndex.search("night", PageRequest.of(0, 10)).getContent()).containsExactly(1L);
+        assertThat(photoSearchIndex.getCount()).isEqualTo(3);
+
+        photoSearchIndex.deleteAll();
+
+        assertThat(photoSearchIndex.getCount()).isZero();
+    }
+
+    private static Photo photo(Long id, String title, String description) {
+        Photo photo = new Photo().title(title).description(description);
+        photo.setId(id);
+        return photo;
+    }
+
+    private static Tag tag(String name) {
+        return new Tag().name(name);
+    }
+}
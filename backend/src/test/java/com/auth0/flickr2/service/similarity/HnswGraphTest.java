@@ -0,0 +1,107 @@
+package com.auth0.flickr2.service.similarity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link HnswGraph}.
+ */
+class HnswGraphTest {
+
+    private static final int DIMENSIONS = 16;
+
+    private static final int COUNT = 3000;
+
+    private float[][] vectors;
+
+    private HnswGraph graph;
+
+    @BeforeEach
+    public void init() {
+        Random random = new Random(42);
+        vectors = new float[COUNT][DIMENSIONS];
+        graph = new HnswGraph(DIMENSIONS, 8, 64, 42);
+        for (int i = 0; i < COUNT; i++) {
+            for (int d = 0; d < DIMENSIONS; d++) {
+                vectors[i][d] = random.nextFloat();
+            }
+            graph.add(i, vectors[i]);
+        }
+    }
+
+    @Test
+    void searchShouldFindNearestNeighbours() {
+        int found = 0;
+        int expected = 0;
+        for (int query = 0; query < COUNT; query += 30) {
+            Set<Integer> exact = bruteForce(vectors[query], 10, Set.of());
+            List<HnswGraph.Neighbour> neighbours = graph.search(vectors[query], 10, 64);
+            assertThat(neighbours).hasSize(10);
+            assertThat(neighbours.get(0).getId()).isEqualTo(query);
+            assertThat(neighbours.get(0).getDistance()).isZero();
+            assertThat(neighbours).isSortedAccordingTo(Comparator.comparing(HnswGraph.Neighbour::getDistance));
+            found += neighbours.stream().filter(neighbour -> exact.contains(neighbour.getId())).count();
+            expected += exact.size();
+        }
+        assertThat((double) found / expected).isGreaterThan(0.95);
+    }
+
+    @Test
+    void searchShouldSkipRemovedVectors() {
+        Set<Integer> removed = IntStream.range(0, COUNT).filter(i -> i % 3 == 0).boxed().collect(Collectors.toSet());
+        removed.forEach(graph::remove);
+
+        assertThat(graph.size()).isEqualTo(COUNT - removed.size());
+        assertThat(graph.getRemovedCount()).isEqualTo(removed.size());
+        assertThat(graph.get(0)).isNull();
+        int found = 0;
+        for (int query = 1; query < COUNT; query += 30) {
+            Set<Integer> exact = bruteForce(vectors[query], 10, removed);
+            List<HnswGraph.Neighbour> neighbours = graph.search(vectors[query], 10, 64);
+            assertThat(neighbours).extracting(HnswGraph.Neighbour::getId).doesNotContainAnyElementsOf(removed);
+            found += neighbours.stream().filter(neighbour -> exact.contains(neighbour.getId())).count();
+        }
+        assertThat(found).isGreaterThan(95 * 10 * (COUNT / 30) / 100);
+    }
+
+    @Test
+    void addShouldReplaceVectorOfSameId() {
+        float[] moved = vectors[1].clone();
+        graph.add(0, moved);
+
+        assertThat(graph.size()).isEqualTo(COUNT);
+        assertThat(graph.get(0)).containsExactly(moved);
+        assertThat(graph.search(moved, 2, 64)).extracting(HnswGraph.Neighbour::getId).containsExactlyInAnyOrder(0, 1);
+    }
+
+    @Test
+    void searchShouldHandleEmptyGraph() {
+        assertThat(new HnswGraph(DIMENSIONS, 8, 64, 42).search(vectors[0], 10, 64)).isEmpty();
+    }
+
+    private Set<Integer> bruteForce(float[] query, int k, Set<Integer> excluded) {
+        return IntStream
+            .range(0, COUNT)
+            .filter(i -> !excluded.contains(i))
+            .boxed()
+            .sorted(Comparator.comparingDouble(i -> distance(query, vectors[i])))
+            .limit(k)
+            .collect(Collectors.toSet());
+    }
+
+    private static double distance(float[] vector, float[] other) {
+        double distance = 0;
+        for (int i = 0; i < vector.length; i++) {
+            distance += (vector[i] - other[i]) * (vector[i] - other[i]);
+        }
+        return distance;
+    }
+}
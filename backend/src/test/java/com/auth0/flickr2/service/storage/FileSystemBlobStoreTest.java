@@ -0,0 +1,74 @@
+package com.auth0.flickr2.service.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for {@link FileSystemBlobStore}.
+ */
+class FileSystemBlobStoreTest {
+
+    private static final byte[] CONTENT = "hello".getBytes(StandardCharsets.UTF_8);
+    private static final String CONTENT_KEY = "2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824";
+
+    @TempDir
+    Path root;
+
+    private FileSystemBlobStore blobStore;
+
+    @BeforeEach
+    public void init() {
+        blobStore = new FileSystemBlobStore(root);
+    }
+
+    @Test
+    void putShouldStoreContentUnderItsSha256InShardedDirectories() throws Exception {
+        BlobInfo blob = blobStore.put(CONTENT);
+
+        assertThat(blob.getKey()).isEqualTo(CONTENT_KEY);
+        assertThat(blob.getSize()).isEqualTo(CONTENT.length);
+        assertThat(root.resolve("2c").resolve("f2").resolve(CONTENT_KEY)).hasBinaryContent(CONTENT);
+        assertThat(blobStore.exists(CONTENT_KEY)).isTrue();
+        assertThat(blobStore.getBytes(CONTENT_KEY)).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void putShouldDeduplicateIdenticalContentAndLeaveNoTemporaryFile() throws Exception {
+        BlobInfo first = blobStore.put(CONTENT);
+        BlobInfo second = blobStore.put(CONTENT);
+
+        assertThat(second).isEqualTo(first);
+        try (Stream<Path> tmpFiles = Files.list(root.resolve("tmp"))) {
+            assertThat(tmpFiles).isEmpty();
+        }
+    }
+
+    @Test
+    void getShouldFailForUnknownBlob() {
+        assertThatThrownBy(() -> blobStore.get(CONTENT_KEY)).isInstanceOf(BlobNotFoundException.class);
+        assertThat(blobStore.exists(CONTENT_KEY)).isFalse();
+    }
+
+    @Test
+    void shouldRejectKeysThatAreNotDigests() {
+        assertThatThrownBy(() -> blobStore.get("../../etc/passwd")).isInstanceOf(IllegalArgumentException.class);
+        assertThat(blobStore.exists("../../etc/passwd")).isFalse();
+    }
+
+    @Test
+    void deleteShouldRemoveBlob() throws Exception {
+        blobStore.put(CONTENT);
+
+        blobStore.delete(CONTENT_KEY);
+
+        assertThat(blobStore.exists(CONTENT_KEY)).isFalse();
+    }
+}
@@ -0,0 +1,135 @@
+package com.auth0.flickr2.service.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for {@link VariantCache}.
+ */
+class VariantCacheTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void getShouldRenderOnlyOnce() throws Exception {
+        VariantCache cache = new VariantCache(root, 1000);
+        AtomicInteger renderings = new AtomicInteger();
+
+        Path first = cache.get("a.jpg", out -> out.write(new byte[] { (byte) renderings.incrementAndGet() }));
+        Path second = cache.get("a.jpg", out -> out.write(new byte[] { (byte) renderings.incrementAndGet() }));
+
+        assertThat(second).isEqualTo(first);
+        assertThat(first).hasBinaryContent(new byte[] { 1 });
+        assertThat(renderings).hasValue(1);
+    }
+
+    @Test
+    void concurrentGetsShouldShareTheRendering() throws Exception {
+        VariantCache cache = new VariantCache(root, 1000);
+        AtomicInteger renderings = new AtomicInteger();
+        CountDownLatch renderingStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Path>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(
+                    executor.submit(() ->
+                        cache.get(
+                            "a.jpg",
+                            out -> {
+                                renderings.incrementAndGet();
+                                renderingStarted.countDown();
+                                try {
+                                    release.await(5, TimeUnit.SECONDS);
+                                } catch (InterruptedException e) {
+                                    Thread.currentThread().interrupt();
+                                }
+                                out.write(new byte[] { 1 });
+                            }
+                        )
+                    )
+                );
+            }
+            assertThat(renderingStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            // let the other requests join the rendering in progress
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<Path> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).hasBinaryContent(new byte[] { 1 });
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(renderings).hasValue(1);
+    }
+
+    @Test
+    void getShouldEvictLeastRecentlyUsedFiles() throws Exception {
+        VariantCache cache = new VariantCache(root, 25);
+        Path a = cache.get("a.jpg", out -> out.write(new byte[10]));
+        Path b = cache.get("b.jpg", out -> out.write(new byte[10]));
+        // a is now more recently used than b
+        cache.get("a.jpg", out -> out.write(new byte[10]));
+
+        Path c = cache.get("c.jpg", out -> out.write(new byte[10]));
+
+        assertThat(a).exists();
+        assertThat(b).doesNotExist();
+        assertThat(c).exists();
+        assertThat(cache.getSize()).isEqualTo(20);
+        assertThat(cache.getCount()).isEqualTo(2);
+    }
+
+    @Test
+    void newCacheShouldReloadExistingFiles() throws Exception {
+        new VariantCache(root, 1000).get("a.jpg", out -> out.write(new byte[10]));
+
+        VariantCache cache = new VariantCache(root, 1000);
+
+        assertThat(cache.getCount()).isEqualTo(1);
+        assertThat(cache.getSize()).isEqualTo(10);
+        assertThat(cache.get("a.jpg", out -> out.write(new byte[20]))).hasBinaryContent(new byte[10]);
+    }
+
+    @Test
+    void failedRenderingShouldNotBeCached() throws Exception {
+        VariantCache cache = new VariantCache(root, 1000);
+
+        assertThatThrownBy(() ->
+                cache.get(
+                    "a.jpg",
+                    out -> {
+                        throw new IOException("boom");
+                    }
+                )
+            )
+            .isInstanceOf(IOException.class);
+
+        assertThat(cache.getCount()).isZero();
+        assertThat(Files.list(root.resolve("tmp"))).isEmpty();
+        assertThat(cache.get("a.jpg", out -> out.write(new byte[] { 1 }))).hasBinaryContent(new byte[] { 1 });
+    }
+
+    @Test
+    void shouldRejectInvalidNames() {
+        VariantCache cache = new VariantCache(root, 1000);
+
+        assertThatThrownBy(() -> cache.get("../a.jpg", out -> {})).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -1,22 +1,51 @@
 package com.auth0.flickr2.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import com.auth0.flickr2.IntegrationTest;
+import com.auth0.flickr2.domain.Album;
 import com.auth0.flickr2.domain.Photo;
+import com.auth0.flickr2.domain.PhotoContent;
+import com.auth0.flickr2.domain.PhotoThumbnail;
+import com.auth0.flickr2.domain.Tag;
+import com.auth0.flickr2.domain.enumeration.PhotoStatus;
 import com.auth0.flickr2.repository.PhotoRepository;
+import com.auth0.flickr2.service.PhotoGeoIndex;
+import com.auth0.flickr2.service.PhotoNearDuplicateIndex;
+import com.auth0.flickr2.service.PhotoProcessingService;
+import com.auth0.flickr2.service.PhotoSearchQueue;
+import com.auth0.flickr2.service.PhotoService;
+import com.auth0.flickr2.service.PhotoSimilarityIndex;
+import com.auth0.flickr2.service.PhotoTagIndex;
+import com.auth0.flickr2.service.PhotoTimelineIndex;
+import com.auth0.flickr2.web.rest.util.CursorPaginationUtil;
+import com.jayway.jsonpath.JsonPath;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
+import javax.imageio.ImageIO;
 import javax.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -26,9 +55,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Base64Utils;
 
@@ -64,6 +97,12 @@ class PhotoResourceIT {
     private static final Instant DEFAULT_UPLOADED = Instant.ofEpochMilli(0L);
     private static final Instant UPDATED_UPLOADED = Instant.now().truncatedTo(ChronoUnit.MILLIS);
 
+    private static final Double DEFAULT_LATITUDE = -90D;
+    private static final Double UPDATED_LATITUDE = -89D;
+
+    private static final Double DEFAULT_LONGITUDE = -180D;
+    private static final Double UPDATED_LONGITUDE = -179D;
+
     private static final String ENTITY_API_URL = "/api/photos";
     private static final String ENTITY_API_URL_ID = ENTITY_API_URL + "/{id}";
 
@@ -76,6 +115,30 @@ class PhotoResourceIT {
     @Mock
     private PhotoRepository photoRepositoryMock;
 
+    @Autowired
+    private PhotoService photoService;
+
+    @Autowired
+    private PhotoProcessingService photoProcessingService;
+
+    @Autowired
+    private PhotoTagIndex photoTagIndex;
+
+    @Autowired
+    private PhotoSearchQueue photoSearchQueue;
+
+    @Autowired
+    private PhotoTimelineIndex photoTimelineIndex;
+
+    @Autowired
+    private PhotoGeoIndex photoGeoIndex;
+
+    @Autowired
+    private PhotoNearDuplicateIndex photoNearDuplicateIndex;
+
+    @Autowired
+    private PhotoSimilarityIndex photoSimilarityIndex;
+
     @Autowired
     private EntityManager em;
 
@@ -99,7 +162,9 @@ class PhotoResourceIT {
             .height(DEFAULT_HEIGHT)
             .width(DEFAULT_WIDTH)
             .taken(DEFAULT_TAKEN)
-            .uploaded(DEFAULT_UPLOADED);
+            .uploaded(DEFAULT_UPLOADED)
+            .latitude(DEFAULT_LATITUDE)
+            .longitude(DEFAULT_LONGITUDE);
         return photo;
     }
 
@@ -118,7 +183,9 @@ class PhotoResourceIT {
             .height(UPDATED_HEIGHT)
             .width(UPDATED_WIDTH)
             .taken(UPDATED_TAKEN)
-            .uploaded(UPDATED_UPLOADED);
+            .uploaded(UPDATED_UPLOADED)
+            .latitude(UPDATED_LATITUDE)
+            .longitude(UPDATED_LONGITUDE);
         return photo;
     }
 
@@ -136,7 +203,10 @@ class PhotoResourceIT {
             .perform(
                 post(ENTITY_API_URL).with(csrf()).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(photo))
             )
-            .andExpect(status().isCreated());
+            .andExpect(status().isAccepted())
+            .andExpect(header().exists(HttpHeaders.LOCATION))
+            .andExpect(jsonPath("$.status").value(PhotoStatus.PENDING.toString()))
+            .andExpect(jsonPath("$.image").doesNotExist());
 
         // Validate the Photo in the database
         List<Photo> photoList = photoRepository.findAll();
@@ -144,12 +214,173 @@ class PhotoResourceIT {
         Photo testPhoto = photoList.get(photoList.size() - 1);
         assertThat(testPhoto.getTitle()).isEqualTo(DEFAULT_TITLE);
         assertThat(testPhoto.getDescription()).isEqualTo(DEFAULT_DESCRIPTION);
-        assertThat(testPhoto.getImage()).isEqualTo(DEFAULT_IMAGE);
+        assertThat(photoService.loadImage(testPhoto).getImage()).isEqualTo(DEFAULT_IMAGE);
         assertThat(testPhoto.getImageContentType()).isEqualTo(DEFAULT_IMAGE_CONTENT_TYPE);
         assertThat(testPhoto.getHeight()).isEqualTo(DEFAULT_HEIGHT);
         assertThat(testPhoto.getWidth()).isEqualTo(DEFAULT_WIDTH);
         assertThat(testPhoto.getTaken()).isEqualTo(DEFAULT_TAKEN);
         assertThat(testPhoto.getUploaded()).isEqualTo(DEFAULT_UPLOADED);
+        assertThat(testPhoto.getLatitude()).isEqualTo(DEFAULT_LATITUDE);
+        assertThat(testPhoto.getLongitude()).isEqualTo(DEFAULT_LONGITUDE);
+        assertThat(testPhoto.getStatus()).isEqualTo(PhotoStatus.PENDING);
+    }
+
+    @Test
+    @Transactional
+    void uploadPhoto() throws Exception {
+        int databaseSizeBeforeCreate = photoRepository.findAll().size();
+        MockMultipartFile image = new MockMultipartFile("image", "photo.png", UPDATED_IMAGE_CONTENT_TYPE, UPDATED_IMAGE);
+
+        // Upload the Photo
+        restPhotoMockMvc
+            .perform(multipart(ENTITY_API_URL).file(image).param("title", DEFAULT_TITLE).param("description", DEFAULT_DESCRIPTION).with(csrf()))
+            .andExpect(status().isAccepted())
+            .andExpect(header().exists(HttpHeaders.LOCATION))
+            .andExpect(jsonPath("$.status").value(PhotoStatus.PENDING.toString()))
+            .andExpect(jsonPath("$.image").doesNotExist());
+
+        // Validate the Photo in the database
+        List<Photo> photoList = photoRepository.findAll();
+        assertThat(photoList).hasSize(databaseSizeBeforeCreate + 1);
+        Photo testPhoto = photoList.get(photoList.size() - 1);
+        assertThat(testPhoto.getTitle()).isEqualTo(DEFAULT_TITLE);
+        assertThat(testPhoto.getDescription()).isEqualTo(DEFAULT_DESCRIPTION);
+        assertThat(testPhoto.getImageContentType()).isEqualTo(UPDATED_IMAGE_CONTENT_TYPE);
+        assertThat(photoService.findContent(testPhoto.getId()).get().getImageKey())
+            .isEqualTo("4bf5122f344554c53bde2ebb8cd2b7e3d1600ad631c385a5d7cce23c7785459a");
+        assertThat(photoService.loadImage(testPhoto).getImage()).isEqualTo(UPDATED_IMAGE);
+        assertThat(testPhoto.getStatus()).isEqualTo(PhotoStatus.PENDING);
+
+        // Process the uploaded image, which is done asynchronously once the upload is committed: its format is not recognized
+        assertThat(photoProcessingService.process(testPhoto.getId())).isPresent();
+        assertThat(photoRepository.findById(testPhoto.getId()).get().getStatus()).isEqualTo(PhotoStatus.FAILED);
+        assertThat(photoProcessingService.process(testPhoto.getId())).get().extracting(Photo::getStatus).isEqualTo(PhotoStatus.FAILED);
+    }
+
+    @Test
+    @Transactional
+    void uploadDecodablePhoto() throws Exception {
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(600, 400, BufferedImage.TYPE_INT_RGB), "jpg", jpeg);
+        MockMultipartFile image = new MockMultipartFile("image", "photo.jpg", "image/jpeg", jpeg.toByteArray());
+
+        restPhotoMockMvc
+            .perform(multipart(ENTITY_API_URL).file(image).param("title", DEFAULT_TITLE).with(csrf()))
+            .andExpect(status().isAccepted())
+            .andExpect(jsonPath("$.status").value(PhotoStatus.PENDING.toString()));
+        List<Photo> photoList = photoRepository.findAll();
+        Photo testPhoto = photoList.get(photoList.size() - 1);
+
+        // Process the uploaded image
+        assertThat(photoProcessingService.process(testPhoto.getId())).isPresent();
+        Photo processedPhoto = photoRepository.findById(testPhoto.getId()).get();
+        assertThat(processedPhoto.getStatus()).isEqualTo(PhotoStatus.READY);
+        assertThat(processedPhoto.getUploaded()).isNotNull();
+        assertThat(processedPhoto.getTaken()).isNotNull();
+        assertThat(processedPhoto.getWidth()).isEqualTo(600);
+        assertThat(processedPhoto.getBlurhash()).isNotNull();
+        assertThat(photoService.findContentWithThumbnails(testPhoto.getId()).get().getThumbnails()).isNotEmpty();
+    }
+
+    @Test
+    @Transactional
+    void processedPhotosShouldNotBeBackfilledAgain() throws Exception {
+        // Initialize the database with a ready photo whose image cannot be decoded, and one smaller than every thumbnail
+        photoService.save(photo);
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB), "jpg", jpeg);
+        Photo tinyPhoto = photoService.save(createEntity(em).image(jpeg.toByteArray()).imageContentType("image/jpeg"));
+        em.flush();
+        List<Long> photoIds = List.of(photo.getId(), tinyPhoto.getId());
+        PageRequest page = PageRequest.of(0, 1000);
+        assertThat(photoRepository.findIdsToProcessAfter(0L, PhotoStatus.PENDING, PhotoStatus.READY, page)).containsAll(photoIds);
+
+        // Process them, which leaves them without descriptors or without thumbnails
+        photoIds.forEach(photoProcessingService::process);
+        em.flush();
+
+        assertThat(photoService.findContent(photo.getId()).get().getPerceptualHash()).isNull();
+        assertThat(photoService.findContentWithThumbnails(tinyPhoto.getId()).get().getThumbnails()).isEmpty();
+        assertThat(photoRepository.findIdsToProcessAfter(0L, PhotoStatus.PENDING, PhotoStatus.READY, page)).doesNotContainAnyElementsOf(photoIds);
+    }
+
+    @Test
+    @Transactional
+    void uploadDuplicatePhoto() throws Exception {
+        // Initialize the database with a processed photo
+        photoService.save(photo);
+        em.flush();
+        String imageKey = photoService.findContent(photo.getId()).get().getImageKey();
+        MockMultipartFile image = new MockMultipartFile("image", "photo.jpg", DEFAULT_IMAGE_CONTENT_TYPE, DEFAULT_IMAGE);
+
+        // Upload the same image, which is not processed again
+        restPhotoMockMvc
+            .perform(multipart(ENTITY_API_URL).file(image).param("title", UPDATED_TITLE).with(csrf()))
+            .andExpect(status().isCreated())
+            .andExpect(header().exists(HttpHeaders.LOCATION))
+            .andExpect(jsonPath("$.status").value(PhotoStatus.READY.toString()))
+            .andExpect(jsonPath("$.height").value(DEFAULT_HEIGHT))
+            .andExpect(jsonPath("$.width").value(DEFAULT_WIDTH))
+            .andExpect(jsonPath("$.taken").value(DEFAULT_TAKEN.toString()))
+            .andExpect(jsonPath("$.latitude").value(DEFAULT_LATITUDE))
+            .andExpect(jsonPath("$.longitude").value(DEFAULT_LONGITUDE));
+
+        List<Photo> photoList = photoRepository.findAll();
+        Photo testPhoto = photoList.get(photoList.size() - 1);
+        assertThat(testPhoto.getId()).isNotEqualTo(photo.getId());
+        assertThat(testPhoto.getTitle()).isEqualTo(UPDATED_TITLE);
+        assertThat(photoService.findContent(testPhoto.getId()).get().getImageKey()).isEqualTo(imageKey);
+        assertThat(photoService.loadImage(testPhoto).getImage()).isEqualTo(DEFAULT_IMAGE);
+    }
+
+    @Test
+    @Transactional
+    void createPhotoFromImage() throws Exception {
+        // Initialize the database with a processed photo
+        photoService.save(photo);
+        em.flush();
+        String imageKey = photoService.findContent(photo.getId()).get().getImageKey();
+        String unknownKey = "0".repeat(64);
+
+        restPhotoMockMvc.perform(head(ENTITY_API_URL + "/by-hash/{sha256}", imageKey)).andExpect(status().isOk());
+        restPhotoMockMvc.perform(head(ENTITY_API_URL + "/by-hash/{sha256}", unknownKey)).andExpect(status().isNotFound());
+        restPhotoMockMvc.perform(head(ENTITY_API_URL + "/by-hash/{sha256}", "ABC")).andExpect(status().isBadRequest());
+
+        // Create a photo of the uploaded image, without uploading it again
+        restPhotoMockMvc
+            .perform(post(ENTITY_API_URL + "/by-hash/{sha256}", unknownKey).param("title", UPDATED_TITLE).with(csrf()))
+            .andExpect(status().isNotFound());
+        restPhotoMockMvc
+            .perform(
+                post(ENTITY_API_URL + "/by-hash/{sha256}", imageKey)
+                    .param("title", UPDATED_TITLE)
+                    .param("description", UPDATED_DESCRIPTION)
+                    .with(csrf())
+            )
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.title").value(UPDATED_TITLE))
+            .andExpect(jsonPath("$.imageContentType").value(DEFAULT_IMAGE_CONTENT_TYPE))
+            .andExpect(jsonPath("$.status").value(PhotoStatus.READY.toString()))
+            .andExpect(jsonPath("$.height").value(DEFAULT_HEIGHT));
+
+        List<Photo> photoList = photoRepository.findAll();
+        Photo testPhoto = photoList.get(photoList.size() - 1);
+        assertThat(testPhoto.getDescription()).isEqualTo(UPDATED_DESCRIPTION);
+        assertThat(photoService.findContent(testPhoto.getId()).get().getImageKey()).isEqualTo(imageKey);
+    }
+
+    @Test
+    @Transactional
+    void uploadPhotoWithEmptyImage() throws Exception {
+        int databaseSizeBeforeCreate = photoRepository.findAll().size();
+        MockMultipartFile image = new MockMultipartFile("image", "photo.png", UPDATED_IMAGE_CONTENT_TYPE, new byte[0]);
+
+        restPhotoMockMvc
+            .perform(multipart(ENTITY_API_URL).file(image).param("title", DEFAULT_TITLE).with(csrf()))
+            .andExpect(status().isBadRequest());
+
+        List<Photo> photoList = photoRepository.findAll();
+        assertThat(photoList).hasSize(databaseSizeBeforeCreate);
     }
 
     @Test
@@ -172,6 +403,25 @@ class PhotoResourceIT {
         assertThat(photoList).hasSize(databaseSizeBeforeCreate);
     }
 
+    @Test
+    @Transactional
+    void checkImageIsRequired() throws Exception {
+        int databaseSizeBeforeTest = photoRepository.findAll().size();
+        // set the field null
+        photo.setImage(null);
+
+        // Create the Photo, which fails.
+
+        restPhotoMockMvc
+            .perform(
+                post(ENTITY_API_URL).with(csrf()).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(photo))
+            )
+            .andExpect(status().isBadRequest());
+
+        List<Photo> photoList = photoRepository.findAll();
+        assertThat(photoList).hasSize(databaseSizeBeforeTest);
+    }
+
     @Test
     @Transactional
     void checkTitleIsRequired() throws Exception {
@@ -191,11 +441,50 @@ class PhotoResourceIT {
         assertThat(photoList).hasSize(databaseSizeBeforeTest);
     }
 
+    @Test
+    @Transactional
+    void getAllPhotosWithCursor() throws Exception {
+        // Initialize the database with photos taken at the same time, an older one, and one not taken yet
+        Photo older = photoService.save(createEntity(em).taken(DEFAULT_TAKEN));
+        Photo first = photoService.save(createEntity(em).taken(UPDATED_TAKEN));
+        Photo second = photoService.save(createEntity(em).taken(UPDATED_TAKEN));
+        Photo pending = photoService.save(createEntity(em).taken(null));
+        em.flush();
+
+        // Follow the cursors through all the slices
+        List<Integer> ids = new ArrayList<>();
+        String cursor = "";
+        do {
+            MvcResult result = restPhotoMockMvc
+                .perform(get(ENTITY_API_URL + "?size=2&cursor=" + cursor))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Total-Count"))
+                .andReturn();
+            ids.addAll(JsonPath.read(result.getResponse().getContentAsString(), "$.[*].id"));
+            cursor = result.getResponse().getHeader(CursorPaginationUtil.NEXT_CURSOR_HEADER);
+        } while (cursor != null);
+
+        assertThat(ids).doesNotHaveDuplicates();
+        assertThat(ids)
+            .containsSubsequence(pending.getId().intValue(), second.getId().intValue(), first.getId().intValue(), older.getId().intValue());
+    }
+
+    @Test
+    @Transactional
+    void getAllPhotosWithInvalidCursor() throws Exception {
+        restPhotoMockMvc.perform(get(ENTITY_API_URL + "?cursor=invalid")).andExpect(status().isBadRequest());
+        restPhotoMockMvc
+            .perform(get(ENTITY_API_URL + "?cursor=" + CursorPaginationUtil.encodeCursor("yesterday", 1)))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     void getAllPhotos() throws Exception {
         // Initialize the database
-        photoRepository.saveAndFlush(photo);
+        photoService.save(photo);
+        em.flush();
+        em.detach(photo);
 
         // Get all the photoList
         restPhotoMockMvc
@@ -206,11 +495,317 @@ class PhotoResourceIT {
             .andExpect(jsonPath("$.[*].title").value(hasItem(DEFAULT_TITLE)))
             .andExpect(jsonPath("$.[*].description").value(hasItem(DEFAULT_DESCRIPTION.toString())))
             .andExpect(jsonPath("$.[*].imageContentType").value(hasItem(DEFAULT_IMAGE_CONTENT_TYPE)))
-            .andExpect(jsonPath("$.[*].image").value(hasItem(Base64Utils.encodeToString(DEFAULT_IMAGE))))
+            .andExpect(jsonPath("$.[*].image").doesNotExist())
             .andExpect(jsonPath("$.[*].height").value(hasItem(DEFAULT_HEIGHT)))
             .andExpect(jsonPath("$.[*].width").value(hasItem(DEFAULT_WIDTH)))
             .andExpect(jsonPath("$.[*].taken").value(hasItem(DEFAULT_TAKEN.toString())))
-            .andExpect(jsonPath("$.[*].uploaded").value(hasItem(DEFAULT_UPLOADED.toString())));
+            .andExpect(jsonPath("$.[*].uploaded").value(hasItem(DEFAULT_UPLOADED.toString())))
+            .andExpect(jsonPath("$.[*].latitude").value(hasItem(DEFAULT_LATITUDE.doubleValue())))
+            .andExpect(jsonPath("$.[*].longitude").value(hasItem(DEFAULT_LONGITUDE.doubleValue())));
+    }
+
+    @Test
+    @Transactional
+    void getAllPhotosWithEagerRelationshipsInTwoQueries() throws Exception {
+        // Initialize the database with tagged photos
+        Tag tag = TagResourceIT.createEntity(em);
+        em.persist(tag);
+        List<Photo> photos = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            photos.add(photoService.save(createEntity(em).addTag(tag)));
+        }
+        em.flush();
+        em.clear();
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        try {
+            // Get a page of photos with their tags: the ids of the page, the count, and the photos with their tags
+            statistics.clear();
+            restPhotoMockMvc
+                .perform(get(ENTITY_API_URL + "?eagerload=true&sort=id,desc&size=2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$.[0].id").value(photos.get(2).getId().intValue()))
+                .andExpect(jsonPath("$.[1].id").value(photos.get(1).getId().intValue()))
+                .andExpect(jsonPath("$.[0].tags.[*].name").value(hasItem(tag.getName())))
+                .andExpect(jsonPath("$.[1].tags.[*].name").value(hasItem(tag.getName())));
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+
+            // Get a slice of photos with their tags: the photos of the slice, and the photos with their tags
+            statistics.clear();
+            restPhotoMockMvc
+                .perform(get(ENTITY_API_URL + "?eagerload=true&cursor=&size=2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+
+    @Test
+    @Transactional
+    void getPhotoTimeline() throws Exception {
+        // Initialize the database with photos taken on two days of 1975
+        photoService.save(createEntity(em).taken(Instant.parse("1975-03-01T10:00:00Z")));
+        photoService.save(createEntity(em).taken(Instant.parse("1975-03-01T23:00:00Z")));
+        photoService.save(createEntity(em).taken(Instant.parse("1975-06-20T08:00:00Z")));
+        em.flush();
+        // the index is only updated once the transaction has been committed
+        photoTimelineIndex.rebuild();
+
+        restPhotoMockMvc
+            .perform(get(ENTITY_API_URL + "/timeline?granularity=year"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[?(@.date == '1975-01-01')].count").value(contains(3)));
+        restPhotoMockMvc
+            .perform(get(ENTITY_API_URL + "/timeline?granularity=month"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[?(@.date == '1975-06-01')].count").value(contains(1)))
+            .andExpect(jsonPath("$.[?(@.date == '1975-03-01')].count").value(contains(2)));
+        restPhotoMockMvc.perform(get(ENTITY_API_URL + "/timeline?granularity=week")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void getPhotoTimelinePosition() throws Exception {
+        // Initialize the database with photos taken on two days of 1975
+        Photo march = photoService.save(createEntity(em).taken(Instant.parse("1975-03-01T10:00:00Z")));
+        photoService.save(createEntity(em).taken(Instant.parse("1975-06-20T08:00:00Z")));
+        em.flush();
+        photoTimelineIndex.rebuild();
+
+        MvcResult result = restPhotoMockMvc
+            .perform(get(ENTITY_API_URL + "/timeline/position?date=1975-04-01"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.date").value("1975-04-01"))
+            .andReturn();
+        String cursor = JsonPath.read(result.getResponse().getContentAsString(), "$.cursor");
+
+        restPhotoMockMvc
+            .perform(get(ENTITY_API_URL + "?size=1&cursor=" + cursor))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(march.getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    void getPhotoMap() throws Exception {
+        // Initialize the database with two photos in Paris and one in Lisbon
+        Photo eiffelTower = photoService.save(createEntity(em).latitude(48.8584).longitude(2.2945));
+        photoService.save(createEntity(em).latitude(48.8606).longitude(2.3376));
+        Photo belem = photoService.save(createEntity(em).latitude(38.6916).longitude(-9.2160));
+        em.flush();
+        // the index is only updated once the transaction has been committed
+        photoGeoIndex.rebuild();
+
+        restPhotoMockMvc
+            .perform(get(ENTITY_API_URL + "/map?bbox=-10,38,3,49&zoom=2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$.[0].count").value(2))
+            .andExpect(jsonPath("$.[0].photoId").value(eiffelTower.getId().intValue()))
+            .andExpect(jsonPath("$.[1].count").value(1))
+            .andExpect(jsonPath("$.[1].photoId").value(belem.getId().intValue()));
+        restPhotoMockMvc
+            .perform(get(ENTITY_API_URL + "/map?bbox=2,48,3,49&zoom=14"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2));
+        restPhotoMockMvc.perform(get(ENTITY_API_URL + "/map?bbox=2,48,3&zoom=2")).andExpect(status().isBadRequest());
+        restPhotoMockMvc.perform(get(ENTITY_API_URL + "/map?bbox=2,49,3,48&zoom=2")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void getPhotoNearDuplicates() throws Exception {
+        // Initialize the database with a photo, a resized copy and another photo, and process their images
+        Photo original = photoService.save(createEntity(em).image(gradientJpeg(600, 400, false)).imageContentType("image/jpeg"));
+        Photo resized = photoService.save(createEntity(em).image(gradientJpeg(300, 200, false)).imageContentType("image/jpeg"));
+        Photo other = photoService.save(createEntity(em).image(gradientJpeg(600, 400, true)).imageContentType("image/jpeg"));
+        em.flush();
+        for (Photo photo : List.of(original, resized, other)) {
+            photoProcessingService.process(photo.getId());
+        }
+        em.flush();
+        assertThat(photoService.findContent(original.getId()).get().getPerceptualHash()).isNotNull();
+        // the index is only updated once the transaction has been committed
+        photoNearDuplicateIndex.rebuild();
+
+        restPhotoMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/near-duplicates?maxDistance=8", original.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].photoId").value(resized.getId().intValue()))
+            .andExpect(jsonPath("$.[0].distance").value(lessThanOrEqualTo(8)));
+        restPhotoMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/near-duplicates?maxDistance=64", original.getId()))
+            .andExpect(status().isBadRequest());
+        restPhotoMockMvc.perform(get(ENTITY_API_URL_ID + "/near-duplicates", Long.MAX_VALUE >>> 32)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    void getSimilarPhotos() throws Exception {
+        // Initialize the database with a photo, a resized copy and another photo, and process their images
+        Photo original = photoService.save(createEntity(em).image(gradientJpeg(600, 400, false)).imageContentType("image/jpeg"));
+        Photo resized = photoService.save(createEntity(em).image(gradientJpeg(300, 200, false)).imageContentType("image/jpeg"));
+        Photo other = photoService.save(createEntity(em).image(gradientJpeg(600, 400, true)).imageContentType("image/jpeg"));
+        em.flush();
+        for (Photo photo : List.of(original, resized, other)) {
+            photoProcessingService.process(photo.getId());
+        }
+        em.flush();
+        assertThat(photoService.findContent(original.getId()).get().getFeatureVector()).isNotNull();
+        // the index is only updated once the transaction has been committed
+        photoSimilarityIndex.rebuild();
+
+        restPhotoMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/similar?limit=2", original.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$.[0].photoId").value(resized.getId().intValue()))
+            .andExpect(jsonPath("$.[1].photoId").value(other.getId().intValue()));
+        restPhotoMockMvc.perform(get(ENTITY_API_URL_ID + "/similar?limit=0", original.getId())).andExpect(status().isBadRequest());
+        restPhotoMockMvc.perform(get(ENTITY_API_URL_ID + "/similar", Long.MAX_VALUE >>> 32)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    void getAllPhotosWithPlaceholders() throws Exception {
+        // Initialize the database with a photo, and process its image
+        Photo photo = photoService.save(createEntity(em).image(gradientJpeg(600, 400, false)).imageContentType("image/jpeg"));
+        em.flush();
+        photoProcessingService.process(photo.getId());
+        em.flush();
+        String blurhash = photo.getBlurhash();
+        assertThat(blurhash).hasSize(28).startsWith("L");
+        assertThat(photo.getDominantColor()).matches("#[0-9a-f]{6}");
+
+        restPhotoMockMvc
+            .perform(get(ENTITY_API_URL + "?sort=id,desc"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].id").value(photo.getId().intValue()))
+            .andExpect(jsonPath("$.[0].blurhash").value(blurhash))
+            .andExpect(jsonPath("$.[0].dominantColor").value(photo.getDominantColor()));
+
+        // The placeholder is managed by the server, and kept until the image changes
+        Photo updatedPhoto = photoRepository.findById(photo.getId()).get();
+        em.detach(updatedPhoto);
+        updatedPhoto.title(UPDATED_TITLE).setBlurhash("LAAAAAAAAAAAAAAAAAAAAAAAAAAA");
+        restPhotoMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, updatedPhoto.getId())
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(updatedPhoto))
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.blurhash").value(blurhash));
+        assertThat(photoRepository.findById(photo.getId()).get().getBlurhash()).isEqualTo(blurhash);
+
+        updatedPhoto.image(gradientJpeg(600, 400, true)).imageContentType("image/jpeg");
+        restPhotoMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, updatedPhoto.getId())
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(updatedPhoto))
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.blurhash").doesNotExist());
+    }
+
+    private static byte[] gradientJpeg(int width, int height, boolean reversed) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            Color from = reversed ? Color.WHITE : Color.BLACK;
+            Color to = reversed ? Color.BLACK : Color.WHITE;
+            graphics.setPaint(new GradientPaint(0, 0, from, width, height / 3f, to, true));
+            graphics.fillRect(0, 0, width, height);
+        } finally {
+            graphics.dispose();
+        }
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", jpeg);
+        return jpeg.toByteArray();
+    }
+
+    @Test
+    @Transactional
+    void searchPhotosByTags() throws Exception {
+        // Initialize the database with tagged photos
+        Tag sunset = TagResourceIT.createEntity(em).name("Sunset");
+        Tag beach = TagResourceIT.createEntity(em).name("Beach");
+        Tag city = TagResourceIT.createEntity(em).name("City");
+        em.persist(sunset);
+        em.persist(beach);
+        em.persist(city);
+        Photo sunsetOnBeach = photoService.save(createEntity(em).addTag(sunset).addTag(beach));
+        Photo sunsetInCity = photoService.save(createEntity(em).addTag(sunset).addTag(city));
+        Photo onBeach = photoService.save(createEntity(em).addTag(beach));
+        em.flush();
+        // the index is only updated once the transaction has been committed
+        photoTagIndex.rebuild();
+
+        restPhotoMockMvc
+            .perform(get(ENTITY_API_URL + "/search?tags=sunset,BEACH"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "1"))
+            .andExpect(jsonPath("$.[*].id").value(contains(sunsetOnBeach.getId().intValue())))
+            .andExpect(jsonPath("$.[0].tags.length()").value(2));
+        restPhotoMockMvc
+            .perform(get(ENTITY_API_URL + "/search?anyTags=beach,city&notTags=sunset"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(onBeach.getId().intValue())));
+        restPhotoMockMvc
+            .perform(get(ENTITY_API_URL + "/search?tags=sunset&size=1&page=1"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "2"))
+            .andExpect(jsonPath("$.[*].id").value(contains(sunsetOnBeach.getId().intValue())));
+        restPhotoMockMvc
+            .perform(get(ENTITY_API_URL + "/search?tags=sunset,unknown"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    @Transactional
+    void searchPhotosByText() throws Exception {
+        // Initialize the database with photos, tags and albums
+        Album lisbon = AlbumResourceIT.createEntity(em).title("Holidays in Lisbon");
+        em.persist(lisbon);
+        Tag coffee = TagResourceIT.createEntity(em).name("Coffee");
+        em.persist(coffee);
+        Photo sunset = photoService.save(createEntity(em).title("Sunset over the Tagus").album(lisbon));
+        Photo terrace = photoService.save(createEntity(em).title("Café terrace").addTag(coffee));
+        photoService.save(createEntity(em).title("Mountains"));
+        em.flush();
+        // the index is only updated once the transaction has been committed
+        photoSearchQueue.reindex();
+
+        restPhotoMockMvc
+            .perform(get("/api/_search/photos?q=sunst"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "1"))
+            .andExpect(jsonPath("$.[*].id").value(contains(sunset.getId().intValue())))
+            .andExpect(jsonPath("$.[0].album.title").value("Holidays in Lisbon"));
+        restPhotoMockMvc
+            .perform(get("/api/_search/photos?q=cafe coff"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(terrace.getId().intValue())))
+            .andExpect(jsonPath("$.[0].tags.length()").value(1));
+        restPhotoMockMvc
+            .perform(get("/api/_search/photos?q=lisb"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(sunset.getId().intValue())));
+        restPhotoMockMvc.perform(get("/api/_search/photos?q=unknown")).andExpect(status().isOk()).andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    void reindexPhotosRequiresAdmin() throws Exception {
+        restPhotoMockMvc.perform(post("/api/_search/photos/_reindex").with(csrf())).andExpect(status().isForbidden());
     }
 
     @SuppressWarnings({ "unchecked" })
@@ -235,7 +830,8 @@ class PhotoResourceIT {
     @Transactional
     void getPhoto() throws Exception {
         // Initialize the database
-        photoRepository.saveAndFlush(photo);
+        photoService.save(photo);
+        em.flush();
 
         // Get the photo
         restPhotoMockMvc
@@ -250,7 +846,9 @@ class PhotoResourceIT {
             .andExpect(jsonPath("$.height").value(DEFAULT_HEIGHT))
             .andExpect(jsonPath("$.width").value(DEFAULT_WIDTH))
             .andExpect(jsonPath("$.taken").value(DEFAULT_TAKEN.toString()))
-            .andExpect(jsonPath("$.uploaded").value(DEFAULT_UPLOADED.toString()));
+            .andExpect(jsonPath("$.uploaded").value(DEFAULT_UPLOADED.toString()))
+            .andExpect(jsonPath("$.latitude").value(DEFAULT_LATITUDE.doubleValue()))
+            .andExpect(jsonPath("$.longitude").value(DEFAULT_LONGITUDE.doubleValue()));
     }
 
     @Test
@@ -260,11 +858,175 @@ class PhotoResourceIT {
         restPhotoMockMvc.perform(get(ENTITY_API_URL_ID, Long.MAX_VALUE)).andExpect(status().isNotFound());
     }
 
+    @Test
+    @Transactional
+    void getPhotoImage() throws Exception {
+        // Initialize the database
+        photoService.save(photo);
+        em.flush();
+        String imageKey = photoService.findContent(photo.getId()).get().getImageKey();
+
+        // Get the photo image
+        restPhotoMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/image", photo.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(DEFAULT_IMAGE_CONTENT_TYPE))
+            .andExpect(content().bytes(DEFAULT_IMAGE))
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + imageKey + "\""))
+            .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"));
+    }
+
+    @Test
+    @Transactional
+    void getPhotoImageThumbnail() throws Exception {
+        // Initialize the database with a decodable image, and generate its thumbnails
+        BufferedImage original = new BufferedImage(600, 400, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        ImageIO.write(original, "jpg", jpeg);
+        photo.image(jpeg.toByteArray()).imageContentType("image/jpeg");
+        photoService.save(photo);
+        em.flush();
+        photoProcessingService.process(photo.getId());
+        em.flush();
+        PhotoContent content = photoService.findContent(photo.getId()).get();
+        assertThat(content.getThumbnails()).extracting(PhotoThumbnail::getSize).containsExactlyInAnyOrder(160, 480);
+
+        // Get the smallest thumbnail covering the requested size
+        byte[] thumbnail = restPhotoMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/image?size=100&v=" + content.getImageKey(), photo.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.IMAGE_JPEG))
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + content.getThumbnail(100).get().getImageKey() + "\""))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, private, immutable"))
+            .andReturn()
+            .getResponse()
+            .getContentAsByteArray();
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(thumbnail));
+        assertThat(image.getWidth()).isEqualTo(160);
+        assertThat(image.getHeight()).isEqualTo(107);
+
+        // Get the original image when no thumbnail covers the requested size
+        restPhotoMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/image?size=1080", photo.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + content.getImageKey() + "\""))
+            .andExpect(content().bytes(jpeg.toByteArray()));
+    }
+
+    @Test
+    @Transactional
+    void getPhotoImageVariant() throws Exception {
+        // Initialize the database with a decodable image
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(600, 400, BufferedImage.TYPE_INT_RGB), "jpg", jpeg);
+        photo.image(jpeg.toByteArray()).imageContentType("image/jpeg");
+        photoService.save(photo);
+        em.flush();
+
+        // Get a cropped variant
+        assertVariantDimensions(get(ENTITY_API_URL_ID + "/image?w=100&h=100&fit=cover", photo.getId()), 100, 100);
+        // Get a variant for a device pixel ratio of 2, keeping the aspect ratio
+        assertVariantDimensions(get(ENTITY_API_URL_ID + "/image?w=150", photo.getId()).header("DPR", "2"), 300, 200);
+        // Get a variant from the Width client hint, never larger than the image
+        assertVariantDimensions(get(ENTITY_API_URL_ID + "/image", photo.getId()).header("Width", "2000"), 600, 400);
+        // Ignore the client hints which are not positive numbers
+        assertVariantDimensions(get(ENTITY_API_URL_ID + "/image?w=150", photo.getId()).header("DPR", "NaN"), 150, 100);
+        assertVariantDimensions(get(ENTITY_API_URL_ID + "/image?w=150", photo.getId()).header("DPR", "-2"), 150, 100);
+        String imageKey = photoService.findContent(photo.getId()).get().getImageKey();
+        restPhotoMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/image", photo.getId()).header("Width", "0"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + imageKey + "\""))
+            .andExpect(content().bytes(jpeg.toByteArray()));
+        restPhotoMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/image", photo.getId()).header("Width", "-1"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + imageKey + "\""));
+
+        // Get a more compressed variant when the client asks to save data
+        restPhotoMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/image?w=100", photo.getId()).header("Save-Data", "on"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, containsString("-q60")))
+            .andExpect(header().stringValues(HttpHeaders.VARY, hasItem("DPR, Width, Save-Data")));
+
+        restPhotoMockMvc.perform(get(ENTITY_API_URL_ID + "/image?w=100&fit=stretch", photo.getId())).andExpect(status().isBadRequest());
+        restPhotoMockMvc.perform(get(ENTITY_API_URL_ID + "/image?w=0", photo.getId())).andExpect(status().isBadRequest());
+    }
+
+    private void assertVariantDimensions(MockHttpServletRequestBuilder request, int width, int height) throws Exception {
+        byte[] variant = restPhotoMockMvc
+            .perform(request)
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.IMAGE_JPEG))
+            .andReturn()
+            .getResponse()
+            .getContentAsByteArray();
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(variant));
+        assertThat(image.getWidth()).isEqualTo(width);
+        assertThat(image.getHeight()).isEqualTo(height);
+    }
+
+    @Test
+    @Transactional
+    void getPhotoImageWithVersionIsImmutable() throws Exception {
+        // Initialize the database
+        photoService.save(photo);
+        em.flush();
+        String imageKey = photoService.findContent(photo.getId()).get().getImageKey();
+
+        // Get the photo image with the current content hash
+        restPhotoMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/image?v={version}", photo.getId(), imageKey))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, private, immutable"));
+    }
+
+    @Test
+    @Transactional
+    void getPhotoImageNotModified() throws Exception {
+        // Initialize the database
+        photoService.save(photo);
+        em.flush();
+        String imageKey = photoService.findContent(photo.getId()).get().getImageKey();
+
+        // Get the photo image with a matching ETag
+        restPhotoMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/image", photo.getId()).header(HttpHeaders.IF_NONE_MATCH, "\"" + imageKey + "\""))
+            .andExpect(status().isNotModified())
+            .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    @Transactional
+    void getPhotoImageRange() throws Exception {
+        // Initialize the database
+        photo.setImage("0123456789".getBytes(StandardCharsets.US_ASCII));
+        photoService.save(photo);
+        em.flush();
+
+        // Get a range of the photo image
+        restPhotoMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/image", photo.getId()).header(HttpHeaders.RANGE, "bytes=2-5"))
+            .andExpect(status().isPartialContent())
+            .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+            .andExpect(content().bytes("2345".getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    @Transactional
+    void getNonExistingPhotoImage() throws Exception {
+        // Get the photo image
+        restPhotoMockMvc.perform(get(ENTITY_API_URL_ID + "/image", Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
+
     @Test
     @Transactional
     void putNewPhoto() throws Exception {
         // Initialize the database
-        photoRepository.saveAndFlush(photo);
+        photoService.save(photo);
+        em.flush();
 
         int databaseSizeBeforeUpdate = photoRepository.findAll().size();
 
@@ -280,7 +1042,9 @@ class PhotoResourceIT {
             .height(UPDATED_HEIGHT)
             .width(UPDATED_WIDTH)
             .taken(UPDATED_TAKEN)
-            .uploaded(UPDATED_UPLOADED);
+            .uploaded(UPDATED_UPLOADED)
+            .latitude(UPDATED_LATITUDE)
+            .longitude(UPDATED_LONGITUDE);
 
         restPhotoMockMvc
             .perform(
@@ -297,12 +1061,14 @@ class PhotoResourceIT {
         Photo testPhoto = photoList.get(photoList.size() - 1);
         assertThat(testPhoto.getTitle()).isEqualTo(UPDATED_TITLE);
         assertThat(testPhoto.getDescription()).isEqualTo(UPDATED_DESCRIPTION);
-        assertThat(testPhoto.getImage()).isEqualTo(UPDATED_IMAGE);
+        assertThat(photoService.loadImage(testPhoto).getImage()).isEqualTo(UPDATED_IMAGE);
         assertThat(testPhoto.getImageContentType()).isEqualTo(UPDATED_IMAGE_CONTENT_TYPE);
         assertThat(testPhoto.getHeight()).isEqualTo(UPDATED_HEIGHT);
         assertThat(testPhoto.getWidth()).isEqualTo(UPDATED_WIDTH);
         assertThat(testPhoto.getTaken()).isEqualTo(UPDATED_TAKEN);
         assertThat(testPhoto.getUploaded()).isEqualTo(UPDATED_UPLOADED);
+        assertThat(testPhoto.getLatitude()).isEqualTo(UPDATED_LATITUDE);
+        assertThat(testPhoto.getLongitude()).isEqualTo(UPDATED_LONGITUDE);
     }
 
     @Test
@@ -369,7 +1135,8 @@ class PhotoResourceIT {
     @Transactional
     void partialUpdatePhotoWithPatch() throws Exception {
         // Initialize the database
-        photoRepository.saveAndFlush(photo);
+        photoService.save(photo);
+        em.flush();
 
         int databaseSizeBeforeUpdate = photoRepository.findAll().size();
 
@@ -399,19 +1166,22 @@ class PhotoResourceIT {
         Photo testPhoto = photoList.get(photoList.size() - 1);
         assertThat(testPhoto.getTitle()).isEqualTo(UPDATED_TITLE);
         assertThat(testPhoto.getDescription()).isEqualTo(DEFAULT_DESCRIPTION);
-        assertThat(testPhoto.getImage()).isEqualTo(UPDATED_IMAGE);
+        assertThat(photoService.loadImage(testPhoto).getImage()).isEqualTo(UPDATED_IMAGE);
         assertThat(testPhoto.getImageContentType()).isEqualTo(UPDATED_IMAGE_CONTENT_TYPE);
         assertThat(testPhoto.getHeight()).isEqualTo(UPDATED_HEIGHT);
         assertThat(testPhoto.getWidth()).isEqualTo(DEFAULT_WIDTH);
         assertThat(testPhoto.getTaken()).isEqualTo(UPDATED_TAKEN);
         assertThat(testPhoto.getUploaded()).isEqualTo(DEFAULT_UPLOADED);
+        assertThat(testPhoto.getLatitude()).isEqualTo(DEFAULT_LATITUDE);
+        assertThat(testPhoto.getLongitude()).isEqualTo(DEFAULT_LONGITUDE);
     }
 
     @Test
     @Transactional
     void fullUpdatePhotoWithPatch() throws Exception {
         // Initialize the database
-        photoRepository.saveAndFlush(photo);
+        photoService.save(photo);
+        em.flush();
 
         int databaseSizeBeforeUpdate = photoRepository.findAll().size();
 
@@ -427,7 +1197,9 @@ class PhotoResourceIT {
             .height(UPDATED_HEIGHT)
             .width(UPDATED_WIDTH)
             .taken(UPDATED_TAKEN)
-            .uploaded(UPDATED_UPLOADED);
+            .uploaded(UPDATED_UPLOADED)
+            .latitude(UPDATED_LATITUDE)
+            .longitude(UPDATED_LONGITUDE);
 
         restPhotoMockMvc
             .perform(
@@ -444,12 +1216,14 @@ class PhotoResourceIT {
         Photo testPhoto = photoList.get(photoList.size() - 1);
         assertThat(testPhoto.getTitle()).isEqualTo(UPDATED_TITLE);
         assertThat(testPhoto.getDescription()).isEqualTo(UPDATED_DESCRIPTION);
-        assertThat(testPhoto.getImage()).isEqualTo(UPDATED_IMAGE);
+        assertThat(photoService.loadImage(testPhoto).getImage()).isEqualTo(UPDATED_IMAGE);
         assertThat(testPhoto.getImageContentType()).isEqualTo(UPDATED_IMAGE_CONTENT_TYPE);
         assertThat(testPhoto.getHeight()).isEqualTo(UPDATED_HEIGHT);
         assertThat(testPhoto.getWidth()).isEqualTo(UPDATED_WIDTH);
         assertThat(testPhoto.getTaken()).isEqualTo(UPDATED_TAKEN);
         assertThat(testPhoto.getUploaded()).isEqualTo(UPDATED_UPLOADED);
+        assertThat(testPhoto.getLatitude()).isEqualTo(UPDATED_LATITUDE);
+        assertThat(testPhoto.getLongitude()).isEqualTo(UPDATED_LONGITUDE);
     }
 
     @Test
@@ -519,7 +1293,8 @@ class PhotoResourceIT {
     @Transactional
     void deletePhoto() throws Exception {
         // Initialize the database
-        photoRepository.saveAndFlush(photo);
+        photoService.save(photo);
+        em.flush();
 
         int databaseSizeBeforeDelete = photoRepository.findAll().size();
 
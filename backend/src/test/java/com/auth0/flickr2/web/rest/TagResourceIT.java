@@ -1,6 +1,7 @@
 package com.auth0.flickr2.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.hasItem;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -9,6 +10,10 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import com.auth0.flickr2.IntegrationTest;
 import com.auth0.flickr2.domain.Tag;
 import com.auth0.flickr2.repository.TagRepository;
+import com.auth0.flickr2.service.TagSuggestIndex;
+import com.auth0.flickr2.web.rest.util.CursorPaginationUtil;
+import com.jayway.jsonpath.JsonPath;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
@@ -20,6 +25,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -42,6 +48,9 @@ class TagResourceIT {
     @Autowired
     private TagRepository tagRepository;
 
+    @Autowired
+    private TagSuggestIndex tagSuggestIndex;
+
     @Autowired
     private EntityManager em;
 
@@ -95,6 +104,26 @@ class TagResourceIT {
         assertThat(testTag.getName()).isEqualTo(DEFAULT_NAME);
     }
 
+    @Test
+    @Transactional
+    void createTagWithExistingName() throws Exception {
+        // Initialize the database
+        tagRepository.saveAndFlush(tag);
+        int databaseSizeBeforeCreate = tagRepository.findAll().size();
+
+        // A tag with the name of an existing tag, ignoring case, cannot be created
+        Tag newTag = createEntity(em).name(DEFAULT_NAME.toLowerCase());
+        restTagMockMvc
+            .perform(
+                post(ENTITY_API_URL).with(csrf()).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(newTag))
+            )
+            .andExpect(status().isBadRequest());
+
+        // Validate the Tag in the database
+        List<Tag> tagList = tagRepository.findAll();
+        assertThat(tagList).hasSize(databaseSizeBeforeCreate);
+    }
+
     @Test
     @Transactional
     void createTagWithExistingId() throws Exception {
@@ -149,6 +178,60 @@ class TagResourceIT {
             .andExpect(jsonPath("$.[*].name").value(hasItem(DEFAULT_NAME)));
     }
 
+    @Test
+    @Transactional
+    void getAllTagsWithCursor() throws Exception {
+        // Initialize the database
+        Tag first = tagRepository.saveAndFlush(createEntity(em));
+        Tag second = tagRepository.saveAndFlush(createEntity(em).name(UPDATED_NAME));
+        Tag last = tagRepository.saveAndFlush(createEntity(em).name(UPDATED_NAME + "C"));
+
+        // Follow the cursors through all the slices
+        List<Integer> ids = new ArrayList<>();
+        String cursor = "";
+        do {
+            MvcResult result = restTagMockMvc
+                .perform(get(ENTITY_API_URL + "?size=2&cursor=" + cursor))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Total-Count"))
+                .andReturn();
+            ids.addAll(JsonPath.read(result.getResponse().getContentAsString(), "$.[*].id"));
+            cursor = result.getResponse().getHeader(CursorPaginationUtil.NEXT_CURSOR_HEADER);
+        } while (cursor != null);
+
+        assertThat(ids).doesNotHaveDuplicates();
+        assertThat(ids).containsSubsequence(first.getId().intValue(), second.getId().intValue(), last.getId().intValue());
+    }
+
+    @Test
+    @Transactional
+    void getAllTagsWithInvalidCursor() throws Exception {
+        restTagMockMvc.perform(get(ENTITY_API_URL + "?cursor=invalid")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void suggestTags() throws Exception {
+        // Initialize the database
+        Tag sunset = tagRepository.saveAndFlush(createEntity(em).name("Suggested sunset"));
+        Tag sea = tagRepository.saveAndFlush(createEntity(em).name("suggested sea"));
+        tagRepository.saveAndFlush(createEntity(em).name("Suggestion"));
+        // the index is only updated once the transaction has been committed
+        tagSuggestIndex.rebuild();
+
+        restTagMockMvc
+            .perform(get(ENTITY_API_URL + "/_suggest?prefix=SUGGESTED"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.[*].id").value(containsInAnyOrder(sunset.getId().intValue(), sea.getId().intValue())));
+        restTagMockMvc
+            .perform(get(ENTITY_API_URL + "/_suggest?prefix=sugg&size=1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1));
+        restTagMockMvc.perform(get(ENTITY_API_URL + "/_suggest?prefix=")).andExpect(status().isBadRequest());
+        restTagMockMvc.perform(get(ENTITY_API_URL + "/_suggest")).andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     void getTag() throws Exception {